@@ -3,27 +3,58 @@ package jp.co.tis.controller;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.servlet.http.HttpServletRequest;
 
 import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.exception.FileSizeLimitExceededException;
 import jp.co.tis.exception.SystemException;
 import jp.co.tis.form.WeatherSearchForm;
+import jp.co.tis.logic.CsvPreviewLogic;
+import jp.co.tis.logic.CsvRegisterLogic;
+import jp.co.tis.logic.CsvValidationLogic;
+import jp.co.tis.logic.DirectoryIngestLogic;
+import jp.co.tis.logic.IngestJobManager;
+import jp.co.tis.logic.SearchResultCache;
+import jp.co.tis.logic.SnapshotLogic;
 import jp.co.tis.logic.WeatherLogic;
+import jp.co.tis.logic.WeatherSearchLogic;
+import jp.co.tis.model.CsvPreview;
+import jp.co.tis.model.CsvValidationReport;
+import jp.co.tis.model.DirectoryIngestReport;
+import jp.co.tis.model.IngestJob;
+import jp.co.tis.model.MergeResult;
+import jp.co.tis.model.SearchCacheStatistics;
+import jp.co.tis.model.SnapshotReport;
 import jp.co.tis.model.Weather;
 import jp.co.tis.model.WeatherDao;
 import jp.co.tis.model.WeatherDto;
-import jp.co.tis.util.CsvReaderImpl;
+import jp.co.tis.model.WeatherPage;
+import jp.co.tis.util.CsvReader;
+import jp.co.tis.util.CsvReaderFactory;
+import jp.co.tis.util.MultipartStream;
+import jp.co.tis.util.SizeLimitedInputStream;
+import jp.co.tis.util.SpillFileReader;
 
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.ModelAndView;
 
 /**
@@ -43,6 +74,46 @@ public class WeatherController {
     @Autowired
     private WeatherLogic weatherLogic;
 
+    /** CSV登録ロジッククラス */
+    @Autowired
+    private CsvRegisterLogic csvRegisterLogic;
+
+    /** CSVプレビューロジッククラス */
+    @Autowired
+    private CsvPreviewLogic csvPreviewLogic;
+
+    /** CSV登録ジョブの管理クラス */
+    @Autowired
+    private IngestJobManager ingestJobManager;
+
+    /** CSV検証ロジッククラス */
+    @Autowired
+    private CsvValidationLogic csvValidationLogic;
+
+    /** ディレクトリ一括登録ロジッククラス */
+    @Autowired
+    private DirectoryIngestLogic directoryIngestLogic;
+
+    /** スナップショットロジッククラス */
+    @Autowired
+    private SnapshotLogic snapshotLogic;
+
+    /** 天気検索ロジッククラス */
+    @Autowired
+    private WeatherSearchLogic weatherSearchLogic;
+
+    /** 検索結果のキャッシュ */
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    /** CsvReaderの生成クラス */
+    @Autowired
+    private CsvReaderFactory csvReaderFactory;
+
+    /** アップロードできるファイルサイズの上限（バイト） */
+    @Value("${wfis.upload.maxFileSize:104857600}")
+    private long maxUploadSize;
+
     /**
      * Formのセットアップを行う。
      *
@@ -155,9 +226,7 @@ public class WeatherController {
             return modelAndView;
         }
 
-        String selectSql = weatherLogic.createSqlForSearch(form);
-        Map<String, String> condition = weatherLogic.createConditionForSearch(form);
-        List<Weather> weatherList = weatherDao.findBySql(selectSql, condition);
+        List<Weather> weatherList = weatherSearchLogic.search(form);
 
         if (weatherList.isEmpty()) {
             errorList.add("検索結果がありません。");
@@ -200,14 +269,15 @@ public class WeatherController {
             return modelAndView;
         }
 
-        String selectSql = weatherLogic.createSqlForSearchHard(form);
-        Map<String, String> condition = weatherLogic.createConditionForSearchHard(form);
-        List<Weather> weatherList = weatherDao.findBySql(selectSql, condition);
+        WeatherPage weatherPage = weatherSearchLogic.searchHard(form);
+        List<Weather> weatherList = weatherPage.getWeatherList();
 
         modelAndView.addObject("form", form);
         modelAndView.addObject("weatherList", weatherList);
         modelAndView.addObject("searchCount", weatherList.size());
-        if (weatherList.isEmpty()) {
+        modelAndView.addObject("previousCursor", weatherPage.getPreviousCursor());
+        modelAndView.addObject("nextCursor", weatherPage.getNextCursor());
+        if (weatherList.isEmpty() && StringUtils.isEmpty(form.getCursor())) {
             modelAndView.addObject("noResult", Boolean.TRUE);
         }
         modelAndView.setViewName("weatherSearchHard");
@@ -252,7 +322,8 @@ public class WeatherController {
     }
 
     /**
-     * CSVファイルを読み込んで表示する。
+     * CSVファイルを読み込んで表示する。<br/>
+     * ファイル全体の精査と件数の集計はサーバー上で一度だけ行い、画面には最初のページの行のみを表示する。
      *
      * @param form フォーム
      * @param bindingResult バリデーション結果
@@ -272,54 +343,86 @@ public class WeatherController {
         }
 
         // CSVファイル読み込み処理
-        CsvReaderImpl csvReaderImpl = new CsvReaderImpl(form.getFilePath());
+        CsvPreview preview;
         try {
-            csvReaderImpl.open();
-        } catch (FileNotFoundException | FileFormatException e) {
+            preview = csvPreviewLogic.createPreview(form.getFilePath());
+        } catch (FileNotFoundException e) {
             return weatherLogic.createErrorModelAndView(form, e.getMessage());
+        } catch (IOException e) {
+            throw new SystemException("システム例外が発生しました。", e);
+        } catch (FileFormatException e) {
+            if (e.getLineNumber() == 0) {
+                return weatherLogic.createErrorModelAndView(form, e.getMessage());
+            }
+            return weatherLogic.createErrorModelAndView(form, e.getLineNumber() + "行目 ：" + e.getMessage());
+        }
+        if (preview.getRowCount() == 0) {
+            return weatherLogic.createErrorModelAndView(form, "登録するデータが存在しません。");
+        }
+
+        return createPreviewModelAndView(form, preview, 0);
+    }
+
+    /**
+     * CSVファイルをDBに登録せずに検証する。<br/>
+     * ファイルを一度だけ読み込み、最初の誤りで止めずに全ての行のエラーを行番号付きで表示する。
+     *
+     * @param form フォーム
+     * @param bindingResult バリデーション結果
+     * @return ModelAndView
+     */
+    @RequestMapping(value = "csvRegister/validate", method = RequestMethod.POST)
+    public ModelAndView validate(@Validated WeatherSearchForm form, BindingResult bindingResult) {
+        ModelAndView modelAndView = new ModelAndView();
+
+        // 項目精査
+        List<String> errorList = weatherLogic.validateFormForCsvRead(form);
+        if (!errorList.isEmpty()) {
+            modelAndView.addObject("filePath", form.getFilePath());
+            modelAndView.addObject("errorList", errorList);
+            modelAndView.setViewName("csvRegister");
+            return modelAndView;
         }
 
-        int rowCount = 0;
-        String csvData = null;
-        List<Map<String, String>> csvReadList = new ArrayList<Map<String, String>>();
+        CsvValidationReport report;
         try {
-            StringBuilder data = new StringBuilder();
-            while (true) {
-                Map<String, String> row = csvReaderImpl.readLine();
-                // 読み込む行がなくなった場合
-                if (row == null) {
-                    break;
-                }
-                csvReadList.add(row);
-                for (String key : row.keySet()) {
-                    data.append(row.get(key)).append(",");
-                }
-                rowCount++;
-            }
-            if (csvReadList.isEmpty()) {
-                return weatherLogic.createErrorModelAndView(form, "登録するデータが存在しません。");
-            }
-            csvData = StringUtils.removeEnd(data.toString(), ",");
+            report = csvValidationLogic.validate(form.getFilePath());
+        } catch (FileNotFoundException e) {
+            return weatherLogic.createErrorModelAndView(form, e.getMessage());
         } catch (IOException e) {
             throw new SystemException("システム例外が発生しました。", e);
-        } catch (FileFormatException e) {
-            // ヘッダーの行数も考慮するため
-            rowCount += 2;
-            return weatherLogic.createErrorModelAndView(form, rowCount + "行目 ：" + e.getMessage());
         }
-        csvReaderImpl.close();
 
-        modelAndView.addObject("csvReadList", csvReadList);
-        modelAndView.addObject("csvData", csvData);
-        modelAndView.addObject("rowCount", rowCount);
         modelAndView.addObject("filePath", form.getFilePath());
+        modelAndView.addObject("errorList", report.getErrorList());
+        modelAndView.addObject("validationReport", report);
         modelAndView.setViewName("csvRegister");
-
         return modelAndView;
     }
 
     /**
-     * CSVファイルのデータを登録する。
+     * 読み込んだCSVファイルの指定したページを表示する。
+     *
+     * @param form フォーム
+     * @param bindingResult バリデーション結果
+     * @return ModelAndView
+     */
+    @RequestMapping(value = "csvRegister/preview", method = RequestMethod.GET)
+    public ModelAndView preview(@Validated WeatherSearchForm form, BindingResult bindingResult) {
+        CsvPreview preview = csvPreviewLogic.getPreview(form.getPreviewId());
+        if (preview == null) {
+            return weatherLogic.createErrorModelAndView(form, "プレビューの有効期限が切れています。再度読み込んでください。");
+        }
+
+        return createPreviewModelAndView(form, preview, form.getPage());
+    }
+
+    /**
+     * CSVファイルのデータを登録する。<br/>
+     * 読み込み時に精査済みのデータを書き出した一時ファイルを、プレビューIDで特定して登録する。
+     * 登録方式は設定（wfis.register.mode）に従い、マージ登録の場合はマージ結果を表示する。
+     * 一定件数ごとにコミットする設定（wfis.register.commitInterval）の場合、途中で失敗しても同じプレビューで再実行すると続きから登録する。<br/>
+     * 登録中のプレビューは取り出しておくため、同じプレビューで重ねて登録が要求されても二重に登録しない。
      *
      * @param form フォーム
      * @param bindingResult バリデーション結果
@@ -330,31 +433,504 @@ public class WeatherController {
     public ModelAndView register(@Validated WeatherSearchForm form, BindingResult bindingResult) {
         ModelAndView modelAndView = new ModelAndView();
 
-        // CSV一行ずつのListを作成
-        List<String> csvRowList = new ArrayList<String>();
-        StringBuilder row = new StringBuilder("");
-        int loopCount = 1;
-        for (String csvData : form.getCsvDataList()) {
-            if (loopCount == 5) {
-                loopCount = 0;
-                row.append("'").append(csvData).append("'");
-                csvRowList.add(row.toString());
-                row = new StringBuilder();
-            } else {
-                row.append("'").append(csvData).append("'").append(",");
+        CsvPreview preview = csvPreviewLogic.takePreview(form.getPreviewId());
+        if (preview == null) {
+            return weatherLogic.createErrorModelAndView(form, "プレビューの有効期限が切れています。再度読み込んでください。");
+        }
+
+        IngestJob job = new IngestJob(null, preview.getFilePath());
+        boolean registered = false;
+        try {
+            registerPreview(preview, job, modelAndView);
+            registered = true;
+        } finally {
+            // 成功した場合は一時ファイルを削除し、失敗した場合は再実行できるようプレビューを戻す
+            csvPreviewLogic.releasePreview(preview, registered);
+        }
+
+        modelAndView.setViewName("complete");
+        return modelAndView;
+    }
+
+    /**
+     * プレビューの一時ファイルのデータを、設定された登録方式で登録する。
+     *
+     * @param preview プレビュー
+     * @param job 進捗を記録するジョブ
+     * @param modelAndView 登録結果を設定するModelAndView
+     */
+    private void registerPreview(CsvPreview preview, IngestJob job, ModelAndView modelAndView) {
+        if (csvRegisterLogic.isMergeMode()) {
+            // 登録済みのデータは更新し、内容が同じデータは書き込まない
+            try {
+                MergeResult mergeResult = csvRegisterLogic.mergeFromSpill(preview.getSpillFile(), job);
+                modelAndView.addObject("mergeResult", mergeResult);
+            } catch (IOException e) {
+                throw new SystemException("システム例外が発生しました。", e);
+            }
+        } else {
+            // 一定件数ごとにまとめてDBに登録
+            SpillFileReader spillFileReader = new SpillFileReader(preview.getSpillFile());
+            try {
+                spillFileReader.open();
+                if (csvRegisterLogic.isCommitIntervalEnabled()) {
+                    // 一定件数ごとにコミットし、コミット済みの件数をプレビューに記録
+                    csvRegisterLogic.registerFromSpillWithCommitInterval(spillFileReader, preview, job);
+                } else {
+                    csvRegisterLogic.registerFromSpill(spillFileReader, job);
+                }
+            } catch (IOException e) {
+                throw new SystemException("システム例外が発生しました。", e);
+            } finally {
+                spillFileReader.close();
             }
-            loopCount++;
+        }
+    }
+
+    /**
+     * CSVファイルを画面に表示せず、サーバー上で読み込みながら直接登録する。<br/>
+     * 一定件数ごとにDBへ登録するため、ファイル全体をメモリ上に保持しない。
+     *
+     * @param form フォーム
+     * @param bindingResult バリデーション結果
+     * @return ModelAndView
+     */
+    @Transactional
+    @RequestMapping(value = "csvRegister/registerStream", method = RequestMethod.POST)
+    public ModelAndView registerStream(@Validated WeatherSearchForm form, BindingResult bindingResult) {
+        ModelAndView modelAndView = new ModelAndView();
+
+        // 項目精査
+        List<String> errorList = weatherLogic.validateFormForCsvRead(form);
+        if (!errorList.isEmpty()) {
+            modelAndView.addObject("filePath", form.getFilePath());
+            modelAndView.addObject("errorList", errorList);
+            modelAndView.setViewName("csvRegister");
+            return modelAndView;
         }
 
-        // 一行ずつDBに登録
-        for (String csvRow : csvRowList) {
-            StringBuilder insertSql = new StringBuilder();
-            insertSql.append("INSERT INTO WEATHER (WEATHER_DATE, PLACE, WEATHER, MAX_TEMPERATURE, MIN_TEMPERATURE) VALUES (");
-            insertSql.append(csvRow).append(")");
-            weatherDao.insert(insertSql.toString());
+        int insertCount = 0;
+        if (csvRegisterLogic.isParallelEnabled() && !csvReaderFactory.isGzip(form.getFilePath())) {
+            // 並列解析
+            try {
+                insertCount = csvRegisterLogic.registerFromCsvInParallel(form.getFilePath(), csvReaderFactory.getCharset(),
+                        new IngestJob(null, form.getFilePath()));
+            } catch (FileNotFoundException e) {
+                return weatherLogic.createErrorModelAndView(form, e.getMessage());
+            } catch (IOException e) {
+                throw new SystemException("システム例外が発生しました。", e);
+            } catch (FileFormatException e) {
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return weatherLogic.createErrorModelAndView(form, e.getMessage());
+            }
+        } else {
+            CsvReader csvReader = csvReaderFactory.create(form.getFilePath());
+            try {
+                csvReader.open();
+            } catch (FileNotFoundException | FileFormatException e) {
+                return weatherLogic.createErrorModelAndView(form, e.getMessage());
+            }
+
+            try {
+                if (csvRegisterLogic.isMergeMode()) {
+                    // 登録済みのデータは更新し、内容が同じデータは書き込まない
+                    MergeResult mergeResult = csvRegisterLogic.mergeFromCsv(csvReader, new IngestJob(null, form.getFilePath()));
+                    modelAndView.addObject("mergeResult", mergeResult);
+                    insertCount = mergeResult.getTotalCount();
+                } else if (csvRegisterLogic.isCommitIntervalEnabled()) {
+                    // 一定件数ごとにコミットし、前回の失敗時のチェックポイントがあれば続きから登録する
+                    insertCount = csvRegisterLogic.registerFromCsvWithCheckpoint(csvReader, form.getFilePath(),
+                            new IngestJob(null, form.getFilePath()));
+                } else {
+                    insertCount = csvRegisterLogic.registerFromCsv(csvReader);
+                }
+            } catch (IOException e) {
+                throw new SystemException("システム例外が発生しました。", e);
+            } catch (FileFormatException e) {
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return weatherLogic.createErrorModelAndView(form, e.getMessage());
+            } finally {
+                csvReader.close();
+            }
+        }
+        if (insertCount == 0) {
+            return weatherLogic.createErrorModelAndView(form, "登録するデータが存在しません。");
         }
 
         modelAndView.setViewName("complete");
         return modelAndView;
     }
+
+    /**
+     * multipart/form-data形式で送信されたCSVファイルを、サーバー上に保存せずに読み込みながら登録する。<br/>
+     * リクエスト本文を先頭から順に解析し、最初のファイルのパートをそのままCSVとして読み込むため、
+     * 送信されたファイル全体をメモリやディスクに保持しない。ファイルサイズの上限は設定（wfis.upload.maxFileSize）で指定する。<br/>
+     * 登録方式は設定（wfis.register.mode）に従う。一定件数ごとのコミットと並列解析はファイルパスが必要なため行わない。
+     *
+     * @param request リクエスト
+     * @return 登録結果（JSON）
+     */
+    @ResponseBody
+    @Transactional
+    @RequestMapping(value = "csvRegister/upload", method = RequestMethod.POST)
+    public ResponseEntity<Map<String, Object>> upload(HttpServletRequest request) {
+        List<String> errorList = new ArrayList<String>();
+        String boundary = MultipartStream.getBoundary(request.getContentType());
+        if (boundary == null) {
+            errorList.add("multipart/form-data形式で送信してください。");
+            return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<String, Object>();
+        try {
+            // 最初のファイルのパートまで読み進める
+            MultipartStream multipartStream = new MultipartStream(request.getInputStream(), boundary);
+            String fileName = null;
+            while (multipartStream.nextPart()) {
+                if (!StringUtils.isEmpty(multipartStream.getFileName())) {
+                    fileName = StringUtils.substringAfterLast("/" + multipartStream.getFileName().replace('\\', '/'), "/");
+                    break;
+                }
+            }
+            if (fileName == null) {
+                errorList.add("ファイルが送信されていません。");
+                return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+            }
+            WeatherSearchForm form = new WeatherSearchForm();
+            form.setFilePath(fileName);
+            errorList = weatherLogic.validateFormForCsvRead(form);
+            if (!errorList.isEmpty()) {
+                return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+            }
+
+            CsvReader csvReader = csvReaderFactory.create(new SizeLimitedInputStream(multipartStream.openPart(), maxUploadSize),
+                    fileName);
+            int insertCount;
+            try {
+                csvReader.open();
+                if (csvRegisterLogic.isMergeMode()) {
+                    MergeResult mergeResult = csvRegisterLogic.mergeFromCsv(csvReader, new IngestJob(null, fileName));
+                    body.put("mergeResult", mergeResult);
+                    insertCount = mergeResult.getTotalCount();
+                } else {
+                    insertCount = csvRegisterLogic.registerFromCsv(csvReader);
+                }
+            } finally {
+                csvReader.close();
+            }
+            if (insertCount == 0) {
+                errorList.add("登録するデータが存在しません。");
+                return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+            }
+            body.put("fileName", fileName);
+            body.put("insertCount", insertCount);
+        } catch (FileSizeLimitExceededException e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            errorList.add(e.getMessage());
+            return createErrorResponse(HttpStatus.PAYLOAD_TOO_LARGE, errorList);
+        } catch (FileFormatException e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            errorList.add(e.getMessage());
+            return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+        } catch (IOException e) {
+            // 送信の中断、マルチパートの形式の誤りなど
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            errorList.add("送信されたデータを読み込めませんでした。");
+            return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+        }
+
+        return new ResponseEntity<Map<String, Object>>(body, HttpStatus.OK);
+    }
+
+    /**
+     * サーバー上のディレクトリ直下のCSVファイルを並行して一括登録する。<br/>
+     * ファイルごとに別のトランザクションで登録するため、登録できなかったファイルがあっても他のファイルの登録は取り消さない。
+     * 全てのファイルの登録が終わるまで待ち、ファイルごとの結果と全体の件数をまとめて返却する。
+     *
+     * @param directoryPath ディレクトリパス
+     * @return 登録結果（JSON）
+     */
+    @ResponseBody
+    @RequestMapping(value = "csvRegister/directory", method = RequestMethod.POST)
+    public ResponseEntity<Map<String, Object>> registerDirectory(@RequestParam(value = "directoryPath", required = false) String directoryPath) {
+        List<String> errorList = new ArrayList<String>();
+        if (StringUtils.isEmpty(directoryPath)) {
+            errorList.add("ディレクトリパスは必ず入力してください。");
+            return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+        }
+
+        DirectoryIngestReport report;
+        try {
+            report = directoryIngestLogic.ingest(directoryPath);
+        } catch (FileNotFoundException e) {
+            errorList.add(e.getMessage());
+            return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+        }
+        if (report.getFileCount() == 0) {
+            errorList.add("登録するファイルが存在しません。");
+            return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<String, Object>();
+        body.put("directoryPath", report.getDirectoryPath());
+        body.put("fileCount", report.getFileCount());
+        body.put("completedCount", report.getCompletedCount());
+        body.put("failedCount", report.getFailedCount());
+        body.put("rowsWritten", report.getRowsWritten());
+        body.put("elapsedMillis", report.getElapsedMillis());
+        body.put("rowsPerSecond", report.getRowsPerSecond());
+        List<Map<String, Object>> fileList = new ArrayList<Map<String, Object>>();
+        for (IngestJob job : report.getFileJobList()) {
+            fileList.add(createJobStatus(job));
+        }
+        body.put("fileList", fileList);
+
+        return new ResponseEntity<Map<String, Object>>(body, HttpStatus.OK);
+    }
+
+    /**
+     * 天気テーブルの全件を、サーバー上のファイルに列指向のバイナリ形式（スナップショット）で保存する。<br/>
+     * 同じ内容のCSVファイルより小さく、{@link #restoreSnapshot}でCSVファイルより速く復元できる。
+     *
+     * @param filePath 保存先のファイルパス
+     * @return 保存結果（JSON）
+     */
+    @ResponseBody
+    @RequestMapping(value = "snapshot/export", method = RequestMethod.POST)
+    public ResponseEntity<Map<String, Object>> exportSnapshot(@RequestParam(value = "filePath", required = false) String filePath) {
+        List<String> errorList = new ArrayList<String>();
+        if (StringUtils.isEmpty(filePath)) {
+            errorList.add("ファイルパスは必ず入力してください。");
+            return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+        }
+
+        SnapshotReport report;
+        try {
+            report = snapshotLogic.export(filePath);
+        } catch (FileNotFoundException | FileFormatException e) {
+            errorList.add(e.getMessage());
+            return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+        } catch (IOException e) {
+            throw new SystemException("システム例外が発生しました。", e);
+        }
+
+        return new ResponseEntity<Map<String, Object>>(createSnapshotStatus(report), HttpStatus.OK);
+    }
+
+    /**
+     * サーバー上のスナップショットの天気を天気テーブルに登録する。<br/>
+     * 登録はブロックごとにコミットするため、途中で失敗した場合もそれまでの登録は取り消さない。
+     *
+     * @param filePath スナップショットのファイルパス
+     * @return 復元結果（JSON）
+     */
+    @ResponseBody
+    @RequestMapping(value = "snapshot/restore", method = RequestMethod.POST)
+    public ResponseEntity<Map<String, Object>> restoreSnapshot(@RequestParam(value = "filePath", required = false) String filePath) {
+        List<String> errorList = new ArrayList<String>();
+        if (StringUtils.isEmpty(filePath)) {
+            errorList.add("ファイルパスは必ず入力してください。");
+            return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+        }
+
+        SnapshotReport report;
+        try {
+            report = snapshotLogic.restore(filePath);
+        } catch (IOException e) {
+            // ファイルが存在しない、形式が不正など
+            errorList.add(e.getMessage());
+            return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+        }
+
+        return new ResponseEntity<Map<String, Object>>(createSnapshotStatus(report), HttpStatus.OK);
+    }
+
+    /**
+     * 検索結果のキャッシュの統計情報を返却する。
+     *
+     * @return 統計情報（JSON）
+     */
+    @ResponseBody
+    @RequestMapping(value = "searchCache/status", method = RequestMethod.GET)
+    public ResponseEntity<Map<String, Object>> searchCacheStatus() {
+        return new ResponseEntity<Map<String, Object>>(createSearchCacheStatus(searchResultCache.getStatistics()), HttpStatus.OK);
+    }
+
+    /**
+     * CSVファイルの登録をバックグラウンドのジョブとして受け付ける。<br/>
+     * 登録の完了を待たずにジョブIDを返却するため、進捗は{@link #jobStatus}で参照する。
+     *
+     * @param form フォーム
+     * @param bindingResult バリデーション結果
+     * @return ジョブの状態（JSON）
+     */
+    @ResponseBody
+    @RequestMapping(value = "csvRegister/job/submit", method = RequestMethod.POST)
+    public ResponseEntity<Map<String, Object>> jobSubmit(@Validated WeatherSearchForm form, BindingResult bindingResult) {
+        // 項目精査
+        List<String> errorList = weatherLogic.validateFormForCsvRead(form);
+        if (!errorList.isEmpty()) {
+            return createErrorResponse(HttpStatus.BAD_REQUEST, errorList);
+        }
+
+        IngestJob job;
+        try {
+            job = ingestJobManager.submit(form.getFilePath());
+        } catch (RejectedExecutionException e) {
+            errorList.add("実行待ちのジョブが上限に達しています。時間をおいて再度実行してください。");
+            return createErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, errorList);
+        }
+
+        return new ResponseEntity<Map<String, Object>>(createJobStatus(job), HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * CSV登録ジョブの進捗を返却する。
+     *
+     * @param jobId ジョブID
+     * @return ジョブの状態（JSON）
+     */
+    @ResponseBody
+    @RequestMapping(value = "csvRegister/job/status", method = RequestMethod.GET)
+    public ResponseEntity<Map<String, Object>> jobStatus(@RequestParam("jobId") String jobId) {
+        IngestJob job = ingestJobManager.getJob(jobId);
+        if (job == null) {
+            return createJobNotFoundResponse();
+        }
+
+        return new ResponseEntity<Map<String, Object>>(createJobStatus(job), HttpStatus.OK);
+    }
+
+    /**
+     * CSV登録ジョブを取り消す。<br/>
+     * 実行中のジョブは登録済みのデータをロールバックする。
+     *
+     * @param jobId ジョブID
+     * @return ジョブの状態（JSON）
+     */
+    @ResponseBody
+    @RequestMapping(value = "csvRegister/job/cancel", method = RequestMethod.POST)
+    public ResponseEntity<Map<String, Object>> jobCancel(@RequestParam("jobId") String jobId) {
+        IngestJob job = ingestJobManager.cancel(jobId);
+        if (job == null) {
+            return createJobNotFoundResponse();
+        }
+
+        return new ResponseEntity<Map<String, Object>>(createJobStatus(job), HttpStatus.OK);
+    }
+
+    /**
+     * プレビューの指定したページを表示するModelAndViewを作成する。
+     *
+     * @param form フォーム
+     * @param preview プレビュー
+     * @param page ページ番号（0始まり）
+     * @return ModelAndView
+     */
+    private ModelAndView createPreviewModelAndView(WeatherSearchForm form, CsvPreview preview, int page) {
+        ModelAndView modelAndView = new ModelAndView();
+
+        int pageIndex = csvPreviewLogic.toPageIndex(preview, page);
+        List<Weather> csvReadList;
+        try {
+            csvReadList = csvPreviewLogic.readPage(preview, pageIndex);
+        } catch (IOException e) {
+            throw new SystemException("システム例外が発生しました。", e);
+        }
+
+        modelAndView.addObject("csvReadList", csvReadList);
+        modelAndView.addObject("rowCount", preview.getRowCount());
+        modelAndView.addObject("previewId", preview.getPreviewId());
+        modelAndView.addObject("page", pageIndex);
+        modelAndView.addObject("pageCount", preview.getPageCount());
+        modelAndView.addObject("firstRowNumber", preview.getFirstRowNumber(pageIndex));
+        modelAndView.addObject("filePath", preview.getFilePath());
+        modelAndView.setViewName("csvRegister");
+
+        return modelAndView;
+    }
+
+    /**
+     * 画面に返却するジョブの状態を作成する。
+     *
+     * @param job ジョブ
+     * @return ジョブの状態
+     */
+    private Map<String, Object> createJobStatus(IngestJob job) {
+        Map<String, Object> jobStatus = new LinkedHashMap<String, Object>();
+        jobStatus.put("jobId", job.getJobId());
+        jobStatus.put("filePath", job.getFilePath());
+        jobStatus.put("status", job.getStatus());
+        jobStatus.put("finished", job.isFinished());
+        jobStatus.put("rowsParsed", job.getRowsParsed());
+        jobStatus.put("rowsWritten", job.getRowsWritten());
+        jobStatus.put("resumedRows", job.getResumedRows());
+        jobStatus.put("rowsPerSecond", job.getRowsPerSecond());
+        jobStatus.put("mergeResult", job.getMergeResult());
+        jobStatus.put("pipeline", job.getPipelineStats() == null ? null : job.getPipelineStats().getStageList());
+        jobStatus.put("errorList", job.getErrorList());
+
+        return jobStatus;
+    }
+
+    /**
+     * 画面に返却する検索結果のキャッシュの統計情報を作成する。
+     *
+     * @param statistics 統計情報
+     * @return 統計情報
+     */
+    private Map<String, Object> createSearchCacheStatus(SearchCacheStatistics statistics) {
+        Map<String, Object> status = new LinkedHashMap<String, Object>();
+        status.put("hitCount", statistics.getHitCount());
+        status.put("missCount", statistics.getMissCount());
+        status.put("hitRate", statistics.getHitRate());
+        status.put("evictionCount", statistics.getEvictionCount());
+        status.put("invalidationCount", statistics.getInvalidationCount());
+        status.put("size", statistics.getSize());
+        status.put("maxEntries", statistics.getMaxEntries());
+        status.put("dataVersion", statistics.getDataVersion());
+
+        return status;
+    }
+
+    /**
+     * 画面に返却するスナップショットの保存・復元結果を作成する。
+     *
+     * @param report 保存・復元結果
+     * @return 保存・復元結果
+     */
+    private Map<String, Object> createSnapshotStatus(SnapshotReport report) {
+        Map<String, Object> status = new LinkedHashMap<String, Object>();
+        status.put("filePath", report.getFilePath());
+        status.put("rowCount", report.getRowCount());
+        status.put("fileSize", report.getFileSize());
+        status.put("elapsedMillis", report.getElapsedMillis());
+        status.put("rowsPerSecond", report.getRowsPerSecond());
+
+        return status;
+    }
+
+    /**
+     * ジョブが存在しない場合のレスポンスを作成する。
+     *
+     * @return レスポンス
+     */
+    private ResponseEntity<Map<String, Object>> createJobNotFoundResponse() {
+        List<String> errorList = new ArrayList<String>();
+        errorList.add("ジョブが存在しません。");
+        return createErrorResponse(HttpStatus.NOT_FOUND, errorList);
+    }
+
+    /**
+     * エラー時のレスポンスを作成する。
+     *
+     * @param status HTTPステータス
+     * @param errorList エラーリスト
+     * @return レスポンス
+     */
+    private ResponseEntity<Map<String, Object>> createErrorResponse(HttpStatus status, List<String> errorList) {
+        Map<String, Object> body = new LinkedHashMap<String, Object>();
+        body.put("errorList", errorList);
+        return new ResponseEntity<Map<String, Object>>(body, status);
+    }
 }
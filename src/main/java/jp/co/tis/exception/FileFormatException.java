@@ -11,6 +11,9 @@ public class FileFormatException extends Exception {
     /** SUID */
     private static final long serialVersionUID = 1L;
 
+    /** エラーが発生した行番号（不明な場合は0） */
+    private long lineNumber;
+
     /**
      * 引数なしコンストラクタ
      */
@@ -37,6 +40,17 @@ public class FileFormatException extends Exception {
         super(message);
     }
 
+    /**
+     * メッセージと行番号設定用コンストラクタ
+     *
+     * @param message 例外メッセージ
+     * @param lineNumber エラーが発生した行番号（ヘッダー行を1行目とする）
+     */
+    public FileFormatException(String message, long lineNumber) {
+        super(message);
+        this.lineNumber = lineNumber;
+    }
+
     /**
      * ネスト例外設定用コンストラクタ
      *
@@ -46,4 +60,13 @@ public class FileFormatException extends Exception {
         super(cause);
     }
 
+    /**
+     * エラーが発生した行番号を取得する。
+     *
+     * @return 行番号（ヘッダー行を1行目とする）。不明な場合は0
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
 }
\ No newline at end of file
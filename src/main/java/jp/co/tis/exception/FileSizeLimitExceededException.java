@@ -0,0 +1,39 @@
+package jp.co.tis.exception;
+
+import java.io.IOException;
+
+/**
+ * ファイルサイズ上限超過例外クラス｡<br/>
+ * 入力ストリームから読み込む途中で送出するため、IOExceptionのサブクラスとする。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class FileSizeLimitExceededException extends IOException {
+
+    /** SUID */
+    private static final long serialVersionUID = 1L;
+
+    /** ファイルサイズの上限（バイト） */
+    private final long maxSize;
+
+    /**
+     * メッセージとファイルサイズの上限設定用コンストラクタ
+     *
+     * @param message 例外メッセージ
+     * @param maxSize ファイルサイズの上限（バイト）
+     */
+    public FileSizeLimitExceededException(String message, long maxSize) {
+        super(message);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * ファイルサイズの上限を取得する。
+     *
+     * @return ファイルサイズの上限（バイト）
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+}
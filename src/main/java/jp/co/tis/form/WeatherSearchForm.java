@@ -1,7 +1,6 @@
 package jp.co.tis.form;
 
 import java.io.Serializable;
-import java.util.List;
 
 /**
  * 天気予報用Form。<br/>
@@ -48,8 +47,14 @@ public class WeatherSearchForm implements Serializable {
     /** ファイルパス */
     private String filePath;
 
-    /** CSVデータリスト */
-    private List<String> csvDataList;
+    /** プレビューID */
+    private String previewId;
+
+    /** ページ番号 */
+    private int page;
+
+    /** 検索結果のページ送りのカーソル */
+    private String cursor;
 
     /**
      * デフォルトコンストラクタ。
@@ -72,11 +77,10 @@ public class WeatherSearchForm implements Serializable {
      * @param minTemperatureFrom 最低気温From
      * @param minTemperatureTo 最低気温To
      * @param filePath ファイルパス
-     * @param csvDataList CSVデータリスト
      */
     public WeatherSearchForm(String weatherDate, String weatherDateFrom, String weatherDateTo, String place, String weather, String maxTemperature,
             String maxTemperatureFrom, String maxTemperatureTo, String minTemperature, String minTemperatureFrom, String minTemperatureTo,
-            String filePath, List<String> csvDataList) {
+            String filePath) {
         this.weatherDate = weatherDate;
         this.weatherDateFrom = weatherDateFrom;
         this.weatherDateTo = weatherDateTo;
@@ -89,7 +93,6 @@ public class WeatherSearchForm implements Serializable {
         this.minTemperatureFrom = minTemperatureFrom;
         this.minTemperatureTo = minTemperatureTo;
         this.filePath = filePath;
-        this.csvDataList = csvDataList;
     }
 
     /**
@@ -309,20 +312,56 @@ public class WeatherSearchForm implements Serializable {
     }
 
     /**
-     * CSVデータリストを取得する。
+     * プレビューIDを取得する。
+     *
+     * @return プレビューID
+     */
+    public String getPreviewId() {
+        return previewId;
+    }
+
+    /**
+     * プレビューIDを設定する。
+     *
+     * @param previewId プレビューID
+     */
+    public void setPreviewId(String previewId) {
+        this.previewId = previewId;
+    }
+
+    /**
+     * ページ番号を取得する。
+     *
+     * @return ページ番号
+     */
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * ページ番号を設定する。
+     *
+     * @param page ページ番号
+     */
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    /**
+     * 検索結果のページ送りのカーソルを取得する。
      *
-     * @return CSVデータリスト
+     * @return 検索結果のページ送りのカーソル
      */
-    public List<String> getCsvDataList() {
-        return csvDataList;
+    public String getCursor() {
+        return cursor;
     }
 
     /**
-     * CSVデータリストを設定する。
+     * 検索結果のページ送りのカーソルを設定する。
      *
-     * @param csvDataList CSVデータリスト
+     * @param cursor 検索結果のページ送りのカーソル
      */
-    public void setCsvDataList(List<String> csvDataList) {
-        this.csvDataList = csvDataList;
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
     }
 }
@@ -0,0 +1,305 @@
+package jp.co.tis.logic;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.annotation.PreDestroy;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.model.CsvPreview;
+import jp.co.tis.model.Weather;
+import jp.co.tis.util.CsvReader;
+import jp.co.tis.util.CsvReaderFactory;
+import jp.co.tis.util.CsvRow;
+import jp.co.tis.util.SpillFileReader;
+import jp.co.tis.util.SpillFileWriter;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * CSVファイルのプレビューを行うロジッククラス。<br/>
+ * CSV読み込み時にファイル全体を一度だけ精査し、精査済みの天気を一時ファイル（スピルファイル）に書き出す。
+ * 画面には一時ファイルから指定したページの行のみを返却し、登録時は一時ファイルをそのまま読み込むため、
+ * CSVのデータを画面とサーバーの間で往復させない。<br/>
+ * 1ページの件数は設定（wfis.preview.pageSize）、一時ファイルの作成先は設定（wfis.preview.spillDir、未指定の場合はシステムの一時ディレクトリ）、
+ * 保持するプレビューの上限は設定（wfis.preview.maxEntries）で指定し、上限を超えた場合は最も長く参照されていないプレビューから一時ファイルごと破棄する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+@Component
+public class CsvPreviewLogic {
+
+    /** CsvReaderの生成クラス */
+    @Autowired
+    private CsvReaderFactory csvReaderFactory;
+
+    /** CSV登録ロジッククラス */
+    @Autowired
+    private CsvRegisterLogic csvRegisterLogic;
+
+    /** 1ページの件数 */
+    @Value("${wfis.preview.pageSize:100}")
+    private int pageSize;
+
+    /** 保持するプレビューの上限 */
+    @Value("${wfis.preview.maxEntries:20}")
+    private int maxEntries;
+
+    /** 一時ファイルの作成先ディレクトリ */
+    @Value("${wfis.preview.spillDir:}")
+    private String spillDir;
+
+    /** プレビューIDをキーとしたプレビュー（参照順） */
+    private final Map<String, CsvPreview> previewMap = new LinkedHashMap<String, CsvPreview>(16, 0.75f, true) {
+
+        /** SUID */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CsvPreview> eldest) {
+            if (size() <= maxEntries) {
+                return false;
+            }
+            deleteSpillFile(eldest.getValue().getSpillFile());
+            return true;
+        }
+    };
+
+    /**
+     * 保持している全てのプレビューの一時ファイルを削除する。
+     */
+    @PreDestroy
+    public void destroy() {
+        synchronized (previewMap) {
+            for (CsvPreview preview : previewMap.values()) {
+                deleteSpillFile(preview.getSpillFile());
+            }
+            previewMap.clear();
+        }
+    }
+
+    /**
+     * CSVファイルを精査し、プレビューを作成する。<br/>
+     * 全行を読み込んで天気に変換しながら一時ファイルに書き出し、件数とページごとの先頭行の位置を記録する。
+     * 形式に誤りがある場合は一時ファイルを削除して例外を送出する。
+     *
+     * @param filePath ファイルパス
+     * @return プレビュー
+     * @throws FileNotFoundException ファイルが存在しない場合
+     * @throws FileFormatException ファイルの形式が不正な場合
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public CsvPreview createPreview(String filePath) throws FileNotFoundException, FileFormatException, IOException {
+        CsvReader csvReader = csvReaderFactory.create(filePath);
+        File spillFile = null;
+        SpillFileWriter spillFileWriter = null;
+        List<Long> pageOffsetList = new ArrayList<Long>();
+        int[] itemIndexes = null;
+        long rowCount = 0;
+        boolean completed = false;
+        try {
+            csvReader.open();
+            spillFile = createSpillFile();
+            spillFileWriter = new SpillFileWriter(spillFile);
+            spillFileWriter.open();
+            while (true) {
+                CsvRow row = csvReader.readRow();
+                if (row == null) {
+                    break;
+                }
+                if (itemIndexes == null) {
+                    itemIndexes = csvRegisterLogic.createItemIndexes(row);
+                }
+                if (rowCount % pageSize == 0) {
+                    pageOffsetList.add(spillFileWriter.getOffset());
+                }
+                spillFileWriter.write(csvRegisterLogic.createWeather(row, itemIndexes));
+                rowCount++;
+            }
+            spillFileWriter.close();
+            completed = true;
+        } finally {
+            csvReader.close();
+            if (!completed && spillFile != null) {
+                spillFileWriter.close();
+                deleteSpillFile(spillFile);
+            }
+        }
+
+        long[] pageOffsets = new long[pageOffsetList.size()];
+        for (int i = 0; i < pageOffsets.length; i++) {
+            pageOffsets[i] = pageOffsetList.get(i);
+        }
+        CsvPreview preview = new CsvPreview(UUID.randomUUID().toString(), filePath, spillFile, pageSize, rowCount, pageOffsets);
+        synchronized (previewMap) {
+            previewMap.put(preview.getPreviewId(), preview);
+        }
+        return preview;
+    }
+
+    /**
+     * プレビューを取得する。
+     *
+     * @param previewId プレビューID
+     * @return プレビュー。存在しない場合は{@code null}
+     */
+    public CsvPreview getPreview(String previewId) {
+        if (previewId == null) {
+            return null;
+        }
+        synchronized (previewMap) {
+            return previewMap.get(previewId);
+        }
+    }
+
+    /**
+     * プレビューを破棄し、一時ファイルを削除する。
+     *
+     * @param previewId プレビューID
+     */
+    public void removePreview(String previewId) {
+        CsvPreview preview;
+        synchronized (previewMap) {
+            preview = previewMap.remove(previewId);
+        }
+        if (preview != null) {
+            deleteSpillFile(preview.getSpillFile());
+        }
+    }
+
+    /**
+     * 登録するプレビューを取り出す。<br/>
+     * 取り出したプレビューは保持しているプレビューから除かれるため、同じプレビューIDで重ねて登録が要求されても
+     * 二回目以降は{@code null}を返却し、同じデータが二重に登録されない。
+     * 取り出したプレビューは登録後に{@link #releasePreview}で解放すること。
+     *
+     * @param previewId プレビューID
+     * @return プレビュー。存在しない場合や、既に取り出されている場合は{@code null}
+     */
+    public CsvPreview takePreview(String previewId) {
+        if (previewId == null) {
+            return null;
+        }
+        synchronized (previewMap) {
+            return previewMap.remove(previewId);
+        }
+    }
+
+    /**
+     * 取り出したプレビューを解放する。<br/>
+     * 登録に成功した場合は一時ファイルを削除し、失敗した場合は再実行できるようプレビューを戻す。
+     * トランザクション中の場合はトランザクションの完了後に行い、ロールバックされた場合も失敗として扱う。
+     *
+     * @param preview {@link #takePreview}で取り出したプレビュー
+     * @param registered 登録に成功した場合は{@code true}
+     */
+    public void releasePreview(final CsvPreview preview, final boolean registered) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    completePreview(preview, registered && status == TransactionSynchronization.STATUS_COMMITTED);
+                }
+            });
+        } else {
+            completePreview(preview, registered);
+        }
+    }
+
+    /**
+     * 登録に成功したプレビューの一時ファイルを削除し、失敗したプレビューを戻す。
+     *
+     * @param preview プレビュー
+     * @param registered 登録に成功した場合は{@code true}
+     */
+    private void completePreview(CsvPreview preview, boolean registered) {
+        if (registered) {
+            deleteSpillFile(preview.getSpillFile());
+            return;
+        }
+        synchronized (previewMap) {
+            previewMap.put(preview.getPreviewId(), preview);
+        }
+    }
+
+    /**
+     * 指定したページの行を読み込む。<br/>
+     * 一時ファイルをページの先頭行の位置から読み込むため、読み込む量はファイルの大きさによらずページの件数分となる。
+     * 範囲外のページ番号は最初または最後のページに丸める。
+     *
+     * @param preview プレビュー
+     * @param page ページ番号（0始まり）
+     * @return 天気のリスト
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public List<Weather> readPage(CsvPreview preview, int page) throws IOException {
+        if (preview.getPageCount() == 0) {
+            return Collections.emptyList();
+        }
+
+        int pageIndex = toPageIndex(preview, page);
+        List<Weather> weatherList = new ArrayList<Weather>(preview.getPageSize());
+        SpillFileReader spillFileReader = new SpillFileReader(preview.getSpillFile());
+        spillFileReader.open(preview.getPageOffset(pageIndex));
+        try {
+            while (weatherList.size() < preview.getPageSize()) {
+                Weather weather = spillFileReader.read();
+                if (weather == null) {
+                    break;
+                }
+                weatherList.add(weather);
+            }
+        } finally {
+            spillFileReader.close();
+        }
+        return weatherList;
+    }
+
+    /**
+     * ページ番号を範囲内に丸める。
+     *
+     * @param preview プレビュー
+     * @param page ページ番号（0始まり）
+     * @return 範囲内のページ番号
+     */
+    public int toPageIndex(CsvPreview preview, int page) {
+        return Math.max(0, Math.min(page, preview.getPageCount() - 1));
+    }
+
+    /**
+     * 一時ファイルを作成する。
+     *
+     * @return 一時ファイル
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private File createSpillFile() throws IOException {
+        if (StringUtils.isEmpty(spillDir)) {
+            return Files.createTempFile("wfis-preview-", ".spill").toFile();
+        }
+        return Files.createTempFile(new File(spillDir).toPath(), "wfis-preview-", ".spill").toFile();
+    }
+
+    /**
+     * 一時ファイルを削除する。
+     *
+     * @param spillFile 一時ファイル
+     */
+    private void deleteSpillFile(File spillFile) {
+        spillFile.delete();
+    }
+}
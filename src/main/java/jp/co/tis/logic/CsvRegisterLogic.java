@@ -0,0 +1,1381 @@
+package jp.co.tis.logic;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.exception.SystemException;
+import jp.co.tis.model.CsvPreview;
+import jp.co.tis.model.IngestCheckpoint;
+import jp.co.tis.model.IngestJob;
+import jp.co.tis.model.MergeResult;
+import jp.co.tis.model.PipelineStats;
+import jp.co.tis.model.Weather;
+import jp.co.tis.model.WeatherDao;
+import jp.co.tis.util.CheckpointStore;
+import jp.co.tis.util.CsvChunkHandler;
+import jp.co.tis.util.CsvReader;
+import jp.co.tis.util.CsvRow;
+import jp.co.tis.util.FieldDecoder;
+import jp.co.tis.util.ParallelCsvParser;
+import jp.co.tis.util.SpillFileReader;
+import jp.co.tis.util.SpillFileWriter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * CSV登録Logicクラス。<br/>
+ * CSVファイルを一行ずつ読み込みながら、一定件数ごとにDBへ登録する。<br/>
+ * ファイル全体をメモリ上に保持しないため、ファイルサイズに関わらず使用メモリは一定となる。<br/>
+ * 設定（wfis.register.commitInterval）を指定した場合は、その件数ごとにコミットし、チェックポイントを記録する。<br/>
+ * 設定（wfis.register.mode）にmergeを指定した場合は、日付と場所をキーとして登録済みのデータを更新する。
+ * diffを指定した場合は、登録済みのデータを内容のハッシュ値と比較し、追加・変更された行のみを書き込む。<br/>
+ * 設定（wfis.register.pipelineDepth）を指定した場合は、解析・変換・書き込みを別のスレッドで並行して行う。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+@Component
+public class CsvRegisterLogic {
+
+    /** DB操作DAO */
+    @Autowired
+    private WeatherDao weatherDao;
+
+    /** トランザクションマネージャ */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** チェックポイントの保存クラス */
+    @Autowired
+    private CheckpointStore checkpointStore;
+
+    /** 一度にDBへ登録する件数 */
+    @Value("${wfis.register.batchSize:1000}")
+    private int chunkSize;
+
+    /** 登録方法（insert：登録のみ、merge：登録済みのデータは更新、diff：ハッシュ値で比較して差分のみ書き込む） */
+    @Value("${wfis.register.mode:insert}")
+    private String mode;
+
+    /** コミットする件数（0の場合は呼び出し元のトランザクションで登録する） */
+    @Value("${wfis.register.commitInterval:0}")
+    private int commitInterval;
+
+    /** 並列解析の並列数（0の場合は並列解析を行わない） */
+    @Value("${wfis.register.parallelism:0}")
+    private int parallelism;
+
+    /** 並列解析で分割するチャンクのバイト数 */
+    @Value("${wfis.register.parallelChunkSize:1048576}")
+    private long parallelChunkSize;
+
+    /** パイプライン登録の段階間のキューに保持するバッチ数（0の場合はパイプライン登録を行わない） */
+    @Value("${wfis.register.pipelineDepth:0}")
+    private int pipelineDepth;
+
+    /** 並列解析に使用するプール */
+    private ForkJoinPool forkJoinPool;
+
+    /** パイプライン登録の解析・変換段階を実行するスレッドプール */
+    private ExecutorService pipelineExecutor;
+
+    /** パイプライン登録の解析段階の終了を表すバッチ */
+    private static final List<ParsedRow> END_OF_ROWS = new ArrayList<ParsedRow>(0);
+
+    /** パイプライン登録の変換段階の終了を表すバッチ */
+    private static final List<Weather> END_OF_WEATHERS = new ArrayList<Weather>(0);
+
+    /** キューの待ち合わせで中断を確認する間隔（ミリ秒） */
+    private static final long QUEUE_POLL_MILLIS = 100;
+
+    /** 天気に変換する項目名（{@link Weather}のコンストラクタの引数順） */
+    private static final String[] WEATHER_ITEMS = {"WEATHER_DATE", "PLACE", "WEATHER", "MAX_TEMPERATURE", "MIN_TEMPERATURE"};
+
+    /**
+     * 並列解析用のプールと、パイプライン登録用のスレッドプールを生成する。
+     */
+    @PostConstruct
+    public void init() {
+        if (parallelism > 0) {
+            forkJoinPool = new ForkJoinPool(parallelism);
+        }
+        if (pipelineDepth > 0) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            pipelineExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ingest-pipeline-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * 並列解析用のプールと、パイプライン登録用のスレッドプールを終了する。
+     */
+    @PreDestroy
+    public void destroy() {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdownNow();
+        }
+        if (pipelineExecutor != null) {
+            pipelineExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * マージ登録かどうかを返却する。<br/>
+     * 差分登録もキーによるマージの一方式のため、マージ登録として扱う。
+     *
+     * @return 登録方法にmergeまたはdiffが設定されている場合は{@code true}
+     */
+    public boolean isMergeMode() {
+        return "merge".equals(mode) || isDiffMode();
+    }
+
+    /**
+     * 差分登録かどうかを返却する。
+     *
+     * @return 登録方法にdiffが設定されている場合は{@code true}
+     */
+    public boolean isDiffMode() {
+        return "diff".equals(mode);
+    }
+
+    /**
+     * 一定件数ごとのコミットが有効かどうかを返却する。<br/>
+     * マージ登録は再実行しても結果が変わらないため、チェックポイントを使用しない。
+     *
+     * @return コミットする件数が設定されており、マージ登録でない場合は{@code true}
+     */
+    public boolean isCommitIntervalEnabled() {
+        return commitInterval > 0 && !isMergeMode();
+    }
+
+    /**
+     * 並列解析が有効かどうかを返却する。<br/>
+     * 並列解析は、マージ登録および一定件数ごとのコミットとは併用しない。
+     *
+     * @return 並列数が設定されており、マージ登録でも一定件数ごとのコミットでもない場合は{@code true}
+     */
+    public boolean isParallelEnabled() {
+        return forkJoinPool != null && !isMergeMode() && !isCommitIntervalEnabled();
+    }
+
+    /**
+     * CSVファイルを読み込みながらDBに登録する。<br/>
+     * 引数のCsvReaderはオープン済みであること。クローズは呼び出し元で行う。<br/>
+     * データ部の形式に誤りがある場合は、ヘッダー行を含めた行番号をメッセージに付与して例外を送出する。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @return 登録件数
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException ヘッダー部と項目数が異なる場合
+     */
+    public int registerFromCsv(CsvReader csvReader) throws IOException, FileFormatException {
+        return registerFromCsv(csvReader, new IngestJob(null, null));
+    }
+
+    /**
+     * CSVファイルを読み込みながらDBに登録する。{@link #registerFromCsv(CsvReader)}<br/>
+     * 一定件数を登録するごとにジョブの進捗を更新し、ジョブの取り消しが要求されていれば中断する。<br/>
+     * パイプライン登録が有効な場合は、解析と変換を別のスレッドで行い、DBへの登録と並行させる。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @param job 進捗を記録するジョブ
+     * @return 登録件数
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException ヘッダー部と項目数が異なる場合
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    public int registerFromCsv(CsvReader csvReader, IngestJob job) throws IOException, FileFormatException {
+        if (pipelineExecutor != null) {
+            return registerFromCsvInPipeline(csvReader, job);
+        }
+        List<Weather> chunk = new ArrayList<Weather>(chunkSize);
+        int[] itemIndexes = null;
+        int insertCount = 0;
+        while (true) {
+            CsvRow row = readRow(csvReader);
+            // 読み込む行がなくなった場合
+            if (row == null) {
+                break;
+            }
+            if (itemIndexes == null) {
+                itemIndexes = createItemIndexes(row);
+            }
+            chunk.add(toWeather(row, itemIndexes));
+            if (chunk.size() >= chunkSize) {
+                insertCount += writeChunk(chunk, job);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertCount += writeChunk(chunk, job);
+        }
+
+        return insertCount;
+    }
+
+    /**
+     * 解析・変換・書き込みの3段階のパイプラインでCSVファイルを登録する。<br/>
+     * 解析段階はCsvReaderから読み込んだ行の日付と気温を解析して項目を取り出し、変換段階は天気に変換する。
+     * この2段階は別のスレッドで実行し、書き込み段階は呼び出し元のトランザクション内で登録するため呼び出し元のスレッドで実行する。<br/>
+     * 段階の間はバッチ単位の上限付きキュー（wfis.register.pipelineDepth）でつなぐため、
+     * 後の段階が遅い場合は前の段階がキューの空きを待ち、読み込み済みのデータが際限なく溜まることはない。<br/>
+     * いずれかの段階が失敗した場合は全ての段階を止め、最初に発生した例外を送出する。
+     * 各段階の処理件数と処理時間、キューの件数はジョブの{@link PipelineStats}に記録する。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @param job 進捗を記録するジョブ
+     * @return 登録件数
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException ヘッダー部と項目数が異なる場合
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    private int registerFromCsvInPipeline(final CsvReader csvReader, IngestJob job) throws IOException, FileFormatException {
+        final PipelineStats stats = new PipelineStats();
+        job.setPipelineStats(stats);
+        final BlockingQueue<List<ParsedRow>> rowQueue = new ArrayBlockingQueue<List<ParsedRow>>(pipelineDepth);
+        final BlockingQueue<List<Weather>> weatherQueue = new ArrayBlockingQueue<List<Weather>>(pipelineDepth);
+        final AtomicBoolean aborted = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final CountDownLatch stagesDone = new CountDownLatch(2);
+
+        // 解析段階
+        pipelineExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    parseStage(csvReader, rowQueue, stats.getParseStage(), aborted);
+                } catch (Throwable t) {
+                    abort(failure, aborted, t);
+                } finally {
+                    stagesDone.countDown();
+                }
+            }
+        });
+        // 変換段階
+        pipelineExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    convertStage(rowQueue, weatherQueue, stats, aborted);
+                } catch (Throwable t) {
+                    abort(failure, aborted, t);
+                } finally {
+                    stagesDone.countDown();
+                }
+            }
+        });
+
+        // 書き込み段階
+        int insertCount = 0;
+        try {
+            while (true) {
+                List<Weather> chunk = take(weatherQueue, aborted);
+                if (chunk == null || chunk == END_OF_WEATHERS) {
+                    break;
+                }
+                stats.getConvertStage().recordQueueDepth(weatherQueue.size());
+                long start = System.nanoTime();
+                insertCount += writeChunk(chunk, job);
+                stats.getWriteStage().addBatch(chunk.size(), System.nanoTime() - start);
+            }
+        } catch (RuntimeException | Error e) {
+            aborted.set(true);
+            throw e;
+        } finally {
+            // CsvReaderは呼び出し元でクローズするため、解析段階が終わるまで待つ
+            awaitUninterruptibly(stagesDone);
+        }
+
+        Throwable t = failure.get();
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t instanceof FileFormatException) {
+            throw (FileFormatException) t;
+        } else if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new SystemException("システム例外が発生しました。", t);
+        }
+        return insertCount;
+    }
+
+    /**
+     * パイプライン登録の解析段階。<br/>
+     * 行の日付と気温を{@link #createWeather}と同じ規則で解析して項目を取り出し、一定件数ごとにバッチとしてキューに渡す。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @param rowQueue 変換段階へのキュー
+     * @param stage 解析段階の統計
+     * @param aborted パイプラインの中断が要求されたかどうか
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException ヘッダー部と項目数が異なる場合、日付・気温を解析できない場合
+     * @throws InterruptedException 待ち合わせ中に割り込まれた場合
+     */
+    private void parseStage(CsvReader csvReader, BlockingQueue<List<ParsedRow>> rowQueue, PipelineStats.Stage stage,
+            AtomicBoolean aborted) throws IOException, FileFormatException, InterruptedException {
+        List<ParsedRow> batch = new ArrayList<ParsedRow>(chunkSize);
+        int[] itemIndexes = null;
+        long start = System.nanoTime();
+        while (true) {
+            CsvRow row = readRow(csvReader);
+            if (row == null) {
+                break;
+            }
+            if (itemIndexes == null) {
+                itemIndexes = createItemIndexes(row);
+            }
+            try {
+                batch.add(new ParsedRow(decodeDate(row, itemIndexes[0]), getText(row, itemIndexes[1]),
+                        getText(row, itemIndexes[2]), decodeTemperature(row, itemIndexes[3], "最高気温"),
+                        decodeTemperature(row, itemIndexes[4], "最低気温")));
+            } catch (FileFormatException e) {
+                throw new FileFormatException(e.getLineNumber() + "行目 ：" + e.getMessage(), e);
+            }
+            if (batch.size() >= chunkSize) {
+                stage.addBatch(batch.size(), System.nanoTime() - start);
+                if (!put(rowQueue, batch, aborted)) {
+                    return;
+                }
+                stage.recordQueueDepth(rowQueue.size());
+                batch = new ArrayList<ParsedRow>(chunkSize);
+                start = System.nanoTime();
+            }
+        }
+        if (!batch.isEmpty()) {
+            stage.addBatch(batch.size(), System.nanoTime() - start);
+            if (!put(rowQueue, batch, aborted)) {
+                return;
+            }
+        }
+        put(rowQueue, END_OF_ROWS, aborted);
+    }
+
+    /**
+     * パイプライン登録の変換段階。<br/>
+     * 解析段階から受け取ったバッチの各行を天気に変換し、書き込み段階へのキューに渡す。
+     *
+     * @param rowQueue 解析段階からのキュー
+     * @param weatherQueue 書き込み段階へのキュー
+     * @param stats パイプライン登録の統計
+     * @param aborted パイプラインの中断が要求されたかどうか
+     * @throws InterruptedException 待ち合わせ中に割り込まれた場合
+     */
+    private void convertStage(BlockingQueue<List<ParsedRow>> rowQueue, BlockingQueue<List<Weather>> weatherQueue,
+            PipelineStats stats, AtomicBoolean aborted) throws InterruptedException {
+        while (true) {
+            List<ParsedRow> batch = take(rowQueue, aborted);
+            if (batch == null) {
+                return;
+            }
+            if (batch == END_OF_ROWS) {
+                break;
+            }
+            stats.getParseStage().recordQueueDepth(rowQueue.size());
+            long start = System.nanoTime();
+            List<Weather> chunk = new ArrayList<Weather>(batch.size());
+            for (ParsedRow row : batch) {
+                chunk.add(newWeather(row.weatherDate, row.place, row.weather, row.maxTemperature, row.minTemperature));
+            }
+            stats.getConvertStage().addBatch(chunk.size(), System.nanoTime() - start);
+            if (!put(weatherQueue, chunk, aborted)) {
+                return;
+            }
+            stats.getConvertStage().recordQueueDepth(weatherQueue.size());
+        }
+        put(weatherQueue, END_OF_WEATHERS, aborted);
+    }
+
+    /**
+     * キューの空きを待ってバッチを渡す。パイプラインの中断が要求された場合は渡さずに終了する。
+     *
+     * @param queue キュー
+     * @param batch バッチ
+     * @param aborted パイプラインの中断が要求されたかどうか
+     * @return 渡した場合は{@code true}、中断が要求された場合は{@code false}
+     * @throws InterruptedException 待ち合わせ中に割り込まれた場合
+     */
+    private static <T> boolean put(BlockingQueue<T> queue, T batch, AtomicBoolean aborted) throws InterruptedException {
+        while (!queue.offer(batch, QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (aborted.get()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * キューからバッチを受け取る。パイプラインの中断が要求された場合は受け取らずに終了する。
+     *
+     * @param queue キュー
+     * @param aborted パイプラインの中断が要求されたかどうか
+     * @return バッチ。中断が要求された場合は{@code null}
+     */
+    private static <T> T take(BlockingQueue<T> queue, AtomicBoolean aborted) {
+        try {
+            while (true) {
+                T batch = queue.poll(QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (batch != null) {
+                    return batch;
+                }
+                if (aborted.get()) {
+                    return null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aborted.set(true);
+            throw new CancellationException("登録が取り消されました。");
+        }
+    }
+
+    /**
+     * パイプラインの中断を要求し、最初に発生した例外を記録する。
+     *
+     * @param failure 最初に発生した例外
+     * @param aborted パイプラインの中断が要求されたかどうか
+     * @param t 発生した例外
+     */
+    private static void abort(AtomicReference<Throwable> failure, AtomicBoolean aborted, Throwable t) {
+        failure.compareAndSet(null, t);
+        aborted.set(true);
+    }
+
+    /**
+     * 割り込みを無視して全ての段階の終了を待つ。
+     *
+     * @param stagesDone 段階の終了を数えるラッチ
+     */
+    private static void awaitUninterruptibly(CountDownLatch stagesDone) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                stagesDone.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 精査済みの天気を書き出した一時ファイルを読み込みながらDBに登録する。<br/>
+     * CSVの解析と精査は一時ファイルの作成時に済んでいるため、{@link #registerFromCsv(CsvReader, IngestJob)}と異なり形式の誤りは発生しない。<br/>
+     * 引数のSpillFileReaderはオープン済みであること。クローズは呼び出し元で行う。
+     *
+     * @param spillFileReader オープン済みのSpillFileReader
+     * @param job 進捗を記録するジョブ
+     * @return 登録件数
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    public int registerFromSpill(SpillFileReader spillFileReader, IngestJob job) throws IOException {
+        List<Weather> chunk = new ArrayList<Weather>(chunkSize);
+        int insertCount = 0;
+        while (true) {
+            Weather weather = spillFileReader.read();
+            // 読み込む行がなくなった場合
+            if (weather == null) {
+                break;
+            }
+            chunk.add(weather);
+            if (chunk.size() >= chunkSize) {
+                insertCount += writeChunk(chunk, job);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertCount += writeChunk(chunk, job);
+        }
+
+        return insertCount;
+    }
+
+    /**
+     * 精査済みの天気を書き出した一時ファイルを読み込みながら、一定件数（wfis.register.commitInterval）ごとにコミットしてDBに登録する。<br/>
+     * 各コミットは呼び出し元とは別のトランザクションで行い、コミットするごとにプレビューのコミット済みの件数を加算する。
+     * 途中で失敗した場合はコミット済みのデータは残り、同じプレビューで再実行するとコミット済みの行を読み飛ばして続きから登録する。
+     * 一時ファイルには行の位置を記録しないため、読み飛ばしは先頭から件数分を読み込んで行う。<br/>
+     * 引数のSpillFileReaderは先頭からオープン済みであること。クローズは呼び出し元で行う。
+     *
+     * @param spillFileReader オープン済みのSpillFileReader
+     * @param preview 登録するプレビュー
+     * @param job 進捗を記録するジョブ
+     * @return 今回の実行での登録件数
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    public int registerFromSpillWithCommitInterval(SpillFileReader spillFileReader, CsvPreview preview, IngestJob job)
+            throws IOException {
+        long committedRows = preview.getCommittedRows();
+        for (long i = 0; i < committedRows; i++) {
+            if (spillFileReader.read() == null) {
+                break;
+            }
+        }
+        job.setResumedRows(committedRows);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        List<Weather> chunk = new ArrayList<Weather>(Math.min(commitInterval, chunkSize));
+        int insertCount = 0;
+        while (true) {
+            Weather weather = spillFileReader.read();
+            // 読み込む行がなくなった場合
+            if (weather == null) {
+                break;
+            }
+            chunk.add(weather);
+            if (chunk.size() >= commitInterval) {
+                insertCount += commitChunk(transactionTemplate, chunk, job);
+                preview.addCommittedRows(chunk.size());
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertCount += commitChunk(transactionTemplate, chunk, job);
+            preview.addCommittedRows(chunk.size());
+        }
+
+        return insertCount;
+    }
+
+    /**
+     * 精査済みの天気を書き出した一時ファイルを読み込みながら、日付と場所をキーとしてDBにマージする。<br/>
+     * {@link #mergeFromCsv}と同様に、ファイル内で既に読み込んだキーの行は重複として読み飛ばし、最初の行を採用する。<br/>
+     * 差分登録の場合は{@link #diffFromSpill}で登録する。<br/>
+     * 一時ファイルは本メソッド内でオープン・クローズする。
+     *
+     * @param spillFile 一時ファイル
+     * @param job 進捗を記録するジョブ
+     * @return マージ結果
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    public MergeResult mergeFromSpill(File spillFile, IngestJob job) throws IOException {
+        if (isDiffMode()) {
+            return diffFromSpill(spillFile, job);
+        }
+
+        Set<String> keySet = new HashSet<String>();
+        List<Weather> chunk = new ArrayList<Weather>(chunkSize);
+        MergeResult result = new MergeResult();
+        SpillFileReader spillFileReader = new SpillFileReader(spillFile);
+        spillFileReader.open();
+        try {
+            while (true) {
+                Weather weather = spillFileReader.read();
+                // 読み込む行がなくなった場合
+                if (weather == null) {
+                    break;
+                }
+                if (!keySet.add(weather.createKey())) {
+                    result.addDuplicateCount(1);
+                    continue;
+                }
+                chunk.add(weather);
+                if (chunk.size() >= chunkSize) {
+                    result.add(mergeChunk(chunk, job));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                result.add(mergeChunk(chunk, job));
+            }
+        } finally {
+            spillFileReader.close();
+        }
+
+        return result;
+    }
+
+    /**
+     * CSVファイルを読み込みながら、一定件数（wfis.register.commitInterval）ごとにコミットしてDBに登録する。<br/>
+     * 各コミットは呼び出し元とは別のトランザクションで行い、コミットするごとにチェックポイントを保存する。
+     * 途中で失敗した場合はコミット済みのデータは残り、再実行するとチェックポイント以降の行から登録する。<br/>
+     * 再実行時は最後にコミットした行の位置からファイルを開き直すため、コミット済みの行は読み込まない。
+     * 最後にコミットした行のキーが一致しない場合は例外を送出する。
+     * 全ての行を登録した場合はチェックポイントを削除する。<br/>
+     * 引数のCsvReaderはオープン済みであること。チェックポイントがある場合は本メソッド内で開き直す。クローズは呼び出し元で行う。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @param csvPath CSVファイルパス（チェックポイントの保存に使用する）
+     * @param job 進捗を記録するジョブ
+     * @return 今回の実行での登録件数
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException ヘッダー部と項目数が異なる場合、チェックポイントとファイルの内容が一致しない場合
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    public int registerFromCsvWithCheckpoint(CsvReader csvReader, String csvPath, IngestJob job)
+            throws IOException, FileFormatException {
+        long committedRows = 0;
+        IngestCheckpoint checkpoint = checkpointStore.load(csvPath);
+        if (checkpoint != null) {
+            committedRows = resume(csvReader, checkpoint);
+            job.setResumedRows(committedRows);
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        List<Weather> chunk = new ArrayList<Weather>(Math.min(commitInterval, chunkSize));
+        int[] itemIndexes = null;
+        int insertCount = 0;
+        long lastRowOffset = -1;
+        try {
+            while (true) {
+                if (chunk.size() == commitInterval - 1) {
+                    // コミットする最後の行の位置をチェックポイントに記録する
+                    lastRowOffset = csvReader.getOffset();
+                }
+                CsvRow row = readRow(csvReader);
+                // 読み込む行がなくなった場合
+                if (row == null) {
+                    break;
+                }
+                if (itemIndexes == null) {
+                    itemIndexes = createItemIndexes(row);
+                }
+                chunk.add(toWeather(row, itemIndexes));
+                if (chunk.size() >= commitInterval) {
+                    insertCount += commitChunk(transactionTemplate, chunk, job);
+                    committedRows += chunk.size();
+                    saveCheckpoint(csvPath, committedRows, lastRowOffset, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                insertCount += commitChunk(transactionTemplate, chunk, job);
+            }
+        } catch (FileFormatException e) {
+            if (committedRows == 0) {
+                throw e;
+            }
+            throw new FileFormatException(e.getMessage() + "（" + committedRows + "件は登録済みです。修正して再実行すると続きから登録します。）", e);
+        }
+        checkpointStore.delete(csvPath);
+
+        return insertCount;
+    }
+
+    /**
+     * 追記されていくCSVファイルの、前回までに登録していない行を登録する。<br/>
+     * 登録済みの位置はチェックポイントとして保存し、二回目以降は最後に登録した行の位置からファイルを開いて、
+     * その行のキーが一致することを確認してから続きの行のみを読み込む。そのため、読み込む量は追記された分のみとなる。
+     * ファイルが置き換えられて最後に登録した行と一致しない場合は例外を送出する。<br/>
+     * 書き込み途中の行を登録しないよう、指定した位置（最後の改行の直後）を超える行は読み込まずに次回に回す。<br/>
+     * 一定件数（wfis.register.batchSize）ごとに呼び出し元とは別のトランザクションでコミットし、チェックポイントを保存する。
+     * 追記された行は新しい行のため、登録方法の設定に関わらず登録のみ行う。
+     * 全ての行を登録してもチェックポイントは削除しない。<br/>
+     * 引数のCsvReaderはオープン済みであること。チェックポイントがある場合は本メソッド内で開き直す。クローズは呼び出し元で行う。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @param csvPath CSVファイルパス（チェックポイントの保存に使用する）
+     * @param completeLength 書き込みが完了している部分のバイト数（最後の改行の直後の位置）
+     * @param job 進捗を記録するジョブ
+     * @return 今回の実行での登録件数
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException ヘッダー部と項目数が異なる場合、チェックポイントとファイルの内容が一致しない場合
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    public int registerAppendedRows(CsvReader csvReader, String csvPath, long completeLength, IngestJob job)
+            throws IOException, FileFormatException {
+        long committedRows = 0;
+        IngestCheckpoint checkpoint = checkpointStore.load(csvPath);
+        if (checkpoint != null) {
+            committedRows = resume(csvReader, checkpoint);
+            job.setResumedRows(committedRows);
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        List<Weather> chunk = new ArrayList<Weather>(chunkSize);
+        int[] itemIndexes = null;
+        int insertCount = 0;
+        long lastRowOffset = -1;
+        while (true) {
+            long rowOffset = csvReader.getOffset();
+            CsvRow row;
+            try {
+                row = readRow(csvReader);
+            } catch (FileFormatException e) {
+                if (csvReader.getOffset() > completeLength) {
+                    // 書き込み途中の行
+                    break;
+                }
+                throw e;
+            }
+            if (row == null || csvReader.getOffset() > completeLength) {
+                break;
+            }
+            if (itemIndexes == null) {
+                itemIndexes = createItemIndexes(row);
+            }
+            chunk.add(toWeather(row, itemIndexes));
+            lastRowOffset = rowOffset;
+            if (chunk.size() >= chunkSize) {
+                insertCount += commitChunk(transactionTemplate, chunk, job);
+                committedRows += chunk.size();
+                saveCheckpoint(csvPath, committedRows, lastRowOffset, chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertCount += commitChunk(transactionTemplate, chunk, job);
+            committedRows += chunk.size();
+            saveCheckpoint(csvPath, committedRows, lastRowOffset, chunk);
+        }
+
+        return insertCount;
+    }
+
+    /**
+     * CSVファイルを読み込みながら、日付と場所をキーとしてDBにマージする。<br/>
+     * ファイル内で既に読み込んだキーの行は重複として読み飛ばし、最初の行を採用する。
+     * 一定件数ごとに{@link WeatherDao#batchMerge}でまとめてマージするため、
+     * 登録済みのデータと内容が同じ行は書き込まない。<br/>
+     * 差分登録の場合は{@link #diffFromCsv}で登録する。<br/>
+     * 引数のCsvReaderはオープン済みであること。クローズは呼び出し元で行う。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @param job 進捗を記録するジョブ
+     * @return マージ結果
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException ヘッダー部と項目数が異なる場合
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    public MergeResult mergeFromCsv(CsvReader csvReader, IngestJob job) throws IOException, FileFormatException {
+        if (isDiffMode()) {
+            return diffFromCsv(csvReader, job);
+        }
+        Set<String> keySet = new HashSet<String>();
+        List<Weather> chunk = new ArrayList<Weather>(chunkSize);
+        int[] itemIndexes = null;
+        MergeResult result = new MergeResult();
+        while (true) {
+            CsvRow row = readRow(csvReader);
+            // 読み込む行がなくなった場合
+            if (row == null) {
+                break;
+            }
+            if (itemIndexes == null) {
+                itemIndexes = createItemIndexes(row);
+            }
+            Weather weather = toWeather(row, itemIndexes);
+            if (!keySet.add(weather.createKey())) {
+                result.addDuplicateCount(1);
+                continue;
+            }
+            chunk.add(weather);
+            if (chunk.size() >= chunkSize) {
+                result.add(mergeChunk(chunk, job));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            result.add(mergeChunk(chunk, job));
+        }
+
+        return result;
+    }
+
+    /**
+     * CSVファイルを読み込み、登録済みのデータと内容が異なる行のみをDBに書き込む。<br/>
+     * まずファイル内の行を一時ファイルに書き出しながら日付の範囲を求め、その範囲の登録済みのデータを
+     * {@link WeatherDao#findContentHashMap}の一度の範囲検索でキーと内容のハッシュ値の対応として取得する。
+     * 次に一時ファイルを読み込んで行ごとにハッシュ値を比較し、キーが存在しない行は登録、ハッシュ値が異なる行は更新する（{@link #writeDiffFromSpill}）。
+     * 一部の行の訂正を含むだけの再送ファイルでは、書き込みは訂正された行の件数分のみとなる。<br/>
+     * ファイル内で既に読み込んだキーの行は重複として読み飛ばし、最初の行を採用する。
+     * 引数のCsvReaderはオープン済みであること。クローズは呼び出し元で行う。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @param job 進捗を記録するジョブ
+     * @return 差分登録の結果（登録・更新・変更なし・重複の件数）
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException ヘッダー部と項目数が異なる場合
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    private MergeResult diffFromCsv(CsvReader csvReader, IngestJob job) throws IOException, FileFormatException {
+        MergeResult result = new MergeResult();
+        File spillFile = Files.createTempFile("wfis-diff-", ".spill").toFile();
+        try {
+            // ファイル内の行を一時ファイルに書き出し、日付の範囲を求める
+            String fromDate = null;
+            String toDate = null;
+            long rowCount = 0;
+            int[] itemIndexes = null;
+            SpillFileWriter spillFileWriter = new SpillFileWriter(spillFile);
+            spillFileWriter.open();
+            try {
+                while (true) {
+                    CsvRow row = readRow(csvReader);
+                    // 読み込む行がなくなった場合
+                    if (row == null) {
+                        break;
+                    }
+                    if (itemIndexes == null) {
+                        itemIndexes = createItemIndexes(row);
+                    }
+                    Weather weather = toWeather(row, itemIndexes);
+                    spillFileWriter.write(weather);
+                    rowCount++;
+                    String weatherDate = weather.getWeatherDate();
+                    if (weatherDate != null) {
+                        fromDate = (fromDate == null || weatherDate.compareTo(fromDate) < 0) ? weatherDate : fromDate;
+                        toDate = (toDate == null || weatherDate.compareTo(toDate) > 0) ? weatherDate : toDate;
+                    }
+                }
+            } finally {
+                spillFileWriter.close();
+            }
+            if (rowCount == 0) {
+                return result;
+            }
+
+            // 登録済みのデータのハッシュ値と比較し、差分のみを書き込む
+            writeDiffFromSpill(spillFile, fromDate, toDate, result, job);
+        } finally {
+            spillFile.delete();
+        }
+
+        return result;
+    }
+
+    /**
+     * 精査済みの天気を書き出した一時ファイルを読み込み、登録済みのデータと内容が異なる行のみをDBに書き込む。<br/>
+     * {@link #diffFromCsv}と同様に、一時ファイルを一度読み込んで日付の範囲を求めてから、
+     * その範囲の登録済みのデータと行ごとにハッシュ値を比較する。<br/>
+     * 一時ファイルは本メソッド内でオープン・クローズする。
+     *
+     * @param spillFile 一時ファイル
+     * @param job 進捗を記録するジョブ
+     * @return 差分登録の結果（登録・更新・変更なし・重複の件数）
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    private MergeResult diffFromSpill(File spillFile, IngestJob job) throws IOException {
+        MergeResult result = new MergeResult();
+        // 日付の範囲を求める
+        String fromDate = null;
+        String toDate = null;
+        long rowCount = 0;
+        SpillFileReader spillFileReader = new SpillFileReader(spillFile);
+        spillFileReader.open();
+        try {
+            while (true) {
+                Weather weather = spillFileReader.read();
+                // 読み込む行がなくなった場合
+                if (weather == null) {
+                    break;
+                }
+                rowCount++;
+                String weatherDate = weather.getWeatherDate();
+                if (weatherDate != null) {
+                    fromDate = (fromDate == null || weatherDate.compareTo(fromDate) < 0) ? weatherDate : fromDate;
+                    toDate = (toDate == null || weatherDate.compareTo(toDate) > 0) ? weatherDate : toDate;
+                }
+            }
+        } finally {
+            spillFileReader.close();
+        }
+        if (rowCount == 0) {
+            return result;
+        }
+
+        // 登録済みのデータのハッシュ値と比較し、差分のみを書き込む
+        writeDiffFromSpill(spillFile, fromDate, toDate, result, job);
+        return result;
+    }
+
+    /**
+     * 一時ファイルの天気を、日付の範囲の登録済みのデータと比較し、キーが存在しない行は登録、ハッシュ値が異なる行は更新する。<br/>
+     * 登録済みのデータは{@link WeatherDao#findContentHashMap}の一度の範囲検索でキーと内容のハッシュ値の対応として取得する。
+     * 一時ファイル内で既に読み込んだキーの行は重複として読み飛ばし、最初の行を採用する。
+     *
+     * @param spillFile 一時ファイル
+     * @param fromDate 一時ファイル内の最も古い日付（日付がない場合は{@code null}）
+     * @param toDate 一時ファイル内の最も新しい日付（日付がない場合は{@code null}）
+     * @param result 差分登録の結果
+     * @param job 進捗を記録するジョブ
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    private void writeDiffFromSpill(File spillFile, String fromDate, String toDate, MergeResult result, IngestJob job)
+            throws IOException {
+        Map<String, Long> contentHashMap = (fromDate == null) ? new HashMap<String, Long>()
+                : weatherDao.findContentHashMap(fromDate, toDate);
+        Set<String> keySet = new HashSet<String>();
+        List<Weather> insertList = new ArrayList<Weather>(chunkSize);
+        List<Weather> updateList = new ArrayList<Weather>(chunkSize);
+        int comparedCount = 0;
+        SpillFileReader spillFileReader = new SpillFileReader(spillFile);
+        spillFileReader.open();
+        try {
+            while (true) {
+                Weather weather = spillFileReader.read();
+                if (weather == null) {
+                    break;
+                }
+                String key = weather.createKey();
+                if (!keySet.add(key)) {
+                    result.addDuplicateCount(1);
+                    continue;
+                }
+                Long contentHash = contentHashMap.get(key);
+                if (contentHash == null) {
+                    insertList.add(weather);
+                } else if (contentHash == weather.createContentHash()) {
+                    result.addUnchangedCount(1);
+                } else {
+                    updateList.add(weather);
+                }
+                comparedCount++;
+                if (comparedCount >= chunkSize) {
+                    writeDiff(insertList, updateList, comparedCount, result, job);
+                    comparedCount = 0;
+                }
+            }
+            writeDiff(insertList, updateList, comparedCount, result, job);
+        } finally {
+            spillFileReader.close();
+        }
+    }
+
+    /**
+     * CSVファイルを並列に解析しながらDBに登録する。<br/>
+     * 解析は{@link ParallelCsvParser}でチャンクごとに並列に行い、DBへの登録は呼び出し元のスレッドで
+     * ファイル中の順序どおりにチャンク単位で行う。そのため、呼び出し元のトランザクション内で登録される。
+     * 項目位置はチャンクごとに一度だけ求める。<br/>
+     * データ部の形式に誤りがある場合は、ヘッダー行を含めた行番号をメッセージに付与して例外を送出する。
+     *
+     * @param csvPath CSVファイルパス
+     * @param charset CSVファイルの文字コード
+     * @param job 進捗を記録するジョブ
+     * @return 登録件数
+     * @throws FileNotFoundException ファイルが存在しない場合
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException ヘッダー部の形式に誤りがある場合、ヘッダー部と項目数が異なる場合
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    public int registerFromCsvInParallel(String csvPath, Charset charset, final IngestJob job)
+            throws FileNotFoundException, IOException, FileFormatException {
+        final int[] insertCount = new int[1];
+        ParallelCsvParser parser = new ParallelCsvParser(csvPath, charset, parallelChunkSize);
+        try {
+            parser.parse(forkJoinPool, new CsvChunkHandler<WeatherChunk>() {
+                @Override
+                public WeatherChunk createChunk() {
+                    return new WeatherChunk();
+                }
+
+                @Override
+                public void handleRow(WeatherChunk chunk, CsvRow row) throws FileFormatException {
+                    if (chunk.itemIndexes == null) {
+                        chunk.itemIndexes = createItemIndexes(row);
+                    }
+                    chunk.weatherList.add(createWeather(row, chunk.itemIndexes));
+                }
+
+                @Override
+                public void chunkCompleted(WeatherChunk chunk) {
+                    insertCount[0] += writeChunk(chunk.weatherList, job);
+                }
+            });
+        } catch (FileFormatException e) {
+            if (e.getLineNumber() == 0) {
+                // ヘッダー部の誤り
+                throw e;
+            }
+            throw new FileFormatException(e.getLineNumber() + "行目 ：" + e.getMessage(), e);
+        }
+
+        return insertCount[0];
+    }
+
+    /**
+     * 一行分のデータを読み込む。<br/>
+     * データ部の形式に誤りがある場合は、ヘッダー行を含めた行番号をメッセージに付与して例外を送出する。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @return 一行分のCSVデータ。読み込む行がない場合は{@code null}
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException ヘッダー部と項目数が異なる場合
+     */
+    private CsvRow readRow(CsvReader csvReader) throws IOException, FileFormatException {
+        try {
+            return csvReader.readRow();
+        } catch (FileFormatException e) {
+            throw new FileFormatException(e.getLineNumber() + "行目 ：" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * チェックポイントの続きから読み込むようにCsvReaderを開き直す。<br/>
+     * 最後にコミットした行の位置から開き、その行のキーがチェックポイントと一致することを確認する。
+     * 位置が記録されていないチェックポイントの場合は、コミット済みの行を読み飛ばす。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @param checkpoint チェックポイント
+     * @return コミット済みの行数
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException ヘッダー部と項目数が異なる場合、チェックポイントとファイルの内容が一致しない場合
+     */
+    private long resume(CsvReader csvReader, IngestCheckpoint checkpoint) throws IOException, FileFormatException {
+        if (checkpoint.getLastRowOffset() < 0) {
+            return skipCommittedRows(csvReader, checkpoint);
+        }
+
+        csvReader.close();
+        try {
+            // 最後にコミットした行より前の行数（ヘッダー行を含む）を指定する
+            csvReader.open(checkpoint.getLastRowOffset(), checkpoint.getCommittedRows());
+        } catch (FileFormatException e) {
+            throw new FileFormatException("チェックポイントとファイルの内容が一致しません。チェックポイントファイルを削除して再実行してください。", e);
+        }
+        CsvRow row;
+        try {
+            row = readRow(csvReader);
+        } catch (FileFormatException e) {
+            row = null;
+        }
+        if (row == null || !checkpoint.isLastRow(toWeather(row, createItemIndexes(row)))) {
+            throw new FileFormatException("チェックポイントとファイルの内容が一致しません。チェックポイントファイルを削除して再実行してください。");
+        }
+
+        return checkpoint.getCommittedRows();
+    }
+
+    /**
+     * チェックポイントまでのコミット済みの行を読み飛ばす。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @param checkpoint チェックポイント
+     * @return 読み飛ばした行数
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException ヘッダー部と項目数が異なる場合、チェックポイントとファイルの内容が一致しない場合
+     */
+    private long skipCommittedRows(CsvReader csvReader, IngestCheckpoint checkpoint) throws IOException, FileFormatException {
+        CsvRow row = null;
+        for (long i = 0; i < checkpoint.getCommittedRows(); i++) {
+            row = readRow(csvReader);
+            if (row == null) {
+                break;
+            }
+        }
+        if (row == null || !checkpoint.isLastRow(toWeather(row, createItemIndexes(row)))) {
+            throw new FileFormatException("チェックポイントとファイルの内容が一致しません。チェックポイントファイルを削除して再実行してください。");
+        }
+
+        return checkpoint.getCommittedRows();
+    }
+
+    /**
+     * 天気のリストを別のトランザクションで登録し、コミットする。
+     *
+     * @param transactionTemplate トランザクションテンプレート
+     * @param chunk 登録する天気のリスト
+     * @param job 進捗を記録するジョブ
+     * @return 登録件数
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    private int commitChunk(TransactionTemplate transactionTemplate, final List<Weather> chunk, final IngestJob job) {
+        return transactionTemplate.execute(new TransactionCallback<Integer>() {
+            @Override
+            public Integer doInTransaction(TransactionStatus status) {
+                return writeChunk(chunk, job);
+            }
+        });
+    }
+
+    /**
+     * コミット済みの行数と、最後にコミットした行の位置とキーをチェックポイントとして保存する。<br/>
+     * コミット後に保存が失敗した場合、再実行時に最後のチャンクが重複して登録されるため、キーの重複エラーとなる。
+     *
+     * @param csvPath CSVファイルパス
+     * @param committedRows コミット済みのデータ行数
+     * @param lastRowOffset 最後にコミットした行の位置
+     * @param chunk コミットした天気のリスト
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private void saveCheckpoint(String csvPath, long committedRows, long lastRowOffset, List<Weather> chunk) throws IOException {
+        Weather last = chunk.get(chunk.size() - 1);
+        checkpointStore.save(csvPath, new IngestCheckpoint(committedRows, lastRowOffset, last.getWeatherDate(), last.getPlace()));
+    }
+
+    /**
+     * 読み込んだ天気をDBに登録し、ジョブの進捗を更新する。
+     *
+     * @param chunk 登録する天気のリスト
+     * @param job 進捗を記録するジョブ
+     * @return 登録件数
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    private int writeChunk(List<Weather> chunk, IngestJob job) {
+        if (job.isCancelRequested()) {
+            throw new CancellationException("登録が取り消されました。");
+        }
+        job.addRowsParsed(chunk.size());
+        int insertCount = weatherDao.batchInsert(chunk);
+        job.addRowsWritten(insertCount);
+
+        return insertCount;
+    }
+
+    /**
+     * 読み込んだ天気をDBにマージし、ジョブの進捗を更新する。
+     *
+     * @param chunk マージする天気のリスト
+     * @param job 進捗を記録するジョブ
+     * @return マージ結果
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    private MergeResult mergeChunk(List<Weather> chunk, IngestJob job) {
+        if (job.isCancelRequested()) {
+            throw new CancellationException("登録が取り消されました。");
+        }
+        job.addRowsParsed(chunk.size());
+        MergeResult result = weatherDao.batchMerge(chunk);
+        job.addRowsWritten(result.getInsertCount() + result.getUpdateCount());
+
+        return result;
+    }
+
+    /**
+     * 差分登録で比較した行のうち、追加・変更された行をDBに書き込み、ジョブの進捗を更新する。<br/>
+     * 書き込んだ行はリストから取り除く。
+     *
+     * @param insertList 登録する天気のリスト
+     * @param updateList 更新する天気のリスト
+     * @param comparedCount 比較した件数
+     * @param result 差分登録の結果
+     * @param job 進捗を記録するジョブ
+     * @throws CancellationException ジョブの取り消しが要求された場合
+     */
+    private void writeDiff(List<Weather> insertList, List<Weather> updateList, int comparedCount, MergeResult result,
+            IngestJob job) {
+        if (job.isCancelRequested()) {
+            throw new CancellationException("登録が取り消されました。");
+        }
+        job.addRowsParsed(comparedCount);
+        if (!insertList.isEmpty()) {
+            int insertCount = weatherDao.batchInsert(insertList);
+            result.addInsertCount(insertCount);
+            job.addRowsWritten(insertCount);
+            insertList.clear();
+        }
+        if (!updateList.isEmpty()) {
+            int updateCount = weatherDao.batchUpdate(updateList);
+            result.addUpdateCount(updateCount);
+            job.addRowsWritten(updateCount);
+            updateList.clear();
+        }
+    }
+
+    /**
+     * 天気に変換する各項目の項目位置を求める。ヘッダー部に存在しない項目は-1とする。<br/>
+     * 項目位置はヘッダー部で決まるため、読み込むファイルごとに一度だけ求めて{@link #createWeather}に渡す。
+     *
+     * @param row 一行分のCSVデータ
+     * @return {@link #WEATHER_ITEMS}の順の各項目の項目位置
+     */
+    public int[] createItemIndexes(CsvRow row) {
+        int[] itemIndexes = new int[WEATHER_ITEMS.length];
+        for (int i = 0; i < WEATHER_ITEMS.length; i++) {
+            itemIndexes[i] = row.indexOf(WEATHER_ITEMS[i]);
+        }
+        return itemIndexes;
+    }
+
+    /**
+     * CSVの一行分のデータから天気を作成する。<br/>
+     * 日付と気温は{@link FieldDecoder}で行の文字バッファから直接解析し、日付は「yyyy/MM/dd」形式、気温は符号と先頭の0を除いた整数の形式にそろえる。
+     * そのため「2015/1/1」「+05」のような値も、登録済みのデータと同じ形式で登録・比較される。
+     * 日付・気温として解析できない場合は、行番号を設定した例外を送出する（メッセージに行番号は含めない）。
+     * 文字数などの入力規則は精査しない（{@link CsvValidationLogic}の事前精査で確認する）。
+     *
+     * @param row 一行分のCSVデータ
+     * @param itemIndexes {@link #createItemIndexes}で求めた項目位置
+     * @return 天気
+     * @throws FileFormatException 日付・気温を解析できない場合
+     */
+    public Weather createWeather(CsvRow row, int[] itemIndexes) throws FileFormatException {
+        long weatherDate = decodeDate(row, itemIndexes[0]);
+        int maxTemperature = decodeTemperature(row, itemIndexes[3], "最高気温");
+        int minTemperature = decodeTemperature(row, itemIndexes[4], "最低気温");
+        return newWeather(weatherDate, getText(row, itemIndexes[1]), getText(row, itemIndexes[2]), maxTemperature,
+                minTemperature);
+    }
+
+    /**
+     * CSVの一行分のデータから天気を作成し、誤りがある場合は行番号をメッセージに付与して例外を送出する。
+     *
+     * @param row 一行分のCSVデータ
+     * @param itemIndexes {@link #createItemIndexes}で求めた項目位置
+     * @return 天気
+     * @throws FileFormatException 日付・気温を解析できない場合
+     */
+    private Weather toWeather(CsvRow row, int[] itemIndexes) throws FileFormatException {
+        try {
+            return createWeather(row, itemIndexes);
+        } catch (FileFormatException e) {
+            throw new FileFormatException(e.getLineNumber() + "行目 ：" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 日付の項目を解析する。月・日は1桁も可とする。
+     *
+     * @param row 一行分のCSVデータ
+     * @param index 項目位置
+     * @return エポック日。項目が空の場合、ヘッダー部に存在しない場合は{@link FieldDecoder#INVALID_DATE}
+     * @throws FileFormatException 日付として解析できない場合
+     */
+    private static long decodeDate(CsvRow row, int index) throws FileFormatException {
+        if (index < 0 || row.isEmpty(index)) {
+            return FieldDecoder.INVALID_DATE;
+        }
+        long epochDay = FieldDecoder.parseEpochDay(row.getBuffer(), row.getStart(index), row.getEnd(index));
+        if (epochDay == FieldDecoder.INVALID_DATE) {
+            throw new FileFormatException("日付は日付形式で入力してください。", row.getLineNumber());
+        }
+        return epochDay;
+    }
+
+    /**
+     * 気温の項目を解析する。先頭の「-」「+」の符号を許容する。
+     *
+     * @param row 一行分のCSVデータ
+     * @param index 項目位置
+     * @param itemName 項目名
+     * @return 気温。項目が空の場合、ヘッダー部に存在しない場合は{@link FieldDecoder#INVALID_INT}
+     * @throws FileFormatException 整数として解析できない場合
+     */
+    private static int decodeTemperature(CsvRow row, int index, String itemName) throws FileFormatException {
+        if (index < 0 || row.isEmpty(index)) {
+            return FieldDecoder.INVALID_INT;
+        }
+        int temperature = FieldDecoder.parseInt(row.getBuffer(), row.getStart(index), row.getEnd(index));
+        if (temperature == FieldDecoder.INVALID_INT) {
+            throw new FileFormatException(itemName + "は数値で入力してください。", row.getLineNumber());
+        }
+        return temperature;
+    }
+
+    /**
+     * 項目の値を文字列で取得する。
+     *
+     * @param row 一行分のCSVデータ
+     * @param index 項目位置
+     * @return 項目の値。空の場合、ヘッダー部に存在しない場合は{@code null}
+     */
+    private static String getText(CsvRow row, int index) {
+        return index < 0 ? null : row.get(index);
+    }
+
+    /**
+     * 解析した値から天気を作成する。日付は「yyyy/MM/dd」形式、気温は整数の文字列に変換する。
+     *
+     * @param weatherDate 日付のエポック日（空の場合は{@link FieldDecoder#INVALID_DATE}）
+     * @param place 場所
+     * @param weather 天気
+     * @param maxTemperature 最高気温（空の場合は{@link FieldDecoder#INVALID_INT}）
+     * @param minTemperature 最低気温（空の場合は{@link FieldDecoder#INVALID_INT}）
+     * @return 天気
+     */
+    private static Weather newWeather(long weatherDate, String place, String weather, int maxTemperature, int minTemperature) {
+        return new Weather(weatherDate == FieldDecoder.INVALID_DATE ? null : FieldDecoder.formatEpochDay(weatherDate), place,
+                weather, maxTemperature == FieldDecoder.INVALID_INT ? null : Integer.toString(maxTemperature),
+                minTemperature == FieldDecoder.INVALID_INT ? null : Integer.toString(minTemperature));
+    }
+
+    /**
+     * パイプライン登録の解析段階で日付と気温を解析した一行分のデータ。
+     */
+    private static class ParsedRow {
+
+        /** 日付のエポック日（空の場合は{@link FieldDecoder#INVALID_DATE}） */
+        private final long weatherDate;
+
+        /** 場所 */
+        private final String place;
+
+        /** 天気 */
+        private final String weather;
+
+        /** 最高気温（空の場合は{@link FieldDecoder#INVALID_INT}） */
+        private final int maxTemperature;
+
+        /** 最低気温（空の場合は{@link FieldDecoder#INVALID_INT}） */
+        private final int minTemperature;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param weatherDate 日付のエポック日
+         * @param place 場所
+         * @param weather 天気
+         * @param maxTemperature 最高気温
+         * @param minTemperature 最低気温
+         */
+        private ParsedRow(long weatherDate, String place, String weather, int maxTemperature, int minTemperature) {
+            this.weatherDate = weatherDate;
+            this.place = place;
+            this.weather = weather;
+            this.maxTemperature = maxTemperature;
+            this.minTemperature = minTemperature;
+        }
+    }
+
+    /**
+     * 並列解析のチャンクごとの天気のリスト。
+     */
+    private static class WeatherChunk {
+
+        /** チャンク内の天気のリスト */
+        private final List<Weather> weatherList = new ArrayList<Weather>();
+
+        /** {@link #createItemIndexes}で求めた項目位置（最初の行で求める） */
+        private int[] itemIndexes;
+    }
+}
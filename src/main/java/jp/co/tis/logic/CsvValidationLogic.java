@@ -0,0 +1,195 @@
+package jp.co.tis.logic;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.model.CsvValidationReport;
+import jp.co.tis.util.CsvReader;
+import jp.co.tis.util.CsvReaderFactory;
+import jp.co.tis.util.CsvRow;
+import jp.co.tis.util.FieldDecoder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * CSVファイルをDBに登録せずに検証するロジッククラス。<br/>
+ * ファイルを先頭から一度だけ読み込み、最初の誤りで止めずに全ての行を検証して、行番号付きのエラーをまとめて返却する。
+ * 検証する内容は、ヘッダー部と項目数が異なる行（形式の誤り）と、各項目の値の誤りとする。
+ * 値の規則は天気検索画面の入力チェック（{@link WeatherLogic#validateFormForSearch}）に合わせる。<br/>
+ * 行は一行ずつ検証して保持しないため、使用メモリはファイルサイズによらず一定となる。
+ * 日付と気温は{@link FieldDecoder}でCsvReaderの文字バッファから直接解析し、行ごとに文字列を生成しない。
+ * 保持するエラーの上限は設定（wfis.validate.maxErrors）で指定する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+@Component
+public class CsvValidationLogic {
+
+    /** CsvReaderの生成クラス */
+    @Autowired
+    private CsvReaderFactory csvReaderFactory;
+
+    /** 保持するエラーの上限件数 */
+    @Value("${wfis.validate.maxErrors:1000}")
+    private int maxErrors;
+
+    /** 必須のヘッダー部の項目 */
+    private static final String[] REQUIRED_ITEMS = {"WEATHER_DATE", "PLACE", "WEATHER", "MAX_TEMPERATURE", "MIN_TEMPERATURE"};
+
+    /** 場所・天気の最大文字数 */
+    private static final int MAX_TEXT_LENGTH = 10;
+
+    /** 気温の絶対値の最大値（3桁） */
+    private static final int MAX_TEMPERATURE = 999;
+
+    /**
+     * CSVファイルを検証する。<br/>
+     * ヘッダー部に誤りがある場合は、データ部を検証せずにそのエラーのみを返却する。
+     *
+     * @param filePath ファイルパス
+     * @return 検証結果
+     * @throws FileNotFoundException ファイルが存在しない場合
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public CsvValidationReport validate(String filePath) throws FileNotFoundException, IOException {
+        CsvValidationReport report = new CsvValidationReport(maxErrors);
+        CsvReader csvReader = csvReaderFactory.create(filePath);
+        try {
+            csvReader.open();
+        } catch (FileFormatException e) {
+            report.addErrors(0, Collections.singletonList(e.getMessage()));
+            return report;
+        }
+        try {
+            validate(csvReader, report);
+        } finally {
+            csvReader.close();
+        }
+        return report;
+    }
+
+    /**
+     * オープン済みのCsvReaderから全ての行を読み込んで検証し、エラーを検証結果に追加する。<br/>
+     * 項目数が異なる行はエラーとして記録して次の行から検証を続ける。
+     * gzip形式のファイルの破損など、次の行に読み進められない誤りの場合はその時点で検証を終える。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @param report 検証結果
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public void validate(CsvReader csvReader, CsvValidationReport report) throws IOException {
+        long lineNumber = 1;
+        int[] itemIndexes = null;
+        while (true) {
+            CsvRow row;
+            try {
+                row = csvReader.readRow();
+            } catch (FileFormatException e) {
+                if (e.getLineNumber() <= lineNumber) {
+                    // 読み進められない誤り
+                    break;
+                }
+                lineNumber = e.getLineNumber();
+                report.addErrors(lineNumber, Collections.singletonList(e.getMessage()));
+                continue;
+            }
+            if (row == null) {
+                break;
+            }
+            lineNumber = row.getLineNumber();
+            if (itemIndexes == null) {
+                List<String> headerErrorList = validateHeader(row);
+                if (!headerErrorList.isEmpty()) {
+                    report.addErrors(0, headerErrorList);
+                    return;
+                }
+                itemIndexes = new int[REQUIRED_ITEMS.length];
+                for (int i = 0; i < REQUIRED_ITEMS.length; i++) {
+                    itemIndexes[i] = row.indexOf(REQUIRED_ITEMS[i]);
+                }
+            }
+            report.addErrors(lineNumber, validateRow(row, itemIndexes));
+        }
+        report.setRowCount(lineNumber - 1);
+        if (lineNumber == 1) {
+            report.addErrors(0, Collections.singletonList("登録するデータが存在しません。"));
+        }
+    }
+
+    /**
+     * ヘッダー部に必須の項目が揃っているかを検証する。
+     *
+     * @param row 一行分のCSVデータ
+     * @return エラーリスト
+     */
+    private List<String> validateHeader(CsvRow row) {
+        List<String> errorList = new ArrayList<String>();
+        for (String item : REQUIRED_ITEMS) {
+            if (row.indexOf(item) < 0) {
+                errorList.add("ヘッダー行に項目「" + item + "」が存在しません。");
+            }
+        }
+        return errorList;
+    }
+
+    /**
+     * 一行分の天気の値を検証する。<br/>
+     * 日付と場所は登録時のキーとなるため必須とする。
+     * 気温はCSVでは氷点下の値があるため、符号付きの整数として検証し、絶対値の桁数を制限する。
+     *
+     * @param row 一行分のCSVデータ
+     * @param itemIndexes {@link #REQUIRED_ITEMS}の各項目の項目位置
+     * @return エラーリスト
+     */
+    private List<String> validateRow(CsvRow row, int[] itemIndexes) {
+        List<String> errorList = new ArrayList<String>();
+        int date = itemIndexes[0];
+        int place = itemIndexes[1];
+        int weather = itemIndexes[2];
+
+        if (row.isEmpty(date)) {
+            errorList.add("日付は必ず入力してください。");
+        } else if (FieldDecoder.parseEpochDay(row.getBuffer(), row.getStart(date), row.getEnd(date)) == FieldDecoder.INVALID_DATE) {
+            errorList.add("日付は日付形式で入力してください。");
+        }
+        if (row.isEmpty(place)) {
+            errorList.add("場所は必ず入力してください。");
+        } else if (row.length(place) > MAX_TEXT_LENGTH) {
+            errorList.add("場所は10文字以内で入力してください。");
+        }
+        if (row.length(weather) > MAX_TEXT_LENGTH) {
+            errorList.add("天気は10文字以内で入力してください。");
+        }
+        validateTemperature(row, itemIndexes[3], "最高気温", errorList);
+        validateTemperature(row, itemIndexes[4], "最低気温", errorList);
+
+        return errorList;
+    }
+
+    /**
+     * 気温の値を検証する。
+     *
+     * @param row 一行分のCSVデータ
+     * @param index 気温の項目位置
+     * @param itemName 項目名
+     * @param errorList エラーリスト
+     */
+    private void validateTemperature(CsvRow row, int index, String itemName, List<String> errorList) {
+        if (row.isEmpty(index)) {
+            return;
+        }
+        int temperature = FieldDecoder.parseInt(row.getBuffer(), row.getStart(index), row.getEnd(index));
+        if (temperature == FieldDecoder.INVALID_INT) {
+            errorList.add(itemName + "は数値で入力してください。");
+        } else if (Math.abs(temperature) > MAX_TEMPERATURE) {
+            errorList.add(itemName + "は3桁以内で入力してください。");
+        }
+    }
+}
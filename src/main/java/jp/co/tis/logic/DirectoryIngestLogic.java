@@ -0,0 +1,218 @@
+package jp.co.tis.logic;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.exception.SystemException;
+import jp.co.tis.model.DirectoryIngestReport;
+import jp.co.tis.model.IngestJob;
+import jp.co.tis.model.MergeResult;
+import jp.co.tis.util.CsvReader;
+import jp.co.tis.util.CsvReaderFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * ディレクトリ内のCSVファイルを一括で登録するロジッククラス。<br/>
+ * ディレクトリ直下のcsv形式・csv.gz形式のファイルを、設定（wfis.directory.workers）のスレッド数で並行して登録する。
+ * 各スレッドはファイルの解析とDBへの一括登録を行い、ファイルごとに別のトランザクションでコミットする。
+ * そのため、形式に誤りのあるファイルはそのファイルのみロールバックし、他のファイルの登録は続ける。<br/>
+ * 各スレッドはトランザクションの間コネクションを一つ使用するため、スレッド数はコネクションプールの上限以下とすること。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+@Component
+public class DirectoryIngestLogic {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryIngestLogic.class);
+
+    /** CSV登録ロジッククラス */
+    @Autowired
+    private CsvRegisterLogic csvRegisterLogic;
+
+    /** CsvReaderの生成クラス */
+    @Autowired
+    private CsvReaderFactory csvReaderFactory;
+
+    /** トランザクションマネージャ */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** ファイルを同時に登録するスレッド数 */
+    @Value("${wfis.directory.workers:4}")
+    private int workers;
+
+    /** ファイルを登録するスレッドプール */
+    private ExecutorService executor;
+
+    /**
+     * スレッドプールを生成する。
+     */
+    @PostConstruct
+    public void init() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "directory-ingest-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * スレッドプールを終了する。
+     */
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * ディレクトリ直下のCSVファイルを並行して登録する。<br/>
+     * 全てのファイルの登録が終わるまで待ち、ファイルごとの結果をまとめて返却する。
+     *
+     * @param directoryPath ディレクトリパス
+     * @return 登録結果
+     * @throws FileNotFoundException ディレクトリが存在しない場合
+     * @throws CancellationException 待ち合わせ中に割り込まれた場合
+     */
+    public DirectoryIngestReport ingest(String directoryPath) throws FileNotFoundException {
+        long start = System.currentTimeMillis();
+        List<File> fileList = listCsvFiles(directoryPath);
+
+        final List<IngestJob> jobList = new ArrayList<IngestJob>(fileList.size());
+        List<Callable<Void>> taskList = new ArrayList<Callable<Void>>(fileList.size());
+        for (File file : fileList) {
+            final IngestJob job = new IngestJob(null, file.getPath());
+            jobList.add(job);
+            taskList.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    ingestFile(job);
+                    return null;
+                }
+            });
+        }
+        try {
+            executor.invokeAll(taskList);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (IngestJob job : jobList) {
+                job.requestCancel();
+            }
+            throw new CancellationException("登録が取り消されました。");
+        }
+
+        return new DirectoryIngestReport(directoryPath, jobList, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * ディレクトリ直下のCSVファイルをファイル名順に取得する。
+     *
+     * @param directoryPath ディレクトリパス
+     * @return CSVファイルのリスト
+     * @throws FileNotFoundException ディレクトリが存在しない場合
+     */
+    private List<File> listCsvFiles(String directoryPath) throws FileNotFoundException {
+        File[] files = new File(directoryPath).listFiles();
+        if (files == null) {
+            throw new FileNotFoundException("ディレクトリが存在しません。");
+        }
+        Arrays.sort(files);
+
+        List<File> fileList = new ArrayList<File>();
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isFile() && (name.endsWith(".csv") || name.endsWith(".csv.gz"))) {
+                fileList.add(file);
+            }
+        }
+        return fileList;
+    }
+
+    /**
+     * 一つのファイルを別のトランザクションで登録し、結果をジョブに記録する。<br/>
+     * 登録件数が0件の場合、形式に誤りがある場合はロールバックし、エラーをジョブに記録する。
+     *
+     * @param job ファイルのジョブ
+     */
+    private void ingestFile(final IngestJob job) {
+        if (job.isCancelRequested()) {
+            job.finish(IngestJob.Status.CANCELLED);
+            return;
+        }
+        job.start();
+
+        final CsvReader csvReader = csvReaderFactory.create(job.getFilePath());
+        try {
+            csvReader.open();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            boolean completed = transactionTemplate.execute(new TransactionCallback<Boolean>() {
+                @Override
+                public Boolean doInTransaction(TransactionStatus status) {
+                    try {
+                        int insertCount;
+                        if (csvRegisterLogic.isMergeMode()) {
+                            MergeResult mergeResult = csvRegisterLogic.mergeFromCsv(csvReader, job);
+                            job.setMergeResult(mergeResult);
+                            insertCount = mergeResult.getTotalCount();
+                        } else {
+                            insertCount = csvRegisterLogic.registerFromCsv(csvReader, job);
+                        }
+                        if (insertCount == 0) {
+                            job.addError("登録するデータが存在しません。");
+                            return false;
+                        }
+                        return true;
+                    } catch (FileFormatException e) {
+                        status.setRollbackOnly();
+                        job.addError(e.getMessage());
+                        return false;
+                    } catch (IOException e) {
+                        throw new SystemException("システム例外が発生しました。", e);
+                    }
+                }
+            });
+            job.finish(completed ? IngestJob.Status.COMPLETED : IngestJob.Status.FAILED);
+        } catch (FileNotFoundException | FileFormatException e) {
+            job.addError(e.getMessage());
+            job.finish(IngestJob.Status.FAILED);
+        } catch (CancellationException e) {
+            job.finish(IngestJob.Status.CANCELLED);
+        } catch (RuntimeException e) {
+            LOGGER.error("ディレクトリ一括登録でファイルの登録に失敗しました。filePath=" + job.getFilePath(), e);
+            job.addError("システム例外が発生しました。");
+            job.finish(IngestJob.Status.FAILED);
+        } finally {
+            csvReader.close();
+        }
+    }
+}
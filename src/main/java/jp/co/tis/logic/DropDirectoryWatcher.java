@@ -0,0 +1,292 @@
+package jp.co.tis.logic;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.model.IngestCheckpoint;
+import jp.co.tis.model.IngestJob;
+import jp.co.tis.util.CheckpointStore;
+import jp.co.tis.util.CsvReader;
+import jp.co.tis.util.CsvReaderFactory;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 監視ディレクトリに置かれたCSVファイルを継続的に登録するクラス。<br/>
+ * 設定（wfis.watch.dir）でディレクトリを指定した場合のみ、{@link WatchService}でディレクトリを監視するスレッドを起動する。
+ * csv形式のファイルが作成・追記されるたびに、{@link CsvRegisterLogic#registerAppendedRows}で前回までに登録していない行のみを登録する。<br/>
+ * 登録済みの位置はファイルごとのチェックポイントに保存するため、アプリケーションを再起動しても登録済みの行は読み込まない。
+ * 起動時はディレクトリ内の全てのファイルを確認し、停止中に追記された行を登録する。<br/>
+ * 最後に登録した行の位置までファイルが切り詰められた場合は、置き換えられたファイルとして先頭から登録する。
+ * 形式の誤りにより登録できないファイルは、追記のたびに同じ行で失敗し続けるため、監視ディレクトリ内のエラーディレクトリに移動する。<br/>
+ * gzip形式のファイルは追記できないため対象としない。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+@Component
+public class DropDirectoryWatcher {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(DropDirectoryWatcher.class);
+
+    /** 監視対象のファイルの拡張子 */
+    private static final String EXTENSION = ".csv";
+
+    /** 最後の改行を探す際に一度に読み込むバイト数 */
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    /** 登録できなかったファイルを移動するディレクトリ（監視ディレクトリからの相対パス） */
+    private static final String ERROR_DIR = "error";
+
+    /** CSV登録ロジッククラス */
+    @Autowired
+    private CsvRegisterLogic csvRegisterLogic;
+
+    /** CsvReaderの生成クラス */
+    @Autowired
+    private CsvReaderFactory csvReaderFactory;
+
+    /** チェックポイントの保存クラス */
+    @Autowired
+    private CheckpointStore checkpointStore;
+
+    /** 監視するディレクトリ（未指定の場合は監視しない） */
+    @Value("${wfis.watch.dir:}")
+    private String watchDir;
+
+    /** ファイルパスと、前回確認した時点のファイルサイズの対応 */
+    private final Map<String, Long> checkedLengthMap = new ConcurrentHashMap<String, Long>();
+
+    /** ディレクトリの監視サービス */
+    private WatchService watchService;
+
+    /** ディレクトリを監視するスレッド */
+    private Thread watchThread;
+
+    /**
+     * 監視ディレクトリが指定されている場合は、監視するスレッドを起動する。
+     *
+     * @throws IOException 監視を開始できない場合
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        if (StringUtils.isEmpty(watchDir)) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        new File(watchDir).toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        watchThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "drop-directory-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * 監視を終了する。
+     */
+    @PreDestroy
+    public void destroy() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.warn("ディレクトリの監視を終了できませんでした。", e);
+        }
+        watchThread.interrupt();
+    }
+
+    /**
+     * 監視サービスから通知を受け取り、作成・追記されたファイルを登録する。<br/>
+     * 通知が溢れた場合は、ディレクトリ内の全てのファイルを確認する。
+     */
+    private void watch() {
+        scanAll();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<String> fileNameSet = new TreeSet<String>();
+                boolean overflow = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow = true;
+                    } else {
+                        fileNameSet.add(((Path) event.context()).toString());
+                    }
+                }
+                if (overflow) {
+                    scanAll();
+                } else {
+                    for (String fileName : fileNameSet) {
+                        ingest(new File(watchDir, fileName));
+                    }
+                }
+                if (!key.reset()) {
+                    LOGGER.error("監視ディレクトリにアクセスできなくなったため、監視を終了します。watchDir=" + watchDir);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 終了
+        }
+    }
+
+    /**
+     * 監視ディレクトリ内の全てのファイルをファイル名順に確認し、登録していない行を登録する。
+     */
+    public void scanAll() {
+        File[] files = new File(watchDir).listFiles();
+        if (files == null) {
+            LOGGER.error("監視ディレクトリが存在しません。watchDir=" + watchDir);
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            ingest(file);
+        }
+    }
+
+    /**
+     * ファイルの前回までに登録していない行を登録する。<br/>
+     * 前回確認した時点からファイルサイズが変わっていない場合は、ファイルを開かない。
+     * 最後に登録した行の位置までファイルが切り詰められている場合は、チェックポイントを削除して先頭から登録する。<br/>
+     * 形式の誤りにより登録できない場合は、ファイルをエラーディレクトリに移動する。
+     * 入出力エラーなどその他の理由で登録に失敗した場合はログに出力し、次に追記された際に改めて登録する。
+     *
+     * @param file ファイル
+     * @return 登録件数
+     */
+    public int ingest(File file) {
+        if (!file.isFile() || !file.getName().endsWith(EXTENSION)) {
+            return 0;
+        }
+        String csvPath = file.getPath();
+        long length = file.length();
+        Long checkedLength = checkedLengthMap.get(csvPath);
+        if (checkedLength != null && checkedLength == length) {
+            return 0;
+        }
+
+        int insertCount = 0;
+        CsvReader csvReader = null;
+        try {
+            long completeLength = findCompleteLength(file, length);
+            if (completeLength == 0) {
+                // ヘッダー行の書き込み中
+                return 0;
+            }
+            IngestCheckpoint checkpoint = checkpointStore.load(csvPath);
+            if (checkpoint != null && checkpoint.getLastRowOffset() >= completeLength) {
+                // 最後に登録した行が存在しない
+                LOGGER.info("監視ディレクトリのファイルが切り詰められたため、先頭から登録します。filePath=" + csvPath);
+                checkpointStore.delete(csvPath);
+            }
+            csvReader = csvReaderFactory.create(csvPath);
+            csvReader.open();
+            insertCount = csvRegisterLogic.registerAppendedRows(csvReader, csvPath, completeLength, new IngestJob(null, csvPath));
+            checkedLengthMap.put(csvPath, length);
+            if (insertCount > 0) {
+                LOGGER.info("監視ディレクトリのファイルを登録しました。filePath=" + csvPath + ", insertCount=" + insertCount);
+            }
+        } catch (FileNotFoundException e) {
+            // 確認中に削除された場合
+            checkedLengthMap.remove(csvPath);
+        } catch (FileFormatException e) {
+            LOGGER.error("監視ディレクトリのファイルを登録できませんでした。filePath=" + csvPath + ", " + e.getMessage());
+            moveToErrorDir(file, length);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("監視ディレクトリのファイルを登録できませんでした。filePath=" + csvPath, e);
+        } finally {
+            if (csvReader != null) {
+                csvReader.close();
+            }
+        }
+        return insertCount;
+    }
+
+    /**
+     * 登録できなかったファイルをエラーディレクトリに移動し、チェックポイントを削除する。<br/>
+     * 移動後に同じ名前で作成されたファイルは、新しいファイルとして先頭から登録する。
+     * 移動できなかった場合は、ファイルサイズが変わるまで登録しない。
+     *
+     * @param file ファイル
+     * @param length 登録に失敗した時点のファイルサイズ
+     */
+    private void moveToErrorDir(File file, long length) {
+        String csvPath = file.getPath();
+        File errorFile = new File(new File(file.getParentFile(), ERROR_DIR), file.getName());
+        try {
+            Files.createDirectories(errorFile.getParentFile().toPath());
+            Files.move(file.toPath(), errorFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            checkpointStore.delete(csvPath);
+            checkedLengthMap.remove(csvPath);
+            LOGGER.error("登録できなかったファイルをエラーディレクトリに移動しました。errorFilePath=" + errorFile.getPath());
+        } catch (IOException e) {
+            LOGGER.error("登録できなかったファイルをエラーディレクトリに移動できませんでした。filePath=" + csvPath, e);
+            checkedLengthMap.put(csvPath, length);
+        }
+    }
+
+    /**
+     * 書き込みが完了している部分のバイト数として、最後の改行の直後の位置を求める。<br/>
+     * ファイルの末尾から読み込むため、読み込む量は書き込み途中の行の長さ分のみとなる。
+     *
+     * @param file ファイル
+     * @param length ファイルサイズ
+     * @return 最後の改行の直後の位置。改行がない場合は0
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    long findCompleteLength(File file, long length) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+            long end = Math.min(length, randomAccessFile.length());
+            while (end > 0) {
+                int size = (int) Math.min(buffer.length, end);
+                randomAccessFile.seek(end - size);
+                randomAccessFile.readFully(buffer, 0, size);
+                for (int i = size - 1; i >= 0; i--) {
+                    if (buffer[i] == '\n' || buffer[i] == '\r') {
+                        return end - size + i + 1;
+                    }
+                }
+                end -= size;
+            }
+            return 0;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+}
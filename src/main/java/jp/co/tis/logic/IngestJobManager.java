@@ -0,0 +1,278 @@
+package jp.co.tis.logic;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.exception.SystemException;
+import jp.co.tis.model.IngestJob;
+import jp.co.tis.model.MergeResult;
+import jp.co.tis.util.CsvReader;
+import jp.co.tis.util.CsvReaderFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * CSV登録ジョブを管理するクラス。<br/>
+ * CSV登録をリクエストのスレッドではなく、件数に上限のあるスレッドプールでバックグラウンドに実行する。<br/>
+ * 受け付けたジョブはジョブIDで進捗の参照と取り消しができる。
+ * 終了したジョブは設定（wfis.ingest.retainedJobs）の件数まで保持し、古いものから破棄する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+@Component
+public class IngestJobManager {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(IngestJobManager.class);
+
+    /** CSV登録ロジッククラス */
+    @Autowired
+    private CsvRegisterLogic csvRegisterLogic;
+
+    /** CsvReaderの生成クラス */
+    @Autowired
+    private CsvReaderFactory csvReaderFactory;
+
+    /** トランザクションマネージャ */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** ジョブを同時に実行するスレッド数 */
+    @Value("${wfis.ingest.workers:2}")
+    private int workers;
+
+    /** 実行待ちにできるジョブの件数 */
+    @Value("${wfis.ingest.queueCapacity:10}")
+    private int queueCapacity;
+
+    /** 終了したジョブを保持する件数 */
+    @Value("${wfis.ingest.retainedJobs:100}")
+    private int retainedJobs;
+
+    /** ジョブを実行するスレッドプール */
+    private ThreadPoolExecutor executor;
+
+    /** ジョブIDとジョブの対応（受付順） */
+    private final Map<String, IngestJob> jobMap = new LinkedHashMap<String, IngestJob>();
+
+    /** ジョブIDと実行結果の対応 */
+    private final Map<String, Future<?>> futureMap = new LinkedHashMap<String, Future<?>>();
+
+    /**
+     * スレッドプールを生成する。
+     */
+    @PostConstruct
+    public void init() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueCapacity),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "ingest-job-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * スレッドプールを終了する。実行中のジョブには取り消しを要求する。
+     */
+    @PreDestroy
+    public void destroy() {
+        synchronized (jobMap) {
+            for (IngestJob job : jobMap.values()) {
+                job.requestCancel();
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * CSV登録ジョブを受け付ける。
+     *
+     * @param filePath CSVファイルパス
+     * @return 受け付けたジョブ
+     * @throws RejectedExecutionException 実行待ちのジョブが上限に達している場合
+     */
+    public IngestJob submit(String filePath) {
+        final IngestJob job = new IngestJob(UUID.randomUUID().toString(), filePath);
+        synchronized (jobMap) {
+            Future<?> future = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    execute(job);
+                }
+            });
+            jobMap.put(job.getJobId(), job);
+            futureMap.put(job.getJobId(), future);
+            removeFinishedJobs();
+        }
+
+        return job;
+    }
+
+    /**
+     * ジョブを取得する。
+     *
+     * @param jobId ジョブID
+     * @return ジョブ。存在しない場合は{@code null}
+     */
+    public IngestJob getJob(String jobId) {
+        synchronized (jobMap) {
+            return jobMap.get(jobId);
+        }
+    }
+
+    /**
+     * 保持している全てのジョブを受付順に取得する。
+     *
+     * @return ジョブのリスト
+     */
+    public List<IngestJob> getJobList() {
+        synchronized (jobMap) {
+            return new ArrayList<IngestJob>(jobMap.values());
+        }
+    }
+
+    /**
+     * ジョブの取り消しを要求する。<br/>
+     * 実行待ちのジョブはそのまま取り消す。実行中のジョブは、次の登録単位の前で中断し、ロールバックする。
+     *
+     * @param jobId ジョブID
+     * @return ジョブ。存在しない場合は{@code null}
+     */
+    public IngestJob cancel(String jobId) {
+        synchronized (jobMap) {
+            IngestJob job = jobMap.get(jobId);
+            if (job == null || job.isFinished()) {
+                return job;
+            }
+            job.requestCancel();
+            if (futureMap.get(jobId).cancel(false)) {
+                job.finish(IngestJob.Status.CANCELLED);
+            }
+            return job;
+        }
+    }
+
+    /**
+     * ジョブを実行する。
+     *
+     * @param job ジョブ
+     */
+    private void execute(final IngestJob job) {
+        if (job.isCancelRequested()) {
+            job.finish(IngestJob.Status.CANCELLED);
+            return;
+        }
+        job.start();
+
+        final CsvReader csvReader = csvReaderFactory.create(job.getFilePath());
+        try {
+            csvReader.open();
+            Integer insertCount;
+            if (csvRegisterLogic.isCommitIntervalEnabled()) {
+                insertCount = csvRegisterLogic.registerFromCsvWithCheckpoint(csvReader, job.getFilePath(), job);
+            } else {
+                insertCount = registerInTransaction(csvReader, job);
+            }
+            if (insertCount == null) {
+                job.finish(IngestJob.Status.FAILED);
+            } else if (insertCount == 0) {
+                job.addError("登録するデータが存在しません。");
+                job.finish(IngestJob.Status.FAILED);
+            } else {
+                job.finish(IngestJob.Status.COMPLETED);
+            }
+        } catch (FileNotFoundException | FileFormatException e) {
+            job.addError(e.getMessage());
+            job.finish(IngestJob.Status.FAILED);
+        } catch (IOException e) {
+            LOGGER.error("CSV登録ジョブが異常終了しました。jobId=" + job.getJobId(), e);
+            job.addError("システム例外が発生しました。");
+            job.finish(IngestJob.Status.FAILED);
+        } catch (CancellationException e) {
+            job.finish(IngestJob.Status.CANCELLED);
+        } catch (RuntimeException e) {
+            LOGGER.error("CSV登録ジョブが異常終了しました。jobId=" + job.getJobId(), e);
+            job.addError("システム例外が発生しました。");
+            job.finish(IngestJob.Status.FAILED);
+        } finally {
+            csvReader.close();
+        }
+    }
+
+    /**
+     * 一つのトランザクションでCSVファイルを登録する。<br/>
+     * データ部の形式に誤りがある場合はロールバックし、エラーをジョブに記録する。
+     *
+     * @param csvReader オープン済みのCsvReader
+     * @param job ジョブ
+     * @return 登録件数。形式に誤りがある場合は{@code null}
+     */
+    private Integer registerInTransaction(final CsvReader csvReader, final IngestJob job) {
+        return new TransactionTemplate(transactionManager).execute(new TransactionCallback<Integer>() {
+            @Override
+            public Integer doInTransaction(TransactionStatus status) {
+                try {
+                    if (csvRegisterLogic.isMergeMode()) {
+                        MergeResult mergeResult = csvRegisterLogic.mergeFromCsv(csvReader, job);
+                        job.setMergeResult(mergeResult);
+                        return mergeResult.getTotalCount();
+                    }
+                    return csvRegisterLogic.registerFromCsv(csvReader, job);
+                } catch (FileFormatException e) {
+                    status.setRollbackOnly();
+                    job.addError(e.getMessage());
+                    return null;
+                } catch (IOException e) {
+                    throw new SystemException("システム例外が発生しました。", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 保持件数を超えた終了済みのジョブを古いものから破棄する。
+     */
+    private void removeFinishedJobs() {
+        int excess = jobMap.size() - retainedJobs;
+        Iterator<IngestJob> iterator = jobMap.values().iterator();
+        while (excess > 0 && iterator.hasNext()) {
+            IngestJob job = iterator.next();
+            if (job.isFinished()) {
+                iterator.remove();
+                futureMap.remove(job.getJobId());
+                excess--;
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package jp.co.tis.logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jp.co.tis.model.SearchCacheStatistics;
+import jp.co.tis.model.Weather;
+import jp.co.tis.model.WeatherDao;
+import jp.co.tis.model.WeatherDataVersion;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 天気の検索結果をキャッシュするクラス。<br/>
+ * SQLと検索条件（値が未入力の項目を除き、項目名の順に並べたもの）をキーとして検索結果を保持し、同じ検索ではデータベースを検索しない。
+ * 保持する件数の上限は設定（wfis.search.cacheMaxEntries、0の場合はキャッシュしない）、有効期限は設定（wfis.search.cacheTtlSeconds）で指定し、
+ * 上限を超えた場合は最も長く参照されていない検索結果から破棄する。<br/>
+ * 検索結果は検索時の{@link WeatherDataVersion}とともに保持し、天気テーブルへの書き込みでバージョンが変わった検索結果は使用しない。<br/>
+ * 返却する検索結果は複数の画面で共有するため、変更できないリストとする。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+@Component
+public class SearchResultCache {
+
+    /** DB操作DAO */
+    @Autowired
+    private WeatherDao weatherDao;
+
+    /** 天気テーブルのデータのバージョン */
+    @Autowired
+    private WeatherDataVersion dataVersion;
+
+    /** 保持する件数の上限 */
+    @Value("${wfis.search.cacheMaxEntries:1000}")
+    private int maxEntries;
+
+    /** 有効期限（秒） */
+    @Value("${wfis.search.cacheTtlSeconds:300}")
+    private long ttlSeconds;
+
+    /** キャッシュから返却した回数 */
+    private long hitCount;
+
+    /** データベースを検索した回数 */
+    private long missCount;
+
+    /** 件数の上限または有効期限により破棄した件数 */
+    private long evictionCount;
+
+    /** データのバージョンが変わったため破棄した件数 */
+    private long invalidationCount;
+
+    /** キーと検索結果の対応（参照順） */
+    private final Map<List<String>, CacheEntry> cacheMap = new LinkedHashMap<List<String>, CacheEntry>(16, 0.75f, true) {
+
+        /** SUID */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, CacheEntry> eldest) {
+            if (size() <= maxEntries) {
+                return false;
+            }
+            evictionCount++;
+            return true;
+        }
+    };
+
+    /**
+     * SQLとパラメータをもとに検索を行う。同じ検索の有効な検索結果を保持している場合は、データベースを検索せずに返却する。
+     *
+     * @param selectSql 実行したいSQL
+     * @param condition SQLに埋め込むパラメータ
+     * @return 検索結果（変更できないリスト）
+     * @see WeatherDao#findBySql(String, Map)
+     */
+    public List<Weather> findBySql(String selectSql, Map<String, String> condition) {
+        if (maxEntries <= 0) {
+            return Collections.unmodifiableList(weatherDao.findBySql(selectSql, condition));
+        }
+
+        List<String> key = createKey(selectSql, condition);
+        long version = dataVersion.get();
+        synchronized (cacheMap) {
+            CacheEntry entry = cacheMap.get(key);
+            if (entry != null) {
+                if (entry.version != version) {
+                    cacheMap.remove(key);
+                    invalidationCount++;
+                } else if (System.currentTimeMillis() >= entry.expireTime) {
+                    cacheMap.remove(key);
+                    evictionCount++;
+                } else {
+                    hitCount++;
+                    return entry.weatherList;
+                }
+            }
+            missCount++;
+        }
+
+        List<Weather> weatherList = Collections.unmodifiableList(weatherDao.findBySql(selectSql, condition));
+        synchronized (cacheMap) {
+            // 検索中に書き込まれた場合は、どちらのバージョンの内容か判断できないため保持しない
+            if (dataVersion.get() == version) {
+                cacheMap.put(key, new CacheEntry(weatherList, version, System.currentTimeMillis() + ttlSeconds * 1000));
+            }
+        }
+        return weatherList;
+    }
+
+    /**
+     * 保持している検索結果を全て破棄する。
+     */
+    public void clear() {
+        synchronized (cacheMap) {
+            cacheMap.clear();
+        }
+    }
+
+    /**
+     * 統計情報を返却する。
+     *
+     * @return 統計情報
+     */
+    public SearchCacheStatistics getStatistics() {
+        synchronized (cacheMap) {
+            return new SearchCacheStatistics(hitCount, missCount, evictionCount, invalidationCount, cacheMap.size(), maxEntries, dataVersion.get());
+        }
+    }
+
+    /**
+     * SQLと検索条件からキーを作成する。値が未入力の項目は除き、項目名の順に並べる。
+     *
+     * @param selectSql SQL
+     * @param condition 検索条件
+     * @return キー
+     */
+    private List<String> createKey(String selectSql, Map<String, String> condition) {
+        Map<String, String> sortedCondition = new TreeMap<String, String>();
+        for (Map.Entry<String, String> item : condition.entrySet()) {
+            if (!StringUtils.isEmpty(item.getValue())) {
+                sortedCondition.put(item.getKey(), item.getValue());
+            }
+        }
+
+        List<String> key = new ArrayList<String>(sortedCondition.size() * 2 + 1);
+        key.add(selectSql);
+        for (Map.Entry<String, String> item : sortedCondition.entrySet()) {
+            key.add(item.getKey());
+            key.add(item.getValue());
+        }
+        return key;
+    }
+
+    /**
+     * 保持している検索結果。
+     */
+    private static class CacheEntry {
+
+        /** 検索結果 */
+        private final List<Weather> weatherList;
+
+        /** 検索時のデータのバージョン */
+        private final long version;
+
+        /** 有効期限（エポックミリ秒） */
+        private final long expireTime;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param weatherList 検索結果
+         * @param version 検索時のデータのバージョン
+         * @param expireTime 有効期限（エポックミリ秒）
+         */
+        CacheEntry(List<Weather> weatherList, long version, long expireTime) {
+            this.weatherList = weatherList;
+            this.version = version;
+            this.expireTime = expireTime;
+        }
+    }
+}
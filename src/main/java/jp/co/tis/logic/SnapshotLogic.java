@@ -0,0 +1,172 @@
+package jp.co.tis.logic;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.model.SnapshotReport;
+import jp.co.tis.model.Weather;
+import jp.co.tis.model.WeatherDao;
+import jp.co.tis.model.WeatherHandler;
+import jp.co.tis.util.SnapshotReader;
+import jp.co.tis.util.SnapshotWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 天気テーブルのスナップショットを保存・復元するロジッククラス。<br/>
+ * 保存は全件を一度の検索で読み込みながら{@link SnapshotWriter}で書き込むため、件数によらず使用メモリは一定となる。
+ * 書き込み途中のファイルは一時ファイルとし、書き込みが完了してから指定のファイルパスに置き換える。<br/>
+ * 復元は{@link SnapshotReader}で読み込んだブロックごとに一括登録し、ブロックごとに別のトランザクションでコミットする。
+ * 復元は環境の再構築後など、天気テーブルが空の状態で実行することを想定する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+@Component
+public class SnapshotLogic {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotLogic.class);
+
+    /** DB操作DAO */
+    @Autowired
+    private WeatherDao weatherDao;
+
+    /** トランザクションマネージャ */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 天気テーブルの全件をスナップショットに保存する。
+     *
+     * @param filePath 保存先のファイルパス
+     * @return 保存結果
+     * @throws FileNotFoundException 保存先のディレクトリが存在しない場合
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException スナップショットに保存できない値がある場合
+     */
+    public SnapshotReport export(String filePath) throws FileNotFoundException, IOException, FileFormatException {
+        long startTime = System.currentTimeMillis();
+        File file = new File(filePath);
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory == null || !directory.isDirectory()) {
+            throw new FileNotFoundException("保存先のディレクトリが存在しません。");
+        }
+
+        File tempFile = File.createTempFile("wfis-snapshot-", ".tmp", directory);
+        final SnapshotWriter writer = new SnapshotWriter(tempFile);
+        boolean completed = false;
+        try {
+            writer.open();
+            weatherDao.findAll(new WeatherHandler() {
+                @Override
+                public void handle(Weather weather) {
+                    try {
+                        writer.write(weather);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } catch (FileFormatException e) {
+                        throw new UncheckedFileFormatException(e);
+                    }
+                }
+            });
+            writer.close();
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            completed = true;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (UncheckedFileFormatException e) {
+            throw e.getCause();
+        } finally {
+            if (!completed) {
+                writer.abort();
+                Files.deleteIfExists(tempFile.toPath());
+            }
+        }
+
+        return new SnapshotReport(filePath, writer.getTotalRows(), file.length(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * スナップショットの天気を天気テーブルに登録する。<br/>
+     * ブロックごとにコミットするため、途中で失敗した場合もそれまでのブロックの登録は取り消さない。
+     *
+     * @param filePath スナップショットのファイルパス
+     * @return 復元結果
+     * @throws FileNotFoundException ファイルが存在しない場合
+     * @throws IOException 入出力エラーが発生した場合、ファイルの形式が不正な場合
+     */
+    public SnapshotReport restore(String filePath) throws FileNotFoundException, IOException {
+        long startTime = System.currentTimeMillis();
+        File file = new File(filePath);
+        if (!file.isFile()) {
+            throw new FileNotFoundException("ファイルが存在しません。");
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        SnapshotReader reader = new SnapshotReader(file);
+        long rowCount = 0;
+        try {
+            reader.open();
+            List<Weather> weatherList;
+            while ((weatherList = reader.readBlock()) != null) {
+                final List<Weather> block = weatherList;
+                rowCount += transactionTemplate.execute(new TransactionCallback<Integer>() {
+                    @Override
+                    public Integer doInTransaction(TransactionStatus status) {
+                        return weatherDao.batchInsert(block);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            if (rowCount == 0) {
+                throw e;
+            }
+            throw new IOException(e.getMessage() + "（" + rowCount + "件は登録済みです。）", e);
+        } catch (RuntimeException e) {
+            LOGGER.error("スナップショットの復元に失敗しました。filePath=" + filePath + ", 登録済みの件数=" + rowCount, e);
+            throw e;
+        } finally {
+            reader.close();
+        }
+
+        return new SnapshotReport(filePath, rowCount, file.length(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 検索中に発生したFileFormatExceptionを、検索を中断して呼び出し元に伝えるための例外。
+     */
+    private static class UncheckedFileFormatException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param cause 原因となる例外
+         */
+        UncheckedFileFormatException(FileFormatException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized FileFormatException getCause() {
+            return (FileFormatException) super.getCause();
+        }
+    }
+}
@@ -7,11 +7,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import jp.co.tis.form.WeatherSearchForm;
 import jp.co.tis.model.Weather;
 import jp.co.tis.model.WeatherDao;
 import jp.co.tis.model.WeatherDto;
+import jp.co.tis.util.FieldDecoder;
+import jp.co.tis.util.SearchCursor;
 
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,10 +34,74 @@ import org.springframework.web.servlet.ModelAndView;
 @Component
 public class WeatherLogic {
 
+    /** 天気検索のSQLの条件の組み合わせ：日付 */
+    private static final int CONDITION_WEATHER_DATE = 1;
+
+    /** 天気検索のSQLの条件の組み合わせ：日付From */
+    private static final int CONDITION_WEATHER_DATE_FROM = 1 << 1;
+
+    /** 天気検索のSQLの条件の組み合わせ：日付To */
+    private static final int CONDITION_WEATHER_DATE_TO = 1 << 2;
+
+    /** 天気検索のSQLの条件の組み合わせ：場所 */
+    private static final int CONDITION_PLACE = 1 << 3;
+
+    /** 天気検索のSQLの条件の組み合わせ：天気 */
+    private static final int CONDITION_WEATHER = 1 << 4;
+
+    /** 天気検索のSQLの条件の組み合わせ：最高気温 */
+    private static final int CONDITION_MAX_TEMPERATURE = 1 << 5;
+
+    /** 天気検索のSQLの条件の組み合わせ：最高気温From */
+    private static final int CONDITION_MAX_TEMPERATURE_FROM = 1 << 6;
+
+    /** 天気検索のSQLの条件の組み合わせ：最高気温To */
+    private static final int CONDITION_MAX_TEMPERATURE_TO = 1 << 7;
+
+    /** 天気検索のSQLの条件の組み合わせ：最低気温 */
+    private static final int CONDITION_MIN_TEMPERATURE = 1 << 8;
+
+    /** 天気検索のSQLの条件の組み合わせ：最低気温From */
+    private static final int CONDITION_MIN_TEMPERATURE_FROM = 1 << 9;
+
+    /** 天気検索のSQLの条件の組み合わせ：最低気温To */
+    private static final int CONDITION_MIN_TEMPERATURE_TO = 1 << 10;
+
+    /** 天気検索のSQLの条件の組み合わせ：チェックした天気の数+1を格納する位置（天気が未入力の場合は0） */
+    private static final int CONDITION_WEATHER_COUNT_SHIFT = 11;
+
+    /** 天気検索のSQLの条件の組み合わせ：チェックした天気の数の上限（これ以上の数は同じSQLとなる） */
+    private static final int CONDITION_WEATHER_COUNT_MAX = 5;
+
+    /** SQLの種類を格納する位置 */
+    private static final int SQL_TYPE_SHIFT = 14;
+
+    /** SQLの種類：天気検索 */
+    private static final int SQL_TYPE_SEARCH = 0;
+
+    /** SQLの種類：天気検索発展 */
+    private static final int SQL_TYPE_SEARCH_HARD = 1;
+
+    /** SQLの種類：天気検索発展の最初のページ */
+    private static final int SQL_TYPE_SEARCH_HARD_FIRST_PAGE = 2;
+
+    /** SQLの種類：天気検索発展の次のページ */
+    private static final int SQL_TYPE_SEARCH_HARD_NEXT_PAGE = 3;
+
+    /** SQLの種類：天気検索発展の前のページ */
+    private static final int SQL_TYPE_SEARCH_HARD_PREVIOUS_PAGE = 4;
+
     /** DB操作DAO */
     @Autowired
     private WeatherDao weatherDao;
 
+    /**
+     * SQLの種類と検索条件の組み合わせごとのSQL。<br/>
+     * 検索に使用するSQLは入力された項目の組み合わせのみで決まるため、組み合わせごとに一度だけ作成して使い回す。
+     * 同じ組み合わせでは常に同じ文字列となるため、NamedParameterJdbcTemplateとデータベースのSQLの解析結果も再利用される。
+     */
+    private final ConcurrentMap<Long, String> sqlTemplateMap = new ConcurrentHashMap<Long, String>();
+
     /**
      * 入力項目をバリデーションする。
      *
@@ -43,12 +111,7 @@ public class WeatherLogic {
     public List<String> validateFormForSearch(WeatherSearchForm form) {
         List<String> errorList = new ArrayList<String>();
 
-        DateFormat format = new SimpleDateFormat("yyyy/MM/dd");
-        try {
-            if (!StringUtils.isEmpty(form.getWeatherDate())) {
-                format.parse(form.getWeatherDate());
-            }
-        } catch (ParseException e) {
+        if (!StringUtils.isEmpty(form.getWeatherDate()) && FieldDecoder.parseEpochDay(form.getWeatherDate()) == FieldDecoder.INVALID_DATE) {
             errorList.add("日付は日付形式で入力してください。");
         }
         if (!StringUtils.isEmpty(form.getPlace()) && form.getPlace().length() > 10) {
@@ -80,15 +143,8 @@ public class WeatherLogic {
     public List<String> validateFormForSearchHard(WeatherSearchForm form) {
         List<String> errorList = new ArrayList<String>();
 
-        DateFormat format = new SimpleDateFormat("yyyy/MM/dd");
-        try {
-            if (!StringUtils.isEmpty(form.getWeatherDateFrom())) {
-                format.parse(form.getWeatherDateFrom());
-            }
-            if (!StringUtils.isEmpty(form.getWeatherDateTo())) {
-                format.parse(form.getWeatherDateTo());
-            }
-        } catch (ParseException e) {
+        if ((!StringUtils.isEmpty(form.getWeatherDateFrom()) && FieldDecoder.parseEpochDay(form.getWeatherDateFrom()) == FieldDecoder.INVALID_DATE)
+                || (!StringUtils.isEmpty(form.getWeatherDateTo()) && FieldDecoder.parseEpochDay(form.getWeatherDateTo()) == FieldDecoder.INVALID_DATE)) {
             errorList.add("日付は日付形式で入力してください。");
         }
 
@@ -118,6 +174,9 @@ public class WeatherLogic {
         } else if (!StringUtils.isEmpty(form.getMinTemperatureTo()) && form.getMinTemperatureTo().length() > 3) {
             errorList.add("最低気温は3桁以内で入力してください。");
         }
+        if (!StringUtils.isEmpty(form.getCursor()) && SearchCursor.decode(form.getCursor()) == null) {
+            errorList.add("ページの指定が不正です。");
+        }
 
         return errorList;
     }
@@ -189,8 +248,8 @@ public class WeatherLogic {
         String filePath = form.getFilePath();
         if (StringUtils.isEmpty(filePath)) {
             errorList.add("ファイルパスは必ず入力してください。");
-        } else if (!StringUtils.endsWith(filePath, ".csv")) {
-            errorList.add("ファイルの拡張子はcsv形式にしてください。");
+        } else if (!StringUtils.endsWith(filePath, ".csv") && !StringUtils.endsWith(filePath, ".csv.gz")) {
+            errorList.add("ファイルの拡張子はcsv形式またはcsv.gz形式にしてください。");
         }
 
         return errorList;
@@ -203,6 +262,22 @@ public class WeatherLogic {
      * @return SQL
      */
     public String createSqlForSearch(WeatherSearchForm form) {
+        Long key = Long.valueOf(SQL_TYPE_SEARCH << SQL_TYPE_SHIFT | createConditionMaskForSearch(form));
+        String selectSql = sqlTemplateMap.get(key);
+        if (selectSql == null) {
+            selectSql = buildSqlForSearch(form);
+            sqlTemplateMap.putIfAbsent(key, selectSql);
+        }
+        return selectSql;
+    }
+
+    /**
+     * 検索に使用するSQLを組み立てる。
+     *
+     * @param form フォーム
+     * @return SQL
+     */
+    private String buildSqlForSearch(WeatherSearchForm form) {
         boolean isFirstCondition = true;
         StringBuilder selectSql = new StringBuilder("SELECT * FROM WEATHER");
         if (!StringUtils.isEmpty(form.getWeatherDate())) {
@@ -268,8 +343,121 @@ public class WeatherLogic {
      * @return SQL
      */
     public String createSqlForSearchHard(WeatherSearchForm form) {
+        Long key = Long.valueOf(SQL_TYPE_SEARCH_HARD << SQL_TYPE_SHIFT | createConditionMaskForSearchHard(form));
+        String selectSql = sqlTemplateMap.get(key);
+        if (selectSql == null) {
+            StringBuilder sql = new StringBuilder("SELECT * FROM WEATHER");
+            appendConditionForSearchHard(sql, form);
+            selectSql = sql.toString();
+            sqlTemplateMap.putIfAbsent(key, selectSql);
+        }
+        return selectSql;
+    }
+
+    /**
+     * 1ページ分を検索するSQLを作成する（天気検索発展）。<br/>
+     * 検索結果を日付、場所の順で並べ、カーソルの境界の行より後ろ（前のページの場合は前）の行を先頭から指定件数まで検索する。
+     * 境界の行をOFFSETで読み飛ばさずに条件として指定するため、後ろのページでも検索にかかる時間は変わらない。<br/>
+     * 前のページの場合は降順で検索するため、検索結果は逆順に並べ替えて使用すること。
+     *
+     * @param form フォーム
+     * @param cursor カーソル。最初のページの場合はnull
+     * @param limit 検索する件数
+     * @return SQL
+     */
+    public String createSqlForSearchHardPage(WeatherSearchForm form, SearchCursor cursor, int limit) {
+        int sqlType;
+        if (cursor == null) {
+            sqlType = SQL_TYPE_SEARCH_HARD_FIRST_PAGE;
+        } else if (cursor.isForward()) {
+            sqlType = SQL_TYPE_SEARCH_HARD_NEXT_PAGE;
+        } else {
+            sqlType = SQL_TYPE_SEARCH_HARD_PREVIOUS_PAGE;
+        }
+        Long key = Long.valueOf((long) limit << 32 | sqlType << SQL_TYPE_SHIFT | createConditionMaskForSearchHard(form));
+        String selectSql = sqlTemplateMap.get(key);
+        if (selectSql == null) {
+            selectSql = buildSqlForSearchHardPage(form, cursor, limit);
+            sqlTemplateMap.putIfAbsent(key, selectSql);
+        }
+        return selectSql;
+    }
+
+    /**
+     * 1ページ分を検索するSQLを組み立てる（天気検索発展）。
+     *
+     * @param form フォーム
+     * @param cursor カーソル。最初のページの場合はnull
+     * @param limit 検索する件数
+     * @return SQL
+     */
+    private String buildSqlForSearchHardPage(WeatherSearchForm form, SearchCursor cursor, int limit) {
+        StringBuilder selectSql = new StringBuilder("SELECT * FROM (SELECT * FROM WEATHER");
+        boolean isFirstCondition = appendConditionForSearchHard(selectSql, form);
+        if (cursor != null) {
+            // 先頭の日付の条件を索引の範囲検索に使用できるよう、日付の範囲と場所の比較を分けて指定する
+            String operator = cursor.isForward() ? ">" : "<";
+            selectSql.append(isFirstCondition ? " WHERE " : " and ");
+            selectSql.append("WEATHER_DATE ").append(operator).append("= :cursorDate and (WEATHER_DATE ").append(operator)
+                    .append(" :cursorDate OR PLACE ").append(operator).append(" :cursorPlace)");
+        }
+        if (cursor == null || cursor.isForward()) {
+            selectSql.append(" ORDER BY WEATHER_DATE, PLACE");
+        } else {
+            selectSql.append(" ORDER BY WEATHER_DATE DESC, PLACE DESC");
+        }
+        selectSql.append(") WHERE ROWNUM <= ").append(limit);
+
+        return selectSql.toString();
+    }
+
+    /**
+     * 検索に使用するSQLを決める、入力された項目の組み合わせを作成する。
+     *
+     * @param form フォーム
+     * @return 入力された項目の組み合わせ
+     */
+    private int createConditionMaskForSearch(WeatherSearchForm form) {
+        int mask = 0;
+        mask |= StringUtils.isEmpty(form.getWeatherDate()) ? 0 : CONDITION_WEATHER_DATE;
+        mask |= StringUtils.isEmpty(form.getPlace()) ? 0 : CONDITION_PLACE;
+        mask |= StringUtils.isEmpty(form.getWeather()) ? 0 : CONDITION_WEATHER;
+        mask |= StringUtils.isEmpty(form.getMaxTemperature()) ? 0 : CONDITION_MAX_TEMPERATURE;
+        mask |= StringUtils.isEmpty(form.getMinTemperature()) ? 0 : CONDITION_MIN_TEMPERATURE;
+        return mask;
+    }
+
+    /**
+     * 検索に使用するSQLを決める、入力された項目の組み合わせとチェックした天気の数を作成する（天気検索発展）。
+     *
+     * @param form フォーム
+     * @return 入力された項目の組み合わせ
+     */
+    private int createConditionMaskForSearchHard(WeatherSearchForm form) {
+        int mask = 0;
+        mask |= StringUtils.isEmpty(form.getWeatherDateFrom()) ? 0 : CONDITION_WEATHER_DATE_FROM;
+        mask |= StringUtils.isEmpty(form.getWeatherDateTo()) ? 0 : CONDITION_WEATHER_DATE_TO;
+        mask |= StringUtils.isEmpty(form.getPlace()) ? 0 : CONDITION_PLACE;
+        mask |= StringUtils.isEmpty(form.getMaxTemperatureFrom()) ? 0 : CONDITION_MAX_TEMPERATURE_FROM;
+        mask |= StringUtils.isEmpty(form.getMaxTemperatureTo()) ? 0 : CONDITION_MAX_TEMPERATURE_TO;
+        mask |= StringUtils.isEmpty(form.getMinTemperatureFrom()) ? 0 : CONDITION_MIN_TEMPERATURE_FROM;
+        mask |= StringUtils.isEmpty(form.getMinTemperatureTo()) ? 0 : CONDITION_MIN_TEMPERATURE_TO;
+        if (!StringUtils.isEmpty(form.getWeather())) {
+            int weatherCount = StringUtils.split(form.getWeather(), ",").length;
+            mask |= (Math.min(weatherCount, CONDITION_WEATHER_COUNT_MAX) + 1) << CONDITION_WEATHER_COUNT_SHIFT;
+        }
+        return mask;
+    }
+
+    /**
+     * 天気検索発展の検索条件をSQLに追加する。
+     *
+     * @param selectSql SQL
+     * @param form フォーム
+     * @return 検索条件を1つも追加しなかった場合はtrue
+     */
+    private boolean appendConditionForSearchHard(StringBuilder selectSql, WeatherSearchForm form) {
         boolean isFirstCondition = true;
-        StringBuilder selectSql = new StringBuilder("SELECT * FROM WEATHER");
         if (!StringUtils.isEmpty(form.getWeatherDateFrom())) {
             selectSql.append(" WHERE WEATHER_DATE >= :weatherDateFrom");
             isFirstCondition = false;
@@ -340,7 +528,7 @@ public class WeatherLogic {
             }
         }
 
-        return selectSql.toString();
+        return isFirstCondition;
     }
 
     /**
@@ -379,6 +567,23 @@ public class WeatherLogic {
         return condition;
     }
 
+    /**
+     * 1ページ分の検索に使用する条件を作成する（天気検索発展）。
+     *
+     * @param form フォーム
+     * @param cursor カーソル。最初のページの場合はnull
+     * @return 検索条件
+     */
+    public Map<String, String> createConditionForSearchHardPage(WeatherSearchForm form, SearchCursor cursor) {
+        Map<String, String> condition = createConditionForSearchHard(form);
+        if (cursor != null) {
+            condition.put("cursorDate", cursor.getWeatherDate());
+            condition.put("cursorPlace", cursor.getPlace());
+        }
+
+        return condition;
+    }
+
     /**
      * 過去5年分の天気のリストを作成する。
      *
@@ -420,8 +625,14 @@ public class WeatherLogic {
             } else if ("雪".equals(pastWeather.getWeather())) {
                 snowCount++;
             }
-            maxTemperatureSum += Integer.parseInt(pastWeather.getMaxTemperature());
-            minTemperatureSum += Integer.parseInt(pastWeather.getMinTemperature());
+            int maxTemperature = FieldDecoder.parseInt(pastWeather.getMaxTemperature());
+            int minTemperature = FieldDecoder.parseInt(pastWeather.getMinTemperature());
+            if (maxTemperature == FieldDecoder.INVALID_INT || minTemperature == FieldDecoder.INVALID_INT) {
+                throw new IllegalStateException("気温が数値ではありません。weatherDate=" + pastWeather.getWeatherDate() + ", place="
+                        + pastWeather.getPlace());
+            }
+            maxTemperatureSum += maxTemperature;
+            minTemperatureSum += minTemperature;
         }
         if (sunnyCount != 0) {
             Double percent = (sunnyCount / pastWeatherList.size()) * 100;
@@ -0,0 +1,126 @@
+package jp.co.tis.logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import jp.co.tis.form.WeatherSearchForm;
+import jp.co.tis.model.Weather;
+import jp.co.tis.model.WeatherPage;
+import jp.co.tis.util.SearchCursor;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 天気を検索するロジッククラス。天気検索発展では、検索結果をページ単位で返却する。<br/>
+ * 検索結果は日付、場所の順で並べ、ページの境界の行をカーソルとして前後のページを検索する（キーセットページング）。
+ * 1回の検索で取得する件数は1ページの件数+1件とし、余分に取得できた場合に続きのページがあると判断する。<br/>
+ * 1ページの件数は設定（wfis.search.pageSize）で指定し、{@link #MAX_PAGE_SIZE}件を上限とする。<br/>
+ * 天気をメモリ上に保持している場合は{@link WeatherStore}で検索し、それ以外は{@link SearchResultCache}を通してデータベースを検索する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+@Component
+public class WeatherSearchLogic {
+
+    /** 1ページの件数の上限 */
+    static final int MAX_PAGE_SIZE = 1000;
+
+    /** 天気予報ロジッククラス */
+    @Autowired
+    private WeatherLogic weatherLogic;
+
+    /** 検索結果のキャッシュ */
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    /** メモリ上の天気 */
+    @Autowired
+    private WeatherStore weatherStore;
+
+    /** 1ページの件数 */
+    @Value("${wfis.search.pageSize:100}")
+    private int pageSize;
+
+    /**
+     * フォームの検索条件で天気を検索する（天気検索）。
+     *
+     * @param form フォーム
+     * @return 検索結果（変更できないリスト）
+     */
+    public List<Weather> search(WeatherSearchForm form) {
+        List<Weather> weatherList = weatherStore.search(form);
+        if (weatherList != null) {
+            return Collections.unmodifiableList(weatherList);
+        }
+        String selectSql = weatherLogic.createSqlForSearch(form);
+        Map<String, String> condition = weatherLogic.createConditionForSearch(form);
+        return searchResultCache.findBySql(selectSql, condition);
+    }
+
+    /**
+     * フォームの検索条件とカーソルで1ページ分の天気を検索する。<br/>
+     * カーソルはフォームのバリデーション（{@link WeatherLogic#validateFormForSearchHard}）で精査済みであること。
+     *
+     * @param form フォーム
+     * @return 検索結果の1ページ
+     */
+    public WeatherPage searchHard(WeatherSearchForm form) {
+        SearchCursor cursor = StringUtils.isEmpty(form.getCursor()) ? null : SearchCursor.decode(form.getCursor());
+        int limit = getPageSize();
+        List<Weather> weatherList = weatherStore.searchHard(form, cursor, limit + 1);
+        if (weatherList == null) {
+            String selectSql = weatherLogic.createSqlForSearchHardPage(form, cursor, limit + 1);
+            Map<String, String> condition = weatherLogic.createConditionForSearchHardPage(form, cursor);
+            weatherList = searchResultCache.findBySql(selectSql, condition);
+        }
+
+        return createPage(weatherList, cursor, limit);
+    }
+
+    /**
+     * 検索結果から1ページを作成する。
+     *
+     * @param weatherList 検索結果（1ページの件数+1件まで、キャッシュと共有するため変更しない）
+     * @param cursor 検索に使用したカーソル。最初のページの場合はnull
+     * @param limit 1ページの件数
+     * @return 検索結果の1ページ
+     */
+    private WeatherPage createPage(List<Weather> weatherList, SearchCursor cursor, int limit) {
+        boolean forward = cursor == null || cursor.isForward();
+        boolean hasMore = weatherList.size() > limit;
+        List<Weather> pageList = new ArrayList<Weather>(hasMore ? weatherList.subList(0, limit) : weatherList);
+        if (!forward) {
+            Collections.reverse(pageList);
+        }
+
+        // 読み進めた方向は余分に取得できた場合のみ続きがあり、逆の方向はカーソルの境界の行があるため続きがある
+        boolean hasPrevious = forward ? cursor != null : hasMore;
+        boolean hasNext = !forward || hasMore;
+        if (pageList.isEmpty()) {
+            // 境界の行以降が削除された場合などは、境界の行から逆の方向に戻れるようにする
+            String backCursor = cursor == null ? null : cursor.reverse().encode();
+            return new WeatherPage(pageList, forward ? backCursor : null, forward ? null : backCursor);
+        }
+
+        Weather first = pageList.get(0);
+        Weather last = pageList.get(pageList.size() - 1);
+        String previousCursor = hasPrevious ? new SearchCursor(false, first.getWeatherDate(), first.getPlace()).encode() : null;
+        String nextCursor = hasNext ? new SearchCursor(true, last.getWeatherDate(), last.getPlace()).encode() : null;
+        return new WeatherPage(pageList, previousCursor, nextCursor);
+    }
+
+    /**
+     * 1ページの件数を返却する。設定値を1件以上、{@link #MAX_PAGE_SIZE}件以下に丸める。
+     *
+     * @return 1ページの件数
+     */
+    int getPageSize() {
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+}
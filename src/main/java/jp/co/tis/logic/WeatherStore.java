@@ -0,0 +1,1144 @@
+package jp.co.tis.logic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+
+import jp.co.tis.form.WeatherSearchForm;
+import jp.co.tis.model.Weather;
+import jp.co.tis.model.WeatherDao;
+import jp.co.tis.model.WeatherHandler;
+import jp.co.tis.model.WeatherWriteListener;
+import jp.co.tis.util.FieldDecoder;
+import jp.co.tis.util.SearchCursor;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 天気テーブルの全件をメモリ上に索引付きで保持し、データベースを検索せずに天気を検索するクラス。<br/>
+ * 設定（wfis.store.enabled）で有効にした場合のみ、起動時に別スレッドで全件を読み込む。
+ * 読み込み後は{@link WeatherDao}から書き込みの通知を受け取り、コミットされた内容を反映する。
+ * 書き込んだ内容を特定できない書き込みの通知を受け取った場合は、全件を読み込み直す。
+ * トランザクション内の書き込みはコミットまで保持するが、保持する件数が設定（wfis.store.maxPendingRows）を超えた場合は、
+ * 保持した書き込みを破棄してトランザクションの終了後に全件を読み込み直す。<br/>
+ * 天気は日付、場所の順に並べて保持し、場所・天気・最高気温・最低気温ごとの索引も保持する。
+ * 日付は「yyyy/MM/dd」形式の文字列の順（正規の形式の日付では日付の順と一致する）で比較するため、
+ * 検索結果は{@link WeatherLogic}が作成するSQLの検索結果と一致する。気温は数値として比較する。<br/>
+ * 読み込みが完了していない場合や、SQLと同じ結果を返却できない検索条件の場合はnullを返却するため、呼び出し元でデータベースを検索すること。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+@Component
+public class WeatherStore implements WeatherWriteListener {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WeatherStore.class);
+
+    /** 日付と場所の区切り文字（どの文字よりも小さい文字） */
+    private static final char KEY_SEPARATOR = '\0';
+
+    /** 日付の範囲の上限を求める際に付加する文字（区切り文字の次に小さい文字） */
+    private static final char KEY_UPPER_BOUND = '\u0001';
+
+    /** 件数の制限がない場合の件数 */
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /** 天気の並び順（日付、場所の順） */
+    private static final Comparator<Row> ROW_ORDER = new Comparator<Row>() {
+        @Override
+        public int compare(Row row1, Row row2) {
+            return row1.key.compareTo(row2.key);
+        }
+    };
+
+    /** DB操作DAO */
+    @Autowired
+    private WeatherDao weatherDao;
+
+    /** メモリ上で検索するか */
+    @Value("${wfis.store.enabled:false}")
+    private boolean enabled;
+
+    /** トランザクション内の書き込みをコミットまで保持する件数の上限 */
+    @Value("${wfis.store.maxPendingRows:100000}")
+    private int maxPendingRows;
+
+    /** 索引と読み込み状態を保護するロック */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 索引。読み込みが完了していない場合はnull */
+    private Index index;
+
+    /** 全件を読み込んでいるか */
+    private boolean loading;
+
+    /** 読み込み中に全件を読み込み直す必要が生じたか */
+    private boolean reloadRequired;
+
+    /** 読み込み中に通知された書き込み（読み込み完了後に反映する） */
+    private final List<WriteOperation> pendingList = new ArrayList<WriteOperation>();
+
+    /**
+     * メモリ上で検索する場合は、書き込みの通知を受け取るよう登録し、全件を読み込むスレッドを起動する。
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        weatherDao.addWriteListener(this);
+        startLoad();
+    }
+
+    /**
+     * 天気テーブルの全件を読み込み、索引を作成する。<br/>
+     * 読み込み中に通知された書き込みは、読み込み完了後に反映する。
+     * 読み込み中に書き込んだ内容を特定できない書き込みが通知された場合は、もう一度読み込む。
+     * 他のスレッドが読み込み中の場合は、そのスレッドに読み込み直しを依頼して終了する。
+     */
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                reloadRequired = true;
+                return;
+            }
+            loading = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            while (true) {
+                lock.writeLock().lock();
+                try {
+                    reloadRequired = false;
+                    pendingList.clear();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+
+                final Index newIndex = new Index();
+                long count = weatherDao.findAll(new WeatherHandler() {
+                    @Override
+                    public void handle(Weather weather) {
+                        newIndex.put(new Row(weather));
+                    }
+                });
+
+                lock.writeLock().lock();
+                try {
+                    if (!reloadRequired) {
+                        for (WriteOperation operation : pendingList) {
+                            operation.apply(newIndex);
+                        }
+                        pendingList.clear();
+                        index = newIndex;
+                        LOGGER.info("メモリ上で検索する天気を読み込みました。rowCount=" + count);
+                        return;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                loading = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 検索できる状態かを返却する。
+     *
+     * @return 読み込みが完了している場合はtrue
+     */
+    public boolean isAvailable() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 保持している天気の件数を返却する。
+     *
+     * @return 件数。読み込みが完了していない場合は-1
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index == null ? -1 : index.rowMap.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * フォームの検索条件で天気を検索する（天気検索）。<br/>
+     * {@link WeatherLogic#createSqlForSearch}で作成するSQLと同じ天気を、日付、場所の順で返却する。
+     *
+     * @param form フォーム
+     * @return 検索結果。データベースを検索する必要がある場合はnull
+     */
+    public List<Weather> search(WeatherSearchForm form) {
+        Query query = new Query();
+        query.weatherDate = emptyToNull(form.getWeatherDate());
+        query.place = emptyToNull(form.getPlace());
+        if (!StringUtils.isEmpty(form.getWeather())) {
+            query.weatherSet = Collections.singleton(form.getWeather());
+        }
+        if (!query.setTemperatureCondition(form.getMaxTemperature(), form.getMaxTemperature(), form.getMinTemperature(),
+                form.getMinTemperature())) {
+            return null;
+        }
+
+        return find(query, false, UNLIMITED);
+    }
+
+    /**
+     * フォームの検索条件とカーソルで1ページ分の天気を検索する（天気検索発展）。<br/>
+     * {@link WeatherLogic#createSqlForSearchHardPage}で作成するSQLと同じ天気を、同じ順で返却する。
+     *
+     * @param form フォーム
+     * @param cursor カーソル。最初のページの場合はnull
+     * @param limit 取得する件数
+     * @return 検索結果。データベースを検索する必要がある場合はnull
+     */
+    public List<Weather> searchHard(WeatherSearchForm form, SearchCursor cursor, int limit) {
+        Query query = new Query();
+        query.weatherDateFrom = emptyToNull(form.getWeatherDateFrom());
+        query.weatherDateTo = emptyToNull(form.getWeatherDateTo());
+        query.place = emptyToNull(form.getPlace());
+        if (!StringUtils.isEmpty(form.getWeather())) {
+            String[] weatherArray = StringUtils.split(form.getWeather(), ",");
+            if (weatherArray.length == 0 || weatherArray.length > 4) {
+                // SQLを作成できない検索条件のため、データベースの検索でエラーとする
+                return null;
+            }
+            if (weatherArray.length != 4) {
+                // 全てにチェックが入っている場合は条件を指定しない。
+                query.weatherSet = new LinkedHashSet<String>();
+                Collections.addAll(query.weatherSet, weatherArray);
+            }
+        }
+        if (!query.setTemperatureCondition(form.getMaxTemperatureFrom(), form.getMaxTemperatureTo(), form.getMinTemperatureFrom(),
+                form.getMinTemperatureTo())) {
+            return null;
+        }
+        if (cursor != null) {
+            query.cursorDate = cursor.getWeatherDate();
+            query.cursorKey = createKey(cursor.getWeatherDate(), cursor.getPlace());
+            query.forward = cursor.isForward();
+        }
+
+        return find(query, cursor != null && !cursor.isForward(), limit);
+    }
+
+    /**
+     * 登録した天気を反映する。トランザクション内の場合は、コミット後に反映する。
+     *
+     * @param weatherList 登録した天気のリスト
+     */
+    @Override
+    public void weatherInserted(List<Weather> weatherList) {
+        applyAfterCommit(weatherList, true);
+    }
+
+    /**
+     * 更新した天気を反映する。保持していない天気は、データベースでも更新されていないため反映しない。
+     * トランザクション内の場合は、コミット後に反映する。
+     *
+     * @param weatherList 更新した天気のリスト
+     */
+    @Override
+    public void weatherUpdated(List<Weather> weatherList) {
+        applyAfterCommit(weatherList, false);
+    }
+
+    /**
+     * 保持している天気を破棄し、全件を読み込み直す。トランザクション内の場合は、トランザクションの終了後に読み込み直す。
+     */
+    @Override
+    public void weatherInvalidated() {
+        lock.writeLock().lock();
+        try {
+            // 書き込み中の検索結果も古いものとなるため、コミットを待たずに破棄する
+            index = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        PendingWrites pendingWrites = getPendingWrites();
+        if (pendingWrites != null) {
+            pendingWrites.invalidate();
+        } else {
+            startLoad();
+        }
+    }
+
+    /**
+     * 全件を読み込むスレッドを起動する。読み込み中の場合は、読み込み直しを依頼する。
+     */
+    private void startLoad() {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                reloadRequired = true;
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Thread loadThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    load();
+                } catch (RuntimeException e) {
+                    LOGGER.error("天気を読み込めませんでした。データベースを検索します。", e);
+                }
+            }
+        }, "weather-store-loader");
+        loadThread.setDaemon(true);
+        loadThread.start();
+    }
+
+    /**
+     * 書き込みを反映する。トランザクション内の場合はコミット後に反映し、ロールバックした場合は反映しない。<br/>
+     * トランザクション内で保持する件数が上限を超える場合は、保持した書き込みを破棄して全件を読み込み直す。
+     *
+     * @param weatherList 書き込んだ天気のリスト
+     * @param insert 登録の場合はtrue、更新の場合はfalse
+     */
+    private void applyAfterCommit(List<Weather> weatherList, boolean insert) {
+        PendingWrites pendingWrites = getPendingWrites();
+        if (pendingWrites == null) {
+            apply(new WriteOperation(toRowList(weatherList), insert));
+        } else if (pendingWrites.invalidated) {
+            // トランザクションの終了後に全件を読み込み直すため、保持しない
+            return;
+        } else if (pendingWrites.rowCount + weatherList.size() > maxPendingRows) {
+            LOGGER.info("トランザクション内の書き込みが多いため、コミット後に天気を読み込み直します。rowCount="
+                    + (pendingWrites.rowCount + weatherList.size()));
+            weatherInvalidated();
+        } else {
+            pendingWrites.add(new WriteOperation(toRowList(weatherList), insert));
+        }
+    }
+
+    /**
+     * 現在のトランザクションで通知された書き込みを返却する。<br/>
+     * トランザクションで最初の呼び出しの場合は作成し、本インスタンスをキーとしてトランザクションに紐付けて登録する。
+     * これにより、書き込みの回数に関わらず、トランザクションの終了時に実行する処理はトランザクションごとに1つとなる。
+     *
+     * @return 通知された書き込み。トランザクション外の場合はnull
+     */
+    private PendingWrites getPendingWrites() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        PendingWrites pendingWrites = (PendingWrites) TransactionSynchronizationManager.getResource(this);
+        if (pendingWrites == null) {
+            pendingWrites = new PendingWrites();
+            TransactionSynchronizationManager.bindResource(this, pendingWrites);
+            TransactionSynchronizationManager.registerSynchronization(pendingWrites);
+        }
+        return pendingWrites;
+    }
+
+    /**
+     * 書き込みを反映する。読み込み中の場合は、読み込み完了後に反映する。
+     *
+     * @param operation 書き込み
+     */
+    private void apply(WriteOperation operation) {
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                operation.apply(index);
+            } else if (loading) {
+                pendingList.add(operation);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 検索条件に一致する天気を検索する。
+     *
+     * @param query 検索条件
+     * @param descending 日付、場所の降順で返却する場合はtrue
+     * @param limit 取得する件数
+     * @return 検索結果。データベースを検索する必要がある場合はnull
+     */
+    private List<Weather> find(Query query, boolean descending, int limit) {
+        lock.readLock().lock();
+        try {
+            if (index == null || (query.hasTemperatureCondition() && index.invalidTemperatureCount > 0)) {
+                // 数値でない気温を保持している場合は、データベースと同じ比較ができない
+                return null;
+            }
+            List<Row> rowList = index.find(query, descending, limit);
+            List<Weather> weatherList = new ArrayList<Weather>(rowList.size());
+            for (Row row : rowList) {
+                weatherList.add(row.toWeather());
+            }
+            return weatherList;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 天気のリストを保持する形式に変換する。日付または場所がない天気は、データベースに存在しないため除く。
+     *
+     * @param weatherList 天気のリスト
+     * @return 保持する形式の天気のリスト
+     */
+    private static List<Row> toRowList(List<Weather> weatherList) {
+        List<Row> rowList = new ArrayList<Row>(weatherList.size());
+        for (Weather weather : weatherList) {
+            if (weather.getWeatherDate() != null && weather.getPlace() != null) {
+                rowList.add(new Row(weather));
+            }
+        }
+        return rowList;
+    }
+
+    /**
+     * 日付と場所から、日付、場所の順に並べるためのキーを作成する。
+     *
+     * @param weatherDate 日付
+     * @param place 場所
+     * @return キー
+     */
+    private static String createKey(String weatherDate, String place) {
+        return weatherDate + KEY_SEPARATOR + place;
+    }
+
+    /**
+     * 空文字をnullに変換する。
+     *
+     * @param value 値
+     * @return 空文字またはnullの場合はnull、それ以外は値
+     */
+    private static String emptyToNull(String value) {
+        return StringUtils.isEmpty(value) ? null : value;
+    }
+
+    /**
+     * 保持する天気。
+     */
+    private static class Row {
+
+        /** 日付、場所の順に並べるためのキー */
+        private final String key;
+
+        /** 日付 */
+        private final String weatherDate;
+
+        /** 場所 */
+        private final String place;
+
+        /** 天気 */
+        private final String weather;
+
+        /** 最高気温 */
+        private final String maxTemperature;
+
+        /** 最低気温 */
+        private final String minTemperature;
+
+        /** 最高気温の数値。ない場合は{@link FieldDecoder#INVALID_INT} */
+        private final int maxTemperatureValue;
+
+        /** 最低気温の数値。ない場合は{@link FieldDecoder#INVALID_INT} */
+        private final int minTemperatureValue;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param weather 天気
+         */
+        Row(Weather weather) {
+            this.key = createKey(weather.getWeatherDate(), weather.getPlace());
+            this.weatherDate = weather.getWeatherDate();
+            this.place = weather.getPlace();
+            this.weather = weather.getWeather();
+            this.maxTemperature = weather.getMaxTemperature();
+            this.minTemperature = weather.getMinTemperature();
+            this.maxTemperatureValue = FieldDecoder.parseInt(weather.getMaxTemperature());
+            this.minTemperatureValue = FieldDecoder.parseInt(weather.getMinTemperature());
+        }
+
+        /**
+         * 数値でない気温を持つかを返却する。
+         *
+         * @return 値があり、数値に変換できない気温を持つ場合はtrue
+         */
+        boolean hasInvalidTemperature() {
+            return (maxTemperature != null && maxTemperatureValue == FieldDecoder.INVALID_INT)
+                    || (minTemperature != null && minTemperatureValue == FieldDecoder.INVALID_INT);
+        }
+
+        /**
+         * 天気に変換する。
+         *
+         * @return 天気
+         */
+        Weather toWeather() {
+            return new Weather(weatherDate, place, weather, maxTemperature, minTemperature);
+        }
+    }
+
+    /**
+     * 検索条件。値がnullの項目は条件としない。
+     */
+    private static class Query {
+
+        /** 日付（一致） */
+        private String weatherDate;
+
+        /** 日付（以上） */
+        private String weatherDateFrom;
+
+        /** 日付（以下） */
+        private String weatherDateTo;
+
+        /** 場所 */
+        private String place;
+
+        /** 天気（いずれかに一致） */
+        private Set<String> weatherSet;
+
+        /** 最高気温（以上） */
+        private Integer maxTemperatureFrom;
+
+        /** 最高気温（以下） */
+        private Integer maxTemperatureTo;
+
+        /** 最低気温（以上） */
+        private Integer minTemperatureFrom;
+
+        /** 最低気温（以下） */
+        private Integer minTemperatureTo;
+
+        /** カーソルの日付 */
+        private String cursorDate;
+
+        /** カーソルのキー */
+        private String cursorKey;
+
+        /** カーソルより後を検索するか */
+        private boolean forward;
+
+        /**
+         * 気温の検索条件を設定する。未入力の項目は条件としない。
+         *
+         * @param maxFrom 最高気温（以上）
+         * @param maxTo 最高気温（以下）
+         * @param minFrom 最低気温（以上）
+         * @param minTo 最低気温（以下）
+         * @return 全て数値に変換できた場合はtrue
+         */
+        boolean setTemperatureCondition(String maxFrom, String maxTo, String minFrom, String minTo) {
+            maxTemperatureFrom = toInteger(maxFrom);
+            maxTemperatureTo = toInteger(maxTo);
+            minTemperatureFrom = toInteger(minFrom);
+            minTemperatureTo = toInteger(minTo);
+            return isValid(maxFrom, maxTemperatureFrom) && isValid(maxTo, maxTemperatureTo) && isValid(minFrom, minTemperatureFrom)
+                    && isValid(minTo, minTemperatureTo);
+        }
+
+        /**
+         * 気温の検索条件があるかを返却する。
+         *
+         * @return 気温の検索条件がある場合はtrue
+         */
+        boolean hasTemperatureCondition() {
+            return maxTemperatureFrom != null || maxTemperatureTo != null || minTemperatureFrom != null || minTemperatureTo != null;
+        }
+
+        /**
+         * 天気が検索条件に一致するかを返却する。
+         *
+         * @param row 天気
+         * @return 一致する場合はtrue
+         */
+        boolean matches(Row row) {
+            if (weatherDate != null && !weatherDate.equals(row.weatherDate)) {
+                return false;
+            }
+            if (weatherDateFrom != null && row.weatherDate.compareTo(weatherDateFrom) < 0) {
+                return false;
+            }
+            if (weatherDateTo != null && row.weatherDate.compareTo(weatherDateTo) > 0) {
+                return false;
+            }
+            if (place != null && !place.equals(row.place)) {
+                return false;
+            }
+            if (weatherSet != null && (row.weather == null || !weatherSet.contains(row.weather))) {
+                return false;
+            }
+            if (!inRange(row.maxTemperatureValue, maxTemperatureFrom, maxTemperatureTo)
+                    || !inRange(row.minTemperatureValue, minTemperatureFrom, minTemperatureTo)) {
+                return false;
+            }
+            if (cursorKey != null) {
+                int compare = row.key.compareTo(cursorKey);
+                return forward ? compare > 0 : compare < 0;
+            }
+            return true;
+        }
+
+        /**
+         * 気温が範囲内かを返却する。気温がない場合は、範囲の指定がなければ範囲内とする。
+         *
+         * @param value 気温
+         * @param from 下限。ない場合はnull
+         * @param to 上限。ない場合はnull
+         * @return 範囲内の場合はtrue
+         */
+        private static boolean inRange(int value, Integer from, Integer to) {
+            if (from == null && to == null) {
+                return true;
+            }
+            if (value == FieldDecoder.INVALID_INT) {
+                return false;
+            }
+            return (from == null || value >= from) && (to == null || value <= to);
+        }
+
+        /**
+         * 入力値を数値に変換する。
+         *
+         * @param value 入力値
+         * @return 数値。未入力または変換できない場合はnull
+         */
+        private static Integer toInteger(String value) {
+            int result = FieldDecoder.parseInt(value);
+            return result == FieldDecoder.INVALID_INT ? null : Integer.valueOf(result);
+        }
+
+        /**
+         * 入力値が未入力か、数値に変換できたかを返却する。
+         *
+         * @param value 入力値
+         * @param converted 変換後の数値
+         * @return 未入力または数値に変換できた場合はtrue
+         */
+        private static boolean isValid(String value, Integer converted) {
+            return StringUtils.isEmpty(value) || converted != null;
+        }
+    }
+
+    /**
+     * 天気の索引。ロックで保護した上で使用すること。
+     */
+    private static class Index {
+
+        /** キーと天気の対応（日付、場所の順） */
+        private final TreeMap<String, Row> rowMap = new TreeMap<String, Row>();
+
+        /** 場所ごとの、日付と天気の対応（日付の順） */
+        private final Map<String, TreeMap<String, Row>> placeMap = new HashMap<String, TreeMap<String, Row>>();
+
+        /** 日付ごとの件数 */
+        private final TreeMap<String, Integer> dateCountMap = new TreeMap<String, Integer>();
+
+        /** 天気ごとの、キーと天気の対応 */
+        private final Map<String, Map<String, Row>> weatherMap = new HashMap<String, Map<String, Row>>();
+
+        /** 最高気温ごとの、キーと天気の対応 */
+        private final TreeMap<Integer, Map<String, Row>> maxTemperatureMap = new TreeMap<Integer, Map<String, Row>>();
+
+        /** 最低気温ごとの、キーと天気の対応 */
+        private final TreeMap<Integer, Map<String, Row>> minTemperatureMap = new TreeMap<Integer, Map<String, Row>>();
+
+        /** 数値でない気温を持つ天気の件数 */
+        private int invalidTemperatureCount;
+
+        /**
+         * 天気を追加する。同じ日付と場所の天気がある場合は置き換える。
+         *
+         * @param row 天気
+         */
+        void put(Row row) {
+            Row oldRow = rowMap.put(row.key, row);
+            if (oldRow != null) {
+                removeIndex(oldRow);
+            }
+            addIndex(row);
+        }
+
+        /**
+         * 同じ日付と場所の天気がある場合のみ、天気を置き換える。
+         *
+         * @param row 天気
+         */
+        void replace(Row row) {
+            if (rowMap.containsKey(row.key)) {
+                put(row);
+            }
+        }
+
+        /**
+         * 検索条件に一致する天気を、日付、場所の順で検索する。<br/>
+         * 場所の指定がある場合は場所の索引を日付の範囲で読む。
+         * それ以外は、天気・気温の索引で絞り込める件数と日付の範囲の件数を比べ、少ない方を読む。
+         *
+         * @param query 検索条件
+         * @param descending 降順で返却する場合はtrue
+         * @param limit 取得する件数
+         * @return 検索結果
+         */
+        List<Row> find(Query query, boolean descending, int limit) {
+            if (query.place != null) {
+                TreeMap<String, Row> placeRowMap = placeMap.get(query.place);
+                if (placeRowMap == null) {
+                    return new ArrayList<Row>();
+                }
+                return scan(dateRange(placeRowMap, query), query, descending, limit);
+            }
+
+            Collection<Map<String, Row>> candidates = selectCandidates(query);
+            if (candidates != null) {
+                int candidateCount = countRows(candidates);
+                int dateRangeCount = countDateRange(query, candidateCount);
+                long scanCount = limit == UNLIMITED ? dateRangeCount : Math.min(dateRangeCount, (long) limit * rowMap.size()
+                        / Math.max(candidateCount, 1));
+                if (candidateCount < scanCount) {
+                    return collect(candidates, query, descending, limit);
+                }
+            }
+            return scan(keyRange(query), query, descending, limit);
+        }
+
+        /**
+         * 順に並んだ天気を読み、検索条件に一致する天気を件数に達するまで取得する。
+         *
+         * @param range 読む範囲
+         * @param query 検索条件
+         * @param descending 降順で読む場合はtrue
+         * @param limit 取得する件数
+         * @return 検索結果
+         */
+        private List<Row> scan(NavigableMap<String, Row> range, Query query, boolean descending, int limit) {
+            List<Row> rowList = new ArrayList<Row>();
+            for (Row row : (descending ? range.descendingMap() : range).values()) {
+                if (query.matches(row)) {
+                    rowList.add(row);
+                    if (rowList.size() >= limit) {
+                        break;
+                    }
+                }
+            }
+            return rowList;
+        }
+
+        /**
+         * 索引で絞り込んだ天気から検索条件に一致する天気を取得し、並べ替えて件数までに切り詰める。
+         *
+         * @param candidates 索引で絞り込んだ天気
+         * @param query 検索条件
+         * @param descending 降順で返却する場合はtrue
+         * @param limit 取得する件数
+         * @return 検索結果
+         */
+        private List<Row> collect(Collection<Map<String, Row>> candidates, Query query, boolean descending, int limit) {
+            List<Row> rowList = new ArrayList<Row>();
+            for (Map<String, Row> candidateMap : candidates) {
+                for (Row row : candidateMap.values()) {
+                    if (query.matches(row)) {
+                        rowList.add(row);
+                    }
+                }
+            }
+            Collections.sort(rowList, descending ? Collections.reverseOrder(ROW_ORDER) : ROW_ORDER);
+            return rowList.size() > limit ? rowList.subList(0, limit) : rowList;
+        }
+
+        /**
+         * 天気・気温の索引のうち、絞り込める件数が最も少ないものを選ぶ。
+         *
+         * @param query 検索条件
+         * @return 索引で絞り込んだ天気。天気・気温の検索条件がない場合はnull
+         */
+        private Collection<Map<String, Row>> selectCandidates(Query query) {
+            Collection<Map<String, Row>> candidates = null;
+            if (query.weatherSet != null) {
+                candidates = new ArrayList<Map<String, Row>>();
+                for (String weather : query.weatherSet) {
+                    Map<String, Row> weatherRowMap = weatherMap.get(weather);
+                    if (weatherRowMap != null) {
+                        candidates.add(weatherRowMap);
+                    }
+                }
+            }
+            candidates = smaller(candidates, temperatureRange(maxTemperatureMap, query.maxTemperatureFrom, query.maxTemperatureTo));
+            return smaller(candidates, temperatureRange(minTemperatureMap, query.minTemperatureFrom, query.minTemperatureTo));
+        }
+
+        /**
+         * 件数が少ない方の絞り込み結果を返却する。
+         *
+         * @param candidates1 絞り込み結果。ない場合はnull
+         * @param candidates2 絞り込み結果。ない場合はnull
+         * @return 件数が少ない方の絞り込み結果
+         */
+        private static Collection<Map<String, Row>> smaller(Collection<Map<String, Row>> candidates1,
+                Collection<Map<String, Row>> candidates2) {
+            if (candidates1 == null) {
+                return candidates2;
+            }
+            if (candidates2 == null) {
+                return candidates1;
+            }
+            return countRows(candidates2) < countRows(candidates1) ? candidates2 : candidates1;
+        }
+
+        /**
+         * 気温の索引から範囲内の天気を取得する。
+         *
+         * @param temperatureMap 気温の索引
+         * @param from 下限。ない場合はnull
+         * @param to 上限。ない場合はnull
+         * @return 範囲内の天気。範囲の指定がない場合はnull
+         */
+        private static Collection<Map<String, Row>> temperatureRange(TreeMap<Integer, Map<String, Row>> temperatureMap, Integer from,
+                Integer to) {
+            if (from == null && to == null) {
+                return null;
+            }
+            if (from != null && to != null && from > to) {
+                return new ArrayList<Map<String, Row>>();
+            }
+            NavigableMap<Integer, Map<String, Row>> range = temperatureMap;
+            if (from != null) {
+                range = range.tailMap(from, true);
+            }
+            if (to != null) {
+                range = range.headMap(to, true);
+            }
+            return range.values();
+        }
+
+        /**
+         * 絞り込んだ天気の件数を数える。
+         *
+         * @param candidates 絞り込んだ天気
+         * @return 件数
+         */
+        private static int countRows(Collection<Map<String, Row>> candidates) {
+            int count = 0;
+            for (Map<String, Row> candidateMap : candidates) {
+                count += candidateMap.size();
+            }
+            return count;
+        }
+
+        /**
+         * 検索条件の日付の範囲の件数を数える。上限を超えた時点で数えるのをやめる。
+         *
+         * @param query 検索条件
+         * @param max 上限
+         * @return 件数。上限を超えた場合は上限+1以上の値
+         */
+        private int countDateRange(Query query, int max) {
+            if (query.weatherDate == null && query.weatherDateFrom == null && query.weatherDateTo == null) {
+                return rowMap.size();
+            }
+            int count = 0;
+            for (Integer dateCount : dateRange(dateCountMap, query).values()) {
+                count += dateCount;
+                if (count > max) {
+                    break;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * 日付をキーとするマップを、検索条件の日付の範囲に絞り込む。
+         *
+         * @param dateMap 日付をキーとするマップ
+         * @param query 検索条件
+         * @return 日付の範囲
+         */
+        private static <V> NavigableMap<String, V> dateRange(TreeMap<String, V> dateMap, Query query) {
+            String from = query.weatherDate != null ? query.weatherDate : query.weatherDateFrom;
+            String to = query.weatherDate != null ? query.weatherDate : query.weatherDateTo;
+            // カーソルと同じ日付の天気は、場所によってカーソルより後にも前にもなる
+            if (query.cursorDate != null) {
+                if (query.forward && (from == null || query.cursorDate.compareTo(from) > 0)) {
+                    from = query.cursorDate;
+                } else if (!query.forward && (to == null || query.cursorDate.compareTo(to) < 0)) {
+                    to = query.cursorDate;
+                }
+            }
+            if (from != null && to != null) {
+                if (from.compareTo(to) > 0) {
+                    return new TreeMap<String, V>();
+                }
+                return dateMap.subMap(from, true, to, true);
+            }
+            if (from != null) {
+                return dateMap.tailMap(from, true);
+            }
+            if (to != null) {
+                return dateMap.headMap(to, true);
+            }
+            return dateMap;
+        }
+
+        /**
+         * 全ての天気を、検索条件の日付の範囲とカーソルで絞り込む。
+         *
+         * @param query 検索条件
+         * @return キーの範囲
+         */
+        private NavigableMap<String, Row> keyRange(Query query) {
+            // 日付の下限以上のキーは日付が下限以上となり、日付の上限に付加した文字未満のキーは日付が上限以下となる
+            String lower = query.weatherDate != null ? query.weatherDate : query.weatherDateFrom;
+            boolean lowerInclusive = true;
+            String upper = query.weatherDate != null ? query.weatherDate : query.weatherDateTo;
+            if (upper != null) {
+                upper = upper + KEY_UPPER_BOUND;
+            }
+            if (query.cursorKey != null) {
+                if (query.forward && (lower == null || query.cursorKey.compareTo(lower) >= 0)) {
+                    lower = query.cursorKey;
+                    lowerInclusive = false;
+                } else if (!query.forward && (upper == null || query.cursorKey.compareTo(upper) < 0)) {
+                    upper = query.cursorKey;
+                }
+            }
+            if (lower != null && upper != null) {
+                if (lower.compareTo(upper) > 0) {
+                    return new TreeMap<String, Row>();
+                }
+                return rowMap.subMap(lower, lowerInclusive, upper, false);
+            }
+            if (lower != null) {
+                return rowMap.tailMap(lower, lowerInclusive);
+            }
+            if (upper != null) {
+                return rowMap.headMap(upper, false);
+            }
+            return rowMap;
+        }
+
+        /**
+         * 天気を場所・日付・天気・気温の索引に追加する。
+         *
+         * @param row 天気
+         */
+        private void addIndex(Row row) {
+            TreeMap<String, Row> placeRowMap = placeMap.get(row.place);
+            if (placeRowMap == null) {
+                placeRowMap = new TreeMap<String, Row>();
+                placeMap.put(row.place, placeRowMap);
+            }
+            placeRowMap.put(row.weatherDate, row);
+            Integer dateCount = dateCountMap.get(row.weatherDate);
+            dateCountMap.put(row.weatherDate, dateCount == null ? 1 : dateCount + 1);
+            if (row.weather != null) {
+                addToBucket(weatherMap, row.weather, row);
+            }
+            if (row.maxTemperatureValue != FieldDecoder.INVALID_INT) {
+                addToBucket(maxTemperatureMap, row.maxTemperatureValue, row);
+            }
+            if (row.minTemperatureValue != FieldDecoder.INVALID_INT) {
+                addToBucket(minTemperatureMap, row.minTemperatureValue, row);
+            }
+            if (row.hasInvalidTemperature()) {
+                invalidTemperatureCount++;
+            }
+        }
+
+        /**
+         * 天気を場所・日付・天気・気温の索引から削除する。
+         *
+         * @param row 天気
+         */
+        private void removeIndex(Row row) {
+            TreeMap<String, Row> placeRowMap = placeMap.get(row.place);
+            placeRowMap.remove(row.weatherDate);
+            if (placeRowMap.isEmpty()) {
+                placeMap.remove(row.place);
+            }
+            int dateCount = dateCountMap.get(row.weatherDate);
+            if (dateCount == 1) {
+                dateCountMap.remove(row.weatherDate);
+            } else {
+                dateCountMap.put(row.weatherDate, dateCount - 1);
+            }
+            if (row.weather != null) {
+                removeFromBucket(weatherMap, row.weather, row);
+            }
+            if (row.maxTemperatureValue != FieldDecoder.INVALID_INT) {
+                removeFromBucket(maxTemperatureMap, row.maxTemperatureValue, row);
+            }
+            if (row.minTemperatureValue != FieldDecoder.INVALID_INT) {
+                removeFromBucket(minTemperatureMap, row.minTemperatureValue, row);
+            }
+            if (row.hasInvalidTemperature()) {
+                invalidTemperatureCount--;
+            }
+        }
+
+        /**
+         * 索引の値ごとの天気に追加する。
+         *
+         * @param bucketMap 索引
+         * @param value 値
+         * @param row 天気
+         */
+        private static <K> void addToBucket(Map<K, Map<String, Row>> bucketMap, K value, Row row) {
+            Map<String, Row> bucket = bucketMap.get(value);
+            if (bucket == null) {
+                bucket = new HashMap<String, Row>();
+                bucketMap.put(value, bucket);
+            }
+            bucket.put(row.key, row);
+        }
+
+        /**
+         * 索引の値ごとの天気から削除する。
+         *
+         * @param bucketMap 索引
+         * @param value 値
+         * @param row 天気
+         */
+        private static <K> void removeFromBucket(Map<K, Map<String, Row>> bucketMap, K value, Row row) {
+            Map<String, Row> bucket = bucketMap.get(value);
+            bucket.remove(row.key);
+            if (bucket.isEmpty()) {
+                bucketMap.remove(value);
+            }
+        }
+    }
+
+    /**
+     * トランザクション内で通知され、コミット後に反映する書き込み。
+     */
+    private class PendingWrites extends TransactionSynchronizationAdapter {
+
+        /** 書き込みのリスト */
+        private final List<WriteOperation> operationList = new ArrayList<WriteOperation>();
+
+        /** 書き込んだ天気の件数 */
+        private int rowCount;
+
+        /** トランザクションの終了後に全件を読み込み直すか */
+        private boolean invalidated;
+
+        /**
+         * 書き込みを追加する。
+         *
+         * @param operation 書き込み
+         */
+        void add(WriteOperation operation) {
+            operationList.add(operation);
+            rowCount += operation.rowList.size();
+        }
+
+        /**
+         * 保持している書き込みを破棄し、トランザクションの終了後に全件を読み込み直すようにする。
+         */
+        void invalidate() {
+            operationList.clear();
+            rowCount = 0;
+            invalidated = true;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(WeatherStore.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(WeatherStore.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            for (WriteOperation operation : operationList) {
+                apply(operation);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(WeatherStore.this);
+            if (invalidated) {
+                startLoad();
+            }
+        }
+    }
+
+    /**
+     * 通知された書き込み。
+     */
+    private static class WriteOperation {
+
+        /** 書き込んだ天気のリスト */
+        private final List<Row> rowList;
+
+        /** 登録の場合はtrue、更新の場合はfalse */
+        private final boolean insert;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param rowList 書き込んだ天気のリスト
+         * @param insert 登録の場合はtrue、更新の場合はfalse
+         */
+        WriteOperation(List<Row> rowList, boolean insert) {
+            this.rowList = rowList;
+            this.insert = insert;
+        }
+
+        /**
+         * 索引に反映する。
+         *
+         * @param index 索引
+         */
+        void apply(Index index) {
+            for (Row row : rowList) {
+                if (insert) {
+                    index.put(row);
+                } else {
+                    index.replace(row);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package jp.co.tis.model;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CSVファイルのプレビュー情報を保持するクラス。<br/>
+ * CSV読み込み時にファイル全体を一度だけ精査して一時ファイル（スピルファイル）に書き出し、
+ * 件数と、一時ファイル上のページごとの先頭行の位置を保持する。プレビューIDは登録時に一時ファイルを特定するトークンとなる。<br/>
+ * 各ページは記録した位置から一時ファイルを開いて読み込むため、表示にかかる時間はページの件数のみに依存する。<br/>
+ * 一定件数ごとにコミットして登録する場合はコミット済みの件数を保持し、途中で失敗した登録を再実行すると続きの行から登録する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class CsvPreview {
+
+    /** プレビューID */
+    private final String previewId;
+
+    /** ファイルパス */
+    private final String filePath;
+
+    /** 精査済みのデータを書き出した一時ファイル */
+    private final File spillFile;
+
+    /** 1ページの件数 */
+    private final int pageSize;
+
+    /** データ行の件数 */
+    private final long rowCount;
+
+    /** 各ページの先頭行の位置 */
+    private final long[] pageOffsets;
+
+    /** 登録時にコミット済みのデータ行の件数 */
+    private final AtomicLong committedRows = new AtomicLong();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param previewId プレビューID
+     * @param filePath ファイルパス
+     * @param spillFile 精査済みのデータを書き出した一時ファイル
+     * @param pageSize 1ページの件数
+     * @param rowCount データ行の件数
+     * @param pageOffsets 各ページの先頭行の位置
+     */
+    public CsvPreview(String previewId, String filePath, File spillFile, int pageSize, long rowCount, long[] pageOffsets) {
+        this.previewId = previewId;
+        this.filePath = filePath;
+        this.spillFile = spillFile;
+        this.pageSize = pageSize;
+        this.rowCount = rowCount;
+        this.pageOffsets = pageOffsets;
+    }
+
+    /**
+     * ページ数を返却する。
+     *
+     * @return ページ数
+     */
+    public int getPageCount() {
+        return pageOffsets.length;
+    }
+
+    /**
+     * ページの先頭行の位置を返却する。
+     *
+     * @param page ページ番号（0始まり）
+     * @return 一時ファイル上のページの先頭行の位置
+     */
+    public long getPageOffset(int page) {
+        return pageOffsets[page];
+    }
+
+    /**
+     * ページの先頭行のデータ行番号を返却する。
+     *
+     * @param page ページ番号（0始まり）
+     * @return ページの先頭行のデータ行番号（1始まり）
+     */
+    public long getFirstRowNumber(int page) {
+        return (long) page * pageSize + 1;
+    }
+
+    /**
+     * @return previewId
+     */
+    public String getPreviewId() {
+        return previewId;
+    }
+
+    /**
+     * @return filePath
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * @return spillFile
+     */
+    public File getSpillFile() {
+        return spillFile;
+    }
+
+    /**
+     * @return pageSize
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return rowCount
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return committedRows
+     */
+    public long getCommittedRows() {
+        return committedRows.get();
+    }
+
+    /**
+     * コミット済みのデータ行の件数を加算する。
+     *
+     * @param count コミットした件数
+     */
+    public void addCommittedRows(long count) {
+        committedRows.addAndGet(count);
+    }
+}
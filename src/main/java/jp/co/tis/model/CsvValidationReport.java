@@ -0,0 +1,114 @@
+package jp.co.tis.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CSVファイルの検証結果を保持するクラス。<br/>
+ * 検証した行数と、行番号付きのエラーを保持する。
+ * 大量のエラーがあるファイルでも使用メモリが一定となるよう、保持するエラーは上限件数までとし、それ以降は件数のみ数える。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class CsvValidationReport {
+
+    /** 保持するエラーの上限件数 */
+    private final int maxErrors;
+
+    /** 検証したデータ行数 */
+    private long rowCount;
+
+    /** エラーのある行数 */
+    private long errorRowCount;
+
+    /** エラーの件数（保持していないエラーを含む） */
+    private long errorCount;
+
+    /** エラーリスト */
+    private final List<String> errorList = new ArrayList<String>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param maxErrors 保持するエラーの上限件数
+     */
+    public CsvValidationReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * 一行分のエラーを追加する。上限件数を超えたエラーは件数のみ数える。
+     *
+     * @param lineNumber 行番号（ヘッダー行を含む。ファイル全体のエラーの場合は0）
+     * @param messageList エラーメッセージのリスト
+     */
+    public void addErrors(long lineNumber, List<String> messageList) {
+        if (messageList.isEmpty()) {
+            return;
+        }
+        if (lineNumber > 0) {
+            errorRowCount++;
+        }
+        for (String message : messageList) {
+            errorCount++;
+            if (errorList.size() < maxErrors) {
+                errorList.add(lineNumber > 0 ? lineNumber + "行目 ：" + message : message);
+            }
+        }
+    }
+
+    /**
+     * エラーがないかどうかを返却する。
+     *
+     * @return エラーがない場合は{@code true}
+     */
+    public boolean isValid() {
+        return errorCount == 0;
+    }
+
+    /**
+     * 上限件数を超えたため保持していないエラーがあるかどうかを返却する。
+     *
+     * @return 保持していないエラーがある場合は{@code true}
+     */
+    public boolean isTruncated() {
+        return errorCount > errorList.size();
+    }
+
+    /**
+     * @param rowCount セットする rowCount
+     */
+    public void setRowCount(long rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * @return rowCount
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return errorRowCount
+     */
+    public long getErrorRowCount() {
+        return errorRowCount;
+    }
+
+    /**
+     * @return errorCount
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return errorList
+     */
+    public List<String> getErrorList() {
+        return Collections.unmodifiableList(errorList);
+    }
+}
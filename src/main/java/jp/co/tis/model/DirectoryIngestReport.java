@@ -0,0 +1,119 @@
+package jp.co.tis.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ディレクトリ一括登録の結果を保持するクラス。<br/>
+ * ファイルごとの登録結果を{@link IngestJob}としてファイル名順に保持し、全体の件数と処理時間を集計する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class DirectoryIngestReport {
+
+    /** ディレクトリパス */
+    private final String directoryPath;
+
+    /** ファイルごとの登録結果（ファイル名順） */
+    private final List<IngestJob> fileJobList;
+
+    /** 処理時間（ミリ秒） */
+    private final long elapsedMillis;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param directoryPath ディレクトリパス
+     * @param fileJobList ファイルごとの登録結果
+     * @param elapsedMillis 処理時間（ミリ秒）
+     */
+    public DirectoryIngestReport(String directoryPath, List<IngestJob> fileJobList, long elapsedMillis) {
+        this.directoryPath = directoryPath;
+        this.fileJobList = Collections.unmodifiableList(new ArrayList<IngestJob>(fileJobList));
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * 登録したファイル数を返却する。
+     *
+     * @return ファイル数
+     */
+    public int getFileCount() {
+        return fileJobList.size();
+    }
+
+    /**
+     * 正常に登録できたファイル数を返却する。
+     *
+     * @return 正常終了したファイル数
+     */
+    public int getCompletedCount() {
+        int count = 0;
+        for (IngestJob job : fileJobList) {
+            if (job.getStatus() == IngestJob.Status.COMPLETED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 登録できなかったファイル数を返却する。
+     *
+     * @return 正常終了しなかったファイル数
+     */
+    public int getFailedCount() {
+        return getFileCount() - getCompletedCount();
+    }
+
+    /**
+     * 正常に登録できたファイルの登録件数の合計を返却する。<br/>
+     * 登録できなかったファイルはロールバックしているため含まない。
+     *
+     * @return 登録件数の合計
+     */
+    public long getRowsWritten() {
+        long rowsWritten = 0;
+        for (IngestJob job : fileJobList) {
+            if (job.getStatus() == IngestJob.Status.COMPLETED) {
+                rowsWritten += job.getRowsWritten();
+            }
+        }
+        return rowsWritten;
+    }
+
+    /**
+     * 全体の1秒あたりの登録件数を返却する。
+     *
+     * @return 1秒あたりの登録件数。処理時間が0の場合は0
+     */
+    public long getRowsPerSecond() {
+        if (elapsedMillis <= 0) {
+            return 0;
+        }
+        return getRowsWritten() * 1000 / elapsedMillis;
+    }
+
+    /**
+     * @return directoryPath
+     */
+    public String getDirectoryPath() {
+        return directoryPath;
+    }
+
+    /**
+     * @return fileJobList
+     */
+    public List<IngestJob> getFileJobList() {
+        return fileJobList;
+    }
+
+    /**
+     * @return elapsedMillis
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
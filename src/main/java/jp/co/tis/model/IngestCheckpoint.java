@@ -0,0 +1,88 @@
+package jp.co.tis.model;
+
+/**
+ * CSV登録のチェックポイントクラス。<br/>
+ * 一定件数ごとにコミットする登録で、コミット済みのデータ行数と、最後にコミットした行の位置とキーを保持する。
+ * 再実行時は最後にコミットした行の位置からファイルを開き、その行のキーが一致することを確認してから続きを登録する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class IngestCheckpoint {
+
+    /** コミット済みのデータ行数 */
+    private final long committedRows;
+
+    /** 最後にコミットした行の位置（ファイル先頭からのバイト数）。不明な場合は-1 */
+    private final long lastRowOffset;
+
+    /** 最後にコミットした行の日付 */
+    private final String lastWeatherDate;
+
+    /** 最後にコミットした行の場所 */
+    private final String lastPlace;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param committedRows コミット済みのデータ行数
+     * @param lastRowOffset 最後にコミットした行の位置（ファイル先頭からのバイト数）。不明な場合は-1
+     * @param lastWeatherDate 最後にコミットした行の日付
+     * @param lastPlace 最後にコミットした行の場所
+     */
+    public IngestCheckpoint(long committedRows, long lastRowOffset, String lastWeatherDate, String lastPlace) {
+        this.committedRows = committedRows;
+        this.lastRowOffset = lastRowOffset;
+        this.lastWeatherDate = lastWeatherDate;
+        this.lastPlace = lastPlace;
+    }
+
+    /**
+     * 天気が最後にコミットした行と同じキーを持つかどうかを返却する。
+     *
+     * @param weather 天気
+     * @return キーが一致する場合は{@code true}
+     */
+    public boolean isLastRow(Weather weather) {
+        return equals(lastWeatherDate, weather.getWeatherDate()) && equals(lastPlace, weather.getPlace());
+    }
+
+    /**
+     * nullを考慮して文字列を比較する。
+     *
+     * @param a 文字列
+     * @param b 文字列
+     * @return 一致する場合は{@code true}
+     */
+    private static boolean equals(String a, String b) {
+        return (a == null) ? (b == null) : a.equals(b);
+    }
+
+    /**
+     * @return committedRows
+     */
+    public long getCommittedRows() {
+        return committedRows;
+    }
+
+    /**
+     * @return lastRowOffset
+     */
+    public long getLastRowOffset() {
+        return lastRowOffset;
+    }
+
+    /**
+     * @return lastWeatherDate
+     */
+    public String getLastWeatherDate() {
+        return lastWeatherDate;
+    }
+
+    /**
+     * @return lastPlace
+     */
+    public String getLastPlace() {
+        return lastPlace;
+    }
+}
@@ -0,0 +1,279 @@
+package jp.co.tis.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CSV登録ジョブの状態を保持するクラス。<br/>
+ * ジョブを実行するスレッドが進捗を更新し、画面からのリクエストのスレッドが状態を参照するため、
+ * 各項目はスレッドセーフに更新・参照できるようにしている。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class IngestJob {
+
+    /**
+     * ジョブの状態。
+     */
+    public enum Status {
+        /** 実行待ち */
+        QUEUED,
+        /** 実行中 */
+        RUNNING,
+        /** 正常終了 */
+        COMPLETED,
+        /** 異常終了 */
+        FAILED,
+        /** 取り消し */
+        CANCELLED
+    }
+
+    /** ジョブID */
+    private final String jobId;
+
+    /** ファイルパス */
+    private final String filePath;
+
+    /** 状態 */
+    private volatile Status status = Status.QUEUED;
+
+    /** 読み込んだ行数 */
+    private final AtomicLong rowsParsed = new AtomicLong();
+
+    /** 登録した行数 */
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    /** チェックポイントから再開した際に読み飛ばした行数 */
+    private volatile long resumedRows;
+
+    /** マージ登録の結果 */
+    private volatile MergeResult mergeResult;
+
+    /** パイプライン登録の段階ごとの統計 */
+    private volatile PipelineStats pipelineStats;
+
+    /** 受付日時（エポックミリ秒） */
+    private final long submitTime;
+
+    /** 開始日時（エポックミリ秒） */
+    private volatile long startTime;
+
+    /** 終了日時（エポックミリ秒） */
+    private volatile long endTime;
+
+    /** 取り消しが要求されたかどうか */
+    private volatile boolean cancelRequested;
+
+    /** エラーリスト */
+    private final List<String> errorList = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jobId ジョブID
+     * @param filePath ファイルパス
+     */
+    public IngestJob(String jobId, String filePath) {
+        this.jobId = jobId;
+        this.filePath = filePath;
+        this.submitTime = System.currentTimeMillis();
+    }
+
+    /**
+     * ジョブの開始を記録する。
+     */
+    public void start() {
+        startTime = System.currentTimeMillis();
+        status = Status.RUNNING;
+    }
+
+    /**
+     * ジョブの終了を記録する。
+     *
+     * @param status 終了時の状態
+     */
+    public void finish(Status status) {
+        endTime = System.currentTimeMillis();
+        this.status = status;
+    }
+
+    /**
+     * 読み込んだ行数を加算する。
+     *
+     * @param count 加算する行数
+     */
+    public void addRowsParsed(long count) {
+        rowsParsed.addAndGet(count);
+    }
+
+    /**
+     * 登録した行数を加算する。
+     *
+     * @param count 加算する行数
+     */
+    public void addRowsWritten(long count) {
+        rowsWritten.addAndGet(count);
+    }
+
+    /**
+     * チェックポイントから再開した際に読み飛ばした行数を設定する。
+     *
+     * @param resumedRows 読み飛ばした行数
+     */
+    public void setResumedRows(long resumedRows) {
+        this.resumedRows = resumedRows;
+    }
+
+    /**
+     * マージ登録の結果を設定する。
+     *
+     * @param mergeResult マージ登録の結果
+     */
+    public void setMergeResult(MergeResult mergeResult) {
+        this.mergeResult = mergeResult;
+    }
+
+    /**
+     * パイプライン登録の段階ごとの統計を設定する。
+     *
+     * @param pipelineStats パイプライン登録の段階ごとの統計
+     */
+    public void setPipelineStats(PipelineStats pipelineStats) {
+        this.pipelineStats = pipelineStats;
+    }
+
+    /**
+     * エラーを追加する。
+     *
+     * @param message エラーメッセージ
+     */
+    public void addError(String message) {
+        errorList.add(message);
+    }
+
+    /**
+     * ジョブの取り消しを要求する。
+     */
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+
+    /**
+     * ジョブが終了しているかどうかを返却する。
+     *
+     * @return 終了している場合は{@code true}
+     */
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    /**
+     * 1秒あたりの登録行数を返却する。
+     *
+     * @return 1秒あたりの登録行数。開始前の場合は0
+     */
+    public long getRowsPerSecond() {
+        if (startTime == 0) {
+            return 0;
+        }
+        long end = (endTime == 0) ? System.currentTimeMillis() : endTime;
+        long elapsed = Math.max(end - startTime, 1);
+        return rowsWritten.get() * 1000 / elapsed;
+    }
+
+    /**
+     * @return jobId
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * @return filePath
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * @return status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return rowsParsed
+     */
+    public long getRowsParsed() {
+        return rowsParsed.get();
+    }
+
+    /**
+     * @return rowsWritten
+     */
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    /**
+     * @return resumedRows
+     */
+    public long getResumedRows() {
+        return resumedRows;
+    }
+
+    /**
+     * @return mergeResult
+     */
+    public MergeResult getMergeResult() {
+        return mergeResult;
+    }
+
+    /**
+     * @return pipelineStats
+     */
+    public PipelineStats getPipelineStats() {
+        return pipelineStats;
+    }
+
+    /**
+     * @return submitTime
+     */
+    public long getSubmitTime() {
+        return submitTime;
+    }
+
+    /**
+     * @return startTime
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return endTime
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * @return cancelRequested
+     */
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * @return errorList
+     */
+    public List<String> getErrorList() {
+        synchronized (errorList) {
+            return new ArrayList<String>(errorList);
+        }
+    }
+}
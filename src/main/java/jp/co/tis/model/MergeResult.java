@@ -0,0 +1,108 @@
+package jp.co.tis.model;
+
+/**
+ * マージ登録の結果を保持するクラス。<br/>
+ * 登録・更新・変更なし・ファイル内の重複の件数を保持する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class MergeResult {
+
+    /** 登録件数 */
+    private int insertCount;
+
+    /** 更新件数 */
+    private int updateCount;
+
+    /** 変更なしの件数 */
+    private int unchangedCount;
+
+    /** ファイル内で重複していたため読み飛ばした件数 */
+    private int duplicateCount;
+
+    /**
+     * 別の結果の件数を加算する。
+     *
+     * @param other 加算する結果
+     */
+    public void add(MergeResult other) {
+        insertCount += other.insertCount;
+        updateCount += other.updateCount;
+        unchangedCount += other.unchangedCount;
+        duplicateCount += other.duplicateCount;
+    }
+
+    /**
+     * 登録件数を加算する。
+     *
+     * @param count 加算する件数
+     */
+    public void addInsertCount(int count) {
+        insertCount += count;
+    }
+
+    /**
+     * 更新件数を加算する。
+     *
+     * @param count 加算する件数
+     */
+    public void addUpdateCount(int count) {
+        updateCount += count;
+    }
+
+    /**
+     * 変更なしの件数を加算する。
+     *
+     * @param count 加算する件数
+     */
+    public void addUnchangedCount(int count) {
+        unchangedCount += count;
+    }
+
+    /**
+     * ファイル内の重複件数を加算する。
+     *
+     * @param count 加算する件数
+     */
+    public void addDuplicateCount(int count) {
+        duplicateCount += count;
+    }
+
+    /**
+     * 処理した件数の合計を返却する。
+     *
+     * @return 登録・更新・変更なし・重複の合計件数
+     */
+    public int getTotalCount() {
+        return insertCount + updateCount + unchangedCount + duplicateCount;
+    }
+
+    /**
+     * @return insertCount
+     */
+    public int getInsertCount() {
+        return insertCount;
+    }
+
+    /**
+     * @return updateCount
+     */
+    public int getUpdateCount() {
+        return updateCount;
+    }
+
+    /**
+     * @return unchangedCount
+     */
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    /**
+     * @return duplicateCount
+     */
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+}
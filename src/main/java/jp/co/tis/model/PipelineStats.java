@@ -0,0 +1,162 @@
+package jp.co.tis.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * パイプライン登録の段階ごとの統計を保持するクラス。<br/>
+ * 解析・変換・書き込みの各段階について、処理件数、処理に要した時間、次の段階へのキューの件数を保持する。
+ * 待ち時間を除いた処理時間から求めた件数／秒を比べると、どの段階が全体の速度を決めているかが分かる。<br/>
+ * 各段階のスレッドから更新し、画面のスレッドから参照するため、値はスレッドセーフに保持する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class PipelineStats {
+
+    /** 解析段階 */
+    private final Stage parseStage = new Stage("parse");
+
+    /** 変換段階 */
+    private final Stage convertStage = new Stage("convert");
+
+    /** 書き込み段階 */
+    private final Stage writeStage = new Stage("write");
+
+    /**
+     * @return 解析段階
+     */
+    public Stage getParseStage() {
+        return parseStage;
+    }
+
+    /**
+     * @return 変換段階
+     */
+    public Stage getConvertStage() {
+        return convertStage;
+    }
+
+    /**
+     * @return 書き込み段階
+     */
+    public Stage getWriteStage() {
+        return writeStage;
+    }
+
+    /**
+     * 全ての段階を処理順に返却する。
+     *
+     * @return 段階のリスト
+     */
+    public List<Stage> getStageList() {
+        return Collections.unmodifiableList(Arrays.asList(parseStage, convertStage, writeStage));
+    }
+
+    /**
+     * パイプラインの一段階の統計。
+     */
+    public static class Stage {
+
+        /** 段階名 */
+        private final String name;
+
+        /** 処理件数 */
+        private final AtomicLong rows = new AtomicLong();
+
+        /** 処理に要した時間（ナノ秒）。キューの待ち時間は含まない */
+        private final AtomicLong busyNanos = new AtomicLong();
+
+        /** 次の段階へのキューの件数（バッチ数） */
+        private final AtomicInteger queueDepth = new AtomicInteger();
+
+        /** 次の段階へのキューの最大件数（バッチ数） */
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+        /**
+         * コンストラクタ。
+         *
+         * @param name 段階名
+         */
+        public Stage(String name) {
+            this.name = name;
+        }
+
+        /**
+         * 処理したバッチの件数と処理時間を加算する。
+         *
+         * @param count 処理件数
+         * @param nanos 処理に要した時間（ナノ秒）
+         */
+        public void addBatch(int count, long nanos) {
+            rows.addAndGet(count);
+            busyNanos.addAndGet(nanos);
+        }
+
+        /**
+         * 次の段階へのキューの件数を記録する。
+         *
+         * @param depth キューの件数（バッチ数）
+         */
+        public void recordQueueDepth(int depth) {
+            queueDepth.set(depth);
+            while (true) {
+                int max = maxQueueDepth.get();
+                if (depth <= max || maxQueueDepth.compareAndSet(max, depth)) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * 待ち時間を除いた1秒あたりの処理件数を返却する。
+         *
+         * @return 1秒あたりの処理件数。処理していない場合は0
+         */
+        public long getRowsPerSecond() {
+            long nanos = busyNanos.get();
+            if (nanos <= 0) {
+                return 0;
+            }
+            return rows.get() * 1000000000L / nanos;
+        }
+
+        /**
+         * @return name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return rows
+         */
+        public long getRows() {
+            return rows.get();
+        }
+
+        /**
+         * @return 処理に要した時間（ミリ秒）
+         */
+        public long getBusyMillis() {
+            return busyNanos.get() / 1000000L;
+        }
+
+        /**
+         * @return queueDepth
+         */
+        public int getQueueDepth() {
+            return queueDepth.get();
+        }
+
+        /**
+         * @return maxQueueDepth
+         */
+        public int getMaxQueueDepth() {
+            return maxQueueDepth.get();
+        }
+    }
+}
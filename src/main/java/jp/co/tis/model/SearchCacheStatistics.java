@@ -0,0 +1,115 @@
+package jp.co.tis.model;
+
+/**
+ * 検索結果のキャッシュの統計情報を保持するクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class SearchCacheStatistics {
+
+    /** キャッシュから返却した回数 */
+    private final long hitCount;
+
+    /** データベースを検索した回数 */
+    private final long missCount;
+
+    /** 件数の上限または有効期限により破棄した件数 */
+    private final long evictionCount;
+
+    /** データのバージョンが変わったため破棄した件数 */
+    private final long invalidationCount;
+
+    /** 保持している件数 */
+    private final int size;
+
+    /** 保持する件数の上限 */
+    private final int maxEntries;
+
+    /** 天気テーブルのデータのバージョン */
+    private final long dataVersion;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param hitCount キャッシュから返却した回数
+     * @param missCount データベースを検索した回数
+     * @param evictionCount 件数の上限または有効期限により破棄した件数
+     * @param invalidationCount データのバージョンが変わったため破棄した件数
+     * @param size 保持している件数
+     * @param maxEntries 保持する件数の上限
+     * @param dataVersion 天気テーブルのデータのバージョン
+     */
+    public SearchCacheStatistics(long hitCount, long missCount, long evictionCount, long invalidationCount, int size, int maxEntries,
+            long dataVersion) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.invalidationCount = invalidationCount;
+        this.size = size;
+        this.maxEntries = maxEntries;
+        this.dataVersion = dataVersion;
+    }
+
+    /**
+     * キャッシュから返却した割合を返却する。
+     *
+     * @return キャッシュから返却した割合（0～1）。検索していない場合は0
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        if (requestCount == 0) {
+            return 0;
+        }
+        return (double) hitCount / requestCount;
+    }
+
+    /**
+     * @return hitCount
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return missCount
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return evictionCount
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return invalidationCount
+     */
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * @return size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return maxEntries
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return dataVersion
+     */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+}
@@ -0,0 +1,77 @@
+package jp.co.tis.model;
+
+/**
+ * スナップショットの保存・復元の結果を保持するクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class SnapshotReport {
+
+    /** スナップショットのファイルパス */
+    private final String filePath;
+
+    /** 保存・復元した件数 */
+    private final long rowCount;
+
+    /** スナップショットのファイルサイズ（バイト） */
+    private final long fileSize;
+
+    /** 処理時間（ミリ秒） */
+    private final long elapsedMillis;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param filePath スナップショットのファイルパス
+     * @param rowCount 保存・復元した件数
+     * @param fileSize スナップショットのファイルサイズ（バイト）
+     * @param elapsedMillis 処理時間（ミリ秒）
+     */
+    public SnapshotReport(String filePath, long rowCount, long fileSize, long elapsedMillis) {
+        this.filePath = filePath;
+        this.rowCount = rowCount;
+        this.fileSize = fileSize;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * 1秒あたりの件数を返却する。
+     *
+     * @return 1秒あたりの件数。処理時間が0の場合は0
+     */
+    public long getRowsPerSecond() {
+        if (elapsedMillis <= 0) {
+            return 0;
+        }
+        return rowCount * 1000 / elapsedMillis;
+    }
+
+    /**
+     * @return filePath
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * @return rowCount
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return fileSize
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * @return elapsedMillis
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
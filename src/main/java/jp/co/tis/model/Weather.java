@@ -5,6 +5,8 @@ import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.Table;
 
+import jp.co.tis.util.FieldDecoder;
+
 /**
  * 天気エンティティクラス。
  * 
@@ -33,6 +35,21 @@ public class Weather {
     @Column
     private String minTemperature;
 
+    /** FNV-1aハッシュの初期値 */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    /** FNV-1aハッシュの乗数 */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** 値がない項目を表す値 */
+    private static final long NULL_MARK = 0x10000L;
+
+    /** 項目の区切りを表す値 */
+    private static final long SEPARATOR_MARK = 0x10001L;
+
+    /** 整数として加えた項目の区切りを表す値 */
+    private static final long INT_MARK = 0x10002L;
+
     /**
      * コンストラクタ。
      */
@@ -58,6 +75,67 @@ public class Weather {
         this.minTemperature = minTemperature;
     }
 
+    /**
+     * 日付と場所からなるキーを作成する。<br/>
+     * CSVの登録では、日付と場所の組み合わせで同一の天気かどうかを判定する。
+     *
+     * @return キー
+     */
+    public String createKey() {
+        return weatherDate + "\t" + place;
+    }
+
+    /**
+     * 天気の内容（天気・最高気温・最低気温）のハッシュ値を作成する。<br/>
+     * 差分登録で、登録済みのデータと内容が同じかどうかを、行そのものを保持せずに判定するために使用する。
+     * 64ビットのFNV-1aハッシュとし、値がない項目と空文字列は区別する。<br/>
+     * 気温の列は数値のため、登録済みのデータの気温は「5」のような整数の形式で取得される。
+     * 「05」「+5」のような値も同じハッシュ値となるよう、整数に変換できる気温は数値としてハッシュ値に加える。
+     *
+     * @return ハッシュ値
+     */
+    public long createContentHash() {
+        long hash = hashText(FNV_OFFSET_BASIS, weather);
+        hash = hashTemperature(hash, maxTemperature);
+        return hashTemperature(hash, minTemperature);
+    }
+
+    /**
+     * 文字列の項目をハッシュ値に加える。
+     *
+     * @param hash ハッシュ値
+     * @param value 項目の値
+     * @return ハッシュ値
+     */
+    private static long hashText(long hash, String value) {
+        if (value == null) {
+            return (hash ^ NULL_MARK) * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // 項目の区切り。文字の値と重ならないよう0xFFFFより大きい値とする
+        return (hash ^ SEPARATOR_MARK) * FNV_PRIME;
+    }
+
+    /**
+     * 気温の項目をハッシュ値に加える。整数に変換できない場合は文字列として加える。
+     *
+     * @param hash ハッシュ値
+     * @param value 項目の値
+     * @return ハッシュ値
+     */
+    private static long hashTemperature(long hash, String value) {
+        int temperature = FieldDecoder.parseInt(value);
+        if (temperature == FieldDecoder.INVALID_INT) {
+            return hashText(hash, value);
+        }
+        for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((temperature >>> shift) & 0xFF)) * FNV_PRIME;
+        }
+        return (hash ^ INT_MARK) * FNV_PRIME;
+    }
+
     /**
      * @return weatherDate
      */
@@ -1,17 +1,35 @@
 package jp.co.tis.model;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import jp.co.tis.util.FieldDecoder;
+
+import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Component;
 
 /**
- * データベースの検索結果をEntityなどのDTOにマッピングする。
+ * データベースの検索結果をEntityなどのDTOにマッピングする。<br/>
+ * 天気テーブルに書き込んだ場合は{@link WeatherDataVersion}を進め、検索結果のキャッシュを古いものとする。
+ * また、{@link #addWriteListener}で追加した通知先に書き込んだ天気を通知する。
  *
  * @author Saito Takuma
  * @since 1.0
@@ -23,6 +41,42 @@ public class WeatherDao {
     @Autowired
     private NamedParameterJdbcTemplate jdbcTemplate;
 
+    /** 天気テーブルのデータのバージョン */
+    @Autowired
+    private WeatherDataVersion dataVersion;
+
+    /** 天気テーブルへの書き込みの通知先 */
+    private final List<WeatherWriteListener> writeListeners = new CopyOnWriteArrayList<WeatherWriteListener>();
+
+    /** 一括登録用のSQL */
+    private static final String INSERT_SQL = "INSERT INTO WEATHER (WEATHER_DATE, PLACE, WEATHER, MAX_TEMPERATURE, MIN_TEMPERATURE)"
+            + " VALUES (:weatherDate, :place, :weather, :maxTemperature, :minTemperature)";
+
+    /** 一括更新用のSQL */
+    private static final String UPDATE_SQL = "UPDATE WEATHER SET WEATHER = :weather, MAX_TEMPERATURE = :maxTemperature,"
+            + " MIN_TEMPERATURE = :minTemperature WHERE WEATHER_DATE = :weatherDate AND PLACE = :place";
+
+    /** マージ対象の既存データを検索するSQL */
+    private static final String SELECT_BY_WEATHER_DATES_SQL = "SELECT * FROM WEATHER WHERE WEATHER_DATE IN (:weatherDates)";
+
+    /** 差分登録の比較対象の既存データを日付の範囲で検索するSQL */
+    private static final String SELECT_BY_WEATHER_DATE_RANGE_SQL = "SELECT WEATHER_DATE, PLACE, WEATHER, MAX_TEMPERATURE,"
+            + " MIN_TEMPERATURE FROM WEATHER WHERE WEATHER_DATE BETWEEN :fromDate AND :toDate";
+
+    /** 全件を検索するSQL */
+    private static final String SELECT_ALL_SQL = "SELECT WEATHER_DATE, PLACE, WEATHER, MAX_TEMPERATURE, MIN_TEMPERATURE FROM WEATHER";
+
+    /** IN句に指定できる値の上限 */
+    private static final int IN_LIST_LIMIT = 1000;
+
+    /** 一括登録時に1回のバッチで送信する件数 */
+    @Value("${wfis.register.batchSize:1000}")
+    private int batchSize;
+
+    /** 全件検索時に1回の通信で取得する件数 */
+    @Value("${wfis.snapshot.fetchSize:1000}")
+    private int fetchSize;
+
     /**
      * SQLをもとに検索を行う。<br/>
      * 引数のSQLには、文字列としてSQLを渡す。<br/>
@@ -36,7 +90,7 @@ public class WeatherDao {
      * @return 検索結果
      */
     public List<Weather> findBySql(String selectSql) {
-        RowMapper<Weather> mapper = new BeanPropertyRowMapper<Weather>(Weather.class);
+        RowMapper<Weather> mapper = new WeatherRowMapper();
         List<Weather> weatherList = jdbcTemplate.query(selectSql, mapper);
 
         return weatherList;
@@ -58,7 +112,7 @@ public class WeatherDao {
      * @return 検索結果
      */
     public List<Weather> findBySql(String selectSql, Map<String, String> condition) {
-        RowMapper<Weather> mapper = new BeanPropertyRowMapper<Weather>(Weather.class);
+        RowMapper<Weather> mapper = new WeatherRowMapper();
         List<Weather> weatherList = jdbcTemplate.query(selectSql, condition, mapper);
 
         return weatherList;
@@ -86,10 +140,255 @@ public class WeatherDao {
      */
     public int insert(String insertSql, Map<String, String> condition) {
         int insertCount = jdbcTemplate.update(insertSql, condition);
+        dataVersion.increment();
+        notifyInvalidated();
 
         return insertCount;
     }
 
+    /**
+     * 天気のリストを一括登録する。<br/>
+     * バインド変数を使用した登録SQLを、設定された件数（wfis.register.batchSize）ごとに
+     * JDBCバッチとしてまとめて送信する。<br/>
+     * 行ごとにSQLを組み立てて{@link #insert(String)}を呼び出すよりも、SQLの解析と通信の回数が少なくなる。
+     *
+     * @param weatherList 登録する天気のリスト
+     * @return 登録件数
+     */
+    public int batchInsert(List<Weather> weatherList) {
+        return executeBatch(weatherList, true);
+    }
+
+    /**
+     * 天気のリストを日付と場所をキーとして一括でマージする。<br/>
+     * リスト内の日付の既存データを検索し、キーが存在しない天気は一括登録、内容が異なる天気は一括更新する。
+     * 内容が同じ天気は更新しないため、既に登録済みのデータが大半を占める場合も差分の件数分しか書き込まない。<br/>
+     * リスト内でキーが重複していないこと。
+     *
+     * @param weatherList マージする天気のリスト
+     * @return マージ結果
+     */
+    public MergeResult batchMerge(List<Weather> weatherList) {
+        Map<String, Weather> existingMap = findExistingMap(weatherList);
+        List<Weather> insertList = new ArrayList<Weather>();
+        List<Weather> updateList = new ArrayList<Weather>();
+        MergeResult result = new MergeResult();
+        for (Weather weather : weatherList) {
+            Weather existing = existingMap.get(weather.createKey());
+            if (existing == null) {
+                insertList.add(weather);
+            } else if (isSameContent(existing, weather)) {
+                result.addUnchangedCount(1);
+            } else {
+                updateList.add(weather);
+            }
+        }
+        result.addInsertCount(executeBatch(insertList, true));
+        result.addUpdateCount(executeBatch(updateList, false));
+
+        return result;
+    }
+
+    /**
+     * 天気のリストを日付と場所をキーとして一括更新する。<br/>
+     * バインド変数を使用した更新SQLを、設定された件数（wfis.register.batchSize）ごとにJDBCバッチとしてまとめて送信する。
+     *
+     * @param weatherList 更新する天気のリスト
+     * @return 更新件数
+     */
+    public int batchUpdate(List<Weather> weatherList) {
+        return executeBatch(weatherList, false);
+    }
+
+    /**
+     * 日付の範囲内の既存データを一度の範囲検索で取得し、キーと内容のハッシュ値の対応にする。<br/>
+     * 検索結果は一行ずつハッシュ値に変換し、行そのものは保持しない。
+     * 日付は「yyyy/MM/dd」形式の文字列として比較する。
+     *
+     * @param fromDate 開始日付（この日付を含む）
+     * @param toDate 終了日付（この日付を含む）
+     * @return キーと内容のハッシュ値の対応
+     * @see Weather#createContentHash()
+     */
+    public Map<String, Long> findContentHashMap(String fromDate, String toDate) {
+        final Map<String, Long> contentHashMap = new HashMap<String, Long>();
+        MapSqlParameterSource parameterSource = new MapSqlParameterSource();
+        parameterSource.addValue("fromDate", fromDate);
+        parameterSource.addValue("toDate", toDate);
+        final WeatherRowMapper mapper = new WeatherRowMapper();
+        jdbcTemplate.query(SELECT_BY_WEATHER_DATE_RANGE_SQL, parameterSource, new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                Weather existing = mapper.mapRow(rs, contentHashMap.size());
+                contentHashMap.put(existing.createKey(), existing.createContentHash());
+            }
+        });
+
+        return contentHashMap;
+    }
+
+    /**
+     * 全件を検索し、一件ずつ処理する。<br/>
+     * 検索結果をリストに保持せず、設定（wfis.snapshot.fetchSize）の件数ずつ取得しながら処理するため、
+     * 件数によらず使用メモリは一定となる。
+     *
+     * @param handler 天気を一件ずつ処理するクラス
+     * @return 件数
+     */
+    public long findAll(final WeatherHandler handler) {
+        final long[] count = new long[1];
+        final WeatherRowMapper mapper = new WeatherRowMapper();
+        jdbcTemplate.getJdbcOperations().query(new PreparedStatementCreator() {
+            @Override
+            public PreparedStatement createPreparedStatement(Connection connection) throws SQLException {
+                PreparedStatement statement = connection.prepareStatement(SELECT_ALL_SQL);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }
+        }, new RowCallbackHandler() {
+            @Override
+            public void processRow(ResultSet rs) throws SQLException {
+                handler.handle(mapper.mapRow(rs, (int) count[0]));
+                count[0]++;
+            }
+        });
+
+        return count[0];
+    }
+
+    /**
+     * 天気のリストと同じ日付の既存データを検索し、キーごとのMapにする。
+     *
+     * @param weatherList 天気のリスト
+     * @return キーと既存データの対応
+     */
+    private Map<String, Weather> findExistingMap(List<Weather> weatherList) {
+        Set<String> weatherDateSet = new LinkedHashSet<String>();
+        for (Weather weather : weatherList) {
+            weatherDateSet.add(weather.getWeatherDate());
+        }
+
+        Map<String, Weather> existingMap = new HashMap<String, Weather>();
+        RowMapper<Weather> mapper = new WeatherRowMapper();
+        List<String> weatherDateList = new ArrayList<String>(weatherDateSet);
+        for (int from = 0; from < weatherDateList.size(); from += IN_LIST_LIMIT) {
+            int to = Math.min(from + IN_LIST_LIMIT, weatherDateList.size());
+            MapSqlParameterSource parameterSource = new MapSqlParameterSource("weatherDates", weatherDateList.subList(from, to));
+            for (Weather existing : jdbcTemplate.query(SELECT_BY_WEATHER_DATES_SQL, parameterSource, mapper)) {
+                existingMap.put(existing.createKey(), existing);
+            }
+        }
+
+        return existingMap;
+    }
+
+    /**
+     * 天気の内容（天気・最高気温・最低気温）が同じかどうかを判定する。<br/>
+     * 気温の列は数値のため、既存データの気温は「5」のような整数の形式で取得される。
+     * 「05」「+5」のような値も同じ気温として判定するよう、気温は整数に変換して比較する。
+     *
+     * @param existing 既存データ
+     * @param weather 天気
+     * @return 内容が同じ場合は{@code true}
+     */
+    private boolean isSameContent(Weather existing, Weather weather) {
+        return StringUtils.equals(existing.getWeather(), weather.getWeather())
+                && isSameTemperature(existing.getMaxTemperature(), weather.getMaxTemperature())
+                && isSameTemperature(existing.getMinTemperature(), weather.getMinTemperature());
+    }
+
+    /**
+     * 気温が同じかどうかを判定する。<br/>
+     * 両方とも整数に変換できる場合は数値として比較し、それ以外の場合は文字列として比較する。
+     *
+     * @param existing 既存データの気温
+     * @param temperature 気温
+     * @return 気温が同じ場合は{@code true}
+     */
+    private boolean isSameTemperature(String existing, String temperature) {
+        int existingValue = FieldDecoder.parseInt(existing);
+        int value = FieldDecoder.parseInt(temperature);
+        if (existingValue == FieldDecoder.INVALID_INT || value == FieldDecoder.INVALID_INT) {
+            return StringUtils.equals(existing, temperature);
+        }
+        return existingValue == value;
+    }
+
+    /**
+     * 天気のリストをパラメータとして、登録または更新のSQLを設定された件数（wfis.register.batchSize）ごとにJDBCバッチで実行する。
+     *
+     * @param weatherList 天気のリスト
+     * @param insert 登録の場合はtrue、更新の場合はfalse
+     * @return 処理件数
+     */
+    private int executeBatch(List<Weather> weatherList, boolean insert) {
+        if (weatherList.isEmpty()) {
+            return 0;
+        }
+        String sql = insert ? INSERT_SQL : UPDATE_SQL;
+        int updateCount = 0;
+        boolean completed = false;
+        try {
+            for (int from = 0; from < weatherList.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, weatherList.size());
+                SqlParameterSource[] batchArgs = new SqlParameterSource[to - from];
+                for (int i = from; i < to; i++) {
+                    batchArgs[i - from] = createParameterSource(weatherList.get(i));
+                }
+                updateCount += sumUpdateCounts(jdbcTemplate.batchUpdate(sql, batchArgs));
+            }
+            completed = true;
+        } finally {
+            // 途中のバッチで失敗した場合も、それまでのバッチは書き込まれている可能性がある
+            dataVersion.increment();
+            if (!completed) {
+                notifyInvalidated();
+            }
+        }
+        for (WeatherWriteListener listener : writeListeners) {
+            if (insert) {
+                listener.weatherInserted(weatherList);
+            } else {
+                listener.weatherUpdated(weatherList);
+            }
+        }
+
+        return updateCount;
+    }
+
+    /**
+     * 天気をSQLのパラメータに変換する。
+     *
+     * @param weather 天気
+     * @return SQLのパラメータ
+     */
+    private SqlParameterSource createParameterSource(Weather weather) {
+        MapSqlParameterSource parameterSource = new MapSqlParameterSource();
+        parameterSource.addValue("weatherDate", weather.getWeatherDate());
+        parameterSource.addValue("place", weather.getPlace());
+        parameterSource.addValue("weather", weather.getWeather());
+        parameterSource.addValue("maxTemperature", weather.getMaxTemperature());
+        parameterSource.addValue("minTemperature", weather.getMinTemperature());
+
+        return parameterSource;
+    }
+
+    /**
+     * バッチ実行結果の件数を合計する。<br/>
+     * ドライバが件数を返さない場合（{@link Statement#SUCCESS_NO_INFO}）は1件として数える。
+     *
+     * @param updateCounts バッチ実行結果
+     * @return 合計件数
+     */
+    private int sumUpdateCounts(int[] updateCounts) {
+        int sum = 0;
+        for (int updateCount : updateCounts) {
+            sum += (updateCount == Statement.SUCCESS_NO_INFO) ? 1 : updateCount;
+        }
+
+        return sum;
+    }
+
     /**
      * SQLをもとに更新を行う。{@link WeatherDao#findBySql}<br/>
      *
@@ -112,6 +411,8 @@ public class WeatherDao {
      */
     public int update(String updateSql, Map<String, String> condition) {
         int updateCount = jdbcTemplate.update(updateSql, condition);
+        dataVersion.increment();
+        notifyInvalidated();
 
         return updateCount;
     }
@@ -138,7 +439,27 @@ public class WeatherDao {
      */
     public int delete(String deleteSql, Map<String, String> condition) {
         int deleteCount = jdbcTemplate.update(deleteSql, condition);
+        dataVersion.increment();
+        notifyInvalidated();
 
         return deleteCount;
     }
+
+    /**
+     * 天気テーブルへの書き込みの通知先を追加する。
+     *
+     * @param listener 通知先
+     */
+    public void addWriteListener(WeatherWriteListener listener) {
+        writeListeners.add(listener);
+    }
+
+    /**
+     * 書き込んだ内容を特定できない書き込みを行ったことを通知する。
+     */
+    private void notifyInvalidated() {
+        for (WeatherWriteListener listener : writeListeners) {
+            listener.weatherInvalidated();
+        }
+    }
 }
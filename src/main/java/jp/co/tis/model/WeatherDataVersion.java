@@ -0,0 +1,61 @@
+package jp.co.tis.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 天気テーブルのデータのバージョン。<br/>
+ * 天気テーブルに書き込むたびに{@link WeatherDao}が1つ進め、検索結果のキャッシュはバージョンが変わった時点で古いものとして扱う。
+ * トランザクション内で書き込んだ場合は、コミットまたはロールバックの後にもう一度進める。
+ * これにより、コミット前の検索結果が書き込み後のバージョンでキャッシュされたままになることを防ぐ。
+ * トランザクションの終了後に進める処理は、書き込みの回数に関わらずトランザクションごとに1つだけ登録する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+@Component
+public class WeatherDataVersion {
+
+    /** バージョン */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 現在のバージョンを返却する。
+     *
+     * @return バージョン
+     */
+    public long get() {
+        return version.get();
+    }
+
+    /**
+     * バージョンを進める。トランザクション内の場合は、トランザクションの終了後にも進める。<br/>
+     * 終了後に進める処理を登録済みであることは、本インスタンスをキーとしてトランザクションにリソースを紐付けて判定する。
+     */
+    public void increment() {
+        version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(WeatherDataVersion.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(WeatherDataVersion.this, Boolean.TRUE);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(WeatherDataVersion.this);
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+}
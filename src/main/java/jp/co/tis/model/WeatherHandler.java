@@ -0,0 +1,19 @@
+package jp.co.tis.model;
+
+/**
+ * 検索結果の天気を一件ずつ処理するインタフェース｡<br/>
+ * 全件を検索する場合など、検索結果をリストに保持せずに処理するために使用する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public interface WeatherHandler {
+
+    /**
+     * 天気を一件処理する。<br/>
+     * 例外を送出した場合は、検索を中断して呼び出し元に例外を送出する。
+     *
+     * @param weather 天気
+     */
+    void handle(Weather weather);
+}
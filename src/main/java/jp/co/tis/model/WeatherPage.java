@@ -0,0 +1,56 @@
+package jp.co.tis.model;
+
+import java.util.List;
+
+/**
+ * 天気の検索結果の1ページ分を保持するクラス。<br/>
+ * 前後のページがある場合は、そのページを読み込むためのカーソルのトークンを保持する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class WeatherPage {
+
+    /** ページ内の天気（日付、場所の昇順） */
+    private final List<Weather> weatherList;
+
+    /** 前のページのトークン。前のページがない場合はnull */
+    private final String previousCursor;
+
+    /** 次のページのトークン。次のページがない場合はnull */
+    private final String nextCursor;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param weatherList ページ内の天気
+     * @param previousCursor 前のページのトークン
+     * @param nextCursor 次のページのトークン
+     */
+    public WeatherPage(List<Weather> weatherList, String previousCursor, String nextCursor) {
+        this.weatherList = weatherList;
+        this.previousCursor = previousCursor;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return weatherList
+     */
+    public List<Weather> getWeatherList() {
+        return weatherList;
+    }
+
+    /**
+     * @return previousCursor
+     */
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    /**
+     * @return nextCursor
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,96 @@
+package jp.co.tis.model;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * 検索結果の一行を天気にマッピングするクラス。<br/>
+ * 列の位置は検索結果（ResultSet）ごとに最初の一行で一度だけ列名から求め、以降の行は位置を指定して値を取得する。
+ * BeanPropertyRowMapperのようにクラスの解析やリフレクションによる値の設定を行わないため、件数が多い場合も速い。<br/>
+ * 列名は大文字・小文字と「_」の有無を区別せずに照合し（例：WEATHER_DATE、weatherDate）、
+ * 検索結果に含まれない項目はnullとする。<br/>
+ * 検索結果ごとの列の位置を保持するため、同時に複数のスレッドから使用しないこと。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class WeatherRowMapper implements RowMapper<Weather> {
+
+    /** 列がないことを表す位置 */
+    private static final int NO_COLUMN = 0;
+
+    /** 列の位置を求めた検索結果 */
+    private ResultSet resultSet;
+
+    /** 日付の列の位置 */
+    private int weatherDateIndex;
+
+    /** 場所の列の位置 */
+    private int placeIndex;
+
+    /** 天気の列の位置 */
+    private int weatherIndex;
+
+    /** 最高気温の列の位置 */
+    private int maxTemperatureIndex;
+
+    /** 最低気温の列の位置 */
+    private int minTemperatureIndex;
+
+    @Override
+    public Weather mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (rs != resultSet) {
+            resolveColumns(rs);
+        }
+        return new Weather(getString(rs, weatherDateIndex), getString(rs, placeIndex), getString(rs, weatherIndex),
+                getString(rs, maxTemperatureIndex), getString(rs, minTemperatureIndex));
+    }
+
+    /**
+     * 検索結果の列名から各項目の列の位置を求める。同じ項目の列が複数ある場合は最初の列とする。
+     *
+     * @param rs 検索結果
+     * @throws SQLException 列の情報が取得できない場合
+     */
+    private void resolveColumns(ResultSet rs) throws SQLException {
+        weatherDateIndex = NO_COLUMN;
+        placeIndex = NO_COLUMN;
+        weatherIndex = NO_COLUMN;
+        maxTemperatureIndex = NO_COLUMN;
+        minTemperatureIndex = NO_COLUMN;
+
+        ResultSetMetaData metaData = rs.getMetaData();
+        for (int i = metaData.getColumnCount(); i >= 1; i--) {
+            String columnName = JdbcUtils.lookupColumnName(metaData, i).replace("_", "").toUpperCase(Locale.ENGLISH);
+            if ("WEATHERDATE".equals(columnName)) {
+                weatherDateIndex = i;
+            } else if ("PLACE".equals(columnName)) {
+                placeIndex = i;
+            } else if ("WEATHER".equals(columnName)) {
+                weatherIndex = i;
+            } else if ("MAXTEMPERATURE".equals(columnName)) {
+                maxTemperatureIndex = i;
+            } else if ("MINTEMPERATURE".equals(columnName)) {
+                minTemperatureIndex = i;
+            }
+        }
+        resultSet = rs;
+    }
+
+    /**
+     * 指定した位置の列の値を文字列として取得する。
+     *
+     * @param rs 検索結果
+     * @param index 列の位置
+     * @return 値。列がない場合、値がない場合はnull
+     * @throws SQLException 値が取得できない場合
+     */
+    private static String getString(ResultSet rs, int index) throws SQLException {
+        return index == NO_COLUMN ? null : rs.getString(index);
+    }
+}
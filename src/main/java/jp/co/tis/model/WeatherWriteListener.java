@@ -0,0 +1,33 @@
+package jp.co.tis.model;
+
+import java.util.List;
+
+/**
+ * {@link WeatherDao}から天気テーブルへの書き込みの通知を受け取るインターフェース。<br/>
+ * 通知は書き込みを行ったスレッドで、SQLの実行直後（トランザクションのコミット前）に行う。
+ * 引数のリストは通知後に呼び出し元で再利用されることがあるため、保持する場合は内容を複製すること。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public interface WeatherWriteListener {
+
+    /**
+     * 天気を登録した際に呼び出される。
+     *
+     * @param weatherList 登録した天気のリスト
+     */
+    void weatherInserted(List<Weather> weatherList);
+
+    /**
+     * 日付と場所をキーとして天気を更新した際に呼び出される。
+     *
+     * @param weatherList 更新した天気のリスト
+     */
+    void weatherUpdated(List<Weather> weatherList);
+
+    /**
+     * 書き込んだ内容を特定できない書き込み（任意のSQLによる登録・更新・削除や、途中で失敗した一括処理）を行った際に呼び出される。
+     */
+    void weatherInvalidated();
+}
@@ -0,0 +1,112 @@
+package jp.co.tis.util;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import jp.co.tis.exception.FileFormatException;
+
+/**
+ * CsvReader実装の共通処理を持つ抽象クラス。<br/>
+ * ヘッダー行の精査と、データ行の項目の分割を行う。<br/>
+ * {@link #readLine}は{@link #readRow}の結果をMapに変換するアダプタとして実装する。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public abstract class AbstractCsvReader implements CsvReader {
+
+    /** ヘッダー部の項目を格納する配列。 */
+    protected String[] itemArray;
+
+    /** 読み込んだ行を参照するカーソル。 */
+    private CsvRow row;
+
+    /** 読み込んだ行数（ヘッダー行を含む）。 */
+    private long lineNumber;
+
+    /**
+     * ヘッダー行を精査し、項目を{@link #itemArray}に設定する。
+     *
+     * @param headerSection ヘッダー行。ファイルが空の場合は{@code null}
+     * @throws FileFormatException ヘッダー部が設定されていない場合、項目名に重複がある場合、空項目が含まれる場合
+     */
+    protected void parseHeader(String headerSection) throws FileFormatException {
+        if (headerSection == null || headerSection.isEmpty()) {
+            throw new FileFormatException("ヘッダー行が存在しません。");
+        }
+        itemArray = headerSection.split(",", -1);
+        // 重複チェック開始
+        Set<String> checkRepetition = new HashSet<String>();
+        for (String item : itemArray) {
+            if (!checkRepetition.add(item)) {
+                throw new FileFormatException("ヘッダー行の項目が重複しています。");
+            }
+        }
+        // 空項目チェック開始
+        for (String item : itemArray) {
+            if ("".equals(item)) {
+                throw new FileFormatException("ヘッダー行に空項目が含まれています。");
+            }
+        }
+        initHeader(itemArray, 1);
+    }
+
+    /**
+     * 精査済みのヘッダー部の項目を設定する。<br/>
+     * ファイルの途中から読み込む場合に、ヘッダー行を読み込まずに項目を設定するために使用する。
+     *
+     * @param itemArray ヘッダー部の項目
+     * @param lineNumber 読み込み済みの行数（ヘッダー行を含む）
+     */
+    protected void initHeader(String[] itemArray, long lineNumber) {
+        this.itemArray = itemArray;
+        this.row = new CsvRow(itemArray);
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * ヘッダー部の項目を取得する。
+     *
+     * @return ヘッダー部の項目。オープン前は{@code null}
+     */
+    public String[] getItemArray() {
+        return itemArray;
+    }
+
+    /**
+     * 読み込み済みの行数を取得する。
+     *
+     * @return 読み込み済みの行数（ヘッダー行を含む）
+     */
+    protected long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public Map<String, String> readLine() throws IOException, FileFormatException {
+        CsvRow csvRow = readRow();
+        if (csvRow == null) {
+            return null;
+        }
+        return csvRow.toMap();
+    }
+
+    /**
+     * 文字バッファ上のデータ行を項目に分割し、{@link CsvRow}に設定する。
+     *
+     * @param chars 文字バッファ
+     * @param start 行の開始位置
+     * @param end 行の終了位置（改行を含まない）
+     * @return 一行分のCSVデータを参照するCsvRow
+     * @throws FileFormatException 見出し行の項目数とデータ個数に差異がある場合
+     */
+    protected CsvRow scanRow(char[] chars, int start, int end) throws FileFormatException {
+        lineNumber++;
+        if (row.scan(chars, start, end, lineNumber) != itemArray.length) {
+            throw new FileFormatException("ヘッダー部と項目数が異なっています。", lineNumber);
+        }
+        return row;
+    }
+}
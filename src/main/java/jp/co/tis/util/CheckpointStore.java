@@ -0,0 +1,115 @@
+package jp.co.tis.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import jp.co.tis.model.IngestCheckpoint;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * CSV登録のチェックポイントをファイルに保存するクラス。<br/>
+ * チェックポイントはCSVファイルごとにプロパティファイルとして保存する。
+ * 保存先は設定（wfis.register.checkpointDir）で指定し、未指定の場合はCSVファイルと同じディレクトリに
+ * 「CSVファイル名.checkpoint」として保存する。<br/>
+ * 書き込み途中のファイルが残らないよう、一時ファイルに書き込んでから置き換える。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+@Component
+public class CheckpointStore {
+
+    /** チェックポイントファイルの拡張子 */
+    private static final String EXTENSION = ".checkpoint";
+
+    /** チェックポイントの保存先ディレクトリ */
+    @Value("${wfis.register.checkpointDir:}")
+    private String checkpointDir;
+
+    /**
+     * チェックポイントを読み込む。
+     *
+     * @param csvPath CSVファイルパス
+     * @return チェックポイント。存在しない場合は{@code null}
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public IngestCheckpoint load(String csvPath) throws IOException {
+        File file = getCheckpointFile(csvPath);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        return new IngestCheckpoint(Long.parseLong(properties.getProperty("committedRows", "0")),
+                Long.parseLong(properties.getProperty("lastRowOffset", "-1")),
+                StringUtils.defaultIfEmpty(properties.getProperty("lastWeatherDate"), null),
+                StringUtils.defaultIfEmpty(properties.getProperty("lastPlace"), null));
+    }
+
+    /**
+     * チェックポイントを保存する。
+     *
+     * @param csvPath CSVファイルパス
+     * @param checkpoint チェックポイント
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public void save(String csvPath, IngestCheckpoint checkpoint) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("committedRows", String.valueOf(checkpoint.getCommittedRows()));
+        properties.setProperty("lastRowOffset", String.valueOf(checkpoint.getLastRowOffset()));
+        properties.setProperty("lastWeatherDate", StringUtils.defaultString(checkpoint.getLastWeatherDate()));
+        properties.setProperty("lastPlace", StringUtils.defaultString(checkpoint.getLastPlace()));
+
+        File file = getCheckpointFile(csvPath);
+        File tmpFile = new File(file.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(tmpFile);
+        try {
+            properties.store(out, csvPath);
+        } finally {
+            out.close();
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * チェックポイントを削除する。
+     *
+     * @param csvPath CSVファイルパス
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public void delete(String csvPath) throws IOException {
+        Files.deleteIfExists(getCheckpointFile(csvPath).toPath());
+    }
+
+    /**
+     * チェックポイントファイルを取得する。<br/>
+     * 保存先ディレクトリが指定されている場合は、同名のCSVファイルと区別するため絶対パスのハッシュ値をファイル名に含める。
+     *
+     * @param csvPath CSVファイルパス
+     * @return チェックポイントファイル
+     */
+    File getCheckpointFile(String csvPath) {
+        File csvFile = new File(csvPath);
+        if (StringUtils.isEmpty(checkpointDir)) {
+            return new File(csvFile.getPath() + EXTENSION);
+        }
+        String hash = Integer.toHexString(csvFile.getAbsolutePath().hashCode());
+        return new File(checkpointDir, csvFile.getName() + "." + hash + EXTENSION);
+    }
+}
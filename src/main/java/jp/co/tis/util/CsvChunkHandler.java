@@ -0,0 +1,40 @@
+package jp.co.tis.util;
+
+import jp.co.tis.exception.FileFormatException;
+
+/**
+ * {@link ParallelCsvParser}が分割したチャンクごとの処理を定義するインタフェース｡<br/>
+ * {@link #createChunk}と{@link #handleRow}は複数のワーカースレッドから並行に呼び出される。
+ * 一つのチャンクの結果は一つのスレッドからのみ操作される。<br/>
+ * {@link #chunkCompleted}は呼び出し元のスレッドから、ファイル中の順序どおりに呼び出される。
+ *
+ * @param <A> チャンクごとの処理結果の型
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public interface CsvChunkHandler<A> {
+
+    /**
+     * チャンクの処理結果を格納するオブジェクトを生成する。
+     *
+     * @return チャンクの処理結果
+     */
+    A createChunk();
+
+    /**
+     * 一行分のデータを処理する。<br/>
+     * 引数のCsvRowは次の行を読み込むと内容が置き換わるため、保持してはならない。
+     *
+     * @param chunk チャンクの処理結果
+     * @param row 一行分のCSVデータ
+     * @throws FileFormatException データの形式に誤りがある場合
+     */
+    void handleRow(A chunk, CsvRow row) throws FileFormatException;
+
+    /**
+     * チャンクの処理結果を受け取る。ファイル中の順序どおりに呼び出される。
+     *
+     * @param chunk チャンクの処理結果
+     */
+    void chunkCompleted(A chunk);
+}
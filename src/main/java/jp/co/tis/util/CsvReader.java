@@ -24,6 +24,19 @@ public interface CsvReader {
      */
     void open() throws FileNotFoundException, FileFormatException;
 
+    /**
+     * ファイルをオープンし、指定位置から読み込む。<br/>
+     * ヘッダー部は{@link #open()}と同様にファイルの先頭から読み込んで精査し、データ行は指定位置から読み込む。
+     * 指定位置までの行は読み込まないため、中断した読み込みを再開する場合に使用する。<br/>
+     * 指定位置は{@link #getOffset}で取得した行頭の位置であること。
+     *
+     * @param offset 読み込みを開始する位置（{@link #getOffset}の戻り値）
+     * @param lineNumber 開始位置より前の行数（ヘッダー行を含む）。読み込んだ行の行番号はこの次の番号から始まる
+     * @throws FileNotFoundException ファイルが存在しない場合
+     * @throws FileFormatException ヘッダー部が設定されていない場合、項目名に重複がある場合、開始位置がファイルの範囲外の場合
+     */
+    void open(long offset, long lineNumber) throws FileNotFoundException, FileFormatException;
+
     /**
      * 行単位の読み込みを行う。<br/>
      * CSVを一行読込み、項目名をキーとしたMapに変換し返却する。<br/>
@@ -38,6 +51,28 @@ public interface CsvReader {
      */
     Map<String, String> readLine() throws IOException, FileFormatException;
 
+    /**
+     * 行単位の読み込みを行う。<br/>
+     * CSVを一行読込み、項目の位置のみを保持する{@link CsvRow}として返却する。項目の値は要求された時点で文字列に変換される。<br/>
+     * 返却される{@link CsvRow}は読み込みのたびに再利用されるため、次の行を読み込むと内容が置き換わる。<br/>
+     * ファイル末端に達している場合には{@code null}を返却する。<br/>
+     * ファイルがオープンしていない場合、IOExceptionを送出する。
+     *
+     * @return 一行分のCSVデータを参照するCsvRow。
+     * @throws IOException 入出力エラー(ファイル未オープンなど)が発生した場合。
+     * @throws FileFormatException 見出し行の項目数とデータ個数に差異がある場合
+     */
+    CsvRow readRow() throws IOException, FileFormatException;
+
+    /**
+     * 次に読み込む行の位置を取得する。<br/>
+     * 戻り値を{@link #open(long, long)}に指定すると、次の行から読み込みを再開できる。
+     *
+     * @return ファイル先頭からのバイト数（gzip形式のファイルの場合は展開後のバイト数）
+     * @throws IOException 入出力エラー(ファイル未オープンなど)が発生した場合。
+     */
+    long getOffset() throws IOException;
+
     /**
      * ファイルをクローズする。<br/>
      * 繰り返し呼び出しても何も起こらない。 {@link #open}を呼び出す前に本メソッドを呼び出しても何も起こらない。
@@ -0,0 +1,82 @@
+package jp.co.tis.util;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * CsvReaderを生成するクラス。<br/>
+ * 設定（wfis.csv.reader）に応じて使用する実装を切り替える。
+ * <ul>
+ * <li>buffered : {@link CsvReaderImpl}（既定）</li>
+ * <li>mapped : {@link MappedCsvReaderImpl}</li>
+ * </ul>
+ * 文字コードは設定（wfis.csv.charset）で指定する。未指定の場合は実行環境のデフォルトの文字コードを使用する。<br/>
+ * gzip形式のファイル（拡張子「.gz」）はメモリマップできないため、設定に関わらず{@link CsvReaderImpl}で展開しながら読み込む。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+@Component
+public class CsvReaderFactory {
+
+    /** 使用するCsvReaderの種類 */
+    @Value("${wfis.csv.reader:buffered}")
+    private String readerType;
+
+    /** CSVファイルの文字コード */
+    @Value("${wfis.csv.charset:}")
+    private String charsetName;
+
+    /**
+     * CsvReaderを生成する。
+     *
+     * @param csvPath CSVファイルパス
+     * @return CsvReader
+     */
+    public CsvReader create(String csvPath) {
+        Charset charset = getCharset();
+        if ("mapped".equals(readerType) && !isGzip(csvPath)) {
+            return new MappedCsvReaderImpl(csvPath, charset);
+        }
+        return new CsvReaderImpl(csvPath, charset);
+    }
+
+    /**
+     * 入力ストリームから読み込むCsvReaderを生成する。<br/>
+     * 入力ストリームはメモリマップできないため、設定に関わらず{@link CsvReaderImpl}で読み込む。
+     *
+     * @param in 入力ストリーム
+     * @param fileName ファイル名（gzip形式かどうかの判定に使用する）
+     * @return CsvReader
+     */
+    public CsvReader create(InputStream in, String fileName) {
+        return new CsvReaderImpl(in, fileName, getCharset());
+    }
+
+    /**
+     * gzip形式のファイルかどうかを判定する。<br/>
+     * gzip形式のファイルは先頭から順に展開する必要があるため、位置を指定した読み込みや並列解析はできない。
+     *
+     * @param csvPath CSVファイルパス
+     * @return 拡張子が「.gz」の場合は{@code true}
+     */
+    public boolean isGzip(String csvPath) {
+        return csvPath.endsWith(".gz");
+    }
+
+    /**
+     * 設定された文字コードを取得する。
+     *
+     * @return 文字コード
+     */
+    public Charset getCharset() {
+        if (StringUtils.isEmpty(charsetName)) {
+            return Charset.defaultCharset();
+        }
+        return Charset.forName(charsetName);
+    }
+}
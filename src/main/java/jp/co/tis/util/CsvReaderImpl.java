@@ -1,126 +1,437 @@
 package jp.co.tis.util;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Set;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
 
 import jp.co.tis.exception.FileFormatException;
 import jp.co.tis.exception.SystemException;
 
 /**
- * CsvReader実装クラス。
+ * CsvReader実装クラス。<br/>
+ * 読み込んだ文字を自前の文字バッファに保持し、行と項目の区切りをバッファ上で探索する。
+ * 一行ごとの文字列や配列を生成しないため、{@link #readRow}では項目の値を要求されるまでオブジェクトを生成しない。<br/>
+ * 改行コードはLF、CR、CRLFに対応する。<br/>
+ * ファイル名が「.gz」で終わる場合はgzip形式として、一時ファイルに展開せずに読み込みながら展開する。<br/>
+ * {@link #getOffset}で返す位置は、読み込んだ文字を指定の文字コードでのバイト数に換算して求める。
+ * そのため位置を使用する場合は、UTF-8やShift_JISなどASCII互換の文字コードで、不正なバイト列を含まないファイルであること。
  *
  * @author Nomura Tomoka, Murakami Hiroyuki, Yoshiwara Masashi
  * @since 2.1
  */
-public class CsvReaderImpl implements CsvReader {
+public class CsvReaderImpl extends AbstractCsvReader {
 
-    /** 読み込みのためのBufferedReaderクラス。 */
-    private BufferedReader bufferedReader;
+    /** 文字バッファの初期サイズ。 */
+    private static final int INITIAL_BUFFER_SIZE = 8192;
 
-    /** ヘッダー部の項目を格納する配列。 */
-    private String[] itemArray;
+    /** gzip形式のファイルを展開する際の入力バッファのサイズ。 */
+    private static final int GZIP_BUFFER_SIZE = 65536;
+
+    /** gzip形式のファイルの拡張子。 */
+    private static final String GZIP_EXTENSION = ".gz";
+
+    /** 読み込みのためのReaderクラス。 */
+    private Reader reader;
 
     /** CSVファイルのパスを格納する文字列。 */
     private String csvPath;
 
+    /** CSVファイルの文字コード。 */
+    private Charset charset;
+
+    /** 読み込む入力ストリーム（ファイルの代わりに入力ストリームから読み込む場合）。 */
+    private InputStream sourceStream;
+
+    /** ファイルの代わりに入力ストリームから読み込むかどうか。 */
+    private boolean streamSource;
+
     /**
-     * コンストラクタ。
+     * コンストラクタ。<br/>
+     * 実行環境のデフォルトの文字コードで読み込む。
      *
      * @param csvPath CSVファイルパス。
      */
     public CsvReaderImpl(String csvPath) {
+        this(csvPath, Charset.defaultCharset());
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param csvPath CSVファイルパス。
+     * @param charset CSVファイルの文字コード。
+     */
+    public CsvReaderImpl(String csvPath, Charset charset) {
         this.csvPath = csvPath;
+        this.charset = charset;
+    }
+
+    /**
+     * コンストラクタ。<br/>
+     * ファイルの代わりに入力ストリームから読み込む。アップロードされたデータなど、ファイルとして保存しないデータの読み込みに使用する。
+     * 入力ストリームは先頭から一度だけ読み込めるため、{@link #open(long, long)}は使用できない。<br/>
+     * gzip形式かどうかはファイル名で判定する。入力ストリームは{@link #close}でクローズする。
+     *
+     * @param in 入力ストリーム。
+     * @param fileName ファイル名。
+     * @param charset CSVファイルの文字コード。
+     */
+    public CsvReaderImpl(InputStream in, String fileName, Charset charset) {
+        this.sourceStream = in;
+        this.streamSource = true;
+        this.csvPath = fileName;
+        this.charset = charset;
     }
 
+    /** 読み込んだ文字を保持するバッファ。 */
+    private char[] buffer;
+
+    /** バッファ上の未処理の文字の開始位置。 */
+    private int position;
+
+    /** バッファ上の読み込み済みの文字の終了位置。 */
+    private int limit;
+
+    /** 直前の行がCRで終わったため、次のLFを読み飛ばすかどうか。 */
+    private boolean skipLineFeed;
+
+    /** 直前に読み込んだ行の開始位置。 */
+    private int lineStart;
+
+    /** 直前に読み込んだ行の終了位置（改行を含まない）。 */
+    private int lineEnd;
+
+    /** 読み込み済みの文字のバイト数（ファイル先頭からの位置）。 */
+    private long offset;
+
+    /** 1文字が常に1バイトの文字コードかどうか。 */
+    private boolean singleByte;
+
+    /** 文字コードがUTF-8かどうか。 */
+    private boolean utf8;
+
+    /** UTF-8以外の文字コードでバイト数を数えるためのエンコーダ。 */
+    private CharsetEncoder encoder;
+
+    /** バイト数を数える際のエンコード先のバッファ。 */
+    private ByteBuffer encodeBuffer;
+
     @Override
     public void open() throws FileNotFoundException, FileFormatException {
-        if (bufferedReader != null) {
+        if (reader != null) {
             throw new IllegalStateException("すでにファイルが開かれています。");
         }
-        bufferedReader = new BufferedReader(new FileReader(csvPath));
-        // ※実行環境依存を避ける実装方法
-        // 読みこみのエンコードを指定する。
-        // bufferedReader = new BufferedReader(new InputStreamReader(
-        // new FileInputStream(csvPath), Charset.forName("UTF-8")));
+        reader = new InputStreamReader(openInputStream(), charset);
+        buffer = new char[INITIAL_BUFFER_SIZE];
+        position = 0;
+        limit = 0;
+        skipLineFeed = false;
+        offset = 0;
+        initEncoder();
 
         String headerSection = null;
         try {
-            headerSection = bufferedReader.readLine();
+            if (nextLine()) {
+                headerSection = new String(buffer, lineStart, lineEnd - lineStart);
+            }
+        } catch (ZipException | EOFException e) {
+            close();
+            throw new FileFormatException("gzip形式のファイルが破損しています。", e);
         } catch (IOException e) {
             // テストで到達不可能
             throw new SystemException("システム例外が発生しました。", e);
         }
-        if (headerSection == null || headerSection.isEmpty()) {
-            throw new FileFormatException("ヘッダー行が存在しません。");
+        parseHeader(headerSection);
+    }
+
+    @Override
+    public void open(long offset, long lineNumber) throws FileNotFoundException, FileFormatException {
+        if (streamSource) {
+            throw new IllegalStateException("入力ストリームから読み込む場合は開始位置を指定できません。");
+        }
+        open();
+        if (offset < this.offset) {
+            close();
+            throw new FileFormatException("読み込み開始位置がファイルの範囲外です。");
+        }
+        close();
+
+        InputStream in = openInputStream();
+        int previous;
+        try {
+            // 直前のバイトがCRの場合は、続くLFをCRLFの一部として読み飛ばす
+            if (!skipFully(in, offset - 1) || (previous = in.read()) < 0) {
+                in.close();
+                throw new FileFormatException("読み込み開始位置がファイルの範囲外です。");
+            }
+        } catch (IOException e) {
+            try {
+                in.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw new SystemException("システム例外が発生しました。", e);
+        }
+        reader = new InputStreamReader(in, charset);
+        position = 0;
+        limit = 0;
+        skipLineFeed = (previous == '\r');
+        this.offset = offset;
+        initHeader(itemArray, lineNumber);
+    }
+
+    /**
+     * 入力ストリームを指定のバイト数だけ読み飛ばす。
+     *
+     * @param in 入力ストリーム
+     * @param count 読み飛ばすバイト数
+     * @return ストリームの末端に達せずに読み飛ばせた場合は{@code true}
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private boolean skipFully(InputStream in, long count) throws IOException {
+        if (!csvPath.endsWith(GZIP_EXTENSION)) {
+            // 通常のファイルはファイル末端を超えて読み飛ばせるため、ファイルサイズで判定する
+            if (count > new File(csvPath).length()) {
+                return false;
+            }
+            return in.skip(count) == count;
         }
-        itemArray = headerSection.split(",", -1);
-        // 重複チェック開始
-        Set<String> checkRepetition = new HashSet<String>();
-        for (String item : itemArray) {
-            if (!checkRepetition.add(item)) {
-                throw new FileFormatException("ヘッダー行の項目が重複しています。");
+        long remaining = count;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    return false;
+                }
+                skipped = 1;
             }
+            remaining -= skipped;
+        }
+        return true;
+    }
+
+    @Override
+    public long getOffset() throws IOException {
+        if (reader == null) {
+            throw new IOException("ファイルが開かれていません。");
+        }
+        return offset;
+    }
+
+    /**
+     * バイト数を数えるための文字コードの情報を初期化する。
+     */
+    private void initEncoder() {
+        encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        singleByte = encoder.maxBytesPerChar() == 1.0f;
+        utf8 = StandardCharsets.UTF_8.equals(charset);
+        if (!singleByte && !utf8 && encodeBuffer == null) {
+            encodeBuffer = ByteBuffer.allocate(1024);
+        }
+    }
+
+    /**
+     * バッファ上の文字を指定の文字コードでエンコードした場合のバイト数を返却する。
+     *
+     * @param start 開始位置
+     * @param end 終了位置（この位置を含まない）
+     * @return バイト数
+     */
+    private long countBytes(int start, int end) {
+        if (singleByte) {
+            return end - start;
         }
-        // 空項目チェック開始
-        for (String item : itemArray) {
-            if ("".equals(item)) {
-                throw new FileFormatException("ヘッダー行に空項目が含まれています。");
+        if (utf8) {
+            long count = 0;
+            for (int i = start; i < end; i++) {
+                char c = buffer[i];
+                if (c < 0x80) {
+                    count += 1;
+                } else if (c < 0x800 || Character.isSurrogate(c)) {
+                    // サロゲートペアは2文字で4バイト
+                    count += 2;
+                } else {
+                    count += 3;
+                }
             }
+            return count;
         }
 
+        encoder.reset();
+        CharBuffer in = CharBuffer.wrap(buffer, start, end - start);
+        long count = 0;
+        CoderResult result;
+        do {
+            encodeBuffer.clear();
+            result = encoder.encode(in, encodeBuffer, true);
+            count += encodeBuffer.position();
+        } while (result.isOverflow());
+        do {
+            encodeBuffer.clear();
+            result = encoder.flush(encodeBuffer);
+            count += encodeBuffer.position();
+        } while (result.isOverflow());
+        return count;
+    }
+
+    /**
+     * ファイルの入力ストリームを開く。gzip形式のファイルの場合は展開しながら読み込むストリームを返す。<br/>
+     * 入力ストリームから読み込む場合は、コンストラクタで指定した入力ストリームを返す。
+     *
+     * @return 入力ストリーム
+     * @throws FileNotFoundException ファイルが存在しない場合
+     * @throws FileFormatException gzip形式のファイルとして読み込めない場合
+     */
+    private InputStream openInputStream() throws FileNotFoundException, FileFormatException {
+        InputStream in;
+        if (streamSource) {
+            if (sourceStream == null) {
+                throw new IllegalStateException("入力ストリームは一度しか読み込めません。");
+            }
+            in = sourceStream;
+            sourceStream = null;
+        } else {
+            in = new FileInputStream(csvPath);
+        }
+        if (!csvPath.endsWith(GZIP_EXTENSION)) {
+            return in;
+        }
+        try {
+            return new GZIPInputStream(in, GZIP_BUFFER_SIZE);
+        } catch (IOException e) {
+            try {
+                in.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            if (e instanceof ZipException || e instanceof EOFException) {
+                throw new FileFormatException("gzip形式のファイルではありません。", e);
+            }
+            throw new SystemException("システム例外が発生しました。", e);
+        }
     }
 
     @Override
     public void close() {
-        if (bufferedReader == null) {
+        if (reader == null) {
             return;
         }
         try {
-            bufferedReader.close();
+            reader.close();
         } catch (IOException e) {
             // テストで到達不可能
             throw new SystemException("システム例外が発生しました。", e);
         } finally {
-            bufferedReader = null;
+            reader = null;
         }
     }
 
     @Override
-    public Map<String, String> readLine() throws IOException, FileFormatException {
-        if (bufferedReader == null) {
+    public CsvRow readRow() throws IOException, FileFormatException {
+        if (reader == null) {
             throw new IOException("ファイルが開かれていません。");
         }
 
-        String dataSection = null;
+        boolean hasLine = false;
         try {
-            dataSection = bufferedReader.readLine();
+            hasLine = nextLine();
+        } catch (ZipException | EOFException e) {
+            // gzip形式のファイルが途中で壊れている、または途中までしかない場合
+            throw new FileFormatException("gzip形式のファイルが破損しています。", getLineNumber() + 1);
         } catch (IOException e) {
             // テストで到達不可能
             throw new SystemException("システム例外が発生しました。", e);
         }
 
-        if (dataSection == null) {
+        if (!hasLine) {
             return null;
         }
-        String[] dataArray = dataSection.split(",", -1);
-        if (itemArray.length != dataArray.length) {
-            throw new FileFormatException("ヘッダー部と項目数が異なっています。");
+        return scanRow(buffer, lineStart, lineEnd);
+    }
+
+    /**
+     * 次の一行の範囲をバッファ上で探索し、{@link #lineStart}と{@link #lineEnd}に設定する。
+     *
+     * @return ファイル末端に達している場合は{@code false}
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private boolean nextLine() throws IOException {
+        if (skipLineFeed) {
+            if (position == limit && !fill()) {
+                return false;
+            }
+            if (buffer[position] == '\n') {
+                offset += countBytes(position, position + 1);
+                position++;
+            }
+            skipLineFeed = false;
         }
 
-        Map<String, String> keyValue = new LinkedHashMap<String, String>();
-        for (int i = 0; i < dataArray.length; i++) {
-            if (dataArray[i].isEmpty()) {
-                keyValue.put(itemArray[i], null);
-            } else {
-                keyValue.put(itemArray[i], dataArray[i]);
+        int scanned = 0;
+        while (true) {
+            for (int i = position + scanned; i < limit; i++) {
+                char c = buffer[i];
+                if (c == '\n' || c == '\r') {
+                    offset += countBytes(position, i + 1);
+                    lineStart = position;
+                    lineEnd = i;
+                    position = i + 1;
+                    skipLineFeed = (c == '\r');
+                    return true;
+                }
+            }
+            scanned = limit - position;
+            if (!fill()) {
+                if (position == limit) {
+                    return false;
+                }
+                // 最終行に改行がない場合
+                offset += countBytes(position, limit);
+                lineStart = position;
+                lineEnd = limit;
+                position = limit;
+                return true;
             }
         }
-        return keyValue;
+    }
+
+    /**
+     * 未処理の文字をバッファの先頭に移動し、続きの文字を読み込む。<br/>
+     * 未処理の文字でバッファが埋まっている場合は、バッファを拡張する。
+     *
+     * @return ファイル末端に達している場合は{@code false}
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private boolean fill() throws IOException {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        position = 0;
+        limit = remaining;
+
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
     }
 }
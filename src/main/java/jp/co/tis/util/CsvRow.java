@@ -0,0 +1,240 @@
+package jp.co.tis.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * CSVの一行分のデータを参照するカーソルクラス。<br/>
+ * CsvReaderが読み込んだ文字バッファ上の各項目の位置のみを保持し、
+ * 項目の値は{@link #get}で要求された時点で初めて文字列に変換する。<br/>
+ * インスタンスはCsvReaderごとに一つで、{@link CsvReader#readRow}を呼び出すたびに内容が置き換わる。
+ * 次の行を読み込んだ後や{@link CsvReader#close}の後に、前の行の内容を参照してはならない。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public final class CsvRow {
+
+    /** ヘッダー部の項目を格納する配列。 */
+    private final String[] itemArray;
+
+    /** 項目名と項目位置の対応。 */
+    private final Map<String, Integer> itemIndexMap;
+
+    /** 行のデータを保持する文字バッファ。 */
+    private char[] chars;
+
+    /** 各項目の開始位置。 */
+    private int[] fieldStart;
+
+    /** 各項目の終了位置（この位置を含まない）。 */
+    private int[] fieldEnd;
+
+    /** 項目数。 */
+    private int fieldCount;
+
+    /** ファイル中の行番号（ヘッダー行を1行目とする）。 */
+    private long lineNumber;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param itemArray ヘッダー部の項目
+     */
+    CsvRow(String[] itemArray) {
+        this.itemArray = itemArray;
+        this.itemIndexMap = new HashMap<String, Integer>();
+        for (int i = 0; i < itemArray.length; i++) {
+            itemIndexMap.put(itemArray[i], i);
+        }
+        this.fieldStart = new int[itemArray.length];
+        this.fieldEnd = new int[itemArray.length];
+    }
+
+    /**
+     * 文字バッファ上の一行をカンマで分割し、各項目の位置を設定する。
+     *
+     * @param chars 文字バッファ
+     * @param start 行の開始位置
+     * @param end 行の終了位置（改行を含まない）
+     * @param lineNumber ファイル中の行番号
+     * @return 項目数
+     */
+    int scan(char[] chars, int start, int end, long lineNumber) {
+        this.chars = chars;
+        this.lineNumber = lineNumber;
+        int count = 0;
+        int from = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || chars[i] == ',') {
+                if (count == fieldStart.length) {
+                    fieldStart = Arrays.copyOf(fieldStart, count * 2);
+                    fieldEnd = Arrays.copyOf(fieldEnd, count * 2);
+                }
+                fieldStart[count] = from;
+                fieldEnd[count] = i;
+                count++;
+                from = i + 1;
+            }
+        }
+        fieldCount = count;
+        return count;
+    }
+
+    /**
+     * 項目数を返却する。
+     *
+     * @return 項目数
+     */
+    public int size() {
+        return fieldCount;
+    }
+
+    /**
+     * ファイル中の行番号を返却する。ヘッダー行を1行目とする。
+     *
+     * @return 行番号
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * 項目名に対応する項目位置を返却する。
+     *
+     * @param itemName 項目名
+     * @return 項目位置。ヘッダー部に存在しない場合は-1
+     */
+    public int indexOf(String itemName) {
+        Integer index = itemIndexMap.get(itemName);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * 項目が空かどうかを返却する。
+     *
+     * @param index 項目位置
+     * @return 空の場合は{@code true}
+     */
+    public boolean isEmpty(int index) {
+        return fieldEnd[index] == fieldStart[index];
+    }
+
+    /**
+     * 項目の文字数を返却する。
+     *
+     * @param index 項目位置
+     * @return 文字数
+     */
+    public int length(int index) {
+        return fieldEnd[index] - fieldStart[index];
+    }
+
+    /**
+     * 項目内の指定位置の文字を返却する。
+     *
+     * @param index 項目位置
+     * @param offset 項目内の位置
+     * @return 文字
+     */
+    public char charAt(int index, int offset) {
+        return chars[fieldStart[index] + offset];
+    }
+
+    /**
+     * 行のデータを保持する文字バッファを返却する。<br/>
+     * 項目の範囲は{@link #getStart}と{@link #getEnd}で取得する。文字バッファの内容を変更してはならない。
+     *
+     * @return 文字バッファ
+     */
+    public char[] getBuffer() {
+        return chars;
+    }
+
+    /**
+     * 文字バッファ上の項目の開始位置を返却する。
+     *
+     * @param index 項目位置
+     * @return 開始位置
+     */
+    public int getStart(int index) {
+        return fieldStart[index];
+    }
+
+    /**
+     * 文字バッファ上の項目の終了位置を返却する。
+     *
+     * @param index 項目位置
+     * @return 終了位置（この位置を含まない）
+     */
+    public int getEnd(int index) {
+        return fieldEnd[index];
+    }
+
+    /**
+     * 項目の値を文字列で返却する。
+     *
+     * @param index 項目位置
+     * @return 項目の値。空の場合は{@code null}
+     */
+    public String get(int index) {
+        if (isEmpty(index)) {
+            return null;
+        }
+        return new String(chars, fieldStart[index], length(index));
+    }
+
+    /**
+     * 項目名に対応する値を文字列で返却する。
+     *
+     * @param itemName 項目名
+     * @return 項目の値。空の場合、ヘッダー部に存在しない場合は{@code null}
+     */
+    public String get(String itemName) {
+        int index = indexOf(itemName);
+        if (index < 0) {
+            return null;
+        }
+        return get(index);
+    }
+
+    /**
+     * 項目の値が指定の文字列と等しいかどうかを、文字列を生成せずに判定する。
+     *
+     * @param index 項目位置
+     * @param value 比較する文字列
+     * @return 等しい場合は{@code true}
+     */
+    public boolean contentEquals(int index, String value) {
+        int length = length(index);
+        if (value == null) {
+            return length == 0;
+        }
+        if (value.length() != length) {
+            return false;
+        }
+        int start = fieldStart[index];
+        for (int i = 0; i < length; i++) {
+            if (chars[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 項目名をキーとしたMapに変換する。<br/>
+     * 空の項目はマップの値に{@code null}を設定する｡
+     *
+     * @return 一行分のCSVデータを保持するMap
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> keyValue = new LinkedHashMap<String, String>();
+        for (int i = 0; i < fieldCount; i++) {
+            keyValue.put(itemArray[i], get(i));
+        }
+        return keyValue;
+    }
+}
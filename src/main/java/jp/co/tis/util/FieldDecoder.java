@@ -0,0 +1,289 @@
+package jp.co.tis.util;
+
+/**
+ * CSVの項目や画面の入力値を、文字列を生成せずにプリミティブ型に変換するクラス。<br/>
+ * 文字バッファまたは{@link CharSequence}上の範囲を直接解析し、オブジェクトを一切生成しない。
+ * 変換できない場合は例外を送出せず、{@link #INVALID_INT}・{@link #INVALID_DATE}を返却する。<br/>
+ * 日付は「yyyy/MM/dd」形式（月・日は1桁も可）とし、存在しない日付（2月30日など）は変換できない値とする。
+ * 日付は1970/01/01からの経過日数（エポック日）で返却するため、大小比較や日数の差の計算にそのまま使用できる。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public final class FieldDecoder {
+
+    /** 整数に変換できない場合の戻り値 */
+    public static final int INVALID_INT = Integer.MIN_VALUE;
+
+    /** 日付に変換できない場合の戻り値 */
+    public static final long INVALID_DATE = Long.MIN_VALUE;
+
+    /** 整数の最大桁数（int型で桁あふれしない桁数） */
+    private static final int MAX_INT_DIGITS = 9;
+
+    /** 日付の区切り文字 */
+    private static final char DATE_SEPARATOR = '/';
+
+    /** 0000/03/01から1970/01/01までの日数 */
+    private static final long DAYS_0000_TO_1970 = 719468;
+
+    /**
+     * インスタンス化しない。
+     */
+    private FieldDecoder() {
+    }
+
+    /**
+     * 文字列を整数に変換する。先頭の「-」「+」の符号を許容する。
+     *
+     * @param value 文字列
+     * @return 整数。変換できない場合は{@link #INVALID_INT}
+     */
+    public static int parseInt(CharSequence value) {
+        if (value == null) {
+            return INVALID_INT;
+        }
+        int length = value.length();
+        if (length == 0) {
+            return INVALID_INT;
+        }
+        int index = 0;
+        boolean negative = false;
+        char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            index = 1;
+        }
+        if (index == length || length - index > MAX_INT_DIGITS) {
+            return INVALID_INT;
+        }
+        int result = 0;
+        for (; index < length; index++) {
+            int digit = value.charAt(index) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID_INT;
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * 文字バッファ上の範囲を整数に変換する。先頭の「-」「+」の符号を許容する。
+     *
+     * @param chars 文字バッファ
+     * @param start 開始位置
+     * @param end 終了位置（この位置を含まない）
+     * @return 整数。変換できない場合は{@link #INVALID_INT}
+     */
+    public static int parseInt(char[] chars, int start, int end) {
+        if (start >= end) {
+            return INVALID_INT;
+        }
+        int index = start;
+        boolean negative = false;
+        if (chars[index] == '-' || chars[index] == '+') {
+            negative = chars[index] == '-';
+            index++;
+        }
+        if (index == end || end - index > MAX_INT_DIGITS) {
+            return INVALID_INT;
+        }
+        int result = 0;
+        for (; index < end; index++) {
+            int digit = chars[index] - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID_INT;
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * 「yyyy/MM/dd」形式の文字列を、1970/01/01からの経過日数に変換する。
+     *
+     * @param value 文字列
+     * @return 経過日数。変換できない場合は{@link #INVALID_DATE}
+     */
+    public static long parseEpochDay(CharSequence value) {
+        if (value == null) {
+            return INVALID_DATE;
+        }
+        int length = value.length();
+        // 年（4桁）
+        if (length < 8 || value.charAt(4) != DATE_SEPARATOR) {
+            return INVALID_DATE;
+        }
+        int year = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID_DATE;
+            }
+            year = year * 10 + digit;
+        }
+        // 月（1～2桁）
+        int index = 5;
+        int month = 0;
+        int monthStart = index;
+        while (index < length && value.charAt(index) != DATE_SEPARATOR) {
+            int digit = value.charAt(index) - '0';
+            if (digit < 0 || digit > 9 || index - monthStart == 2) {
+                return INVALID_DATE;
+            }
+            month = month * 10 + digit;
+            index++;
+        }
+        if (index == monthStart || index == length) {
+            return INVALID_DATE;
+        }
+        // 日（1～2桁）
+        index++;
+        int dayStart = index;
+        if (length - dayStart < 1 || length - dayStart > 2) {
+            return INVALID_DATE;
+        }
+        int day = 0;
+        for (; index < length; index++) {
+            int digit = value.charAt(index) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID_DATE;
+            }
+            day = day * 10 + digit;
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * 文字バッファ上の「yyyy/MM/dd」形式の範囲を、1970/01/01からの経過日数に変換する。
+     *
+     * @param chars 文字バッファ
+     * @param start 開始位置
+     * @param end 終了位置（この位置を含まない）
+     * @return 経過日数。変換できない場合は{@link #INVALID_DATE}
+     */
+    public static long parseEpochDay(char[] chars, int start, int end) {
+        // 年（4桁）
+        if (end - start < 8 || chars[start + 4] != DATE_SEPARATOR) {
+            return INVALID_DATE;
+        }
+        int year = 0;
+        for (int i = start; i < start + 4; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID_DATE;
+            }
+            year = year * 10 + digit;
+        }
+        // 月（1～2桁）
+        int index = start + 5;
+        int month = 0;
+        int monthStart = index;
+        while (index < end && chars[index] != DATE_SEPARATOR) {
+            int digit = chars[index] - '0';
+            if (digit < 0 || digit > 9 || index - monthStart == 2) {
+                return INVALID_DATE;
+            }
+            month = month * 10 + digit;
+            index++;
+        }
+        if (index == monthStart || index == end) {
+            return INVALID_DATE;
+        }
+        // 日（1～2桁）
+        index++;
+        int dayStart = index;
+        if (end - dayStart < 1 || end - dayStart > 2) {
+            return INVALID_DATE;
+        }
+        int day = 0;
+        for (; index < end; index++) {
+            int digit = chars[index] - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID_DATE;
+            }
+            day = day * 10 + digit;
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * 1970/01/01からの経過日数を「yyyy/MM/dd」形式（月・日は2桁）の文字列に変換する。<br/>
+     * {@link #parseEpochDay}の逆変換で、0000/01/01から9999/12/31までの日付を扱う。
+     *
+     * @param epochDay 経過日数
+     * @return 日付の文字列
+     * @throws IllegalArgumentException 範囲外の日付の場合
+     */
+    public static String formatEpochDay(long epochDay) {
+        long dayOfEra0 = epochDay + DAYS_0000_TO_1970;
+        long era = (dayOfEra0 >= 0 ? dayOfEra0 : dayOfEra0 - 146096) / 146097;
+        int dayOfEra = (int) (dayOfEra0 - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int marchMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * marchMonth + 2) / 5 + 1;
+        int month = marchMonth < 10 ? marchMonth + 3 : marchMonth - 9;
+        long year = era * 400 + yearOfEra + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            throw new IllegalArgumentException("日付の範囲外です。epochDay=" + epochDay);
+        }
+
+        char[] chars = new char[10];
+        int yearValue = (int) year;
+        for (int i = 3; i >= 0; i--) {
+            chars[i] = (char) ('0' + yearValue % 10);
+            yearValue /= 10;
+        }
+        chars[4] = DATE_SEPARATOR;
+        chars[5] = (char) ('0' + month / 10);
+        chars[6] = (char) ('0' + month % 10);
+        chars[7] = DATE_SEPARATOR;
+        chars[8] = (char) ('0' + day / 10);
+        chars[9] = (char) ('0' + day % 10);
+        return new String(chars);
+    }
+
+    /**
+     * 年月日を1970/01/01からの経過日数に変換する。<br/>
+     * 3月始まりの暦に置き換えて計算することで、うるう日を年の最後の日として扱う。
+     *
+     * @param year 年
+     * @param month 月
+     * @param day 日
+     * @return 経過日数。存在しない日付の場合は{@link #INVALID_DATE}
+     */
+    private static long toEpochDay(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID_DATE;
+        }
+        int marchYear = month <= 2 ? year - 1 : year;
+        int era = (marchYear >= 0 ? marchYear : marchYear - 399) / 400;
+        int yearOfEra = marchYear - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * 月の日数を返却する。
+     *
+     * @param year 年
+     * @param month 月
+     * @return 日数
+     */
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+        case 2:
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        case 4:
+        case 6:
+        case 9:
+        case 11:
+            return 30;
+        default:
+            return 31;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package jp.co.tis.util;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.exception.SystemException;
+
+/**
+ * メモリマップドファイルを使用したCsvReader実装クラス。<br/>
+ * ファイルを{@link FileChannel}でメモリにマッピングし、改行位置をバイト列のまま探索してから
+ * 一行分だけを指定の文字コードでデコードする。<br/>
+ * 項目の分割は{@link String#split}を使わず、デコード済みの文字バッファを一度走査して位置のみを記録する。<br/>
+ * 改行コードはLFとCRLFに対応する。改行をバイト列で探索するため、
+ * UTF-8やShift_JISなどASCII互換の文字コードのみ使用できる。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class MappedCsvReaderImpl extends AbstractCsvReader {
+
+    /** 一度にマッピングする最大バイト数の既定値。 */
+    private static final long DEFAULT_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    /** CSVファイルのパスを格納する文字列。 */
+    private String csvPath;
+
+    /** CSVファイルの文字コード。 */
+    private Charset charset;
+
+    /** 一度にマッピングする最大バイト数。 */
+    private long windowSize;
+
+    /** 読み込みのためのFileChannel。 */
+    private FileChannel fileChannel;
+
+    /** 読み込みの終了位置（ファイル先頭からのバイト数）。通常はファイルサイズ。 */
+    private long endOffset;
+
+    /** 範囲指定で読み込む場合のヘッダー部の項目。範囲指定しない場合は{@code null}。 */
+    private String[] rangeItemArray;
+
+    /** 範囲指定で読み込む場合の開始位置（ファイル先頭からのバイト数）。 */
+    private long rangeStart;
+
+    /** 範囲指定で読み込む場合の終了位置（ファイル先頭からのバイト数）。 */
+    private long rangeEnd;
+
+    /** 範囲指定で読み込む場合の、開始位置より前の行数（ヘッダー行を含む）。 */
+    private long rangeLineNumber;
+
+    /** ファイルをマッピングしたバッファ。 */
+    private MappedByteBuffer mappedBuffer;
+
+    /** マッピングの開始位置（ファイル先頭からのバイト数）。 */
+    private long windowOffset;
+
+    /** 一行分のバイト列をデコードするデコーダ。 */
+    private CharsetDecoder decoder;
+
+    /** デコードした一行分の文字列を格納するバッファ。 */
+    private CharBuffer lineBuffer;
+
+    /**
+     * コンストラクタ。<br/>
+     * 実行環境のデフォルトの文字コードで読み込む。
+     *
+     * @param csvPath CSVファイルパス。
+     */
+    public MappedCsvReaderImpl(String csvPath) {
+        this(csvPath, Charset.defaultCharset());
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param csvPath CSVファイルパス。
+     * @param charset CSVファイルの文字コード。
+     */
+    public MappedCsvReaderImpl(String csvPath, Charset charset) {
+        this(csvPath, charset, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param csvPath CSVファイルパス。
+     * @param charset CSVファイルの文字コード。
+     * @param windowSize 一度にマッピングする最大バイト数。
+     */
+    MappedCsvReaderImpl(String csvPath, Charset charset, long windowSize) {
+        this.csvPath = csvPath;
+        this.charset = charset;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * ファイルの一部の範囲のみを読み込むためのコンストラクタ。<br/>
+     * ヘッダー行は読み込まず、引数のヘッダー部の項目を使用する。範囲の開始位置は行頭であること。
+     *
+     * @param csvPath CSVファイルパス。
+     * @param charset CSVファイルの文字コード。
+     * @param itemArray 精査済みのヘッダー部の項目。
+     * @param rangeStart 開始位置（ファイル先頭からのバイト数）。
+     * @param rangeEnd 終了位置（ファイル先頭からのバイト数）。
+     * @param rangeLineNumber 開始位置より前の行数（ヘッダー行を含む）。
+     */
+    MappedCsvReaderImpl(String csvPath, Charset charset, String[] itemArray, long rangeStart, long rangeEnd, long rangeLineNumber) {
+        this(csvPath, charset, DEFAULT_WINDOW_SIZE);
+        this.rangeItemArray = itemArray;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.rangeLineNumber = rangeLineNumber;
+    }
+
+    @Override
+    public void open() throws FileNotFoundException, FileFormatException {
+        if (fileChannel != null) {
+            throw new IllegalStateException("すでにファイルが開かれています。");
+        }
+        fileChannel = new RandomAccessFile(csvPath, "r").getChannel();
+        decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        lineBuffer = CharBuffer.allocate(256);
+
+        String headerSection = null;
+        try {
+            if (rangeItemArray != null) {
+                endOffset = Math.min(rangeEnd, fileChannel.size());
+                map(rangeStart);
+                initHeader(rangeItemArray, rangeLineNumber);
+                return;
+            }
+            endOffset = fileChannel.size();
+            map(0);
+            if (nextLine()) {
+                headerSection = lineBuffer.toString();
+            }
+        } catch (IOException e) {
+            close();
+            throw new SystemException("システム例外が発生しました。", e);
+        }
+        parseHeader(headerSection);
+    }
+
+    @Override
+    public void open(long offset, long lineNumber) throws FileNotFoundException, FileFormatException {
+        open();
+        if (offset < position() || offset > endOffset) {
+            close();
+            throw new FileFormatException("読み込み開始位置がファイルの範囲外です。");
+        }
+        try {
+            map(offset);
+        } catch (IOException e) {
+            close();
+            throw new SystemException("システム例外が発生しました。", e);
+        }
+        initHeader(itemArray, lineNumber);
+    }
+
+    @Override
+    public long getOffset() throws IOException {
+        if (fileChannel == null) {
+            throw new IOException("ファイルが開かれていません。");
+        }
+        return position();
+    }
+
+    /**
+     * 次に読み込む位置を返却する。
+     *
+     * @return ファイル先頭からのバイト数
+     */
+    long position() {
+        return windowOffset + mappedBuffer.position();
+    }
+
+    @Override
+    public void close() {
+        if (fileChannel == null) {
+            return;
+        }
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            throw new SystemException("システム例外が発生しました。", e);
+        } finally {
+            fileChannel = null;
+            mappedBuffer = null;
+        }
+    }
+
+    @Override
+    public CsvRow readRow() throws IOException, FileFormatException {
+        if (fileChannel == null) {
+            throw new IOException("ファイルが開かれていません。");
+        }
+        if (!nextLine()) {
+            return null;
+        }
+        return scanRow(lineBuffer.array(), 0, lineBuffer.limit());
+    }
+
+    /**
+     * 次の一行を{@link #lineBuffer}にデコードする。<br/>
+     * 行がマッピング範囲をまたぐ場合は、行頭から再マッピングする。
+     *
+     * @return ファイル末端に達している場合は{@code false}
+     * @throws IOException 入出力エラーが発生した場合、一行がマッピングの最大バイト数を超える場合
+     */
+    private boolean nextLine() throws IOException {
+        int start = mappedBuffer.position();
+        if (windowOffset + start >= endOffset) {
+            return false;
+        }
+        int end = indexOfLineFeed(start);
+        while (end < 0 && windowOffset + mappedBuffer.limit() < endOffset) {
+            if (start == 0) {
+                throw new IOException("一行のサイズが上限を超えています。");
+            }
+            map(windowOffset + start);
+            start = 0;
+            end = indexOfLineFeed(start);
+        }
+
+        int next;
+        if (end < 0) {
+            // 最終行に改行がない場合
+            end = mappedBuffer.limit();
+            next = end;
+        } else {
+            next = end + 1;
+        }
+        if (end > start && mappedBuffer.get(end - 1) == '\r') {
+            end--;
+        }
+        decode(start, end);
+        mappedBuffer.position(next);
+        return true;
+    }
+
+    /**
+     * 指定位置以降で最初の改行（LF）の位置を返す。
+     *
+     * @param from 探索開始位置
+     * @return 改行の位置。マッピング範囲内に存在しない場合は-1
+     */
+    private int indexOfLineFeed(int from) {
+        int limit = mappedBuffer.limit();
+        for (int i = from; i < limit; i++) {
+            if (mappedBuffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * マッピング範囲内のバイト列を{@link #lineBuffer}にデコードする。
+     *
+     * @param start 開始位置
+     * @param end 終了位置（この位置を含まない）
+     */
+    private void decode(int start, int end) {
+        int required = (int) ((end - start) * (double) decoder.maxCharsPerByte()) + 1;
+        if (lineBuffer.capacity() < required) {
+            lineBuffer = CharBuffer.allocate(Math.max(required, lineBuffer.capacity() * 2));
+        }
+        int limit = mappedBuffer.limit();
+        mappedBuffer.limit(end);
+        mappedBuffer.position(start);
+        lineBuffer.clear();
+        decoder.reset();
+        decoder.decode(mappedBuffer, lineBuffer, true);
+        decoder.flush(lineBuffer);
+        lineBuffer.flip();
+        mappedBuffer.limit(limit);
+    }
+
+    /**
+     * 指定位置からファイルをマッピングする。
+     *
+     * @param position マッピングの開始位置（ファイル先頭からのバイト数）
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private void map(long position) throws IOException {
+        windowOffset = position;
+        mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, endOffset - position));
+    }
+}
@@ -0,0 +1,338 @@
+package jp.co.tis.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * multipart/form-data形式のリクエスト本文を、一時ファイルやメモリに溜めずに先頭から順に読み込むクラス。<br/>
+ * {@link #nextPart}でパートのヘッダー部を読み込み、{@link #openPart}で返す入力ストリームからパートの本文を読み込む。
+ * 本文は区切り文字列（boundary）を探しながらそのまま返すため、使用するメモリはパートの大きさによらず入力バッファ分のみとなる。<br/>
+ * 形式に誤りがある場合、区切り文字列の前にリクエスト本文が終わった場合はIOExceptionを送出する。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class MultipartStream {
+
+    /** 入力バッファのサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** パートのヘッダー部の上限バイト数 */
+    private static final int MAX_HEADER_SIZE = 10 * 1024;
+
+    /** Content-Typeから区切り文字列を取り出すパターン */
+    private static final Pattern BOUNDARY_PATTERN = Pattern.compile("boundary=(?:\"([^\"]+)\"|([^;\\s]+))",
+            Pattern.CASE_INSENSITIVE);
+
+    /** Content-Dispositionから項目名を取り出すパターン */
+    private static final Pattern NAME_PATTERN = Pattern.compile("(?:^|;)\\s*name=\"([^\"]*)\"", Pattern.CASE_INSENSITIVE);
+
+    /** Content-Dispositionからファイル名を取り出すパターン */
+    private static final Pattern FILE_NAME_PATTERN = Pattern.compile("(?:^|;)\\s*filename=\"([^\"]*)\"", Pattern.CASE_INSENSITIVE);
+
+    /** リクエスト本文の入力ストリーム */
+    private final InputStream in;
+
+    /** パートの本文の終わりを表す文字列（CRLF、「--」、区切り文字列） */
+    private final byte[] delimiter;
+
+    /** 入力バッファ */
+    private final byte[] buffer;
+
+    /** 入力バッファ上の未処理のバイトの開始位置 */
+    private int head;
+
+    /** 入力バッファ上の読み込み済みのバイトの終了位置 */
+    private int tail;
+
+    /** 入力バッファ上で、区切り文字列を含まないことを確認済みの本文の終了位置 */
+    private int dataEnd;
+
+    /** 読み込み中のパートの本文が終わったかどうか */
+    private boolean partEnded;
+
+    /** 最後のパートまで読み込んだかどうか */
+    private boolean finished;
+
+    /** 読み込み中のパートの項目名 */
+    private String fieldName;
+
+    /** 読み込み中のパートのファイル名 */
+    private String fileName;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param in リクエスト本文の入力ストリーム
+     * @param boundary 区切り文字列
+     */
+    public MultipartStream(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 2)];
+        // 最初の区切り文字列の前にはCRLFがないため、CRLFを補って前文として読み飛ばす
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        this.tail = 2;
+        this.partEnded = false;
+    }
+
+    /**
+     * Content-Typeから区切り文字列を取り出す。
+     *
+     * @param contentType Content-Type
+     * @return 区切り文字列。multipart/form-data形式でない場合は{@code null}
+     */
+    public static String getBoundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase().startsWith("multipart/form-data")) {
+            return null;
+        }
+        Matcher matcher = BOUNDARY_PATTERN.matcher(contentType);
+        if (!matcher.find()) {
+            return null;
+        }
+        return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+    }
+
+    /**
+     * 次のパートまで読み進め、ヘッダー部を読み込む。<br/>
+     * 読み込み中のパートの本文が残っている場合は読み飛ばす。
+     *
+     * @return 次のパートがある場合は{@code true}、最後のパートまで読み込んだ場合は{@code false}
+     * @throws IOException 入出力エラーが発生した場合、形式に誤りがある場合
+     */
+    public boolean nextPart() throws IOException {
+        if (finished) {
+            return false;
+        }
+        while (!partEnded) {
+            skipPart();
+        }
+
+        // 区切り文字列の直後が「--」の場合は最後のパート
+        if (!fill(2)) {
+            throw new IOException("マルチパートの形式が不正です。");
+        }
+        if (buffer[head] == '-' && buffer[head + 1] == '-') {
+            head += 2;
+            finished = true;
+            return false;
+        }
+        readLine();
+
+        fieldName = null;
+        fileName = null;
+        int headerSize = 0;
+        while (true) {
+            String line = readLine();
+            headerSize += line.length();
+            if (headerSize > MAX_HEADER_SIZE) {
+                throw new IOException("マルチパートのヘッダーが長すぎます。");
+            }
+            if (line.isEmpty()) {
+                break;
+            }
+            if (line.toLowerCase().startsWith("content-disposition:")) {
+                String disposition = line.substring("content-disposition:".length());
+                fieldName = find(NAME_PATTERN, disposition);
+                fileName = find(FILE_NAME_PATTERN, disposition);
+            }
+        }
+        partEnded = false;
+        return true;
+    }
+
+    /**
+     * 読み込み中のパートの本文を読み込む入力ストリームを返却する。<br/>
+     * ストリームは次の区切り文字列の直前で終わる。ストリームをクローズしてもリクエスト本文の入力ストリームはクローズしない。
+     *
+     * @return パートの本文の入力ストリーム
+     */
+    public InputStream openPart() {
+        return new PartInputStream();
+    }
+
+    /**
+     * @return 読み込み中のパートの項目名
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * @return 読み込み中のパートのファイル名。ファイルでない場合は{@code null}
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * 読み込み中のパートの本文を、入力バッファ上にある分だけ読み飛ばす。
+     *
+     * @throws IOException 入出力エラーが発生した場合、形式に誤りがある場合
+     */
+    private void skipPart() throws IOException {
+        int available = availableInPart();
+        head += available;
+    }
+
+    /**
+     * 入力バッファ上で、区切り文字列を含まないことが確定しているパートの本文のバイト数を返却する。<br/>
+     * 確定しているバイトがない場合は入力バッファに読み込み、区切り文字列が見つかった場合はパートの本文の終わりとする。
+     *
+     * @return パートの本文として返却できるバイト数。パートの本文が終わった場合は0
+     * @throws IOException 入出力エラーが発生した場合、区切り文字列の前にリクエスト本文が終わった場合
+     */
+    private int availableInPart() throws IOException {
+        if (head < dataEnd) {
+            return dataEnd - head;
+        }
+        while (true) {
+            int index = indexOfDelimiter();
+            if (index >= 0) {
+                dataEnd = index;
+                int available = index - head;
+                if (available == 0) {
+                    head += delimiter.length;
+                    partEnded = true;
+                }
+                return available;
+            }
+            // 区切り文字列の先頭部分かもしれない末尾のバイトは残す
+            int safe = tail - head - (delimiter.length - 1);
+            if (safe > 0) {
+                dataEnd = tail - (delimiter.length - 1);
+                return safe;
+            }
+            if (!fill(tail - head + 1)) {
+                throw new IOException("マルチパートの形式が不正です。");
+            }
+        }
+    }
+
+    /**
+     * 入力バッファ上の区切り文字列の位置を探す。
+     *
+     * @return 区切り文字列の開始位置。見つからない場合は-1
+     */
+    private int indexOfDelimiter() {
+        int last = tail - delimiter.length;
+        byte first = delimiter[0];
+        for (int i = head; i <= last; i++) {
+            if (buffer[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < delimiter.length && buffer[i + j] == delimiter[j]) {
+                j++;
+            }
+            if (j == delimiter.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 入力バッファ上の未処理のバイトが指定のバイト数以上になるまで読み込む。
+     *
+     * @param count 必要なバイト数
+     * @return 読み込めた場合は{@code true}、リクエスト本文が先に終わった場合は{@code false}
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private boolean fill(int count) throws IOException {
+        if (tail - head >= count) {
+            return true;
+        }
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            dataEnd = Math.max(0, dataEnd - head);
+            head = 0;
+        }
+        while (tail < count) {
+            int read = in.read(buffer, tail, buffer.length - tail);
+            if (read < 0) {
+                return false;
+            }
+            tail += read;
+        }
+        return true;
+    }
+
+    /**
+     * ヘッダー部を一行読み込む。
+     *
+     * @return 改行を含まない行の文字列
+     * @throws IOException 入出力エラーが発生した場合、形式に誤りがある場合
+     */
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            if (!fill(2)) {
+                throw new IOException("マルチパートの形式が不正です。");
+            }
+            if (buffer[head] == '\r' && buffer[head + 1] == '\n') {
+                head += 2;
+                return new String(line.toByteArray(), StandardCharsets.UTF_8);
+            }
+            line.write(buffer[head++]);
+            if (line.size() > MAX_HEADER_SIZE) {
+                throw new IOException("マルチパートのヘッダーが長すぎます。");
+            }
+        }
+    }
+
+    /**
+     * パターンに一致した最初のグループを返却する。
+     *
+     * @param pattern パターン
+     * @param value 文字列
+     * @return 一致したグループ。一致しない場合は{@code null}
+     */
+    private static String find(Pattern pattern, String value) {
+        Matcher matcher = pattern.matcher(value);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * パートの本文を読み込む入力ストリーム。
+     */
+    private final class PartInputStream extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            if (partEnded || availableInPart() == 0) {
+                return -1;
+            }
+            return buffer[head++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (partEnded) {
+                return -1;
+            }
+            int available = availableInPart();
+            if (available == 0) {
+                return -1;
+            }
+            int count = Math.min(available, len);
+            System.arraycopy(buffer, head, b, off, count);
+            head += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // リクエスト本文の入力ストリームはクローズしない
+        }
+    }
+}
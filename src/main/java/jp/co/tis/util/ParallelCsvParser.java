@@ -0,0 +1,303 @@
+package jp.co.tis.util;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.exception.SystemException;
+
+/**
+ * CSVファイルを並列に解析するクラス。<br/>
+ * ヘッダー行を{@link MappedCsvReaderImpl}と同じ精査で読み込んだ後、データ部を行の区切りに揃えたバイト範囲（チャンク）に分割し、
+ * ForkJoinPool上でチャンクごとに解析する。<br/>
+ * 解析の前に各チャンクの行数を並列に数えるため、{@link CsvRow#getLineNumber}と
+ * {@link FileFormatException#getLineNumber}の行番号はファイル全体での行番号となる。<br/>
+ * チャンクの処理結果は{@link CsvChunkHandler#chunkCompleted}にファイル中の順序どおりに渡される。
+ * 同時に解析するチャンク数はプールの並列数の2倍までに抑えるため、使用メモリはファイルサイズに依存しない。<br/>
+ * 形式に誤りがある行が複数ある場合は、ファイル中で最も前にある誤りの例外を送出する。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class ParallelCsvParser {
+
+    /** チャンクサイズの既定値（バイト数）。 */
+    private static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    /** 行の区切りを探索する際の読み込みサイズ。 */
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    /** CSVファイルのパスを格納する文字列。 */
+    private String csvPath;
+
+    /** CSVファイルの文字コード。 */
+    private Charset charset;
+
+    /** チャンクサイズ（バイト数）。 */
+    private long chunkSize;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param csvPath CSVファイルパス。
+     * @param charset CSVファイルの文字コード。
+     */
+    public ParallelCsvParser(String csvPath, Charset charset) {
+        this(csvPath, charset, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param csvPath CSVファイルパス。
+     * @param charset CSVファイルの文字コード。
+     * @param chunkSize チャンクサイズ（バイト数）。チャンクは行の区切りに揃えるため、実際のサイズは多少前後する。
+     */
+    public ParallelCsvParser(String csvPath, Charset charset, long chunkSize) {
+        this.csvPath = csvPath;
+        this.charset = charset;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * CSVファイルを並列に解析する。
+     *
+     * @param <A> チャンクごとの処理結果の型
+     * @param pool 解析に使用するForkJoinPool
+     * @param handler チャンクごとの処理
+     * @return データ部の行数
+     * @throws FileNotFoundException ファイルが存在しない場合
+     * @throws FileFormatException ヘッダー部の形式に誤りがある場合、見出し行の項目数とデータ個数に差異がある場合
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public <A> long parse(ForkJoinPool pool, final CsvChunkHandler<A> handler)
+            throws FileNotFoundException, FileFormatException, IOException {
+        // ヘッダー行の精査
+        MappedCsvReaderImpl headerReader = new MappedCsvReaderImpl(csvPath, charset);
+        final String[] itemArray;
+        long dataStart;
+        try {
+            headerReader.open();
+            itemArray = headerReader.getItemArray();
+            dataStart = headerReader.position();
+        } finally {
+            headerReader.close();
+        }
+
+        final long[] boundaries = split(dataStart);
+        final int chunkCount = boundaries.length - 1;
+
+        // 各チャンクより前の行数（ヘッダー行を含む）を求める
+        List<ForkJoinTask<Long>> countTasks = new ArrayList<ForkJoinTask<Long>>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            final int index = i;
+            countTasks.add(pool.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws IOException {
+                    return countLines(boundaries[index], boundaries[index + 1]);
+                }
+            }));
+        }
+        final long[] linesBefore = new long[chunkCount + 1];
+        linesBefore[0] = 1;
+        for (int i = 0; i < chunkCount; i++) {
+            linesBefore[i + 1] = linesBefore[i] + join(countTasks.get(i));
+        }
+
+        // チャンクの解析。処理結果はファイル中の順序どおりに受け渡す
+        int window = pool.getParallelism() * 2;
+        Deque<ForkJoinTask<A>> parseTasks = new ArrayDeque<ForkJoinTask<A>>(window);
+        int next = 0;
+        try {
+            while (next < chunkCount || !parseTasks.isEmpty()) {
+                while (next < chunkCount && parseTasks.size() < window) {
+                    final int index = next++;
+                    parseTasks.add(pool.submit(new Callable<A>() {
+                        @Override
+                        public A call() throws IOException, FileFormatException {
+                            return parseChunk(handler, itemArray, boundaries[index], boundaries[index + 1], linesBefore[index]);
+                        }
+                    }));
+                }
+                handler.chunkCompleted(join(parseTasks.poll()));
+            }
+        } finally {
+            for (ForkJoinTask<A> task : parseTasks) {
+                task.cancel(true);
+            }
+        }
+
+        return linesBefore[chunkCount] - 1;
+    }
+
+    /**
+     * 一つのチャンクを解析する。
+     *
+     * @param <A> チャンクごとの処理結果の型
+     * @param handler チャンクごとの処理
+     * @param itemArray ヘッダー部の項目
+     * @param start チャンクの開始位置
+     * @param end チャンクの終了位置
+     * @param lineNumber チャンクより前の行数（ヘッダー行を含む）
+     * @return チャンクの処理結果
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException 見出し行の項目数とデータ個数に差異がある場合
+     */
+    private <A> A parseChunk(CsvChunkHandler<A> handler, String[] itemArray, long start, long end, long lineNumber)
+            throws IOException, FileFormatException {
+        MappedCsvReaderImpl reader = new MappedCsvReaderImpl(csvPath, charset, itemArray, start, end, lineNumber);
+        reader.open();
+        try {
+            A chunk = handler.createChunk();
+            CsvRow row;
+            while ((row = reader.readRow()) != null) {
+                handler.handleRow(chunk, row);
+            }
+            return chunk;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * データ部をチャンクサイズごとに、行の区切りに揃えて分割する。
+     *
+     * @param dataStart データ部の開始位置
+     * @return 各チャンクの開始位置と、最後のチャンクの終了位置
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private long[] split(long dataStart) throws IOException {
+        List<Long> boundaryList = new ArrayList<Long>();
+        boundaryList.add(dataStart);
+        RandomAccessFile file = new RandomAccessFile(csvPath, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            long fileSize = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            long position = dataStart + chunkSize;
+            while (position < fileSize) {
+                long boundary = nextLineStart(channel, buffer, position - 1);
+                if (boundary < 0 || boundary >= fileSize) {
+                    break;
+                }
+                boundaryList.add(boundary);
+                position = boundary + chunkSize;
+            }
+            boundaryList.add(fileSize);
+        } finally {
+            file.close();
+        }
+
+        long[] boundaries = new long[boundaryList.size()];
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = boundaryList.get(i);
+        }
+        return boundaries;
+    }
+
+    /**
+     * 指定位置以降で最初の改行の次の位置（行頭）を返す。
+     *
+     * @param channel FileChannel
+     * @param buffer 読み込みに使用するバッファ
+     * @param from 探索開始位置
+     * @return 行頭の位置。改行が存在しない場合は-1
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private long nextLineStart(FileChannel channel, ByteBuffer buffer, long from) throws IOException {
+        long position = from;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return -1;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * 範囲内の行数を数える。
+     *
+     * @param start 開始位置
+     * @param end 終了位置
+     * @return 行数
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private long countLines(long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("チャンクのサイズが上限を超えています。");
+        }
+        if (end == start) {
+            return 0;
+        }
+        RandomAccessFile file = new RandomAccessFile(csvPath, "r");
+        try {
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            int size = buffer.limit();
+            long count = 0;
+            for (int i = 0; i < size; i++) {
+                if (buffer.get(i) == '\n') {
+                    count++;
+                }
+            }
+            // 最終行に改行がない場合
+            if (buffer.get(size - 1) != '\n') {
+                count++;
+            }
+            return count;
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * タスクの完了を待ち、結果を返却する。タスクで発生した検査例外はそのまま送出する。
+     *
+     * @param <T> タスクの結果の型
+     * @param task タスク
+     * @return タスクの結果
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException 見出し行の項目数とデータ個数に差異がある場合
+     */
+    private <T> T join(ForkJoinTask<T> task) throws IOException, FileFormatException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException("システム例外が発生しました。", e);
+        } catch (ExecutionException e) {
+            // ForkJoinPoolは検査例外をRuntimeExceptionで包むため、原因をたどって元の例外を探す
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof FileFormatException) {
+                    throw (FileFormatException) cause;
+                }
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SystemException("システム例外が発生しました。", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package jp.co.tis.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 検索結果のページ送りに使用するカーソル。<br/>
+ * ページの境界となる行の日付と場所、および読み進める方向を保持する。
+ * 画面との受け渡しには{@link #encode()}で変換した文字列（トークン）を使用する。
+ * トークンは方向を表す1文字（次：n、前：p）と、日付と場所をタブで連結したUTF-8のバイト列をURLセーフなBase64に変換した文字列からなる。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public final class SearchCursor {
+
+    /** 次のページを表す文字 */
+    private static final char FORWARD = 'n';
+
+    /** 前のページを表す文字 */
+    private static final char BACKWARD = 'p';
+
+    /** 日付と場所の区切り文字 */
+    private static final char SEPARATOR = '\t';
+
+    /** 次のページ（境界の行より後ろ）を読み込むかどうか */
+    private final boolean forward;
+
+    /** 境界の行の日付 */
+    private final String weatherDate;
+
+    /** 境界の行の場所 */
+    private final String place;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param forward 次のページを読み込む場合は{@code true}、前のページを読み込む場合は{@code false}
+     * @param weatherDate 境界の行の日付
+     * @param place 境界の行の場所
+     */
+    public SearchCursor(boolean forward, String weatherDate, String place) {
+        if (weatherDate == null || place == null) {
+            throw new IllegalArgumentException("日付と場所は必ず指定してください。");
+        }
+        this.forward = forward;
+        this.weatherDate = weatherDate;
+        this.place = place;
+    }
+
+    /**
+     * トークンをカーソルに変換する。
+     *
+     * @param token トークン
+     * @return カーソル。トークンが不正な場合は{@code null}
+     */
+    public static SearchCursor decode(String token) {
+        if (token == null || token.length() < 2) {
+            return null;
+        }
+        char direction = token.charAt(0);
+        if (direction != FORWARD && direction != BACKWARD) {
+            return null;
+        }
+        String value;
+        try {
+            value = new String(Base64.getUrlDecoder().decode(token.substring(1)), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int separatorIndex = value.indexOf(SEPARATOR);
+        if (separatorIndex <= 0 || separatorIndex == value.length() - 1 || value.indexOf(SEPARATOR, separatorIndex + 1) >= 0) {
+            return null;
+        }
+        return new SearchCursor(direction == FORWARD, value.substring(0, separatorIndex), value.substring(separatorIndex + 1));
+    }
+
+    /**
+     * カーソルをトークンに変換する。
+     *
+     * @return トークン
+     */
+    public String encode() {
+        byte[] bytes = (weatherDate + SEPARATOR + place).getBytes(StandardCharsets.UTF_8);
+        return (forward ? FORWARD : BACKWARD) + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * 境界の行を同じとし、読み込む方向を逆にしたカーソルを返却する。
+     *
+     * @return カーソル
+     */
+    public SearchCursor reverse() {
+        return new SearchCursor(!forward, weatherDate, place);
+    }
+
+    /**
+     * @return forward
+     */
+    public boolean isForward() {
+        return forward;
+    }
+
+    /**
+     * @return weatherDate
+     */
+    public String getWeatherDate() {
+        return weatherDate;
+    }
+
+    /**
+     * @return place
+     */
+    public String getPlace() {
+        return place;
+    }
+}
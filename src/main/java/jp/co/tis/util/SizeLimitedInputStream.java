@@ -0,0 +1,84 @@
+package jp.co.tis.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import jp.co.tis.exception.FileSizeLimitExceededException;
+
+/**
+ * 読み込んだバイト数が上限を超えた時点で例外を送出する入力ストリーム。<br/>
+ * 読み込みながら数えるため、送信元がサイズを申告しない場合でも上限を超えるデータを受け取らない。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class SizeLimitedInputStream extends FilterInputStream {
+
+    /** 読み込めるバイト数の上限 */
+    private final long maxSize;
+
+    /** 読み込んだバイト数 */
+    private long count;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param in 入力ストリーム
+     * @param maxSize 読み込めるバイト数の上限
+     */
+    public SizeLimitedInputStream(InputStream in, long maxSize) {
+        super(in);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * 読み込んだバイト数を加算し、上限を超えた場合は例外を送出する。
+     *
+     * @param read 読み込んだバイト数
+     * @throws FileSizeLimitExceededException 上限を超えた場合
+     */
+    private void count(long read) throws FileSizeLimitExceededException {
+        count += read;
+        if (count > maxSize) {
+            throw new FileSizeLimitExceededException("ファイルサイズが上限（" + maxSize + "バイト）を超えています。", maxSize);
+        }
+    }
+
+    /**
+     * @return 読み込んだバイト数
+     */
+    public long getCount() {
+        return count;
+    }
+}
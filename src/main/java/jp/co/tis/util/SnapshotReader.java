@@ -0,0 +1,286 @@
+package jp.co.tis.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import jp.co.tis.exception.SystemException;
+import jp.co.tis.model.Weather;
+
+/**
+ * {@link SnapshotWriter}で書き込んだスナップショットから天気を読み込むクラス。<br/>
+ * ファイルの形式は以下のとおり。数値はビッグエンディアン、文字列はUTF-8とする。
+ * <ul>
+ * <li>ヘッダー部 : ファイル識別子（4バイト、"WFSN"）、バージョン（1バイト）</li>
+ * <li>ブロック（繰り返し） : ブロックのバイト数（4バイト）、件数（4バイト）、
+ * 場所・天気の辞書に追加した文字列（それぞれ件数（4バイト）と、文字列ごとのバイト数（4バイト）とバイト列）、
+ * 日付の列（4バイト×件数、1970/01/01からの経過日数）、場所・天気の列（辞書の番号+1、値がない場合は0。
+ * 1件あたりのバイト数はその時点の辞書の件数により1・2・4バイト）、最高気温・最低気温の列（2バイト×件数）</li>
+ * <li>終端部 : 0（4バイト）、全体の件数（8バイト）</li>
+ * </ul>
+ * ブロックごとにファイルの該当範囲をメモリにマッピングして読み込むため、ファイルサイズによらず一度にマッピングする範囲は1ブロック分となる。
+ * 場所と天気の文字列は辞書の同じインスタンスを使用するため、件数分の文字列は生成しない。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class SnapshotReader {
+
+    /** 終端部のバイト数 */
+    private static final int TRAILER_SIZE = 12;
+
+    /** 読み込むファイル */
+    private final File file;
+
+    /** 読み込みのためのFileChannel */
+    private FileChannel fileChannel;
+
+    /** 次のブロックの位置（ファイル先頭からのバイト数） */
+    private long position;
+
+    /** 終端部まで読み込んだかどうか */
+    private boolean finished;
+
+    /** 読み込んだ件数 */
+    private long readRows;
+
+    /** 場所の辞書 */
+    private final List<String> placeDictionary = new ArrayList<String>();
+
+    /** 天気の辞書 */
+    private final List<String> weatherDictionary = new ArrayList<String>();
+
+    /** 前の行の経過日数 */
+    private int lastDate = SnapshotWriter.NULL_DATE;
+
+    /** 前の行の日付の文字列 */
+    private String lastDateString;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param file 読み込むファイル
+     */
+    public SnapshotReader(File file) {
+        this.file = file;
+    }
+
+    /**
+     * ファイルをオープンし、ヘッダー部と終端部を確認する。
+     *
+     * @throws IOException 入出力エラーが発生した場合、ファイルの形式が不正な場合
+     */
+    public void open() throws IOException {
+        if (fileChannel != null) {
+            throw new IllegalStateException("既にファイルが開かれています。");
+        }
+        FileChannel channel = new RandomAccessFile(file, "r").getChannel();
+        try {
+            ByteBuffer header = readFully(channel, 0, SnapshotWriter.HEADER_SIZE);
+            if (header.getInt() != SnapshotWriter.MAGIC || (header.get() & 0xFF) != SnapshotWriter.VERSION) {
+                throw new IOException("スナップショットファイルの形式が不正です。");
+            }
+            // 書き込みが中断されたファイルを、登録を始める前に検出する
+            long size = channel.size();
+            if (size < SnapshotWriter.HEADER_SIZE + TRAILER_SIZE || readFully(channel, size - TRAILER_SIZE, 4).getInt() != 0) {
+                throw new IOException("スナップショットファイルが途中で終わっています。");
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        fileChannel = channel;
+        position = SnapshotWriter.HEADER_SIZE;
+        finished = false;
+        readRows = 0;
+        placeDictionary.clear();
+        weatherDictionary.clear();
+    }
+
+    /**
+     * 1ブロック分の天気を読み込む。<br/>
+     * 終端部に達している場合は{@code null}を返却する。
+     *
+     * @return 天気のリスト
+     * @throws IOException 入出力エラー(ファイル未オープンなど)が発生した場合、ファイルの形式が不正な場合
+     */
+    public List<Weather> readBlock() throws IOException {
+        if (fileChannel == null) {
+            throw new IOException("ファイルが開かれていません。");
+        }
+        if (finished) {
+            return null;
+        }
+        int blockSize = readFully(fileChannel, position, 4).getInt();
+        if (blockSize == 0) {
+            long totalRows = readFully(fileChannel, position + 4, 8).getLong();
+            if (totalRows != readRows) {
+                throw new IOException("スナップショットファイルの件数が一致しません。");
+            }
+            finished = true;
+            return null;
+        }
+        if (blockSize < 0 || position + 4 + blockSize > fileChannel.size()) {
+            throw new IOException("スナップショットファイルが途中で終わっています。");
+        }
+
+        MappedByteBuffer block = fileChannel.map(FileChannel.MapMode.READ_ONLY, position + 4, blockSize);
+        List<Weather> weatherList;
+        try {
+            weatherList = decodeBlock(block);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("スナップショットファイルの形式が不正です。", e);
+        }
+        position += 4 + blockSize;
+        readRows += weatherList.size();
+        return weatherList;
+    }
+
+    /**
+     * マッピングしたブロックから天気を復元する。
+     *
+     * @param block ブロック
+     * @return 天気のリスト
+     * @throws IOException ブロックのバイト数と列の長さが一致しない場合
+     */
+    private List<Weather> decodeBlock(ByteBuffer block) throws IOException {
+        int rowCount = block.getInt();
+        readDictionary(block, placeDictionary);
+        readDictionary(block, weatherDictionary);
+
+        int dateStart = block.position();
+        int placeStart = dateStart + rowCount * 4;
+        int placeWidth = SnapshotWriter.codeWidth(placeDictionary.size());
+        int weatherStart = placeStart + rowCount * placeWidth;
+        int weatherWidth = SnapshotWriter.codeWidth(weatherDictionary.size());
+        int maxTemperatureStart = weatherStart + rowCount * weatherWidth;
+        int minTemperatureStart = maxTemperatureStart + rowCount * 2;
+        if (minTemperatureStart + rowCount * 2 != block.limit()) {
+            throw new IOException("スナップショットファイルの形式が不正です。");
+        }
+
+        List<Weather> weatherList = new ArrayList<Weather>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            Weather weather = new Weather();
+            weather.setWeatherDate(decodeDate(block.getInt(dateStart + i * 4)));
+            weather.setPlace(decodeCode(block, placeStart, placeWidth, i, placeDictionary));
+            weather.setWeather(decodeCode(block, weatherStart, weatherWidth, i, weatherDictionary));
+            weather.setMaxTemperature(decodeTemperature(block.getShort(maxTemperatureStart + i * 2)));
+            weather.setMinTemperature(decodeTemperature(block.getShort(minTemperatureStart + i * 2)));
+            weatherList.add(weather);
+        }
+        return weatherList;
+    }
+
+    /**
+     * ブロックで辞書に追加された文字列を読み込む。
+     *
+     * @param block ブロック
+     * @param dictionary 辞書
+     */
+    private void readDictionary(ByteBuffer block, List<String> dictionary) {
+        int count = block.getInt();
+        for (int i = 0; i < count; i++) {
+            int length = block.getInt();
+            if (length < 0 || length > block.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            byte[] bytes = new byte[length];
+            block.get(bytes);
+            dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 経過日数を日付の文字列に戻す。前の行と同じ日付の場合は同じ文字列を返却する。
+     *
+     * @param date 経過日数
+     * @return 日付。値がない場合は{@code null}
+     */
+    private String decodeDate(int date) {
+        if (date == SnapshotWriter.NULL_DATE) {
+            return null;
+        }
+        if (date != lastDate || lastDateString == null) {
+            lastDate = date;
+            lastDateString = FieldDecoder.formatEpochDay(date);
+        }
+        return lastDateString;
+    }
+
+    /**
+     * 辞書の番号を文字列に戻す。
+     *
+     * @param block ブロック
+     * @param start 列の開始位置
+     * @param width 1件あたりのバイト数
+     * @param index 行の位置
+     * @param dictionary 辞書
+     * @return 文字列。値がない場合は{@code null}
+     */
+    private String decodeCode(ByteBuffer block, int start, int width, int index, List<String> dictionary) {
+        int code;
+        if (width == 1) {
+            code = block.get(start + index) & 0xFF;
+        } else if (width == 2) {
+            code = block.getShort(start + index * 2) & 0xFFFF;
+        } else {
+            code = block.getInt(start + index * 4);
+        }
+        return code == 0 ? null : dictionary.get(code - 1);
+    }
+
+    /**
+     * 気温を文字列に戻す。
+     *
+     * @param temperature 気温
+     * @return 気温。値がない場合は{@code null}
+     */
+    private String decodeTemperature(short temperature) {
+        return temperature == SnapshotWriter.NULL_TEMPERATURE ? null : Integer.toString(temperature);
+    }
+
+    /**
+     * FileChannelの指定位置から指定バイト数を読み込む。
+     *
+     * @param channel FileChannel
+     * @param offset 読み込み位置
+     * @param size バイト数
+     * @return 読み込んだバイト列
+     * @throws IOException 入出力エラーが発生した場合、ファイルが途中で終わっている場合
+     */
+    private static ByteBuffer readFully(FileChannel channel, long offset, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("スナップショットファイルが途中で終わっています。");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * ファイルをクローズする。<br/>
+     * 繰り返し呼び出しても何も起こらない。
+     */
+    public void close() {
+        if (fileChannel == null) {
+            return;
+        }
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            throw new SystemException("システム例外が発生しました。", e);
+        } finally {
+            fileChannel = null;
+        }
+    }
+}
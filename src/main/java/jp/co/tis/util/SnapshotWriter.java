@@ -0,0 +1,370 @@
+package jp.co.tis.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.model.Weather;
+
+/**
+ * 天気を列指向のバイナリ形式のファイル（スナップショット）に書き込むクラス。<br/>
+ * 天気をブロック単位の件数までメモリに溜め、ブロックごとに項目別の列にまとめて書き込む。
+ * 日付は1970/01/01からの経過日数、気温は2バイトの整数、場所と天気は辞書の番号で書き込むため、同じ内容のCSVファイルより小さくなる。
+ * 形式の詳細は{@link SnapshotReader}を参照。<br/>
+ * 日付と気温は文字列に戻した際に元の値と一致する場合のみ書き込める。
+ * 「2015/1/1」や「007」など元の文字列に戻せない値は、書き込まずに{@link FileFormatException}を送出する。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class SnapshotWriter {
+
+    /** ファイル識別子（"WFSN"） */
+    static final int MAGIC = 0x5746534E;
+
+    /** 形式のバージョン */
+    static final int VERSION = 1;
+
+    /** ヘッダー部のバイト数 */
+    static final int HEADER_SIZE = 5;
+
+    /** 値がない日付を表す値 */
+    static final int NULL_DATE = Integer.MIN_VALUE;
+
+    /** 値がない気温を表す値 */
+    static final short NULL_TEMPERATURE = Short.MIN_VALUE;
+
+    /** 1ブロックの件数の既定値 */
+    private static final int DEFAULT_BLOCK_ROWS = 64 * 1024;
+
+    /** 出力バッファのサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 書き込み先のファイル */
+    private final File file;
+
+    /** 1ブロックの件数 */
+    private final int blockRows;
+
+    /** 出力ストリーム */
+    private DataOutputStream out;
+
+    /** ブロックの日付の列 */
+    private final int[] dateColumn;
+
+    /** ブロックの場所の列（辞書の番号+1、値がない場合は0） */
+    private final int[] placeColumn;
+
+    /** ブロックの天気の列（辞書の番号+1、値がない場合は0） */
+    private final int[] weatherColumn;
+
+    /** ブロックの最高気温の列 */
+    private final short[] maxTemperatureColumn;
+
+    /** ブロックの最低気温の列 */
+    private final short[] minTemperatureColumn;
+
+    /** ブロックの件数 */
+    private int rowCount;
+
+    /** 場所の辞書 */
+    private final Dictionary placeDictionary = new Dictionary();
+
+    /** 天気の辞書 */
+    private final Dictionary weatherDictionary = new Dictionary();
+
+    /** 書き込んだ件数 */
+    private long totalRows;
+
+    /** ブロックを組み立てるバッファ */
+    private final ByteArrayOutputStream blockBuffer = new ByteArrayOutputStream();
+
+    /** ブロックを組み立てる出力ストリーム */
+    private final DataOutputStream blockOut = new DataOutputStream(blockBuffer);
+
+    /**
+     * コンストラクタ。
+     *
+     * @param file 書き込み先のファイル
+     */
+    public SnapshotWriter(File file) {
+        this(file, DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param file 書き込み先のファイル
+     * @param blockRows 1ブロックの件数
+     */
+    SnapshotWriter(File file, int blockRows) {
+        this.file = file;
+        this.blockRows = blockRows;
+        this.dateColumn = new int[blockRows];
+        this.placeColumn = new int[blockRows];
+        this.weatherColumn = new int[blockRows];
+        this.maxTemperatureColumn = new short[blockRows];
+        this.minTemperatureColumn = new short[blockRows];
+    }
+
+    /**
+     * ファイルをオープンし、ヘッダー部を書き込む。
+     *
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public void open() throws IOException {
+        if (out != null) {
+            throw new IllegalStateException("既にファイルが開かれています。");
+        }
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        rowCount = 0;
+        totalRows = 0;
+    }
+
+    /**
+     * 天気を一件書き込む。ブロックの件数に達した場合はブロックをファイルに書き込む。
+     *
+     * @param weather 天気
+     * @throws IOException 入出力エラーが発生した場合
+     * @throws FileFormatException 日付・気温がスナップショットに書き込めない値の場合
+     */
+    public void write(Weather weather) throws IOException, FileFormatException {
+        if (out == null) {
+            throw new IOException("ファイルが開かれていません。");
+        }
+        int date = encodeDate(weather);
+        short maxTemperature = encodeTemperature(weather, weather.getMaxTemperature(), "最高気温");
+        short minTemperature = encodeTemperature(weather, weather.getMinTemperature(), "最低気温");
+
+        dateColumn[rowCount] = date;
+        placeColumn[rowCount] = placeDictionary.encode(weather.getPlace());
+        weatherColumn[rowCount] = weatherDictionary.encode(weather.getWeather());
+        maxTemperatureColumn[rowCount] = maxTemperature;
+        minTemperatureColumn[rowCount] = minTemperature;
+        rowCount++;
+        if (rowCount == blockRows) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * 書き込んだ件数を返却する。
+     *
+     * @return 件数
+     */
+    public long getTotalRows() {
+        return totalRows + rowCount;
+    }
+
+    /**
+     * 溜めている天気と終端部を書き込み、ファイルをクローズする。<br/>
+     * 繰り返し呼び出しても何も起こらない。
+     *
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public void close() throws IOException {
+        if (out == null) {
+            return;
+        }
+        try {
+            if (rowCount > 0) {
+                flushBlock();
+            }
+            out.writeInt(0);
+            out.writeLong(totalRows);
+            out.close();
+        } finally {
+            out = null;
+        }
+    }
+
+    /**
+     * 書き込みを中断し、終端部を書き込まずにファイルをクローズする。<br/>
+     * 終端部のないファイルは{@link SnapshotReader}で読み込めない。
+     */
+    public void abort() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            // 中断時のため無視する
+        } finally {
+            out = null;
+        }
+    }
+
+    /**
+     * 溜めている天気をブロックとしてファイルに書き込む。
+     *
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private void flushBlock() throws IOException {
+        blockBuffer.reset();
+        blockOut.writeInt(rowCount);
+        placeDictionary.writeAdded(blockOut);
+        weatherDictionary.writeAdded(blockOut);
+        for (int i = 0; i < rowCount; i++) {
+            blockOut.writeInt(dateColumn[i]);
+        }
+        writeCodes(placeColumn, placeDictionary.size());
+        writeCodes(weatherColumn, weatherDictionary.size());
+        for (int i = 0; i < rowCount; i++) {
+            blockOut.writeShort(maxTemperatureColumn[i]);
+        }
+        for (int i = 0; i < rowCount; i++) {
+            blockOut.writeShort(minTemperatureColumn[i]);
+        }
+
+        out.writeInt(blockBuffer.size());
+        blockBuffer.writeTo(out);
+        totalRows += rowCount;
+        rowCount = 0;
+    }
+
+    /**
+     * 辞書の番号の列を、辞書の件数に応じたバイト数で書き込む。
+     *
+     * @param column 辞書の番号の列
+     * @param dictionarySize 辞書の件数
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private void writeCodes(int[] column, int dictionarySize) throws IOException {
+        int width = codeWidth(dictionarySize);
+        for (int i = 0; i < rowCount; i++) {
+            if (width == 1) {
+                blockOut.writeByte(column[i]);
+            } else if (width == 2) {
+                blockOut.writeShort(column[i]);
+            } else {
+                blockOut.writeInt(column[i]);
+            }
+        }
+    }
+
+    /**
+     * 辞書の番号の列の1件あたりのバイト数を返却する。値がないことを表す0を含めた番号が収まる最小のバイト数とする。
+     *
+     * @param dictionarySize 辞書の件数
+     * @return バイト数
+     */
+    static int codeWidth(int dictionarySize) {
+        if (dictionarySize <= 0xFF) {
+            return 1;
+        }
+        if (dictionarySize <= 0xFFFF) {
+            return 2;
+        }
+        return 4;
+    }
+
+    /**
+     * 日付を経過日数に変換する。
+     *
+     * @param weather 天気
+     * @return 経過日数。値がない場合は{@link #NULL_DATE}
+     * @throws FileFormatException 元の文字列に戻せない値の場合
+     */
+    private int encodeDate(Weather weather) throws FileFormatException {
+        String value = weather.getWeatherDate();
+        if (value == null) {
+            return NULL_DATE;
+        }
+        long epochDay = FieldDecoder.parseEpochDay(value);
+        if (epochDay == FieldDecoder.INVALID_DATE || !FieldDecoder.formatEpochDay(epochDay).equals(value)) {
+            throw new FileFormatException("日付「" + value + "」はスナップショットに保存できません。（場所：" + weather.getPlace() + "）");
+        }
+        return (int) epochDay;
+    }
+
+    /**
+     * 気温を2バイトの整数に変換する。
+     *
+     * @param weather 天気
+     * @param value 気温
+     * @param itemName 項目名
+     * @return 気温。値がない場合は{@link #NULL_TEMPERATURE}
+     * @throws FileFormatException 元の文字列に戻せない値の場合
+     */
+    private short encodeTemperature(Weather weather, String value, String itemName) throws FileFormatException {
+        if (value == null) {
+            return NULL_TEMPERATURE;
+        }
+        int temperature = FieldDecoder.parseInt(value);
+        if (temperature == FieldDecoder.INVALID_INT || temperature <= NULL_TEMPERATURE || temperature > Short.MAX_VALUE
+                || !Integer.toString(temperature).equals(value)) {
+            throw new FileFormatException(itemName + "「" + value + "」はスナップショットに保存できません。（日付：" + weather.getWeatherDate()
+                    + "、場所：" + weather.getPlace() + "）");
+        }
+        return (short) temperature;
+    }
+
+    /**
+     * 文字列に番号を割り当てる辞書。<br/>
+     * 前回のブロックの書き込み以降に追加した文字列を、次のブロックの先頭に書き込む。
+     */
+    private static class Dictionary {
+
+        /** 文字列と番号の対応 */
+        private final Map<String, Integer> codeMap = new HashMap<String, Integer>();
+
+        /** 前回のブロックの書き込み以降に追加した文字列 */
+        private final List<String> addedList = new ArrayList<String>();
+
+        /**
+         * 文字列を番号に変換する。辞書にない場合は追加する。
+         *
+         * @param value 文字列
+         * @return 番号+1。値がない場合は0
+         */
+        int encode(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer code = codeMap.get(value);
+            if (code == null) {
+                code = codeMap.size() + 1;
+                codeMap.put(value, code);
+                addedList.add(value);
+            }
+            return code;
+        }
+
+        /**
+         * 辞書の件数を返却する。
+         *
+         * @return 件数
+         */
+        int size() {
+            return codeMap.size();
+        }
+
+        /**
+         * 追加した文字列の件数と、各文字列のUTF-8のバイト数とバイト列を書き込む。
+         *
+         * @param out 出力ストリーム
+         * @throws IOException 入出力エラーが発生した場合
+         */
+        void writeAdded(DataOutputStream out) throws IOException {
+            out.writeInt(addedList.size());
+            for (String value : addedList) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            addedList.clear();
+        }
+    }
+}
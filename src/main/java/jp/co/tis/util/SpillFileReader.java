@@ -0,0 +1,139 @@
+package jp.co.tis.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import jp.co.tis.exception.SystemException;
+import jp.co.tis.model.Weather;
+
+/**
+ * {@link SpillFileWriter}で書き込んだ一時ファイル（スピルファイル）から天気を読み込むクラス。<br/>
+ * ファイルの形式は以下のとおり。数値はビッグエンディアン、文字列は{@link DataInputStream#readUTF}の形式とする。
+ * <ul>
+ * <li>ヘッダー部 : ファイル識別子（4バイト、"WFSP"）、バージョン（1バイト）</li>
+ * <li>データ部（一行ごと） : 値の有無（1バイト、日付・場所・天気・最高気温・最低気温の順に下位ビットから）、値のある項目の文字列</li>
+ * </ul>
+ * CSVの解析と精査は書き込み時に済んでいるため、読み込み時は文字列の復元のみを行う。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class SpillFileReader {
+
+    /** 入力バッファのサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 読み込むファイル */
+    private final File file;
+
+    /** 入力ストリーム */
+    private DataInputStream in;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param file 読み込むファイル
+     */
+    public SpillFileReader(File file) {
+        this.file = file;
+    }
+
+    /**
+     * ファイルをオープンし、最初の行から読み込む。
+     *
+     * @throws IOException 入出力エラーが発生した場合、ファイルの形式が不正な場合
+     */
+    public void open() throws IOException {
+        open(SpillFileWriter.HEADER_SIZE);
+    }
+
+    /**
+     * ファイルをオープンし、指定位置の行から読み込む。<br/>
+     * 指定位置は{@link SpillFileWriter#getOffset}で取得した行頭の位置であること。
+     *
+     * @param offset 読み込みを開始する位置
+     * @throws IOException 入出力エラーが発生した場合、ファイルの形式が不正な場合、開始位置がファイルの範囲外の場合
+     */
+    public void open(long offset) throws IOException {
+        if (in != null) {
+            throw new IllegalStateException("既にファイルが開かれています。");
+        }
+        FileInputStream fileIn = new FileInputStream(file);
+        try {
+            FileChannel channel = fileIn.getChannel();
+            if (offset < SpillFileWriter.HEADER_SIZE || offset > channel.size()) {
+                throw new IOException("読み込み開始位置がファイルの範囲外です。");
+            }
+            DataInputStream header = new DataInputStream(fileIn);
+            if (header.readInt() != SpillFileWriter.MAGIC || header.readUnsignedByte() != SpillFileWriter.VERSION) {
+                throw new IOException("一時ファイルの形式が不正です。");
+            }
+            channel.position(offset);
+            in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+        } catch (IOException | RuntimeException e) {
+            fileIn.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 一行分の天気を読み込む。<br/>
+     * ファイル末端に達している場合は{@code null}を返却する。
+     *
+     * @return 天気
+     * @throws IOException 入出力エラー(ファイル未オープンなど)が発生した場合、ファイルが途中で終わっている場合
+     */
+    public Weather read() throws IOException {
+        if (in == null) {
+            throw new IOException("ファイルが開かれていません。");
+        }
+        int presence = in.read();
+        if (presence < 0) {
+            return null;
+        }
+        try {
+            return new Weather(readValue(presence, 0), readValue(presence, 1), readValue(presence, 2), readValue(presence, 3),
+                    readValue(presence, 4));
+        } catch (EOFException e) {
+            throw new IOException("一時ファイルが途中で終わっています。", e);
+        }
+    }
+
+    /**
+     * 項目の値を読み込む。
+     *
+     * @param presence 値の有無
+     * @param index 項目位置
+     * @return 項目の値。値がない場合は{@code null}
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private String readValue(int presence, int index) throws IOException {
+        if ((presence & (1 << index)) == 0) {
+            return null;
+        }
+        return in.readUTF();
+    }
+
+    /**
+     * ファイルをクローズする。<br/>
+     * 繰り返し呼び出しても何も起こらない。
+     */
+    public void close() {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            throw new SystemException("システム例外が発生しました。", e);
+        } finally {
+            in = null;
+        }
+    }
+}
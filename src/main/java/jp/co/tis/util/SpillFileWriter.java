@@ -0,0 +1,144 @@
+package jp.co.tis.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import jp.co.tis.model.Weather;
+
+/**
+ * 精査済みの天気を一時ファイル（スピルファイル）に書き込むクラス。<br/>
+ * 先頭にファイル識別子とバージョンを書き込み、以降は一行ごとに値の有無を表す1バイトと、値のある項目の文字列を書き込む。
+ * 形式の詳細は{@link SpillFileReader}を参照。<br/>
+ * 書き込んだバイト数を{@link #getOffset}で取得できるため、任意の行の位置を記録して{@link SpillFileReader#open(long)}で読み込める。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class SpillFileWriter {
+
+    /** ファイル識別子（"WFSP"） */
+    static final int MAGIC = 0x57465350;
+
+    /** 形式のバージョン */
+    static final int VERSION = 1;
+
+    /** ヘッダー部のバイト数 */
+    static final int HEADER_SIZE = 5;
+
+    /** 出力バッファのサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 書き込み先のファイル */
+    private final File file;
+
+    /** 出力ストリーム */
+    private OutputStream out;
+
+    /** 一行分のデータを組み立てるバッファ */
+    private final ByteArrayOutputStream rowBuffer = new ByteArrayOutputStream();
+
+    /** 一行分のデータを組み立てる出力ストリーム */
+    private final DataOutputStream rowOut = new DataOutputStream(rowBuffer);
+
+    /** 書き込んだバイト数 */
+    private long offset;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param file 書き込み先のファイル
+     */
+    public SpillFileWriter(File file) {
+        this.file = file;
+    }
+
+    /**
+     * ファイルをオープンし、ヘッダー部を書き込む。
+     *
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public void open() throws IOException {
+        if (out != null) {
+            throw new IllegalStateException("既にファイルが開かれています。");
+        }
+        out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+        offset = 0;
+        rowBuffer.reset();
+        rowOut.writeInt(MAGIC);
+        rowOut.writeByte(VERSION);
+        flushRow();
+    }
+
+    /**
+     * 天気を一行分書き込む。
+     *
+     * @param weather 天気
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public void write(Weather weather) throws IOException {
+        if (out == null) {
+            throw new IOException("ファイルが開かれていません。");
+        }
+        String[] values = {weather.getWeatherDate(), weather.getPlace(), weather.getWeather(), weather.getMaxTemperature(),
+                weather.getMinTemperature()};
+        int presence = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                presence |= 1 << i;
+            }
+        }
+        rowBuffer.reset();
+        rowOut.writeByte(presence);
+        for (String value : values) {
+            if (value != null) {
+                rowOut.writeUTF(value);
+            }
+        }
+        flushRow();
+    }
+
+    /**
+     * 組み立てた一行分のデータをファイルに書き込む。
+     *
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private void flushRow() throws IOException {
+        rowBuffer.writeTo(out);
+        offset += rowBuffer.size();
+    }
+
+    /**
+     * 次に書き込む行の位置を取得する。
+     *
+     * @return ファイル先頭からのバイト数
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public long getOffset() throws IOException {
+        if (out == null) {
+            throw new IOException("ファイルが開かれていません。");
+        }
+        return offset;
+    }
+
+    /**
+     * ファイルをクローズする。<br/>
+     * 繰り返し呼び出しても何も起こらない。
+     *
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    public void close() throws IOException {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } finally {
+            out = null;
+        }
+    }
+}
@@ -21,6 +21,16 @@
     <div class="col-lg-2"></div>
     <div class="col-lg-8">
       <div class="guide">登録が完了しました。</div>
+      <c:if test="${!empty mergeResult}">
+        <table class="table table-bordered">
+          <tbody>
+            <tr><th width="40%" class="info">登録件数</th><td><c:out value="${mergeResult.insertCount}" />件</td></tr>
+            <tr><th class="info">更新件数</th><td><c:out value="${mergeResult.updateCount}" />件</td></tr>
+            <tr><th class="info">変更なし</th><td><c:out value="${mergeResult.unchangedCount}" />件</td></tr>
+            <tr><th class="info">ファイル内の重複</th><td><c:out value="${mergeResult.duplicateCount}" />件</td></tr>
+          </tbody>
+        </table>
+      </c:if>
       <div class="text-align-center">
         <a class="btn btn-default btn-info" href="/">トップ</a>
       </div>
@@ -1,6 +1,7 @@
 <%@ page language="java" contentType="text/html; charset=utf-8"
     pageEncoding="utf-8"%>
     <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core"%>
+    <%@ taglib prefix="fn" uri="http://java.sun.com/jsp/jstl/functions"%>
 <!DOCTYPE html PUBLIC "-//W3C//DTD HTML 4.01 Transitional//EN"
         "http://www.w3.org/TR/html4/loose.dtd">
 <html>
@@ -32,14 +33,47 @@
          </ul>
       </c:if>
 
+      <c:if test="${!empty validationReport}">
+        <h3>検証結果：
+          <c:choose>
+            <c:when test="${validationReport.valid}"><span class="right-blue">エラーはありません</span></c:when>
+            <c:otherwise><span class="right-blue"><c:out value="${validationReport.errorRowCount}"/></span>行にエラーがあります</c:otherwise>
+          </c:choose>
+        </h3>
+        <p>検証した行数：<c:out value="${validationReport.rowCount}"/>件　エラー件数：<c:out value="${validationReport.errorCount}"/>件</p>
+        <c:if test="${validationReport.truncated}">
+          <p>表示しているのは最初の<c:out value="${fn:length(validationReport.errorList)}"/>件のエラーです。</p>
+        </c:if>
+      </c:if>
+
       <h3>CSV読み込み</h3>
       <form action="/csvRegister/csvRead" method="POST">
         <div class="input-group">
           <input type="text" name="filePath" class="form-control" value="${filePath}" placeholder="ファイルパスを入力してください">
-          <span class="input-group-btn"><button type="submit" class="btn btn-info" >読み込み</button></span>
+          <span class="input-group-btn">
+            <button type="submit" class="btn btn-info" >読み込み</button>
+            <button type="submit" class="btn btn-default" formaction="/csvRegister/validate"><i class="fa fa-check"></i>  検証のみ</button>
+            <button type="submit" class="btn btn-default" formaction="/csvRegister/registerStream"><i class="fa fa-database"></i>  直接登録</button>
+            <button type="button" id="jobSubmit" class="btn btn-default"><i class="fa fa-tasks"></i>  バックグラウンド登録</button>
+          </span>
         </div>
       </form>
 
+      <div id="jobPanel" class="margin-top-40" style="display: none;">
+        <h3>登録状況：<span id="jobStatus" class="right-blue"></span></h3>
+        <table class="table table-bordered">
+          <tbody>
+            <tr><th width="40%" class="info">読み込み件数</th><td id="jobRowsParsed"></td></tr>
+            <tr><th class="info">登録件数</th><td id="jobRowsWritten"></td></tr>
+            <tr><th class="info">登録件数／秒</th><td id="jobRowsPerSecond"></td></tr>
+          </tbody>
+        </table>
+        <ul id="jobErrorList" class="error"></ul>
+        <div class="text-align-center middle">
+          <button type="button" id="jobCancel" class="btn btn-default"><i class="fa fa-ban"></i>  取り消し</button>
+        </div>
+      </div>
+
       <c:if test="${!empty csvReadList}">
         <h3 class="margin-top-40">登録件数：
           <span class="right-blue"><c:out value="${rowCount}"/></span>件
@@ -47,36 +81,48 @@
         <table class="table table-bordered">
           <thead>
             <tr class="info">
-              <th width="20%">日付</th>
-              <th width="20%">場所</th>
-              <th width="20%">天気</th>
-              <th width="20%">最高気温</th>
-              <th width="20%">最低気温</th>
+              <th width="10%">行</th>
+              <th width="18%">日付</th>
+              <th width="18%">場所</th>
+              <th width="18%">天気</th>
+              <th width="18%">最高気温</th>
+              <th width="18%">最低気温</th>
             </tr>
           </thead>
           <tbody>
-            <tr>
-              <td style="vertical-align: middle;"><c:out value="${csvReadList[0].WEATHER_DATE}" /></td>
-              <td style="vertical-align: middle;"><c:out value="${csvReadList[0].PLACE}" /></td>
-              <td style="vertical-align: middle;"><c:out value="${csvReadList[0].WEATHER}" /></td>
-              <td style="vertical-align: middle;"><c:out value="${csvReadList[0].MAX_TEMPERATURE}" /></td>
-              <td style="vertical-align: middle;"><c:out value="${csvReadList[0].MIN_TEMPERATURE}" /></td>
-            </tr>
-            <tr>
-              <td class="middle text-align-center">：<br>：</td>
-              <td class="middle text-align-center">：<br>：</td>
-              <td class="middle text-align-center">：<br>：</td>
-              <td class="middle text-align-center">：<br>：</td>
-              <td class="middle text-align-center">：<br>：</td>
-            </tr>
+            <c:forEach var="csvRead" items="${csvReadList}" varStatus="status">
+              <tr>
+                <td style="vertical-align: middle;"><c:out value="${firstRowNumber + status.index}" /></td>
+                <td style="vertical-align: middle;"><c:out value="${csvRead.weatherDate}" /></td>
+                <td style="vertical-align: middle;"><c:out value="${csvRead.place}" /></td>
+                <td style="vertical-align: middle;"><c:out value="${csvRead.weather}" /></td>
+                <td style="vertical-align: middle;"><c:out value="${csvRead.maxTemperature}" /></td>
+                <td style="vertical-align: middle;"><c:out value="${csvRead.minTemperature}" /></td>
+              </tr>
+            </c:forEach>
           </tbody>
          </table>
 
+        <c:if test="${pageCount > 1}">
+          <div class="text-align-center middle">
+            <ul class="pager">
+              <c:if test="${page > 0}">
+                <li><a href="/csvRegister/preview?previewId=${previewId}&page=0">最初</a></li>
+                <li><a href="/csvRegister/preview?previewId=${previewId}&page=${page - 1}">前へ</a></li>
+              </c:if>
+              <li><c:out value="${page + 1}" /> / <c:out value="${pageCount}" />ページ</li>
+              <c:if test="${page + 1 < pageCount}">
+                <li><a href="/csvRegister/preview?previewId=${previewId}&page=${page + 1}">次へ</a></li>
+                <li><a href="/csvRegister/preview?previewId=${previewId}&page=${pageCount - 1}">最後</a></li>
+              </c:if>
+            </ul>
+          </div>
+        </c:if>
+
         <div class="text-align-center middle">
           <form action="/csvRegister/register" method="POST">
             <button type="submit" class="btn btn-info" ><i class="fa fa-database"></i>  登録</button>
-            <input type="hidden" name="filePath" class="form-control" value="${filePath}">
-            <input type="hidden" name="csvDataList" class="form-control" value="${csvData}">
+            <input type="hidden" name="previewId" class="form-control" value="${previewId}">
           </form>
         </div>
        </c:if>
@@ -85,5 +131,54 @@
   </div>
  </div>
 
+<script>
+$(function() {
+  var jobId = null;
+
+  function showErrorList(errorList) {
+    var $errorList = $("#jobErrorList").empty();
+    $.each(errorList || [], function(i, error) {
+      $("<li>").text(error).appendTo($errorList);
+    });
+  }
+
+  function showJob(job) {
+    $("#jobPanel").show();
+    $("#jobStatus").text(job.status);
+    $("#jobRowsParsed").text(job.rowsParsed);
+    $("#jobRowsWritten").text(job.rowsWritten);
+    $("#jobRowsPerSecond").text(job.rowsPerSecond);
+    showErrorList(job.errorList);
+    $("#jobCancel").prop("disabled", job.finished);
+  }
+
+  function poll() {
+    $.get("/csvRegister/job/status", { jobId: jobId }).done(function(job) {
+      showJob(job);
+      if (!job.finished) {
+        setTimeout(poll, 1000);
+      }
+    });
+  }
+
+  $("#jobSubmit").click(function() {
+    $.post("/csvRegister/job/submit", { filePath: $("input[name=filePath]").val() }).done(function(job) {
+      jobId = job.jobId;
+      showJob(job);
+      setTimeout(poll, 1000);
+    }).fail(function(xhr) {
+      $("#jobPanel").show();
+      $("#jobStatus").text("");
+      showErrorList(xhr.responseJSON ? xhr.responseJSON.errorList : ["システム例外が発生しました。"]);
+    });
+  });
+
+  $("#jobCancel").click(function() {
+    if (jobId !== null) {
+      $.post("/csvRegister/job/cancel", { jobId: jobId }).done(showJob);
+    }
+  });
+});
+</script>
 </body>
 </html>
\ No newline at end of file
@@ -36,7 +36,7 @@
       天気検索
       <img src="../img/weather2.jpg" class="width-7">
      </h3>
-     <form action="/weatherSearchHard/search" method="POST">
+     <form id="searchForm" action="/weatherSearchHard/search" method="POST">
        <table class="table table-striped table-bordered table-hover">
         <thead>
           <tr class="info">
@@ -104,7 +104,7 @@
        <c:when test="${!empty weatherList}">
          <h3>
           検索結果：
-          <span class="dark-blue"><c:out value="${searchCount}" /></span>件
+          <span class="dark-blue"><c:out value="${searchCount}" /></span>件表示
          </h3>
          <table class="table table-striped table-bordered table-hover">
           <thead>
@@ -178,6 +178,16 @@
        </div>
        </c:when>
      </c:choose>
+     <c:if test="${!empty previousCursor || !empty nextCursor}">
+       <div class="text-align-center">
+         <c:if test="${!empty previousCursor}">
+           <button type="submit" form="searchForm" name="cursor" value="${previousCursor}" class="btn btn-default"><i class="fa fa-chevron-left"></i>  前へ</button>
+         </c:if>
+         <c:if test="${!empty nextCursor}">
+           <button type="submit" form="searchForm" name="cursor" value="${nextCursor}" class="btn btn-default">次へ  <i class="fa fa-chevron-right"></i></button>
+         </c:if>
+       </div>
+     </c:if>
     </div>
     <div class="col-lg-2"></div>
   </div>
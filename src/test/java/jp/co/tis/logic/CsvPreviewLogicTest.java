@@ -0,0 +1,262 @@
+package jp.co.tis.logic;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.model.CsvPreview;
+import jp.co.tis.model.Weather;
+import jp.co.tis.util.CsvReader;
+import jp.co.tis.util.CsvReaderFactory;
+
+/**
+ * CsvPreviewLogicをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class CsvPreviewLogicTest {
+
+    /**
+     * 一時ファイルの作成先
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /** テストデータ */
+    private static final String CSV_PATH = "src/test/java/jp/co/tis/logic/testData/weather.csv";
+
+    /** テスト対象クラス */
+    private CsvPreviewLogic target;
+
+    /**
+     * テスト対象クラスを準備する。
+     */
+    @Before
+    public void setUp() {
+        CsvReaderFactory csvReaderFactory = new CsvReaderFactory();
+        ReflectionTestUtils.setField(csvReaderFactory, "readerType", "buffered");
+        ReflectionTestUtils.setField(csvReaderFactory, "charsetName", "UTF-8");
+
+        target = new CsvPreviewLogic();
+        ReflectionTestUtils.setField(target, "csvReaderFactory", csvReaderFactory);
+        ReflectionTestUtils.setField(target, "pageSize", 2);
+        ReflectionTestUtils.setField(target, "maxEntries", 2);
+        ReflectionTestUtils.setField(target, "spillDir", temporaryFolder.getRoot().getPath());
+        ReflectionTestUtils.setField(target, "csvRegisterLogic", new CsvRegisterLogic());
+    }
+
+    /**
+     * 件数とページ数が集計され、作成したプレビューを取得できること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testCreatePreview() throws Exception {
+        CsvPreview preview = target.createPreview(CSV_PATH);
+
+        assertThat(preview.getRowCount(), is(5L));
+        assertThat(preview.getPageCount(), is(3));
+        assertThat(preview.getPageOffset(0), is(5L));
+        assertThat(preview.getSpillFile().isFile(), is(true));
+        assertThat(target.getPreview(preview.getPreviewId()), is(sameInstance(preview)));
+    }
+
+    /**
+     * 指定したページの行のみが読み込まれること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadPage() throws Exception {
+        CsvPreview preview = target.createPreview(CSV_PATH);
+
+        List<Weather> firstPage = target.readPage(preview, 0);
+        assertThat(firstPage.size(), is(2));
+        assertThat(firstPage.get(0).getPlace(), is("東京"));
+        assertThat(firstPage.get(1).getPlace(), is("千葉"));
+
+        List<Weather> secondPage = target.readPage(preview, 1);
+        assertThat(secondPage.size(), is(2));
+        assertThat(secondPage.get(0).getWeather(), is("雨"));
+        assertThat(secondPage.get(1).getMinTemperature(), is("-1"));
+
+        List<Weather> lastPage = target.readPage(preview, 2);
+        assertThat(lastPage.size(), is(1));
+        assertThat(lastPage.get(0).getWeatherDate(), is("2015/01/03"));
+    }
+
+    /**
+     * 範囲外のページ番号は最初または最後のページに丸められること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadPageOutOfRange() throws Exception {
+        CsvPreview preview = target.createPreview(CSV_PATH);
+
+        assertThat(target.toPageIndex(preview, -1), is(0));
+        assertThat(target.toPageIndex(preview, 10), is(2));
+        assertThat(target.readPage(preview, 10).get(0).getWeatherDate(), is("2015/01/03"));
+    }
+
+    /**
+     * データ部の形式に誤りがある場合、行番号付きの例外が送出され、一時ファイルが残らないこと。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testCreatePreviewInCaseOfFileFormatException() throws Exception {
+        try {
+            target.createPreview("src/test/java/jp/co/tis/logic/testData/weatherFormatError.csv");
+        } catch (FileFormatException e) {
+            assertThat(e.getLineNumber(), is(3L));
+            assertThat(e.getMessage(), is("ヘッダー部と項目数が異なっています。"));
+            assertThat(temporaryFolder.getRoot().list().length, is(0));
+            return;
+        }
+        throw new AssertionError("FileFormatExceptionが送出されませんでした。");
+    }
+
+    /**
+     * 一時ファイルの作成に失敗した場合、開いたCSVファイルが閉じられること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testCreatePreviewInCaseOfSpillFileError() throws Exception {
+        final List<CsvReader> readerList = new ArrayList<CsvReader>();
+        CsvReaderFactory csvReaderFactory = new CsvReaderFactory() {
+            @Override
+            public CsvReader create(String csvPath) {
+                CsvReader csvReader = super.create(csvPath);
+                readerList.add(csvReader);
+                return csvReader;
+            }
+        };
+        ReflectionTestUtils.setField(csvReaderFactory, "readerType", "buffered");
+        ReflectionTestUtils.setField(csvReaderFactory, "charsetName", "UTF-8");
+        ReflectionTestUtils.setField(target, "csvReaderFactory", csvReaderFactory);
+        ReflectionTestUtils.setField(target, "spillDir", new File(temporaryFolder.getRoot(), "notExist").getPath());
+
+        try {
+            target.createPreview(CSV_PATH);
+        } catch (IOException e) {
+            assertThat(readerList.size(), is(1));
+            assertThat(ReflectionTestUtils.getField(readerList.get(0), "reader"), is(nullValue()));
+            return;
+        }
+        throw new AssertionError("IOExceptionが送出されませんでした。");
+    }
+
+    /**
+     * プレビュー作成後に元のファイルが変更されても、精査済みのデータが読み込まれること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadPageAfterModified() throws Exception {
+        File file = new File(temporaryFolder.newFolder(), "weather.csv");
+        Files.copy(new File(CSV_PATH).toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        CsvPreview preview = target.createPreview(file.getPath());
+
+        Files.write(file.toPath(), "2015/01/04,千葉,晴れ,11,3\n".getBytes("UTF-8"), StandardOpenOption.APPEND);
+
+        assertThat(target.readPage(preview, 2).size(), is(1));
+        assertThat(preview.getRowCount(), is(5L));
+    }
+
+    /**
+     * プレビューを破棄すると一時ファイルが削除されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRemovePreview() throws Exception {
+        CsvPreview preview = target.createPreview(CSV_PATH);
+        target.removePreview(preview.getPreviewId());
+
+        assertThat(target.getPreview(preview.getPreviewId()), is(nullValue()));
+        assertThat(preview.getSpillFile().exists(), is(false));
+    }
+
+    /**
+     * 取り出したプレビューは重ねて取り出せず、登録に失敗して解放すると戻され、成功して解放すると一時ファイルが削除されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testTakeAndReleasePreview() throws Exception {
+        CsvPreview preview = target.createPreview(CSV_PATH);
+
+        assertThat(target.takePreview(preview.getPreviewId()), is(sameInstance(preview)));
+        assertThat(target.takePreview(preview.getPreviewId()), is(nullValue()));
+
+        target.releasePreview(preview, false);
+        assertThat(target.getPreview(preview.getPreviewId()), is(sameInstance(preview)));
+        assertThat(preview.getSpillFile().exists(), is(true));
+
+        target.releasePreview(target.takePreview(preview.getPreviewId()), true);
+        assertThat(target.getPreview(preview.getPreviewId()), is(nullValue()));
+        assertThat(preview.getSpillFile().exists(), is(false));
+    }
+
+    /**
+     * トランザクション中に解放した場合、ロールバックされるとプレビューが戻されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReleasePreviewInCaseOfRollback() throws Exception {
+        CsvPreview preview = target.createPreview(CSV_PATH);
+        target.takePreview(preview.getPreviewId());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.releasePreview(preview, true);
+            assertThat(target.getPreview(preview.getPreviewId()), is(nullValue()));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(target.getPreview(preview.getPreviewId()), is(sameInstance(preview)));
+        assertThat(preview.getSpillFile().exists(), is(true));
+    }
+
+    /**
+     * 保持するプレビューの上限を超えた場合、最も長く参照されていないプレビューが破棄されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testPreviewEviction() throws Exception {
+        CsvPreview first = target.createPreview(CSV_PATH);
+        CsvPreview second = target.createPreview(CSV_PATH);
+        target.getPreview(first.getPreviewId());
+        CsvPreview third = target.createPreview(CSV_PATH);
+
+        assertThat(target.getPreview(first.getPreviewId()), is(sameInstance(first)));
+        assertThat(target.getPreview(second.getPreviewId()), is(nullValue()));
+        assertThat(second.getSpillFile().exists(), is(false));
+        assertThat(target.getPreview(third.getPreviewId()), is(sameInstance(third)));
+    }
+}
@@ -0,0 +1,638 @@
+package jp.co.tis.logic;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.CancellationException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.logic.LogicTestSupport.NoOpTransactionManager;
+import jp.co.tis.logic.LogicTestSupport.RecordingWeatherDao;
+import jp.co.tis.model.CsvPreview;
+import jp.co.tis.model.IngestCheckpoint;
+import jp.co.tis.model.IngestJob;
+import jp.co.tis.model.MergeResult;
+import jp.co.tis.model.Weather;
+import jp.co.tis.util.CheckpointStore;
+import jp.co.tis.util.CsvReader;
+import jp.co.tis.util.CsvReaderImpl;
+import jp.co.tis.util.SpillFileReader;
+import jp.co.tis.util.SpillFileWriter;
+
+/**
+ * CsvRegisterLogicをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class CsvRegisterLogicTest {
+
+    /**
+     * ルール設定
+     */
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    /**
+     * チェックポイントの保存先
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /** テストデータの文字コード */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** テスト対象クラス */
+    private CsvRegisterLogic target;
+
+    /** 登録内容を記録するDAO */
+    private RecordingWeatherDao weatherDao;
+
+    /** チェックポイントの保存クラス */
+    private CheckpointStore checkpointStore;
+
+    /**
+     * テスト対象クラスを準備する。
+     */
+    @Before
+    public void setUp() {
+        target = new CsvRegisterLogic();
+        weatherDao = new RecordingWeatherDao();
+        ReflectionTestUtils.setField(target, "weatherDao", weatherDao);
+        ReflectionTestUtils.setField(target, "chunkSize", 2);
+        ReflectionTestUtils.setField(target, "commitInterval", 2);
+        ReflectionTestUtils.setField(target, "transactionManager", new NoOpTransactionManager());
+        checkpointStore = new CheckpointStore();
+        ReflectionTestUtils.setField(checkpointStore, "checkpointDir", temporaryFolder.getRoot().getPath());
+        ReflectionTestUtils.setField(target, "checkpointStore", checkpointStore);
+    }
+
+    /**
+     * 一定件数ごとに分割して登録されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvInChunks() throws Exception {
+        CsvReader csvReader = new CsvReaderImpl("src/test/java/jp/co/tis/logic/testData/weather.csv");
+        csvReader.open();
+        int insertCount = target.registerFromCsv(csvReader);
+        csvReader.close();
+
+        assertThat(insertCount, is(5));
+        assertThat(weatherDao.batchSizeList.size(), is(3));
+        assertThat(weatherDao.batchSizeList.get(0), is(2));
+        assertThat(weatherDao.batchSizeList.get(2), is(1));
+        assertThat(weatherDao.weatherList.get(0).getWeatherDate(), is("2015/01/01"));
+        assertThat(weatherDao.weatherList.get(3).getMinTemperature(), is("-1"));
+    }
+
+    /**
+     * データ部の形式に誤りがある場合、行番号付きの例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvInCaseOfFileFormatException() throws Exception {
+        CsvReader csvReader = new CsvReaderImpl("src/test/java/jp/co/tis/logic/testData/weatherFormatError.csv");
+        csvReader.open();
+        exception.expect(FileFormatException.class);
+        exception.expectMessage("3行目 ：ヘッダー部と項目数が異なっています。");
+        target.registerFromCsv(csvReader);
+    }
+
+    /**
+     * 日付・気温を解析できない行が存在する場合、行番号付きの例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvInCaseOfInvalidValue() throws Exception {
+        File file = temporaryFolder.newFile("weather.csv");
+        Files.write(file.toPath(), ("WEATHER_DATE,PLACE,WEATHER,MAX_TEMPERATURE,MIN_TEMPERATURE\n"
+                + "2015/01/01,東京,晴れ,10,2\n"
+                + "2015/01/02,東京,晴れ,10,x\n").getBytes(UTF_8));
+        CsvReader csvReader = new CsvReaderImpl(file.getPath(), UTF_8);
+        csvReader.open();
+        try {
+            target.registerFromCsv(csvReader, new IngestJob(null, null));
+            fail();
+        } catch (FileFormatException e) {
+            assertThat(e.getMessage(), is("3行目 ：最低気温は数値で入力してください。"));
+        } finally {
+            csvReader.close();
+        }
+    }
+
+    /**
+     * 日付は「yyyy/MM/dd」形式、気温は整数の形式にそろえて登録され、文字数の上限では拒否されないこと。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvNormalizesValues() throws Exception {
+        File file = temporaryFolder.newFile("weather.csv");
+        Files.write(file.toPath(), ("WEATHER_DATE,PLACE,WEATHER,MAX_TEMPERATURE,MIN_TEMPERATURE\n"
+                + "2015/1/2,東京都千代田区丸の内一丁目,晴れ,+05,-03\n"
+                + "2015/01/03,東京,,,\n").getBytes(UTF_8));
+        CsvReader csvReader = new CsvReaderImpl(file.getPath(), UTF_8);
+        csvReader.open();
+        try {
+            target.registerFromCsv(csvReader, new IngestJob(null, null));
+        } finally {
+            csvReader.close();
+        }
+
+        Weather weather = weatherDao.weatherList.get(0);
+        assertThat(weather.getWeatherDate(), is("2015/01/02"));
+        assertThat(weather.getPlace(), is("東京都千代田区丸の内一丁目"));
+        assertThat(weather.getMaxTemperature(), is("5"));
+        assertThat(weather.getMinTemperature(), is("-3"));
+        assertThat(weatherDao.weatherList.get(1).getMaxTemperature(), is(nullValue()));
+    }
+
+    /**
+     * 一時ファイルの天気が一定件数ごとに分割して登録されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromSpill() throws Exception {
+        File spillFile = temporaryFolder.newFile();
+        SpillFileWriter spillFileWriter = new SpillFileWriter(spillFile);
+        spillFileWriter.open();
+        spillFileWriter.write(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        spillFileWriter.write(new Weather("2015/01/01", "千葉", "曇り", "9", "1"));
+        spillFileWriter.write(new Weather("2015/01/02", "東京", "雨", "8", "3"));
+        spillFileWriter.close();
+
+        SpillFileReader spillFileReader = new SpillFileReader(spillFile);
+        spillFileReader.open();
+        IngestJob job = new IngestJob(null, null);
+        int insertCount = target.registerFromSpill(spillFileReader, job);
+        spillFileReader.close();
+
+        assertThat(insertCount, is(3));
+        assertThat(job.getRowsWritten(), is(3L));
+        assertThat(weatherDao.batchSizeList.size(), is(2));
+        assertThat(weatherDao.weatherList.get(2).getWeather(), is("雨"));
+    }
+
+    /**
+     * 一時ファイルからの登録が途中で失敗した場合、コミット済みの件数がプレビューに記録され、
+     * 再実行するとコミット済みの行を読み飛ばして続きから登録すること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromSpillWithCommitIntervalResumes() throws Exception {
+        File spillFile = temporaryFolder.newFile();
+        SpillFileWriter spillFileWriter = new SpillFileWriter(spillFile);
+        spillFileWriter.open();
+        spillFileWriter.write(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        spillFileWriter.write(new Weather("2015/01/01", "千葉", "曇り", "9", "1"));
+        spillFileWriter.write(new Weather("2015/01/02", "東京", "雨", "8", "3"));
+        spillFileWriter.close();
+        CsvPreview preview = new CsvPreview("preview1", null, spillFile, 2, 3, new long[] {5, 30});
+
+        weatherDao.failAt = 2;
+        SpillFileReader spillFileReader = new SpillFileReader(spillFile);
+        spillFileReader.open();
+        try {
+            target.registerFromSpillWithCommitInterval(spillFileReader, preview, new IngestJob(null, null));
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(preview.getCommittedRows(), is(2L));
+        } finally {
+            spillFileReader.close();
+        }
+
+        RecordingWeatherDao retryDao = new RecordingWeatherDao();
+        ReflectionTestUtils.setField(target, "weatherDao", retryDao);
+        IngestJob job = new IngestJob(null, null);
+        spillFileReader = new SpillFileReader(spillFile);
+        spillFileReader.open();
+        int insertCount = target.registerFromSpillWithCommitInterval(spillFileReader, preview, job);
+        spillFileReader.close();
+
+        assertThat(insertCount, is(1));
+        assertThat(job.getResumedRows(), is(2L));
+        assertThat(preview.getCommittedRows(), is(3L));
+        assertThat(retryDao.weatherList.get(0).getWeather(), is("雨"));
+    }
+
+    /**
+     * マージ登録で、一時ファイル内の重複を読み飛ばし、登録・更新・変更なしの件数を合計すること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testMergeFromSpill() throws Exception {
+        File spillFile = temporaryFolder.newFile();
+        SpillFileWriter spillFileWriter = new SpillFileWriter(spillFile);
+        spillFileWriter.open();
+        spillFileWriter.write(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        spillFileWriter.write(new Weather("2015/01/01", "千葉", "曇り", "9", "1"));
+        spillFileWriter.write(new Weather("2015/01/01", "東京", "雨", "8", "3"));
+        spillFileWriter.write(new Weather("2015/01/02", "東京", "雨", "8", "3"));
+        spillFileWriter.close();
+
+        IngestJob job = new IngestJob(null, null);
+        MergeResult result = target.mergeFromSpill(spillFile, job);
+
+        assertThat(result.getDuplicateCount(), is(1));
+        assertThat(result.getUpdateCount(), is(1));
+        assertThat(result.getUnchangedCount(), is(1));
+        assertThat(result.getInsertCount(), is(1));
+        assertThat(job.getRowsWritten(), is(2L));
+        assertThat(weatherDao.weatherList.size(), is(3));
+        assertThat(weatherDao.weatherList.get(0).getWeather(), is("晴れ"));
+    }
+
+    /**
+     * 差分登録で、一時ファイルの天気のうち登録済みのデータと内容が異なる行のみが書き込まれること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testMergeFromSpillInDiffMode() throws Exception {
+        ReflectionTestUtils.setField(target, "mode", "diff");
+        weatherDao.existingList.add(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        weatherDao.existingList.add(new Weather("2015/01/02", "東京", "雨", "8", "3"));
+        File spillFile = temporaryFolder.newFile();
+        SpillFileWriter spillFileWriter = new SpillFileWriter(spillFile);
+        spillFileWriter.open();
+        spillFileWriter.write(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        spillFileWriter.write(new Weather("2015/01/01", "千葉", "曇り", "9", "1"));
+        spillFileWriter.write(new Weather("2015/01/01", "東京", "雨", "8", "3"));
+        spillFileWriter.write(new Weather("2015/01/02", "東京", "雨", "8", "4"));
+        spillFileWriter.close();
+
+        IngestJob job = new IngestJob(null, null);
+        MergeResult result = target.mergeFromSpill(spillFile, job);
+
+        assertThat(weatherDao.rangeList.size(), is(1));
+        assertThat(weatherDao.rangeList.get(0), is("2015/01/01-2015/01/02"));
+        assertThat(result.getDuplicateCount(), is(1));
+        assertThat(result.getInsertCount(), is(1));
+        assertThat(result.getUpdateCount(), is(1));
+        assertThat(result.getUnchangedCount(), is(1));
+        assertThat(job.getRowsWritten(), is(2L));
+        assertThat(weatherDao.weatherList.get(0).getPlace(), is("千葉"));
+        assertThat(weatherDao.updatedList.get(0).getMinTemperature(), is("4"));
+        assertThat(spillFile.exists(), is(true));
+    }
+
+    /**
+     * ジョブに読み込み件数と登録件数が記録されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvWithJob() throws Exception {
+        CsvReader csvReader = new CsvReaderImpl("src/test/java/jp/co/tis/logic/testData/weather.csv");
+        csvReader.open();
+        IngestJob job = new IngestJob("job1", "weather.csv");
+        int insertCount = target.registerFromCsv(csvReader, job);
+        csvReader.close();
+
+        assertThat(insertCount, is(5));
+        assertThat(job.getRowsParsed(), is(5L));
+        assertThat(job.getRowsWritten(), is(5L));
+    }
+
+    /**
+     * ジョブの取り消しが要求されている場合、登録せずに中断すること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvInCaseOfCancel() throws Exception {
+        CsvReader csvReader = new CsvReaderImpl("src/test/java/jp/co/tis/logic/testData/weather.csv");
+        csvReader.open();
+        IngestJob job = new IngestJob("job1", "weather.csv");
+        job.requestCancel();
+        try {
+            target.registerFromCsv(csvReader, job);
+            fail();
+        } catch (CancellationException e) {
+            assertThat(e.getMessage(), is("登録が取り消されました。"));
+            assertThat(weatherDao.weatherList.isEmpty(), is(true));
+        } finally {
+            csvReader.close();
+        }
+    }
+
+    /**
+     * 途中で失敗した場合、再実行するとコミット済みの行を読み飛ばして続きから登録すること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvWithCheckpointResumes() throws Exception {
+        String csvPath = "src/test/java/jp/co/tis/logic/testData/weather.csv";
+        weatherDao.failAt = 2;
+        CsvReader csvReader = new CsvReaderImpl(csvPath, UTF_8);
+        csvReader.open();
+        try {
+            target.registerFromCsvWithCheckpoint(csvReader, csvPath, new IngestJob("job1", csvPath));
+            fail();
+        } catch (IllegalStateException e) {
+            IngestCheckpoint checkpoint = checkpointStore.load(csvPath);
+            assertThat(checkpoint.getCommittedRows(), is(2L));
+            assertThat(checkpoint.getLastRowOffset(), is(89L));
+            assertThat(checkpoint.getLastPlace(), is("千葉"));
+        } finally {
+            csvReader.close();
+        }
+
+        RecordingWeatherDao retryDao = new RecordingWeatherDao();
+        ReflectionTestUtils.setField(target, "weatherDao", retryDao);
+        IngestJob job = new IngestJob("job2", csvPath);
+        csvReader = new CsvReaderImpl(csvPath, UTF_8);
+        csvReader.open();
+        int insertCount = target.registerFromCsvWithCheckpoint(csvReader, csvPath, job);
+        csvReader.close();
+
+        assertThat(insertCount, is(3));
+        assertThat(job.getResumedRows(), is(2L));
+        assertThat(retryDao.weatherList.get(0).getWeatherDate(), is("2015/01/02"));
+        assertThat(retryDao.weatherList.get(0).getPlace(), is("東京"));
+        assertThat(checkpointStore.load(csvPath), is(nullValue()));
+    }
+
+    /**
+     * チェックポイントとファイルの内容が一致しない場合、登録せずに例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvWithCheckpointInCaseOfMismatch() throws Exception {
+        String csvPath = "src/test/java/jp/co/tis/logic/testData/weather.csv";
+        checkpointStore.save(csvPath, new IngestCheckpoint(2, 89, "2015/01/01", "東京"));
+        CsvReader csvReader = new CsvReaderImpl(csvPath, UTF_8);
+        csvReader.open();
+        try {
+            target.registerFromCsvWithCheckpoint(csvReader, csvPath, new IngestJob("job1", csvPath));
+            fail();
+        } catch (FileFormatException e) {
+            assertThat(e.getMessage(), is("チェックポイントとファイルの内容が一致しません。チェックポイントファイルを削除して再実行してください。"));
+            assertThat(weatherDao.weatherList.isEmpty(), is(true));
+        } finally {
+            csvReader.close();
+        }
+    }
+
+    /**
+     * 位置が記録されていないチェックポイントの場合、コミット済みの行を読み飛ばして続きから登録すること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvWithCheckpointWithoutOffset() throws Exception {
+        String csvPath = "src/test/java/jp/co/tis/logic/testData/weather.csv";
+        checkpointStore.save(csvPath, new IngestCheckpoint(4, -1, "2015/01/02", "千葉"));
+        CsvReader csvReader = new CsvReaderImpl(csvPath, UTF_8);
+        csvReader.open();
+        int insertCount = target.registerFromCsvWithCheckpoint(csvReader, csvPath, new IngestJob("job1", csvPath));
+        csvReader.close();
+
+        assertThat(insertCount, is(1));
+        assertThat(weatherDao.weatherList.get(0).getWeatherDate(), is("2015/01/03"));
+    }
+
+    /**
+     * マージ登録で、ファイル内の重複を読み飛ばし、登録・更新・変更なしの件数を合計すること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testMergeFromCsv() throws Exception {
+        CsvReader csvReader = new CsvReaderImpl("src/test/java/jp/co/tis/logic/testData/weatherDuplicate.csv", UTF_8);
+        csvReader.open();
+        IngestJob job = new IngestJob("job1", "weatherDuplicate.csv");
+        MergeResult result = target.mergeFromCsv(csvReader, job);
+        csvReader.close();
+
+        assertThat(result.getDuplicateCount(), is(1));
+        assertThat(result.getInsertCount(), is(2));
+        assertThat(result.getUpdateCount(), is(1));
+        assertThat(result.getUnchangedCount(), is(1));
+        assertThat(result.getTotalCount(), is(5));
+        assertThat(job.getRowsWritten(), is(3L));
+        // ファイル内で重複した場合は最初の行を採用する
+        assertThat(weatherDao.weatherList.get(0).getWeather(), is("晴れ"));
+        assertThat(weatherDao.weatherList.size(), is(4));
+    }
+
+    /**
+     * 差分登録で、登録済みのデータと内容が異なる行のみが書き込まれ、既存データは一度の範囲検索で取得されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testMergeFromCsvInDiffMode() throws Exception {
+        ReflectionTestUtils.setField(target, "mode", "diff");
+        weatherDao.existingList.add(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        weatherDao.existingList.add(new Weather("2015/01/01", "千葉", "曇り", "9", "0"));
+        weatherDao.existingList.add(new Weather("2015/01/02", "東京", "雨", "8", "3"));
+        weatherDao.existingList.add(new Weather("2015/01/05", "東京", "晴れ", "12", "4"));
+        CsvReader csvReader = new CsvReaderImpl("src/test/java/jp/co/tis/logic/testData/weatherDuplicate.csv", UTF_8);
+        csvReader.open();
+        IngestJob job = new IngestJob("job1", "weatherDuplicate.csv");
+        MergeResult result = target.mergeFromCsv(csvReader, job);
+        csvReader.close();
+
+        assertThat(target.isMergeMode(), is(true));
+        assertThat(weatherDao.rangeList.size(), is(1));
+        assertThat(weatherDao.rangeList.get(0), is("2015/01/01-2015/01/02"));
+        assertThat(result.getDuplicateCount(), is(1));
+        assertThat(result.getInsertCount(), is(1));
+        assertThat(result.getUpdateCount(), is(1));
+        assertThat(result.getUnchangedCount(), is(2));
+        assertThat(job.getRowsParsed(), is(4L));
+        assertThat(job.getRowsWritten(), is(2L));
+        assertThat(weatherDao.weatherList.size(), is(1));
+        assertThat(weatherDao.weatherList.get(0).getPlace(), is("千葉"));
+        assertThat(weatherDao.weatherList.get(0).getWeather(), is("雪"));
+        assertThat(weatherDao.updatedList.size(), is(1));
+        assertThat(weatherDao.updatedList.get(0).getMinTemperature(), is("1"));
+    }
+
+    /**
+     * 差分登録で、登録済みのデータと気温の表記が異なるだけの行は変更なしとなること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testMergeFromSpillInDiffModeInCaseOfSameTemperatureInOtherNotation() throws Exception {
+        ReflectionTestUtils.setField(target, "mode", "diff");
+        weatherDao.existingList.add(new Weather("2015/01/01", "東京", "晴れ", "5", "-3"));
+        File spillFile = temporaryFolder.newFile();
+        SpillFileWriter spillFileWriter = new SpillFileWriter(spillFile);
+        spillFileWriter.open();
+        spillFileWriter.write(new Weather("2015/01/01", "東京", "晴れ", "05", "-03"));
+        spillFileWriter.close();
+
+        MergeResult result = target.mergeFromSpill(spillFile, new IngestJob(null, null));
+
+        assertThat(result.getUnchangedCount(), is(1));
+        assertThat(weatherDao.updatedList.size(), is(0));
+    }
+
+    /**
+     * 内容のハッシュ値が、値がない項目と空文字列、項目の区切りを区別し、気温は表記によらず数値で比較されること。
+     */
+    @Test
+    public void testCreateContentHash() {
+        long hash = new Weather("2015/01/01", "東京", "晴れ", "10", "2").createContentHash();
+        assertThat(new Weather("2015/01/02", "千葉", "晴れ", "10", "2").createContentHash(), is(hash));
+        assertThat(new Weather("2015/01/01", "東京", "晴れ", "1", "02").createContentHash(), is(not(hash)));
+        assertThat(new Weather("2015/01/01", "東京", "晴れ", "+10", "02").createContentHash(), is(hash));
+        assertThat(new Weather("2015/01/01", "東京", "晴れ", "10", "-2").createContentHash(), is(not(hash)));
+        assertThat(new Weather(null, null, null, "", "").createContentHash(),
+                is(not(new Weather(null, null, "", null, "").createContentHash())));
+    }
+
+    /**
+     * パイプライン登録で、全ての行が順序どおりに一定件数ごとに登録され、段階ごとの統計が記録されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvInPipeline() throws Exception {
+        enablePipeline();
+        CsvReader csvReader = new CsvReaderImpl("src/test/java/jp/co/tis/logic/testData/weather.csv", UTF_8);
+        csvReader.open();
+        IngestJob job = new IngestJob(null, null);
+        try {
+            assertThat(target.registerFromCsv(csvReader, job), is(5));
+        } finally {
+            csvReader.close();
+            target.destroy();
+        }
+
+        assertThat(weatherDao.batchSizeList.size(), is(3));
+        assertThat(weatherDao.weatherList.get(0).getPlace(), is("東京"));
+        assertThat(weatherDao.weatherList.get(3).getMinTemperature(), is("-1"));
+        assertThat(weatherDao.weatherList.get(4).getWeatherDate(), is("2015/01/03"));
+        assertThat(job.getPipelineStats().getParseStage().getRows(), is(5L));
+        assertThat(job.getPipelineStats().getConvertStage().getRows(), is(5L));
+        assertThat(job.getPipelineStats().getWriteStage().getRows(), is(5L));
+    }
+
+    /**
+     * パイプライン登録で、データ部の形式に誤りがある場合、行番号付きの例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvInPipelineInCaseOfFileFormatException() throws Exception {
+        enablePipeline();
+        CsvReader csvReader = new CsvReaderImpl("src/test/java/jp/co/tis/logic/testData/weatherFormatError.csv", UTF_8);
+        csvReader.open();
+        try {
+            target.registerFromCsv(csvReader, new IngestJob(null, null));
+            fail();
+        } catch (FileFormatException e) {
+            assertThat(e.getMessage(), is("3行目 ：ヘッダー部と項目数が異なっています。"));
+        } finally {
+            csvReader.close();
+            target.destroy();
+        }
+    }
+
+    /**
+     * パイプライン登録で、日付・気温を解析できない行が存在する場合、解析段階で行番号付きの例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvInPipelineInCaseOfInvalidValue() throws Exception {
+        enablePipeline();
+        File file = temporaryFolder.newFile("weather.csv");
+        Files.write(file.toPath(), ("WEATHER_DATE,PLACE,WEATHER,MAX_TEMPERATURE,MIN_TEMPERATURE\n"
+                + "2015/01/01,東京,晴れ,10,2\n"
+                + "2015/01/01,千葉,曇り,9,1\n"
+                + "2015/02/30,東京,雨,8,1\n").getBytes(UTF_8));
+        CsvReader csvReader = new CsvReaderImpl(file.getPath(), UTF_8);
+        csvReader.open();
+        try {
+            target.registerFromCsv(csvReader, new IngestJob(null, null));
+            fail();
+        } catch (FileFormatException e) {
+            assertThat(e.getMessage(), is("4行目 ：日付は日付形式で入力してください。"));
+        } finally {
+            csvReader.close();
+            target.destroy();
+        }
+    }
+
+    /**
+     * パイプライン登録で、日付と気温が逐次登録と同じ形式にそろえて登録されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvInPipelineNormalizesValues() throws Exception {
+        enablePipeline();
+        File file = temporaryFolder.newFile("weather.csv");
+        Files.write(file.toPath(), ("WEATHER_DATE,PLACE,WEATHER,MAX_TEMPERATURE,MIN_TEMPERATURE\n"
+                + "2015/1/2,東京,晴れ,+05,-03\n").getBytes(UTF_8));
+        CsvReader csvReader = new CsvReaderImpl(file.getPath(), UTF_8);
+        csvReader.open();
+        try {
+            target.registerFromCsv(csvReader, new IngestJob(null, null));
+        } finally {
+            csvReader.close();
+            target.destroy();
+        }
+
+        Weather weather = weatherDao.weatherList.get(0);
+        assertThat(weather.getWeatherDate(), is("2015/01/02"));
+        assertThat(weather.getMaxTemperature(), is("5"));
+        assertThat(weather.getMinTemperature(), is("-3"));
+    }
+
+    /**
+     * パイプライン登録で、書き込みに失敗した場合、解析と変換の段階が止まり例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRegisterFromCsvInPipelineInCaseOfWriteFailure() throws Exception {
+        enablePipeline();
+        weatherDao.failAt = 2;
+        CsvReader csvReader = new CsvReaderImpl("src/test/java/jp/co/tis/logic/testData/weather.csv", UTF_8);
+        csvReader.open();
+        try {
+            target.registerFromCsv(csvReader, new IngestJob(null, null));
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("登録に失敗しました。"));
+        } finally {
+            csvReader.close();
+            target.destroy();
+        }
+        assertThat(weatherDao.weatherList.size(), is(2));
+    }
+
+    /**
+     * パイプライン登録を有効にする。段階間のキューは1バッチとし、待ち合わせが発生するようにする。
+     */
+    private void enablePipeline() {
+        ReflectionTestUtils.setField(target, "pipelineDepth", 1);
+        target.init();
+    }
+}
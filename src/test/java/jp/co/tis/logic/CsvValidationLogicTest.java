@@ -0,0 +1,181 @@
+package jp.co.tis.logic;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jp.co.tis.model.CsvValidationReport;
+import jp.co.tis.util.CsvReaderFactory;
+
+/**
+ * CsvValidationLogicをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class CsvValidationLogicTest {
+
+    /**
+     * ルール設定
+     */
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    /**
+     * 検証するCSVファイルの作成先
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /** CSVファイルのヘッダー行 */
+    private static final String HEADER = "WEATHER_DATE,PLACE,WEATHER,MAX_TEMPERATURE,MIN_TEMPERATURE\n";
+
+    /** テスト対象クラス */
+    private CsvValidationLogic target;
+
+    /**
+     * テスト対象クラスを準備する。
+     */
+    @Before
+    public void setUp() {
+        CsvReaderFactory csvReaderFactory = new CsvReaderFactory();
+        ReflectionTestUtils.setField(csvReaderFactory, "charsetName", "UTF-8");
+
+        target = new CsvValidationLogic();
+        ReflectionTestUtils.setField(target, "csvReaderFactory", csvReaderFactory);
+        ReflectionTestUtils.setField(target, "maxErrors", 1000);
+    }
+
+    /**
+     * 誤りのないファイルの場合、エラーがなく行数が数えられること。氷点下の気温は誤りとしないこと。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testValidate() throws Exception {
+        String filePath = writeCsv(HEADER + "2015/01/01,東京,晴れ,10,2\n2015/01/02,東京,雪,5,-1\n");
+
+        CsvValidationReport report = target.validate(filePath);
+
+        assertThat(report.isValid(), is(true));
+        assertThat(report.getRowCount(), is(2L));
+        assertThat(report.getErrorList().size(), is(0));
+    }
+
+    /**
+     * 形式の誤りの後の行も検証され、全ての行のエラーが行番号付きで返却されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testValidateInCaseOfMultipleErrors() throws Exception {
+        String filePath = writeCsv(HEADER
+                + "2015/01/01,東京,晴れ,10,2\n"
+                + "2015/01/02,東京,雨\n"
+                + "2015-01-03,東京,曇り,abc,2\n"
+                + "2015/01/04,東京都千代田区丸の内一丁目,晴れ,10,2\n"
+                + ",東京,晴れ,1000,2\n");
+
+        CsvValidationReport report = target.validate(filePath);
+
+        assertThat(report.isValid(), is(false));
+        assertThat(report.getRowCount(), is(5L));
+        assertThat(report.getErrorRowCount(), is(4L));
+        assertThat(report.getErrorCount(), is(6L));
+        assertThat(report.getErrorList().get(0), is("3行目 ：ヘッダー部と項目数が異なっています。"));
+        assertThat(report.getErrorList().get(1), is("4行目 ：日付は日付形式で入力してください。"));
+        assertThat(report.getErrorList().get(2), is("4行目 ：最高気温は数値で入力してください。"));
+        assertThat(report.getErrorList().get(3), is("5行目 ：場所は10文字以内で入力してください。"));
+        assertThat(report.getErrorList().get(4), is("6行目 ：日付は必ず入力してください。"));
+        assertThat(report.getErrorList().get(5), is("6行目 ：最高気温は3桁以内で入力してください。"));
+    }
+
+    /**
+     * エラーが上限件数を超えた場合、上限件数までのエラーのみ保持し、件数は全て数えること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testValidateInCaseOfTooManyErrors() throws Exception {
+        ReflectionTestUtils.setField(target, "maxErrors", 3);
+        StringBuilder builder = new StringBuilder(HEADER);
+        for (int i = 0; i < 10; i++) {
+            builder.append("2015/01/01,東京,晴れ,abc,2\n");
+        }
+        String filePath = writeCsv(builder.toString());
+
+        CsvValidationReport report = target.validate(filePath);
+
+        assertThat(report.getErrorList().size(), is(3));
+        assertThat(report.getErrorCount(), is(10L));
+        assertThat(report.getErrorRowCount(), is(10L));
+        assertThat(report.isTruncated(), is(true));
+        assertThat(report.getErrorList().get(2), is("4行目 ：最高気温は数値で入力してください。"));
+    }
+
+    /**
+     * ヘッダー部に必須の項目がない場合、データ部を検証せずにそのエラーのみ返却されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testValidateInCaseOfMissingHeaderItem() throws Exception {
+        String filePath = writeCsv("WEATHER_DATE,PLACE,WEATHER,MAX_TEMP,MIN_TEMPERATURE\n2015/01/01,東京,晴れ,abc,2\n");
+
+        CsvValidationReport report = target.validate(filePath);
+
+        assertThat(report.getErrorList().size(), is(1));
+        assertThat(report.getErrorList().get(0), is("ヘッダー行に項目「MAX_TEMPERATURE」が存在しません。"));
+        assertThat(report.getErrorRowCount(), is(0L));
+    }
+
+    /**
+     * データ行がない場合、エラーが返却されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testValidateInCaseOfNoData() throws Exception {
+        String filePath = writeCsv(HEADER);
+
+        CsvValidationReport report = target.validate(filePath);
+
+        assertThat(report.getRowCount(), is(0L));
+        assertThat(report.getErrorList().get(0), is("登録するデータが存在しません。"));
+    }
+
+    /**
+     * ファイルが存在しない場合、例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testValidateInCaseOfFileNotFound() throws Exception {
+        exception.expect(FileNotFoundException.class);
+        target.validate(new File(temporaryFolder.getRoot(), "notExists.csv").getPath());
+    }
+
+    /**
+     * CSVファイルを作成する。
+     *
+     * @param content ファイルの内容
+     * @return ファイルパス
+     * @throws Exception 例外。
+     */
+    private String writeCsv(String content) throws Exception {
+        File file = temporaryFolder.newFile("weather.csv");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file.getPath();
+    }
+}
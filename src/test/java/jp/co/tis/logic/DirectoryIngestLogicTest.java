@@ -0,0 +1,163 @@
+package jp.co.tis.logic;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jp.co.tis.logic.LogicTestSupport.CountingTransactionManager;
+import jp.co.tis.logic.LogicTestSupport.RecordingWeatherDao;
+import jp.co.tis.model.DirectoryIngestReport;
+import jp.co.tis.model.IngestJob;
+import jp.co.tis.util.CsvReaderFactory;
+
+/**
+ * DirectoryIngestLogicをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class DirectoryIngestLogicTest {
+
+    /**
+     * ルール設定
+     */
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    /**
+     * 登録するCSVファイルの作成先
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /** CSVファイルのヘッダー行 */
+    private static final String HEADER = "WEATHER_DATE,PLACE,WEATHER,MAX_TEMPERATURE,MIN_TEMPERATURE\n";
+
+    /** テスト対象クラス */
+    private DirectoryIngestLogic target;
+
+    /** 登録内容を記録するDAO */
+    private RecordingWeatherDao weatherDao;
+
+    /** コミットとロールバックを数えるトランザクションマネージャ */
+    private CountingTransactionManager transactionManager;
+
+    /**
+     * テスト対象クラスを準備する。
+     */
+    @Before
+    public void setUp() {
+        weatherDao = new RecordingWeatherDao();
+        transactionManager = new CountingTransactionManager();
+        CsvRegisterLogic csvRegisterLogic = new CsvRegisterLogic();
+        ReflectionTestUtils.setField(csvRegisterLogic, "weatherDao", weatherDao);
+        ReflectionTestUtils.setField(csvRegisterLogic, "chunkSize", 2);
+        ReflectionTestUtils.setField(csvRegisterLogic, "mode", "insert");
+        CsvReaderFactory csvReaderFactory = new CsvReaderFactory();
+        ReflectionTestUtils.setField(csvReaderFactory, "charsetName", "UTF-8");
+
+        target = new DirectoryIngestLogic();
+        ReflectionTestUtils.setField(target, "csvRegisterLogic", csvRegisterLogic);
+        ReflectionTestUtils.setField(target, "csvReaderFactory", csvReaderFactory);
+        ReflectionTestUtils.setField(target, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(target, "workers", 3);
+        target.init();
+    }
+
+    /**
+     * スレッドプールを終了する。
+     */
+    @After
+    public void tearDown() {
+        target.destroy();
+    }
+
+    /**
+     * ディレクトリ直下のCSVファイルがファイルごとのトランザクションで登録され、結果がファイル名順に集計されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testIngest() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            writeCsv(String.format("station%02d.csv", i), "2015/01/01,地点" + i + ",晴れ,10,2\n2015/01/02,地点" + i + ",雨,8,3\n");
+        }
+        writeCsv("readme.txt", "");
+        temporaryFolder.newFolder("archive.csv");
+
+        DirectoryIngestReport report = target.ingest(temporaryFolder.getRoot().getPath());
+
+        assertThat(report.getFileCount(), is(10));
+        assertThat(report.getCompletedCount(), is(10));
+        assertThat(report.getFailedCount(), is(0));
+        assertThat(report.getRowsWritten(), is(20L));
+        assertThat(report.getFileJobList().get(0).getFilePath(), is(new File(temporaryFolder.getRoot(), "station00.csv").getPath()));
+        assertThat(report.getFileJobList().get(9).getFilePath(), is(new File(temporaryFolder.getRoot(), "station09.csv").getPath()));
+        assertThat(weatherDao.weatherList.size(), is(20));
+        assertThat(transactionManager.commitCount.get(), is(10));
+        assertThat(transactionManager.rollbackCount.get(), is(0));
+    }
+
+    /**
+     * 形式に誤りのあるファイルと空のファイルのみロールバックされ、他のファイルは登録されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testIngestInCaseOfInvalidFile() throws Exception {
+        writeCsv("a.csv", "2015/01/01,東京,晴れ,10,2\n");
+        writeCsv("b.csv", "2015/01/01,千葉,曇り,9,1\n2015/01/02,千葉,雨\n");
+        writeCsv("c.csv", "");
+        writeCsv("d.csv", "2015/01/02,東京,雪,5,-1\n");
+
+        DirectoryIngestReport report = target.ingest(temporaryFolder.getRoot().getPath());
+
+        assertThat(report.getFileCount(), is(4));
+        assertThat(report.getCompletedCount(), is(2));
+        assertThat(report.getFailedCount(), is(2));
+        assertThat(report.getRowsWritten(), is(2L));
+        IngestJob formatErrorJob = report.getFileJobList().get(1);
+        assertThat(formatErrorJob.getStatus(), is(IngestJob.Status.FAILED));
+        assertThat(formatErrorJob.getErrorList().get(0), is("3行目 ：ヘッダー部と項目数が異なっています。"));
+        IngestJob emptyJob = report.getFileJobList().get(2);
+        assertThat(emptyJob.getStatus(), is(IngestJob.Status.FAILED));
+        assertThat(emptyJob.getErrorList().get(0), is("登録するデータが存在しません。"));
+        assertThat(report.getFileJobList().get(3).getStatus(), is(IngestJob.Status.COMPLETED));
+        assertThat(transactionManager.rollbackCount.get(), is(1));
+    }
+
+    /**
+     * ディレクトリが存在しない場合、例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testIngestInCaseOfDirectoryNotFound() throws Exception {
+        exception.expect(FileNotFoundException.class);
+        exception.expectMessage("ディレクトリが存在しません。");
+        target.ingest(new File(temporaryFolder.getRoot(), "notExists").getPath());
+    }
+
+    /**
+     * ヘッダー行を付けてCSVファイルを作成する。
+     *
+     * @param fileName ファイル名
+     * @param rows データ行
+     * @throws Exception 例外。
+     */
+    private void writeCsv(String fileName, String rows) throws Exception {
+        Files.write(new File(temporaryFolder.getRoot(), fileName).toPath(), (HEADER + rows).getBytes(StandardCharsets.UTF_8));
+    }
+}
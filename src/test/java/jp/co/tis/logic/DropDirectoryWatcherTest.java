@@ -0,0 +1,254 @@
+package jp.co.tis.logic;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jp.co.tis.logic.LogicTestSupport.NoOpTransactionManager;
+import jp.co.tis.logic.LogicTestSupport.RecordingWeatherDao;
+import jp.co.tis.util.CheckpointStore;
+import jp.co.tis.util.CsvReaderFactory;
+
+/**
+ * DropDirectoryWatcherをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class DropDirectoryWatcherTest {
+
+    /**
+     * 監視ディレクトリとチェックポイントの保存先
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /** CSVファイルのヘッダー行 */
+    private static final String HEADER = "WEATHER_DATE,PLACE,WEATHER,MAX_TEMPERATURE,MIN_TEMPERATURE\n";
+
+    /** テスト対象クラス */
+    private DropDirectoryWatcher target;
+
+    /** 登録内容を記録するDAO */
+    private RecordingWeatherDao weatherDao;
+
+    /** 監視ディレクトリ */
+    private File watchDir;
+
+    /** チェックポイントの保存先 */
+    private File checkpointDir;
+
+    /**
+     * テスト対象クラスを準備する。
+     *
+     * @throws Exception 例外。
+     */
+    @Before
+    public void setUp() throws Exception {
+        watchDir = temporaryFolder.newFolder("watch");
+        checkpointDir = temporaryFolder.newFolder("checkpoint");
+        weatherDao = new RecordingWeatherDao();
+        target = createWatcher();
+    }
+
+    /**
+     * 追記された行のみが登録され、変更のないファイルは読み込まれないこと。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testIngestAppendedRows() throws Exception {
+        File file = new File(watchDir, "tokyo.csv");
+        append(file, HEADER + "2015/01/01,東京,晴れ,10,2\n2015/01/02,東京,雨,8,3\n2015/01/03,東京,曇り,9,1\n");
+
+        assertThat(target.ingest(file), is(3));
+        assertThat(target.ingest(file), is(0));
+
+        append(file, "2015/01/04,東京,雪,5,-1\n");
+        assertThat(target.ingest(file), is(1));
+        assertThat(weatherDao.weatherList.size(), is(4));
+        assertThat(weatherDao.weatherList.get(3).getWeatherDate(), is("2015/01/04"));
+    }
+
+    /**
+     * 書き込み途中の行は登録されず、行が完成した後に登録されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testIngestInCaseOfIncompleteLine() throws Exception {
+        File file = new File(watchDir, "tokyo.csv");
+        append(file, HEADER + "2015/01/01,東京,晴れ,10,2\n2015/01/02,東");
+        assertThat(target.ingest(file), is(1));
+
+        // 項目数は揃っているが値が途中の行
+        append(file, "京,雨,8,3\n2015/01/03,東京,曇り,12,1");
+        assertThat(target.ingest(file), is(1));
+        assertThat(weatherDao.weatherList.get(1).getPlace(), is("東京"));
+
+        append(file, "0\n");
+        assertThat(target.ingest(file), is(1));
+        assertThat(weatherDao.weatherList.size(), is(3));
+        assertThat(weatherDao.weatherList.get(2).getMinTemperature(), is("10"));
+    }
+
+    /**
+     * 再起動後は、チェックポイント以降に追記された行のみが登録されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testIngestAfterRestart() throws Exception {
+        File file = new File(watchDir, "tokyo.csv");
+        append(file, HEADER + "2015/01/01,東京,晴れ,10,2\n2015/01/02,東京,雨,8,3\n2015/01/03,東京,曇り,9,1\n");
+        assertThat(target.ingest(file), is(3));
+
+        append(file, "2015/01/04,東京,雪,5,-1\n");
+        DropDirectoryWatcher restarted = createWatcher();
+        restarted.scanAll();
+        assertThat(weatherDao.weatherList.size(), is(4));
+        assertThat(weatherDao.weatherList.get(3).getWeatherDate(), is("2015/01/04"));
+    }
+
+    /**
+     * 登録済みの行と内容が異なるファイルに置き換えられた場合、登録されずにエラーディレクトリに移動され、
+     * その後に同じ名前で作成されたファイルは先頭から登録されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testIngestInCaseOfReplacedFile() throws Exception {
+        File file = new File(watchDir, "tokyo.csv");
+        append(file, HEADER + "2015/01/01,東京,晴れ,10,2\n2015/01/02,東京,雨,8,3\n");
+        assertThat(target.ingest(file), is(2));
+
+        Files.delete(file.toPath());
+        append(file, HEADER + "2016/01/01,千葉,晴れ,10,2\n2016/01/02,千葉,雨,8,3\n2016/01/03,千葉,曇り,9,1\n");
+        assertThat(target.ingest(file), is(0));
+        assertThat(weatherDao.weatherList.size(), is(2));
+        assertThat(file.exists(), is(false));
+        assertThat(new File(new File(watchDir, "error"), "tokyo.csv").isFile(), is(true));
+
+        append(file, HEADER + "2016/01/04,東京,晴れ,10,2\n");
+        assertThat(target.ingest(file), is(1));
+        assertThat(weatherDao.weatherList.get(2).getWeatherDate(), is("2016/01/04"));
+    }
+
+    /**
+     * 最後に登録した行の位置までファイルが切り詰められた場合、先頭から登録されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testIngestInCaseOfTruncatedFile() throws Exception {
+        File file = new File(watchDir, "tokyo.csv");
+        append(file, HEADER + "2015/01/01,東京,晴れ,10,2\n2015/01/02,東京,雨,8,3\n2015/01/03,東京,曇り,9,1\n");
+        assertThat(target.ingest(file), is(3));
+
+        Files.write(file.toPath(), (HEADER + "2015/02/01,東京,晴れ,10,2\n").getBytes(StandardCharsets.UTF_8));
+        assertThat(target.ingest(file), is(1));
+        append(file, "2015/02/02,東京,雨,8,3\n");
+        assertThat(target.ingest(file), is(1));
+        assertThat(weatherDao.weatherList.size(), is(5));
+        assertThat(weatherDao.weatherList.get(4).getWeatherDate(), is("2015/02/02"));
+    }
+
+    /**
+     * 形式に誤りのある行が追記された場合、ファイルがエラーディレクトリに移動され、登録が繰り返されないこと。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testIngestInCaseOfInvalidRow() throws Exception {
+        File file = new File(watchDir, "tokyo.csv");
+        append(file, HEADER + "2015/01/01,東京,晴れ,10,2\n2015/01/02,東京,雨,8,3\n");
+        assertThat(target.ingest(file), is(2));
+
+        append(file, "2015/01/03,東京,曇り,abc,1\n2015/01/04,東京,雪,5,-1\n");
+        assertThat(target.ingest(file), is(0));
+        assertThat(file.exists(), is(false));
+        assertThat(new File(new File(watchDir, "error"), "tokyo.csv").isFile(), is(true));
+        assertThat(target.ingest(file), is(0));
+        assertThat(weatherDao.weatherList.size(), is(2));
+
+        append(file, HEADER + "2015/01/04,東京,雪,5,-1\n");
+        target.scanAll();
+        assertThat(weatherDao.weatherList.size(), is(3));
+    }
+
+    /**
+     * csv形式でないファイルとヘッダー行の書き込み中のファイルは登録されないこと。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testIngestInCaseOfIgnoredFile() throws Exception {
+        File text = new File(watchDir, "readme.txt");
+        append(text, HEADER + "2015/01/01,東京,晴れ,10,2\n");
+        File header = new File(watchDir, "chiba.csv");
+        append(header, "WEATHER_DATE,PLACE,WEA");
+
+        assertThat(target.ingest(text), is(0));
+        assertThat(target.ingest(header), is(0));
+        assertThat(weatherDao.weatherList.size(), is(0));
+    }
+
+    /**
+     * 最後の改行の直後の位置が求められること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testFindCompleteLength() throws Exception {
+        File file = new File(watchDir, "tokyo.csv");
+        append(file, "abc\r\ndef");
+        assertThat(target.findCompleteLength(file, file.length()), is(5L));
+        assertThat(target.findCompleteLength(file, 4), is(4L));
+        assertThat(target.findCompleteLength(file, 3), is(0L));
+    }
+
+    /**
+     * テスト対象クラスを生成する。
+     *
+     * @return テスト対象クラス
+     */
+    private DropDirectoryWatcher createWatcher() {
+        CsvRegisterLogic csvRegisterLogic = new CsvRegisterLogic();
+        ReflectionTestUtils.setField(csvRegisterLogic, "weatherDao", weatherDao);
+        ReflectionTestUtils.setField(csvRegisterLogic, "chunkSize", 2);
+        ReflectionTestUtils.setField(csvRegisterLogic, "transactionManager", new NoOpTransactionManager());
+        CheckpointStore checkpointStore = new CheckpointStore();
+        ReflectionTestUtils.setField(checkpointStore, "checkpointDir", checkpointDir.getPath());
+        ReflectionTestUtils.setField(csvRegisterLogic, "checkpointStore", checkpointStore);
+        CsvReaderFactory csvReaderFactory = new CsvReaderFactory();
+        ReflectionTestUtils.setField(csvReaderFactory, "charsetName", "UTF-8");
+
+        DropDirectoryWatcher watcher = new DropDirectoryWatcher();
+        ReflectionTestUtils.setField(watcher, "csvRegisterLogic", csvRegisterLogic);
+        ReflectionTestUtils.setField(watcher, "csvReaderFactory", csvReaderFactory);
+        ReflectionTestUtils.setField(watcher, "checkpointStore", checkpointStore);
+        ReflectionTestUtils.setField(watcher, "watchDir", watchDir.getPath());
+        return watcher;
+    }
+
+    /**
+     * ファイルに追記する。
+     *
+     * @param file ファイル
+     * @param text 追記する文字列
+     * @throws Exception 例外。
+     */
+    private void append(File file, String text) throws Exception {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,193 @@
+package jp.co.tis.logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import jp.co.tis.model.MergeResult;
+import jp.co.tis.model.Weather;
+import jp.co.tis.model.WeatherDao;
+
+/**
+ * ロジッククラスのテストで共通に使用するテスト用のクラスをまとめたクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+final class LogicTestSupport {
+
+    /**
+     * インスタンス化させないためのコンストラクタ。
+     */
+    private LogicTestSupport() {
+    }
+
+    /**
+     * 登録内容を記録するDAO。<br/>
+     * 複数のスレッドから登録されることがあるため、登録内容のリストは同期化する。
+     */
+    static class RecordingWeatherDao extends WeatherDao {
+
+        /** 登録された天気のリスト */
+        final List<Weather> weatherList = Collections.synchronizedList(new ArrayList<Weather>());
+
+        /** バッチごとの件数のリスト */
+        final List<Integer> batchSizeList = Collections.synchronizedList(new ArrayList<Integer>());
+
+        /** 失敗させるバッチの番号（1始まり。0の場合は失敗させない） */
+        int failAt;
+
+        /** 差分登録の比較対象とする登録済みの天気のリスト */
+        final List<Weather> existingList = new ArrayList<Weather>();
+
+        /** 範囲検索した日付の範囲のリスト */
+        final List<String> rangeList = new ArrayList<String>();
+
+        /** 更新された天気のリスト */
+        final List<Weather> updatedList = new ArrayList<Weather>();
+
+        @Override
+        public int batchInsert(List<Weather> weatherList) {
+            if (batchSizeList.size() + 1 == failAt) {
+                throw new IllegalStateException("登録に失敗しました。");
+            }
+            this.weatherList.addAll(weatherList);
+            batchSizeList.add(weatherList.size());
+            return weatherList.size();
+        }
+
+        @Override
+        public int batchUpdate(List<Weather> weatherList) {
+            updatedList.addAll(weatherList);
+            return weatherList.size();
+        }
+
+        @Override
+        public Map<String, Long> findContentHashMap(String fromDate, String toDate) {
+            rangeList.add(fromDate + "-" + toDate);
+            Map<String, Long> contentHashMap = new HashMap<String, Long>();
+            for (Weather existing : existingList) {
+                if (existing.getWeatherDate().compareTo(fromDate) >= 0 && existing.getWeatherDate().compareTo(toDate) <= 0) {
+                    contentHashMap.put(existing.createKey(), existing.createContentHash());
+                }
+            }
+            return contentHashMap;
+        }
+
+        /**
+         * 一件目を更新、二件目を変更なし、残りを登録として扱う。
+         */
+        @Override
+        public MergeResult batchMerge(List<Weather> weatherList) {
+            MergeResult result = new MergeResult();
+            for (Weather weather : weatherList) {
+                if (this.weatherList.size() == 0) {
+                    result.addUpdateCount(1);
+                } else if (this.weatherList.size() == 1) {
+                    result.addUnchangedCount(1);
+                } else {
+                    result.addInsertCount(1);
+                }
+                this.weatherList.add(weather);
+            }
+            batchSizeList.add(weatherList.size());
+            return result;
+        }
+    }
+
+    /**
+     * 何もしないトランザクションマネージャ。
+     */
+    static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    /**
+     * コミットとロールバックの回数を数えるトランザクションマネージャ。<br/>
+     * 複数のスレッドからトランザクションが開始されることがあるため、回数は原子的に数える。
+     */
+    static class CountingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private static final long serialVersionUID = 1L;
+
+        /** コミット回数 */
+        final AtomicInteger commitCount = new AtomicInteger();
+
+        /** ロールバック回数 */
+        final AtomicInteger rollbackCount = new AtomicInteger();
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commitCount.incrementAndGet();
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbackCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * データベースに接続せず、書き込み件数を1件として返却するNamedParameterJdbcTemplate。
+     */
+    static class NoOpJdbcTemplate extends NamedParameterJdbcTemplate {
+
+        /**
+         * コンストラクタ。
+         */
+        NoOpJdbcTemplate() {
+            super(new JdbcTemplate());
+        }
+
+        @Override
+        public int update(String sql, Map<String, ?> paramMap) {
+            return 1;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, SqlParameterSource[] batchArgs) {
+            int[] updateCounts = new int[batchArgs.length];
+            for (int i = 0; i < updateCounts.length; i++) {
+                updateCounts[i] = 1;
+            }
+            return updateCounts;
+        }
+    }
+}
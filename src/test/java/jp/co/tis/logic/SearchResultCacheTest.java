@@ -0,0 +1,258 @@
+package jp.co.tis.logic;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import jp.co.tis.logic.LogicTestSupport.NoOpJdbcTemplate;
+import jp.co.tis.model.SearchCacheStatistics;
+import jp.co.tis.model.Weather;
+import jp.co.tis.model.WeatherDao;
+import jp.co.tis.model.WeatherDataVersion;
+
+/**
+ * SearchResultCacheをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class SearchResultCacheTest {
+
+    /** 検索に使用するSQL */
+    private static final String SELECT_SQL = "SELECT * FROM WEATHER WHERE WEATHER_DATE = :weatherDate and PLACE = :place";
+
+    /**
+     * ルール設定
+     */
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    /** テスト対象クラス */
+    private SearchResultCache target;
+
+    /** 天気テーブルのデータのバージョン */
+    private WeatherDataVersion dataVersion;
+
+    /** 検索回数を数えるDAO */
+    private CountingWeatherDao weatherDao;
+
+    /**
+     * テスト対象クラスを準備する。
+     */
+    @Before
+    public void setUp() {
+        dataVersion = new WeatherDataVersion();
+        weatherDao = new CountingWeatherDao();
+        ReflectionTestUtils.setField(weatherDao, "jdbcTemplate", new NoOpJdbcTemplate());
+        ReflectionTestUtils.setField(weatherDao, "dataVersion", dataVersion);
+        ReflectionTestUtils.setField(weatherDao, "batchSize", 1000);
+        target = new SearchResultCache();
+        ReflectionTestUtils.setField(target, "weatherDao", weatherDao);
+        ReflectionTestUtils.setField(target, "dataVersion", dataVersion);
+        ReflectionTestUtils.setField(target, "maxEntries", 100);
+        ReflectionTestUtils.setField(target, "ttlSeconds", 300L);
+    }
+
+    /**
+     * 項目の順序や未入力の項目が異なっても同じ検索条件の場合、2回目はデータベースを検索せずに同じ検索結果が返却されること。
+     */
+    @Test
+    public void testFindBySqlInCaseOfHit() {
+        Map<String, String> condition1 = new LinkedHashMap<String, String>();
+        condition1.put("weatherDate", "2015/01/01");
+        condition1.put("place", "東京");
+        condition1.put("weather", null);
+        Map<String, String> condition2 = new LinkedHashMap<String, String>();
+        condition2.put("place", "東京");
+        condition2.put("weather", "");
+        condition2.put("weatherDate", "2015/01/01");
+
+        List<Weather> weatherList = target.findBySql(SELECT_SQL, condition1);
+        assertThat(target.findBySql(SELECT_SQL, condition2), is(sameInstance(weatherList)));
+        assertThat(weatherDao.findCount, is(1));
+
+        SearchCacheStatistics statistics = target.getStatistics();
+        assertThat(statistics.getHitCount(), is(1L));
+        assertThat(statistics.getMissCount(), is(1L));
+        assertThat(statistics.getHitRate(), is(0.5));
+        assertThat(statistics.getSize(), is(1));
+    }
+
+    /**
+     * 検索条件の値が異なる場合、データベースを検索すること。
+     */
+    @Test
+    public void testFindBySqlInCaseOfDifferentCondition() {
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "千葉"));
+
+        assertThat(weatherDao.findCount, is(2));
+        assertThat(target.getStatistics().getMissCount(), is(2L));
+    }
+
+    /**
+     * 登録・更新・削除を行った後は、保持している検索結果を使用せずにデータベースを検索すること。
+     */
+    @Test
+    public void testFindBySqlInCaseOfWrite() {
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+        weatherDao.insert("INSERT INTO WEATHER VALUES ('2015/01/01', '東京', '晴れ', '10', '2')");
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+        weatherDao.update("UPDATE WEATHER SET WEATHER = '雨'");
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+        weatherDao.delete("DELETE FROM WEATHER");
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+        List<Weather> weatherList = new ArrayList<Weather>();
+        weatherList.add(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        weatherDao.batchInsert(weatherList);
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+        weatherDao.batchUpdate(weatherList);
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+
+        assertThat(weatherDao.findCount, is(6));
+        SearchCacheStatistics statistics = target.getStatistics();
+        assertThat(statistics.getHitCount(), is(0L));
+        assertThat(statistics.getInvalidationCount(), is(5L));
+        assertThat(statistics.getDataVersion(), is(5L));
+    }
+
+    /**
+     * トランザクション内で書き込んだ場合、トランザクションの終了後にもデータのバージョンが進むこと。
+     */
+    @Test
+    public void testDataVersionInCaseOfTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dataVersion.increment();
+            assertThat(dataVersion.get(), is(1L));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+            assertThat(dataVersion.get(), is(2L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * トランザクション内で複数回書き込んだ場合でも、トランザクションの終了後に進める処理は1つだけ登録されること。
+     */
+    @Test
+    public void testDataVersionInCaseOfMultipleWritesInTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dataVersion.increment();
+            dataVersion.increment();
+            dataVersion.increment();
+            assertThat(dataVersion.get(), is(3L));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertThat(synchronizations.size(), is(1));
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+            assertThat(dataVersion.get(), is(4L));
+            assertThat(TransactionSynchronizationManager.hasResource(dataVersion), is(false));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * 保持する件数の上限を超えた場合、最も長く参照されていない検索結果が破棄されること。
+     */
+    @Test
+    public void testFindBySqlInCaseOfMaxEntries() {
+        ReflectionTestUtils.setField(target, "maxEntries", 2);
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "千葉"));
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "埼玉"));
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "千葉"));
+
+        assertThat(weatherDao.findCount, is(4));
+        SearchCacheStatistics statistics = target.getStatistics();
+        assertThat(statistics.getHitCount(), is(2L));
+        assertThat(statistics.getEvictionCount(), is(2L));
+        assertThat(statistics.getSize(), is(2));
+    }
+
+    /**
+     * 有効期限を過ぎた場合、データベースを検索すること。
+     */
+    @Test
+    public void testFindBySqlInCaseOfExpired() {
+        ReflectionTestUtils.setField(target, "ttlSeconds", 0L);
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+
+        assertThat(weatherDao.findCount, is(2));
+        assertThat(target.getStatistics().getEvictionCount(), is(1L));
+    }
+
+    /**
+     * 保持する件数の上限が0の場合、常にデータベースを検索すること。
+     */
+    @Test
+    public void testFindBySqlInCaseOfDisabled() {
+        ReflectionTestUtils.setField(target, "maxEntries", 0);
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+        target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+
+        assertThat(weatherDao.findCount, is(2));
+        assertThat(target.getStatistics().getSize(), is(0));
+    }
+
+    /**
+     * 返却した検索結果は変更できないこと。
+     */
+    @Test
+    public void testFindBySqlUnmodifiable() {
+        List<Weather> weatherList = target.findBySql(SELECT_SQL, createCondition("2015/01/01", "東京"));
+
+        exception.expect(UnsupportedOperationException.class);
+        weatherList.add(new Weather());
+    }
+
+    /**
+     * 検索条件を作成する。
+     *
+     * @param weatherDate 日付
+     * @param place 場所
+     * @return 検索条件
+     */
+    private Map<String, String> createCondition(String weatherDate, String place) {
+        Map<String, String> condition = new HashMap<String, String>();
+        condition.put("weatherDate", weatherDate);
+        condition.put("place", place);
+        return condition;
+    }
+
+    /**
+     * 検索回数を数え、検索条件の日付と場所の天気を1件返却するDAO。
+     */
+    private static class CountingWeatherDao extends WeatherDao {
+
+        /** 検索回数 */
+        private int findCount;
+
+        @Override
+        public List<Weather> findBySql(String selectSql, Map<String, String> condition) {
+            findCount++;
+            List<Weather> weatherList = new ArrayList<Weather>();
+            weatherList.add(new Weather(condition.get("weatherDate"), condition.get("place"), "晴れ", "10", "2"));
+            return weatherList;
+        }
+    }
+}
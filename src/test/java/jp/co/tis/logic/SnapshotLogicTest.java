@@ -0,0 +1,162 @@
+package jp.co.tis.logic;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.logic.LogicTestSupport.CountingTransactionManager;
+import jp.co.tis.model.SnapshotReport;
+import jp.co.tis.model.Weather;
+import jp.co.tis.model.WeatherDao;
+import jp.co.tis.model.WeatherHandler;
+
+/**
+ * SnapshotLogicをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class SnapshotLogicTest {
+
+    /**
+     * ルール設定
+     */
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    /**
+     * スナップショットの作成先
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /** テスト対象クラス */
+    private SnapshotLogic target;
+
+    /** 天気テーブルの代わりとなるDAO */
+    private InMemoryWeatherDao weatherDao;
+
+    /** コミット回数を数えるトランザクションマネージャ */
+    private CountingTransactionManager transactionManager;
+
+    /**
+     * テスト対象クラスを準備する。
+     */
+    @Before
+    public void setUp() {
+        weatherDao = new InMemoryWeatherDao();
+        transactionManager = new CountingTransactionManager();
+        target = new SnapshotLogic();
+        ReflectionTestUtils.setField(target, "weatherDao", weatherDao);
+        ReflectionTestUtils.setField(target, "transactionManager", transactionManager);
+    }
+
+    /**
+     * 保存したスナップショットから、全件が同じ内容で復元されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testExportAndRestore() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            weatherDao.tableList.add(new Weather("2015/01/01", "地点" + (i % 50), i % 2 == 0 ? "晴れ" : "雨", Integer.toString(i % 40),
+                    Integer.toString(i % 20 - 5)));
+        }
+        List<Weather> exportedList = new ArrayList<Weather>(weatherDao.tableList);
+        String filePath = new File(temporaryFolder.getRoot(), "weather.snapshot").getPath();
+
+        SnapshotReport exportReport = target.export(filePath);
+        assertThat(exportReport.getRowCount(), is(1000L));
+        assertThat(exportReport.getFileSize(), is(new File(filePath).length()));
+        assertThat(temporaryFolder.getRoot().list().length, is(1));
+
+        weatherDao.tableList.clear();
+        SnapshotReport restoreReport = target.restore(filePath);
+        assertThat(restoreReport.getRowCount(), is(1000L));
+        assertThat(weatherDao.tableList.size(), is(1000));
+        assertThat(transactionManager.commitCount.get(), is(1));
+        for (int i = 0; i < exportedList.size(); i++) {
+            assertThat(weatherDao.tableList.get(i).createKey(), is(exportedList.get(i).createKey()));
+            assertThat(weatherDao.tableList.get(i).createContentHash(), is(exportedList.get(i).createContentHash()));
+        }
+    }
+
+    /**
+     * スナップショットに保存できない値がある場合、例外が送出され、保存先のファイルも一時ファイルも残らないこと。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testExportInCaseOfNonCanonicalValue() throws Exception {
+        weatherDao.tableList.add(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        weatherDao.tableList.add(new Weather("2015/01/02", "東京", "晴れ", "1.5", "2"));
+        File file = new File(temporaryFolder.getRoot(), "weather.snapshot");
+
+        try {
+            target.export(file.getPath());
+            throw new AssertionError("例外が送出されていません。");
+        } catch (FileFormatException e) {
+            assertThat(e.getMessage(), is("最高気温「1.5」はスナップショットに保存できません。（日付：2015/01/02、場所：東京）"));
+        }
+        assertThat(temporaryFolder.getRoot().list().length, is(0));
+    }
+
+    /**
+     * 保存先のディレクトリが存在しない場合、例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testExportInCaseOfDirectoryNotFound() throws Exception {
+        exception.expect(FileNotFoundException.class);
+        exception.expectMessage("保存先のディレクトリが存在しません。");
+        target.export(new File(new File(temporaryFolder.getRoot(), "notExists"), "weather.snapshot").getPath());
+    }
+
+    /**
+     * スナップショットが存在しない場合、例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testRestoreInCaseOfFileNotFound() throws Exception {
+        exception.expect(FileNotFoundException.class);
+        exception.expectMessage("ファイルが存在しません。");
+        target.restore(new File(temporaryFolder.getRoot(), "notExists.snapshot").getPath());
+    }
+
+    /**
+     * 天気テーブルの代わりにリストを検索・登録するDAO。
+     */
+    private static class InMemoryWeatherDao extends WeatherDao {
+
+        /** 天気テーブルの内容 */
+        private List<Weather> tableList = new ArrayList<Weather>();
+
+        @Override
+        public long findAll(WeatherHandler handler) {
+            for (Weather weather : tableList) {
+                handler.handle(weather);
+            }
+            return tableList.size();
+        }
+
+        @Override
+        public int batchInsert(List<Weather> weatherList) {
+            tableList.addAll(weatherList);
+            return weatherList.size();
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import jp.co.tis.App;
 import jp.co.tis.form.WeatherSearchForm;
 import jp.co.tis.model.Weather;
+import jp.co.tis.util.SearchCursor;
 
 /**
  * 天気予報コントローラのテスト。
@@ -237,6 +238,61 @@ public class WeatherLogicTest {
         assertThat(resultCondition.get("minTemperature"), is("0"));
     }
 
+    /**
+     * SQLテスト。(入力された項目の組み合わせが同じ場合、値が異なっていても同じSQLのインスタンスが返却されること)
+     */
+    @Test
+    public void testSqlTemplateReuse() {
+        WeatherSearchForm form1 = new WeatherSearchForm();
+        form1.setWeatherDateFrom("2015/01/01");
+        form1.setPlace("東京");
+        form1.setWeather("晴れ,雨");
+        WeatherSearchForm form2 = new WeatherSearchForm();
+        form2.setWeatherDateFrom("2016/12/31");
+        form2.setPlace("千葉");
+        form2.setWeather("曇り,雪");
+
+        assertThat(target.createSqlForSearchHard(form2), is(sameInstance(target.createSqlForSearchHard(form1))));
+        assertThat(target.createSqlForSearchHard(form1),
+                is("SELECT * FROM WEATHER WHERE WEATHER_DATE >= :weatherDateFrom and PLACE = :place and (WEATHER = :weather OR WEATHER = :weather2)"));
+
+        form2.setWeather("曇り");
+        assertThat(target.createSqlForSearchHard(form2),
+                is("SELECT * FROM WEATHER WHERE WEATHER_DATE >= :weatherDateFrom and PLACE = :place and (WEATHER = :weather)"));
+    }
+
+    /**
+     * SQLテスト。(入力された項目の全ての組み合わせで、組み合わせごとに作成したSQLと同じSQLが返却されること)
+     */
+    @Test
+    public void testSqlTemplateAllCombinations() {
+        String[] weathers = {null, ",", "晴れ", "晴れ,雨", "晴れ,雨,雪", "晴れ,雨,雪,曇り", "雨,雨,雨,雨,雨"};
+        SearchCursor[] cursors = {null, new SearchCursor(true, "2015/01/01", "東京"), new SearchCursor(false, "2015/01/01", "東京")};
+        for (int mask = 0; mask < 1 << 7; mask++) {
+            for (String weather : weathers) {
+                WeatherSearchForm form = new WeatherSearchForm();
+                form.setWeatherDateFrom((mask & 1) == 0 ? null : "2015/01/01");
+                form.setWeatherDateTo((mask & 1 << 1) == 0 ? null : "2015/12/31");
+                form.setPlace((mask & 1 << 2) == 0 ? null : "東京");
+                form.setWeather(weather);
+                form.setMaxTemperatureFrom((mask & 1 << 3) == 0 ? null : "10");
+                form.setMaxTemperatureTo((mask & 1 << 4) == 0 ? null : "30");
+                form.setMinTemperatureFrom((mask & 1 << 5) == 0 ? null : "-5");
+                form.setMinTemperatureTo((mask & 1 << 6) == 0 ? null : "10");
+                form.setWeatherDate(form.getWeatherDateFrom());
+                form.setMaxTemperature(form.getMaxTemperatureFrom());
+                form.setMinTemperature(form.getMinTemperatureFrom());
+
+                assertThat(target.createSqlForSearch(form), is(new WeatherLogic().createSqlForSearch(form)));
+                assertThat(target.createSqlForSearchHard(form), is(new WeatherLogic().createSqlForSearchHard(form)));
+                for (SearchCursor cursor : cursors) {
+                    assertThat(target.createSqlForSearchHardPage(form, cursor, 101), is(new WeatherLogic().createSqlForSearchHardPage(form, cursor, 101)));
+                    assertThat(target.createSqlForSearchHardPage(form, cursor, 11), is(new WeatherLogic().createSqlForSearchHardPage(form, cursor, 11)));
+                }
+            }
+        }
+    }
+
     /**
      * 検索テスト。（DBにテストでつなげるか確かめるためのもの）
      */
@@ -262,4 +318,28 @@ public class WeatherLogicTest {
         assertThat(resultWeatherList.get(0).getMaxTemperature(), is(expectedList.get(0).getMaxTemperature()));
         assertThat(resultWeatherList.get(0).getMinTemperature(), is(expectedList.get(0).getMinTemperature()));
     }
+
+    /**
+     * CSV読み込みのバリデーションテスト。(gzip形式のファイルが指定された場合)
+     */
+    @Test
+    public void testValidationCsvReadGzip() {
+        WeatherSearchForm form = new WeatherSearchForm();
+        form.setFilePath("C:/data/weather.csv.gz");
+        List<String> errorList = target.validateFormForCsvRead(form);
+
+        assertThat(errorList.size(), is(0));
+    }
+
+    /**
+     * CSV読み込みのバリデーションテスト。(拡張子がcsv形式でもcsv.gz形式でもない場合)
+     */
+    @Test
+    public void testValidationCsvReadAbnormalExtension() {
+        WeatherSearchForm form = new WeatherSearchForm();
+        form.setFilePath("C:/data/weather.gz");
+        List<String> errorList = target.validateFormForCsvRead(form);
+
+        assertThat(errorList.get(0), is("ファイルの拡張子はcsv形式またはcsv.gz形式にしてください。"));
+    }
 }
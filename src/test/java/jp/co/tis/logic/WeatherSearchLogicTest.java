@@ -0,0 +1,264 @@
+package jp.co.tis.logic;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jp.co.tis.form.WeatherSearchForm;
+import jp.co.tis.model.Weather;
+import jp.co.tis.model.WeatherDao;
+import jp.co.tis.model.WeatherDataVersion;
+import jp.co.tis.model.WeatherHandler;
+import jp.co.tis.model.WeatherPage;
+import jp.co.tis.util.SearchCursor;
+
+/**
+ * WeatherSearchLogicをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class WeatherSearchLogicTest {
+
+    /** テスト対象クラス */
+    private WeatherSearchLogic target;
+
+    /** 天気テーブルの代わりとなるDAO */
+    private KeysetWeatherDao weatherDao;
+
+    /**
+     * テスト対象クラスを準備する。
+     */
+    @Before
+    public void setUp() {
+        weatherDao = new KeysetWeatherDao();
+        String[] places = {"東京", "千葉", "埼玉"};
+        for (int day = 1; day <= 5; day++) {
+            for (String place : places) {
+                weatherDao.tableList.add(new Weather("2015/01/0" + day, place, "晴れ", "10", "2"));
+            }
+        }
+        SearchResultCache searchResultCache = new SearchResultCache();
+        ReflectionTestUtils.setField(searchResultCache, "weatherDao", weatherDao);
+        ReflectionTestUtils.setField(searchResultCache, "dataVersion", new WeatherDataVersion());
+        ReflectionTestUtils.setField(searchResultCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(searchResultCache, "ttlSeconds", 300L);
+        target = new WeatherSearchLogic();
+        ReflectionTestUtils.setField(target, "weatherLogic", new WeatherLogic());
+        ReflectionTestUtils.setField(target, "searchResultCache", searchResultCache);
+        ReflectionTestUtils.setField(target, "weatherStore", new WeatherStore());
+        ReflectionTestUtils.setField(target, "pageSize", 4);
+    }
+
+    /**
+     * SQLテスト。(条件なしで最初のページを検索する場合)
+     */
+    @Test
+    public void testSqlFirstPage() {
+        String resultSql = new WeatherLogic().createSqlForSearchHardPage(new WeatherSearchForm(), null, 101);
+
+        assertThat(resultSql, is("SELECT * FROM (SELECT * FROM WEATHER ORDER BY WEATHER_DATE, PLACE) WHERE ROWNUM <= 101"));
+    }
+
+    /**
+     * SQLテスト。(条件ありで前のページを検索する場合)
+     */
+    @Test
+    public void testSqlPreviousPage() {
+        WeatherSearchForm form = new WeatherSearchForm();
+        form.setPlace("東京");
+        SearchCursor cursor = new SearchCursor(false, "2015/01/03", "東京");
+        WeatherLogic weatherLogic = new WeatherLogic();
+        String resultSql = weatherLogic.createSqlForSearchHardPage(form, cursor, 11);
+        Map<String, String> resultCondition = weatherLogic.createConditionForSearchHardPage(form, cursor);
+
+        assertThat(resultSql, is("SELECT * FROM (SELECT * FROM WEATHER WHERE PLACE = :place and WEATHER_DATE <= :cursorDate"
+                + " and (WEATHER_DATE < :cursorDate OR PLACE < :cursorPlace) ORDER BY WEATHER_DATE DESC, PLACE DESC) WHERE ROWNUM <= 11"));
+        assertThat(resultCondition.get("place"), is("東京"));
+        assertThat(resultCondition.get("cursorDate"), is("2015/01/03"));
+        assertThat(resultCondition.get("cursorPlace"), is("東京"));
+    }
+
+    /**
+     * 次のページをたどると全件が日付、場所の順に重複なく返却され、前のページをたどると同じページに戻ること。
+     */
+    @Test
+    public void testPaging() {
+        WeatherSearchForm form = new WeatherSearchForm();
+        List<WeatherPage> pageList = new ArrayList<WeatherPage>();
+        WeatherPage page = target.searchHard(form);
+        pageList.add(page);
+        assertThat(page.getPreviousCursor(), is(nullValue()));
+        while (page.getNextCursor() != null) {
+            form.setCursor(page.getNextCursor());
+            page = target.searchHard(form);
+            pageList.add(page);
+        }
+
+        assertThat(pageList.size(), is(4));
+        List<String> keyList = new ArrayList<String>();
+        for (WeatherPage weatherPage : pageList) {
+            for (Weather weather : weatherPage.getWeatherList()) {
+                keyList.add(weather.getWeatherDate() + weather.getPlace());
+            }
+        }
+        assertThat(keyList.size(), is(15));
+        assertThat(keyList.get(0), is("2015/01/01千葉"));
+        assertThat(keyList.get(4), is("2015/01/02埼玉"));
+        assertThat(keyList.get(14), is("2015/01/05東京"));
+        assertThat(pageList.get(3).getWeatherList().size(), is(3));
+        assertThat(weatherDao.lastSql.contains("OFFSET"), is(false));
+
+        form.setCursor(pageList.get(2).getPreviousCursor());
+        WeatherPage previousPage = target.searchHard(form);
+        assertThat(previousPage.getWeatherList().size(), is(4));
+        assertThat(previousPage.getWeatherList().get(0).getWeatherDate() + previousPage.getWeatherList().get(0).getPlace(),
+                is("2015/01/02埼玉"));
+        assertThat(previousPage.getNextCursor(), is(pageList.get(1).getNextCursor()));
+
+        form.setCursor(previousPage.getPreviousCursor());
+        WeatherPage firstPage = target.searchHard(form);
+        assertThat(firstPage.getWeatherList().get(0).getWeatherDate() + firstPage.getWeatherList().get(0).getPlace(), is("2015/01/01千葉"));
+        assertThat(firstPage.getPreviousCursor(), is(nullValue()));
+    }
+
+    /**
+     * 天気をメモリ上に保持している場合、データベースを検索せずにデータベースと同じページが返却されること。
+     */
+    @Test
+    public void testPagingInCaseOfStore() {
+        WeatherSearchForm form = new WeatherSearchForm();
+        List<WeatherPage> sqlPageList = new ArrayList<WeatherPage>();
+        WeatherPage page = target.searchHard(form);
+        sqlPageList.add(page);
+        while (page.getNextCursor() != null) {
+            form.setCursor(page.getNextCursor());
+            page = target.searchHard(form);
+            sqlPageList.add(page);
+        }
+
+        WeatherStore weatherStore = new WeatherStore();
+        ReflectionTestUtils.setField(weatherStore, "weatherDao", weatherDao);
+        weatherStore.load();
+        ReflectionTestUtils.setField(target, "weatherStore", weatherStore);
+        weatherDao.lastSql = null;
+        form.setCursor(null);
+        for (WeatherPage sqlPage : sqlPageList) {
+            page = target.searchHard(form);
+            assertThat(page.getPreviousCursor(), is(sqlPage.getPreviousCursor()));
+            assertThat(page.getNextCursor(), is(sqlPage.getNextCursor()));
+            assertThat(page.getWeatherList().size(), is(sqlPage.getWeatherList().size()));
+            for (int i = 0; i < page.getWeatherList().size(); i++) {
+                assertThat(page.getWeatherList().get(i).getWeatherDate(), is(sqlPage.getWeatherList().get(i).getWeatherDate()));
+                assertThat(page.getWeatherList().get(i).getPlace(), is(sqlPage.getWeatherList().get(i).getPlace()));
+            }
+            form.setCursor(page.getNextCursor());
+        }
+        assertThat(weatherDao.lastSql, is(nullValue()));
+    }
+
+    /**
+     * 1ページの件数が上限を超えて設定された場合、上限の件数に丸められること。
+     */
+    @Test
+    public void testPageSizeLimit() {
+        ReflectionTestUtils.setField(target, "pageSize", 100000);
+        target.searchHard(new WeatherSearchForm());
+
+        assertThat(weatherDao.lastSql.endsWith("ROWNUM <= " + (WeatherSearchLogic.MAX_PAGE_SIZE + 1)), is(true));
+    }
+
+    /**
+     * 検索結果が0件の場合、前後のページのカーソルがないこと。
+     */
+    @Test
+    public void testNoResult() {
+        weatherDao.tableList.clear();
+        WeatherPage page = target.searchHard(new WeatherSearchForm());
+
+        assertThat(page.getWeatherList().isEmpty(), is(true));
+        assertThat(page.getPreviousCursor(), is(nullValue()));
+        assertThat(page.getNextCursor(), is(nullValue()));
+    }
+
+    /**
+     * キーセットページングのSQLを、天気テーブルの代わりのリストに対して実行するDAO。<br/>
+     * カーソルの条件、並び順、件数のみを解釈し、その他の検索条件は無視する。
+     */
+    private static class KeysetWeatherDao extends WeatherDao {
+
+        /** 件数の条件 */
+        private static final Pattern LIMIT_PATTERN = Pattern.compile("ROWNUM <= (\\d+)$");
+
+        /** 天気テーブルの内容 */
+        private List<Weather> tableList = new ArrayList<Weather>();
+
+        /** 最後に実行したSQL */
+        private String lastSql;
+
+        @Override
+        public List<Weather> findBySql(String selectSql, Map<String, String> condition) {
+            lastSql = selectSql;
+            final boolean descending = selectSql.contains("DESC");
+            List<Weather> sortedList = new ArrayList<Weather>(tableList);
+            Collections.sort(sortedList, new Comparator<Weather>() {
+                @Override
+                public int compare(Weather o1, Weather o2) {
+                    int result = compareKey(o1.getWeatherDate(), o1.getPlace(), o2.getWeatherDate(), o2.getPlace());
+                    return descending ? -result : result;
+                }
+            });
+
+            Matcher matcher = LIMIT_PATTERN.matcher(selectSql);
+            matcher.find();
+            int limit = Integer.parseInt(matcher.group(1));
+            List<Weather> resultList = new ArrayList<Weather>();
+            for (Weather weather : sortedList) {
+                if (condition.containsKey("cursorDate")) {
+                    int result = compareKey(weather.getWeatherDate(), weather.getPlace(), condition.get("cursorDate"), condition.get("cursorPlace"));
+                    if (descending ? result >= 0 : result <= 0) {
+                        continue;
+                    }
+                }
+                if (resultList.size() == limit) {
+                    break;
+                }
+                resultList.add(weather);
+            }
+            return resultList;
+        }
+
+        @Override
+        public long findAll(WeatherHandler handler) {
+            for (Weather weather : tableList) {
+                handler.handle(weather);
+            }
+            return tableList.size();
+        }
+
+        /**
+         * 日付、場所の順に比較する。
+         *
+         * @param date1 比較元の日付
+         * @param place1 比較元の場所
+         * @param date2 比較先の日付
+         * @param place2 比較先の場所
+         * @return 比較結果
+         */
+        private static int compareKey(String date1, String place1, String date2, String place2) {
+            int result = date1.compareTo(date2);
+            return result != 0 ? result : place1.compareTo(place2);
+        }
+    }
+}
@@ -0,0 +1,643 @@
+package jp.co.tis.logic;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import jp.co.tis.form.WeatherSearchForm;
+import jp.co.tis.logic.LogicTestSupport.NoOpJdbcTemplate;
+import jp.co.tis.model.Weather;
+import jp.co.tis.model.WeatherDao;
+import jp.co.tis.model.WeatherDataVersion;
+import jp.co.tis.model.WeatherHandler;
+import jp.co.tis.util.SearchCursor;
+
+/**
+ * WeatherStoreをテストするクラス。<br/>
+ * 検索結果は、{@link WeatherLogic}が作成するSQLを天気テーブルの代わりのリストに対して実行した結果と比較する。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class WeatherStoreTest {
+
+    /** 場所 */
+    private static final String[] PLACES = {"東京", "千葉", "埼玉", "神奈川", "大阪"};
+
+    /** 天気 */
+    private static final String[] WEATHERS = {"晴れ", "曇り", "雨", "雪"};
+
+    /** 比較する検索の回数 */
+    private static final int PARITY_COUNT = 2000;
+
+    /** テスト対象クラス */
+    private WeatherStore target;
+
+    /** SQLを解釈するDAO */
+    private SqlWeatherDao weatherDao;
+
+    /** 天気予報ロジッククラス */
+    private WeatherLogic weatherLogic;
+
+    /** 乱数 */
+    private Random random;
+
+    /**
+     * テスト対象クラスを準備する。
+     */
+    @Before
+    public void setUp() {
+        random = new Random(1);
+        weatherDao = new SqlWeatherDao();
+        ReflectionTestUtils.setField(weatherDao, "jdbcTemplate", new NoOpJdbcTemplate());
+        ReflectionTestUtils.setField(weatherDao, "dataVersion", new WeatherDataVersion());
+        ReflectionTestUtils.setField(weatherDao, "batchSize", 1000);
+        Map<String, Weather> tableMap = new TreeMap<String, Weather>();
+        while (tableMap.size() < 3000) {
+            Weather weather = createRandomWeather();
+            tableMap.put(weather.getWeatherDate() + weather.getPlace(), weather);
+        }
+        weatherDao.tableList.addAll(tableMap.values());
+        weatherLogic = new WeatherLogic();
+        target = new WeatherStore();
+        ReflectionTestUtils.setField(target, "weatherDao", weatherDao);
+        ReflectionTestUtils.setField(target, "maxPendingRows", 100000);
+    }
+
+    /**
+     * 読み込みが完了していない場合、nullが返却されること。
+     */
+    @Test
+    public void testSearchInCaseOfNotLoaded() {
+        assertThat(target.isAvailable(), is(false));
+        assertThat(target.search(new WeatherSearchForm()), is(nullValue()));
+        assertThat(target.searchHard(new WeatherSearchForm(), null, 10), is(nullValue()));
+    }
+
+    /**
+     * 天気検索の検索結果が、SQLの検索結果と一致すること。
+     */
+    @Test
+    public void testSearchParity() {
+        target.load();
+        assertThat(target.size(), is(3000));
+
+        for (int i = 0; i < PARITY_COUNT; i++) {
+            WeatherSearchForm form = new WeatherSearchForm();
+            if (random.nextInt(3) > 0) {
+                form.setWeatherDate(random.nextBoolean() ? randomRow().getWeatherDate() : createRandomDate());
+            }
+            if (random.nextBoolean()) {
+                form.setPlace(randomPlace());
+            }
+            if (random.nextInt(3) == 0) {
+                form.setWeather(random.nextInt(5) == 0 ? "晴れ,雨" : randomWeather());
+            }
+            if (random.nextInt(3) == 0) {
+                form.setMaxTemperature(String.valueOf(random.nextInt(41) - 5));
+            }
+            if (random.nextInt(3) == 0) {
+                form.setMinTemperature(String.valueOf(random.nextInt(41) - 5));
+            }
+
+            List<Weather> expectedList = weatherDao.findBySql(weatherLogic.createSqlForSearch(form),
+                    weatherLogic.createConditionForSearch(form));
+            sortByKey(expectedList);
+            assertSameWeather(target.search(form), expectedList);
+        }
+    }
+
+    /**
+     * 天気検索発展の1ページ分の検索結果が、SQLの検索結果と順序も含めて一致すること。
+     */
+    @Test
+    public void testSearchHardParity() {
+        target.load();
+
+        for (int i = 0; i < PARITY_COUNT; i++) {
+            WeatherSearchForm form = createRandomHardForm();
+            SearchCursor cursor = null;
+            if (random.nextInt(3) > 0) {
+                Weather weather = random.nextBoolean() ? randomRow() : new Weather(createRandomDate(), randomPlace(), null, null, null);
+                cursor = new SearchCursor(random.nextBoolean(), weather.getWeatherDate(), weather.getPlace());
+            }
+            int limit = random.nextInt(50) + 1;
+
+            List<Weather> expectedList = weatherDao.findBySql(weatherLogic.createSqlForSearchHardPage(form, cursor, limit),
+                    weatherLogic.createConditionForSearchHardPage(form, cursor));
+            assertSameWeather(target.searchHard(form, cursor, limit), expectedList);
+        }
+    }
+
+    /**
+     * 次のページをたどった検索結果が、SQLで次のページをたどった検索結果と一致すること。
+     */
+    @Test
+    public void testSearchHardParityInCaseOfPaging() {
+        target.load();
+
+        for (int i = 0; i < 50; i++) {
+            WeatherSearchForm form = createRandomHardForm();
+            SearchCursor cursor = null;
+            while (true) {
+                List<Weather> expectedList = weatherDao.findBySql(weatherLogic.createSqlForSearchHardPage(form, cursor, 100),
+                        weatherLogic.createConditionForSearchHardPage(form, cursor));
+                assertSameWeather(target.searchHard(form, cursor, 100), expectedList);
+                if (expectedList.size() < 100) {
+                    break;
+                }
+                Weather last = expectedList.get(expectedList.size() - 1);
+                cursor = new SearchCursor(true, last.getWeatherDate(), last.getPlace());
+            }
+        }
+    }
+
+    /**
+     * 天気の検索条件がSQLを作成できない値の場合、nullが返却されること。
+     */
+    @Test
+    public void testSearchHardInCaseOfInvalidWeather() {
+        target.load();
+        WeatherSearchForm form = new WeatherSearchForm();
+        form.setWeather(",");
+        assertThat(target.searchHard(form, null, 10), is(nullValue()));
+
+        form.setWeather("晴れ,曇り,雨,雪,霧");
+        assertThat(target.searchHard(form, null, 10), is(nullValue()));
+
+        form.setWeather("晴れ,曇り,雨,雪");
+        assertThat(target.searchHard(form, null, 10).size(), is(10));
+    }
+
+    /**
+     * 気温の検索条件が数値でない場合や、数値でない気温を保持している場合は、気温で検索するとnullが返却されること。
+     */
+    @Test
+    public void testSearchInCaseOfInvalidTemperature() {
+        target.load();
+        WeatherSearchForm form = new WeatherSearchForm();
+        form.setMaxTemperature("abc");
+        assertThat(target.search(form), is(nullValue()));
+
+        target.weatherInserted(Collections.singletonList(new Weather("2015/01/01", "東京", "晴れ", "10.5", "2")));
+        form.setMaxTemperature("10");
+        assertThat(target.search(form), is(nullValue()));
+        form.setMaxTemperature(null);
+        form.setWeatherDate("2015/01/01");
+        assertThat(target.search(form).isEmpty(), is(false));
+    }
+
+    /**
+     * トランザクション外で登録・更新した天気は、すぐに検索結果に反映されること。更新は保持している天気のみ反映されること。
+     */
+    @Test
+    public void testWriteInCaseOfNoTransaction() {
+        target.load();
+        weatherDao.addWriteListener(target);
+        List<Weather> insertList = new ArrayList<Weather>();
+        insertList.add(new Weather("2000/01/01", "東京", "晴れ", "10", "2"));
+        weatherDao.batchInsert(insertList);
+        insertList.clear();
+
+        WeatherSearchForm form = new WeatherSearchForm();
+        form.setWeatherDate("2000/01/01");
+        List<Weather> weatherList = target.search(form);
+        assertThat(weatherList.size(), is(1));
+        assertThat(weatherList.get(0).getWeather(), is("晴れ"));
+
+        List<Weather> updateList = new ArrayList<Weather>();
+        updateList.add(new Weather("2000/01/01", "東京", "雨", "8", "1"));
+        updateList.add(new Weather("2000/01/01", "千葉", "雨", "8", "1"));
+        weatherDao.batchUpdate(updateList);
+
+        weatherList = target.search(form);
+        assertThat(weatherList.size(), is(1));
+        assertThat(weatherList.get(0).getWeather(), is("雨"));
+        assertThat(target.size(), is(3001));
+
+        form.setWeatherDate(null);
+        form.setWeather("晴れ");
+        form.setMaxTemperature("10");
+        for (Weather weather : target.search(form)) {
+            assertThat(weather.getWeatherDate(), is(not("2000/01/01")));
+        }
+    }
+
+    /**
+     * トランザクション内で登録した天気は、コミット後に反映され、ロールバックした場合は反映されないこと。
+     */
+    @Test
+    public void testWriteInCaseOfTransaction() {
+        target.load();
+        WeatherSearchForm form = new WeatherSearchForm();
+        form.setWeatherDate("2000/01/01");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.weatherInserted(Collections.singletonList(new Weather("2000/01/01", "東京", "晴れ", "10", "2")));
+            assertThat(target.search(form).isEmpty(), is(true));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+            assertThat(target.search(form).isEmpty(), is(true));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.weatherInserted(Collections.singletonList(new Weather("2000/01/01", "東京", "晴れ", "10", "2")));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+            assertThat(target.search(form).size(), is(1));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * トランザクション内で複数回登録した場合でも、コミット後に反映する処理は1つだけ登録され、全ての天気が反映されること。
+     */
+    @Test
+    public void testWriteInCaseOfMultipleWritesInTransaction() {
+        target.load();
+        WeatherSearchForm form = new WeatherSearchForm();
+        form.setWeatherDate("2000/01/01");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.weatherInserted(Collections.singletonList(new Weather("2000/01/01", "東京", "晴れ", "10", "2")));
+            target.weatherInserted(Collections.singletonList(new Weather("2000/01/01", "千葉", "曇り", "9", "1")));
+            target.weatherUpdated(Collections.singletonList(new Weather("2000/01/01", "東京", "雨", "8", "0")));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertThat(synchronizations.size(), is(1));
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+            List<Weather> weatherList = target.search(form);
+            assertThat(weatherList.size(), is(2));
+            assertThat(weatherList.get(1).getPlace(), is("東京"));
+            assertThat(weatherList.get(1).getWeather(), is("雨"));
+            assertThat(TransactionSynchronizationManager.hasResource(target), is(false));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * トランザクション内で保持する件数が上限を超えた場合、保持した書き込みを破棄し、読み込み直すまでnullが返却されること。
+     */
+    @Test
+    public void testWriteInCaseOfTooManyPendingRows() {
+        ReflectionTestUtils.setField(target, "maxPendingRows", 2);
+        target.load();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.weatherInserted(Collections.singletonList(new Weather("2000/01/01", "東京", "晴れ", "10", "2")));
+            target.weatherInserted(Collections.singletonList(new Weather("2000/01/01", "千葉", "曇り", "9", "1")));
+            assertThat(target.isAvailable(), is(true));
+            target.weatherInserted(Collections.singletonList(new Weather("2000/01/01", "埼玉", "雨", "8", "0")));
+            assertThat(target.isAvailable(), is(false));
+            target.weatherInserted(Collections.singletonList(new Weather("2000/01/01", "大阪", "雪", "7", "-1")));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertThat(synchronizations.size(), is(1));
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+            assertThat(target.isAvailable(), is(false));
+        } finally {
+            // 終了後の処理（別スレッドでの読み込み直し）は実行しないため、紐付けを解除する
+            TransactionSynchronizationManager.unbindResourceIfPossible(target);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        target.load();
+        assertThat(target.size(), is(3000));
+    }
+
+    /**
+     * 読み込み中に登録した天気が、読み込み完了後に反映されること。
+     */
+    @Test
+    public void testWriteDuringLoad() {
+        weatherDao.loadListener = target;
+        target.load();
+
+        WeatherSearchForm form = new WeatherSearchForm();
+        form.setWeatherDate("2000/01/01");
+        assertThat(target.search(form).size(), is(1));
+        assertThat(target.size(), is(3001));
+    }
+
+    /**
+     * 書き込んだ内容を特定できない書き込みを行った場合、読み込み直すまでnullが返却されること。
+     */
+    @Test
+    public void testWeatherInvalidated() {
+        target.load();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.weatherInvalidated();
+            assertThat(target.isAvailable(), is(false));
+            assertThat(target.search(new WeatherSearchForm()), is(nullValue()));
+        } finally {
+            // 終了後の処理（別スレッドでの読み込み直し）は実行しないため、紐付けを解除する
+            TransactionSynchronizationManager.unbindResourceIfPossible(target);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        target.load();
+        assertThat(target.isAvailable(), is(true));
+    }
+
+    /**
+     * 天気検索発展のランダムな検索条件を作成する。
+     *
+     * @return フォーム
+     */
+    private WeatherSearchForm createRandomHardForm() {
+        WeatherSearchForm form = new WeatherSearchForm();
+        if (random.nextBoolean()) {
+            form.setWeatherDateFrom(random.nextBoolean() ? randomRow().getWeatherDate() : createRandomDate());
+        }
+        if (random.nextBoolean()) {
+            form.setWeatherDateTo(random.nextBoolean() ? randomRow().getWeatherDate() : createRandomDate());
+        }
+        if (random.nextInt(3) == 0) {
+            form.setPlace(randomPlace());
+        }
+        if (random.nextInt(3) == 0) {
+            int count = random.nextInt(4) + 1;
+            StringBuilder weather = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                weather.append(i == 0 ? "" : ",").append(randomWeather());
+            }
+            form.setWeather(weather.toString());
+        }
+        if (random.nextInt(3) == 0) {
+            form.setMaxTemperatureFrom(String.valueOf(random.nextInt(41) - 5));
+        }
+        if (random.nextInt(3) == 0) {
+            form.setMaxTemperatureTo(String.valueOf(random.nextInt(41) - 5));
+        }
+        if (random.nextInt(3) == 0) {
+            form.setMinTemperatureFrom(String.valueOf(random.nextInt(41) - 5));
+        }
+        if (random.nextInt(3) == 0) {
+            form.setMinTemperatureTo(String.valueOf(random.nextInt(41) - 5));
+        }
+        return form;
+    }
+
+    /**
+     * ランダムな天気を作成する。天気・気温がない天気も作成する。
+     *
+     * @return 天気
+     */
+    private Weather createRandomWeather() {
+        int maxTemperature = random.nextInt(41) - 5;
+        int minTemperature = maxTemperature - random.nextInt(10);
+        return new Weather(createRandomDate(), randomPlace(), random.nextInt(20) == 0 ? null : randomWeather(),
+                random.nextInt(20) == 0 ? null : String.valueOf(maxTemperature), random.nextInt(20) == 0 ? null
+                        : String.valueOf(minTemperature));
+    }
+
+    /**
+     * ランダムな日付を作成する。月・日が1桁の日付も作成する。
+     *
+     * @return 日付
+     */
+    private String createRandomDate() {
+        int year = 2014 + random.nextInt(2);
+        int month = random.nextInt(12) + 1;
+        int day = random.nextInt(28) + 1;
+        if (random.nextInt(20) == 0) {
+            return year + "/" + month + "/" + day;
+        }
+        return String.format("%04d/%02d/%02d", year, month, day);
+    }
+
+    /**
+     * 天気テーブルの天気をランダムに返却する。
+     *
+     * @return 天気
+     */
+    private Weather randomRow() {
+        return weatherDao.tableList.get(random.nextInt(weatherDao.tableList.size()));
+    }
+
+    /**
+     * ランダムな場所を返却する。天気テーブルにない場所も返却する。
+     *
+     * @return 場所
+     */
+    private String randomPlace() {
+        return random.nextInt(10) == 0 ? "福岡" : PLACES[random.nextInt(PLACES.length)];
+    }
+
+    /**
+     * ランダムな天気を返却する。
+     *
+     * @return 天気
+     */
+    private String randomWeather() {
+        return WEATHERS[random.nextInt(WEATHERS.length)];
+    }
+
+    /**
+     * 天気のリストを日付、場所の順に並べる。
+     *
+     * @param weatherList 天気のリスト
+     */
+    private static void sortByKey(List<Weather> weatherList) {
+        Collections.sort(weatherList, new Comparator<Weather>() {
+            @Override
+            public int compare(Weather o1, Weather o2) {
+                return compareKey(o1, o2);
+            }
+        });
+    }
+
+    /**
+     * 日付、場所の順に比較する。
+     *
+     * @param o1 比較元の天気
+     * @param o2 比較先の天気
+     * @return 比較結果
+     */
+    private static int compareKey(Weather o1, Weather o2) {
+        int result = o1.getWeatherDate().compareTo(o2.getWeatherDate());
+        return result != 0 ? result : o1.getPlace().compareTo(o2.getPlace());
+    }
+
+    /**
+     * 天気のリストが順序も含めて一致することを確認する。
+     *
+     * @param resultList 結果
+     * @param expectedList 期待値
+     */
+    private static void assertSameWeather(List<Weather> resultList, List<Weather> expectedList) {
+        assertThat(resultList, is(notNullValue()));
+        assertThat(resultList.size(), is(expectedList.size()));
+        for (int i = 0; i < resultList.size(); i++) {
+            Weather result = resultList.get(i);
+            Weather expected = expectedList.get(i);
+            assertThat(result.getWeatherDate(), is(expected.getWeatherDate()));
+            assertThat(result.getPlace(), is(expected.getPlace()));
+            assertThat(result.getWeather(), is(expected.getWeather()));
+            assertThat(result.getMaxTemperature(), is(expected.getMaxTemperature()));
+            assertThat(result.getMinTemperature(), is(expected.getMinTemperature()));
+        }
+    }
+
+    /**
+     * {@link WeatherLogic}が作成する検索のSQLを、天気テーブルの代わりのリストに対して実行するDAO。<br/>
+     * 日付・場所・天気は文字列として、気温は数値として比較する。
+     */
+    private static class SqlWeatherDao extends WeatherDao {
+
+        /** 1ページ分の検索のSQL */
+        private static final Pattern PAGE_PATTERN = Pattern
+                .compile("^SELECT \\* FROM \\((.*) ORDER BY WEATHER_DATE( DESC)?, PLACE( DESC)?\\) WHERE ROWNUM <= (\\d+)$");
+
+        /** 検索条件 */
+        private static final Pattern CONDITION_PATTERN = Pattern.compile("^(\\w+) (>=|<=|=|>|<) :(\\w+)$");
+
+        /** 検索のSQLの先頭 */
+        private static final String SELECT_PREFIX = "SELECT * FROM WEATHER";
+
+        /** 天気テーブルの内容 */
+        private final List<Weather> tableList = new ArrayList<Weather>();
+
+        /** 読み込み中に天気を登録する通知先 */
+        private WeatherStore loadListener;
+
+        @Override
+        public List<Weather> findBySql(String selectSql, Map<String, String> condition) {
+            String sql = selectSql;
+            boolean descending = false;
+            int limit = Integer.MAX_VALUE;
+            Matcher pageMatcher = PAGE_PATTERN.matcher(selectSql);
+            if (pageMatcher.matches()) {
+                sql = pageMatcher.group(1);
+                descending = pageMatcher.group(2) != null;
+                limit = Integer.parseInt(pageMatcher.group(4));
+            }
+            assertThat(sql.startsWith(SELECT_PREFIX), is(true));
+            String where = sql.substring(SELECT_PREFIX.length());
+            List<String> conditionList = new ArrayList<String>();
+            if (!where.isEmpty()) {
+                assertThat(where.startsWith(" WHERE "), is(true));
+                Collections.addAll(conditionList, where.substring(" WHERE ".length()).split(" and "));
+            }
+
+            List<Weather> resultList = new ArrayList<Weather>();
+            for (Weather weather : tableList) {
+                if (matchesAll(weather, conditionList, condition)) {
+                    resultList.add(weather);
+                }
+            }
+            sortByKey(resultList);
+            if (descending) {
+                Collections.reverse(resultList);
+            }
+            return resultList.size() > limit ? new ArrayList<Weather>(resultList.subList(0, limit)) : resultList;
+        }
+
+        @Override
+        public long findAll(WeatherHandler handler) {
+            for (int i = 0; i < tableList.size(); i++) {
+                handler.handle(tableList.get(i));
+                if (loadListener != null && i == tableList.size() / 2) {
+                    loadListener.weatherInserted(Collections.singletonList(new Weather("2000/01/01", "東京", "晴れ", "10", "2")));
+                }
+            }
+            return tableList.size();
+        }
+
+        /**
+         * 天気が全ての検索条件に一致するかを返却する。
+         *
+         * @param weather 天気
+         * @param conditionList 「and」で区切った検索条件
+         * @param condition パラメータ
+         * @return 一致する場合はtrue
+         */
+        private static boolean matchesAll(Weather weather, List<String> conditionList, Map<String, String> condition) {
+            for (String item : conditionList) {
+                if (item.startsWith("(") && item.endsWith(")")) {
+                    boolean matches = false;
+                    for (String orItem : item.substring(1, item.length() - 1).split(" OR ")) {
+                        matches |= matches(weather, orItem, condition);
+                    }
+                    if (!matches) {
+                        return false;
+                    }
+                } else if (!matches(weather, item, condition)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 天気が検索条件に一致するかを返却する。値がない場合は一致しない。
+         *
+         * @param weather 天気
+         * @param item 検索条件
+         * @param condition パラメータ
+         * @return 一致する場合はtrue
+         */
+        private static boolean matches(Weather weather, String item, Map<String, String> condition) {
+            Matcher matcher = CONDITION_PATTERN.matcher(item);
+            assertThat(item, matcher.matches(), is(true));
+            String column = matcher.group(1);
+            String operator = matcher.group(2);
+            String parameter = condition.get(matcher.group(3));
+            String value;
+            boolean number = false;
+            if ("WEATHER_DATE".equals(column)) {
+                value = weather.getWeatherDate();
+            } else if ("PLACE".equals(column)) {
+                value = weather.getPlace();
+            } else if ("WEATHER".equals(column)) {
+                value = weather.getWeather();
+            } else if ("MAX_TEMPERATURE".equals(column)) {
+                value = weather.getMaxTemperature();
+                number = true;
+            } else {
+                assertThat(column, is("MIN_TEMPERATURE"));
+                value = weather.getMinTemperature();
+                number = true;
+            }
+            if (value == null || parameter == null) {
+                return false;
+            }
+
+            int result = number ? new BigDecimal(value).compareTo(new BigDecimal(parameter)) : value.compareTo(parameter);
+            if ("=".equals(operator)) {
+                return result == 0;
+            } else if (">=".equals(operator)) {
+                return result >= 0;
+            } else if ("<=".equals(operator)) {
+                return result <= 0;
+            } else if (">".equals(operator)) {
+                return result > 0;
+            }
+            return result < 0;
+        }
+    }
+}
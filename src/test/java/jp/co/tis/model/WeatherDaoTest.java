@@ -0,0 +1,154 @@
+package jp.co.tis.model;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * WeatherDaoをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class WeatherDaoTest {
+
+    /** テスト対象クラス */
+    private WeatherDao target;
+
+    /** 既存データを返却するNamedParameterJdbcTemplate */
+    private StubJdbcTemplate jdbcTemplate;
+
+    /**
+     * テスト対象クラスを準備する。
+     */
+    @Before
+    public void setUp() {
+        target = new WeatherDao();
+        jdbcTemplate = new StubJdbcTemplate();
+        ReflectionTestUtils.setField(target, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(target, "dataVersion", new WeatherDataVersion());
+        ReflectionTestUtils.setField(target, "batchSize", 1000);
+    }
+
+    /**
+     * キーが存在しない天気は登録、内容が異なる天気は更新、内容が同じ天気は変更なしとなること。
+     */
+    @Test
+    public void testBatchMerge() {
+        jdbcTemplate.existingList.add(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        jdbcTemplate.existingList.add(new Weather("2015/01/01", "千葉", "曇り", "8", "-1"));
+        jdbcTemplate.existingList.add(new Weather("2015/01/02", "大阪", "雨", "7", "3"));
+        jdbcTemplate.existingList.add(new Weather("2015/01/03", "福岡", "晴れ", "9", "1"));
+
+        List<Weather> weatherList = new ArrayList<Weather>();
+        weatherList.add(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        weatherList.add(new Weather("2015/01/01", "千葉", "晴れ", "8", "-1"));
+        weatherList.add(new Weather("2015/01/02", "大阪", "雨", "7", "4"));
+        weatherList.add(new Weather("2015/01/02", "名古屋", "晴れ", "9", "1"));
+        MergeResult result = target.batchMerge(weatherList);
+
+        assertThat(result.getInsertCount(), is(1));
+        assertThat(result.getUpdateCount(), is(2));
+        assertThat(result.getUnchangedCount(), is(1));
+        assertThat(jdbcTemplate.inListSizeList, is(Arrays.asList(2)));
+        assertThat(jdbcTemplate.batchList, is(Arrays.asList("INSERT:1", "UPDATE:2")));
+    }
+
+    /**
+     * 気温の表記が異なるだけの天気は、内容が同じと判定されること。
+     */
+    @Test
+    public void testBatchMergeInCaseOfSameTemperatureInOtherNotation() {
+        jdbcTemplate.existingList.add(new Weather("2015/01/01", "東京", "晴れ", "5", "-3"));
+        jdbcTemplate.existingList.add(new Weather("2015/01/01", "千葉", "晴れ", "5", null));
+
+        List<Weather> weatherList = new ArrayList<Weather>();
+        weatherList.add(new Weather("2015/01/01", "東京", "晴れ", "+05", "-03"));
+        weatherList.add(new Weather("2015/01/01", "千葉", "晴れ", "05", "0"));
+        MergeResult result = target.batchMerge(weatherList);
+
+        assertThat(result.getUnchangedCount(), is(1));
+        assertThat(result.getUpdateCount(), is(1));
+        assertThat(jdbcTemplate.batchList, is(Arrays.asList("UPDATE:1")));
+    }
+
+    /**
+     * 既存データの検索は、日付1000件ごとにIN句を分割して行われること。
+     */
+    @Test
+    public void testBatchMergeInCaseOfManyDates() {
+        jdbcTemplate.existingList.add(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        jdbcTemplate.existingList.add(new Weather("2020/06/01", "東京", "曇り", "10", "2"));
+
+        List<Weather> weatherList = new ArrayList<Weather>();
+        for (int i = 0; i < 2500; i++) {
+            weatherList.add(new Weather(String.format("%04d/%02d/%02d", 2015 + i / 372, i / 31 % 12 + 1, i % 31 + 1), "東京", "晴れ",
+                    "10", "2"));
+        }
+        MergeResult result = target.batchMerge(weatherList);
+
+        assertThat(jdbcTemplate.inListSizeList, is(Arrays.asList(1000, 1000, 500)));
+        assertThat(result.getUnchangedCount(), is(1));
+        assertThat(result.getUpdateCount(), is(1));
+        assertThat(result.getInsertCount(), is(2498));
+        assertThat(jdbcTemplate.batchList, is(Arrays.asList("INSERT:1000", "INSERT:1000", "INSERT:498", "UPDATE:1")));
+    }
+
+    /**
+     * データベースに接続せず、既存データの検索ではIN句の日付に一致する既存データを返却し、
+     * バッチの実行内容を記録するNamedParameterJdbcTemplate。
+     */
+    private static class StubJdbcTemplate extends NamedParameterJdbcTemplate {
+
+        /** 既存データのリスト */
+        private final List<Weather> existingList = new ArrayList<Weather>();
+
+        /** 既存データの検索ごとのIN句の日付の件数のリスト */
+        private final List<Integer> inListSizeList = new ArrayList<Integer>();
+
+        /** 実行したバッチ（SQLの種類と件数）のリスト */
+        private final List<String> batchList = new ArrayList<String>();
+
+        /**
+         * コンストラクタ。
+         */
+        StubJdbcTemplate() {
+            super(new JdbcTemplate());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper) {
+            List<String> weatherDateList = (List<String>) paramSource.getValue("weatherDates");
+            inListSizeList.add(weatherDateList.size());
+            List<Weather> weatherList = new ArrayList<Weather>();
+            for (Weather existing : existingList) {
+                if (weatherDateList.contains(existing.getWeatherDate())) {
+                    weatherList.add(existing);
+                }
+            }
+            return (List<T>) weatherList;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, SqlParameterSource[] batchArgs) {
+            batchList.add(sql.substring(0, sql.indexOf(' ')) + ":" + batchArgs.length);
+            int[] updateCounts = new int[batchArgs.length];
+            for (int i = 0; i < updateCounts.length; i++) {
+                updateCounts[i] = 1;
+            }
+            return updateCounts;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package jp.co.tis.model;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * WeatherRowMapperをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 1.0
+ */
+public class WeatherRowMapperTest {
+
+    /**
+     * 列の並び順によらず、列名に対応する項目にマッピングされること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testMapRow() throws Exception {
+        ResultSet rs = createResultSet(new String[] {"MIN_TEMPERATURE", "PLACE", "WEATHER_DATE", "MAX_TEMPERATURE", "WEATHER"},
+                new String[] {"2", "東京", "2015/01/01", "10", "晴れ"},
+                new String[] {null, "千葉", "2015/01/02", "-3", null});
+
+        List<Weather> weatherList = mapAll(new WeatherRowMapper(), rs);
+        assertThat(weatherList.size(), is(2));
+        assertWeather(weatherList.get(0), "2015/01/01", "東京", "晴れ", "10", "2");
+        assertWeather(weatherList.get(1), "2015/01/02", "千葉", null, "-3", null);
+    }
+
+    /**
+     * 検索結果に含まれない項目はnullとなり、対応する項目がない列は無視されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testMapRowInCaseOfPartialColumns() throws Exception {
+        ResultSet rs = createResultSet(new String[] {"weatherDate", "place", "ROW_ID"}, new String[] {"2015/01/01", "東京", "1"});
+
+        List<Weather> weatherList = mapAll(new WeatherRowMapper(), rs);
+        assertWeather(weatherList.get(0), "2015/01/01", "東京", null, null, null);
+    }
+
+    /**
+     * 同じインスタンスを列の並び順が異なる検索結果に使用した場合も、それぞれの列名に対応する項目にマッピングされること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testMapRowInCaseOfReuse() throws Exception {
+        WeatherRowMapper mapper = new WeatherRowMapper();
+        ResultSet rs1 = createResultSet(new String[] {"WEATHER_DATE", "PLACE"}, new String[] {"2015/01/01", "東京"});
+        ResultSet rs2 = createResultSet(new String[] {"PLACE", "WEATHER_DATE", "WEATHER"}, new String[] {"千葉", "2015/01/02", "雨"});
+
+        assertWeather(mapAll(mapper, rs1).get(0), "2015/01/01", "東京", null, null, null);
+        assertWeather(mapAll(mapper, rs2).get(0), "2015/01/02", "千葉", "雨", null, null);
+    }
+
+    /**
+     * BeanPropertyRowMapperと同じ結果となること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testMapRowSameAsBeanPropertyRowMapper() throws Exception {
+        String[] columnNames = {"WEATHER_DATE", "PLACE", "WEATHER", "MAX_TEMPERATURE", "MIN_TEMPERATURE"};
+        String[][] rows = {{"2015/01/01", "東京", "晴れ", "10", "2"}, {"2015/01/02", null, "雪", "0", "-12"}};
+
+        List<Weather> expectedList = mapAll(new BeanPropertyRowMapper<Weather>(Weather.class), createResultSet(columnNames, rows));
+        List<Weather> weatherList = mapAll(new WeatherRowMapper(), createResultSet(columnNames, rows));
+        for (int i = 0; i < rows.length; i++) {
+            assertThat(weatherList.get(i).createKey(), is(expectedList.get(i).createKey()));
+            assertThat(weatherList.get(i).createContentHash(), is(expectedList.get(i).createContentHash()));
+        }
+    }
+
+    /**
+     * 検索結果の全ての行をマッピングする。
+     *
+     * @param mapper マッピングするクラス
+     * @param rs 検索結果
+     * @return 天気のリスト
+     * @throws SQLException 例外。
+     */
+    private List<Weather> mapAll(RowMapper<Weather> mapper, ResultSet rs) throws SQLException {
+        List<Weather> weatherList = new ArrayList<Weather>();
+        while (rs.next()) {
+            weatherList.add(mapper.mapRow(rs, weatherList.size()));
+        }
+        return weatherList;
+    }
+
+    /**
+     * 文字列の列からなる検索結果を作成する。
+     *
+     * @param columnNames 列名
+     * @param rows 行の値
+     * @return 検索結果
+     * @throws SQLException 例外。
+     */
+    private ResultSet createResultSet(String[] columnNames, String[]... rows) throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(columnNames.length);
+        for (int i = 0; i < columnNames.length; i++) {
+            metaData.setColumnName(i + 1, columnNames[i]);
+            metaData.setColumnLabel(i + 1, columnNames[i]);
+            metaData.setColumnType(i + 1, Types.VARCHAR);
+        }
+        CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+        rowSet.setMetaData(metaData);
+        for (String[] row : rows) {
+            rowSet.moveToInsertRow();
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] == null) {
+                    rowSet.updateNull(i + 1);
+                } else {
+                    rowSet.updateString(i + 1, row[i]);
+                }
+            }
+            rowSet.insertRow();
+        }
+        rowSet.moveToCurrentRow();
+        rowSet.beforeFirst();
+        return rowSet;
+    }
+
+    /**
+     * 天気の内容を検証する。
+     *
+     * @param weather 天気
+     * @param weatherDate 日付
+     * @param place 場所
+     * @param weatherName 天気
+     * @param maxTemperature 最高気温
+     * @param minTemperature 最低気温
+     */
+    private void assertWeather(Weather weather, String weatherDate, String place, String weatherName, String maxTemperature,
+            String minTemperature) {
+        assertThat(weather.getWeatherDate(), is(weatherDate));
+        assertThat(weather.getPlace(), is(place));
+        assertThat(weather.getWeather(), is(weatherName));
+        assertThat(weather.getMaxTemperature(), is(maxTemperature));
+        assertThat(weather.getMinTemperature(), is(minTemperature));
+    }
+}
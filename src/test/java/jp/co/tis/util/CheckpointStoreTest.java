@@ -0,0 +1,99 @@
+package jp.co.tis.util;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jp.co.tis.model.IngestCheckpoint;
+
+/**
+ * CheckpointStoreをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class CheckpointStoreTest {
+
+    /**
+     * チェックポイントの保存先
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /** テスト対象クラス */
+    private CheckpointStore target;
+
+    /**
+     * テスト対象クラスを準備する。
+     */
+    @Before
+    public void setUp() {
+        target = new CheckpointStore();
+        ReflectionTestUtils.setField(target, "checkpointDir", temporaryFolder.getRoot().getPath());
+    }
+
+    /**
+     * 保存したチェックポイントを読み込めること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        target.save("data/weather.csv", new IngestCheckpoint(1000, 50000, "2015/01/01", "東京"));
+        target.save("data/weather.csv", new IngestCheckpoint(2000, 100000, "2015/01/02", "千葉"));
+
+        IngestCheckpoint checkpoint = target.load("data/weather.csv");
+        assertThat(checkpoint.getCommittedRows(), is(2000L));
+        assertThat(checkpoint.getLastRowOffset(), is(100000L));
+        assertThat(checkpoint.getLastWeatherDate(), is("2015/01/02"));
+        assertThat(checkpoint.getLastPlace(), is("千葉"));
+    }
+
+    /**
+     * 項目が空のチェックポイントを保存した場合、nullとして読み込めること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testSaveAndLoadWhenKeyIsNull() throws Exception {
+        target.save("data/weather.csv", new IngestCheckpoint(1, -1, null, null));
+
+        IngestCheckpoint checkpoint = target.load("data/weather.csv");
+        assertThat(checkpoint.getLastRowOffset(), is(-1L));
+        assertThat(checkpoint.getLastWeatherDate(), is(nullValue()));
+        assertThat(checkpoint.getLastPlace(), is(nullValue()));
+    }
+
+    /**
+     * 異なるディレクトリの同名ファイルは別のチェックポイントとなること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testCheckpointFileIsPerPath() throws Exception {
+        target.save("data1/weather.csv", new IngestCheckpoint(1, 60, "2015/01/01", "東京"));
+
+        assertThat(target.load("data2/weather.csv"), is(nullValue()));
+    }
+
+    /**
+     * 削除したチェックポイントは読み込めないこと。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testDelete() throws Exception {
+        target.save("data/weather.csv", new IngestCheckpoint(1, 60, "2015/01/01", "東京"));
+        target.delete("data/weather.csv");
+
+        assertThat(target.load("data/weather.csv"), is(nullValue()));
+        assertThat(new File(temporaryFolder.getRoot(), "weather.csv.tmp").exists(), is(false));
+    }
+}
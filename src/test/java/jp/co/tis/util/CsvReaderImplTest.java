@@ -2,14 +2,26 @@ package jp.co.tis.util;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
 import jp.co.tis.exception.FileFormatException;
 
@@ -27,6 +39,12 @@ public class CsvReaderImplTest {
     @Rule
     public ExpectedException exception = ExpectedException.none();
 
+    /**
+     * gzip形式のテストデータの作成先
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     /**
      * テストケース仕様書項目番号1-1を参照。
      *
@@ -177,4 +195,270 @@ public class CsvReaderImplTest {
         assertThat(map.get("C"), is("  "));
     }
 
+    /**
+     * readRowで項目位置と項目名のどちらでも値を取得できること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadRow() throws Exception {
+        CsvReader csvReader = new CsvReaderImpl("src/test/java/jp/co/tis/util/testData/testReadLineUtf8Crlf.csv", Charset.forName("UTF-8"));
+        csvReader.open();
+        CsvRow row = csvReader.readRow();
+        assertThat(row.size(), is(3));
+        assertThat(row.getLineNumber(), is(2L));
+        assertThat(row.get(0), is("2015/01/01"));
+        assertThat(row.get("PLACE"), is("東京"));
+        assertThat(row.contentEquals(row.indexOf("WEATHER"), "晴れ"), is(true));
+        row = csvReader.readRow();
+        assertThat(row.isEmpty(2), is(true));
+        assertThat(row.get("WEATHER"), is(nullValue()));
+        assertThat(row.get("NOT_EXIST"), is(nullValue()));
+        row = csvReader.readRow();
+        assertThat(row.getLineNumber(), is(4L));
+        assertThat(row.toMap().get("PLACE"), is("神奈川"));
+        assertThat(csvReader.readRow(), is(nullValue()));
+        csvReader.close();
+    }
+
+    /**
+     * バッファより長い行と、CRのみの改行を含むファイルを読み込めること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadRowLongLine() throws Exception {
+        CsvReader csvReader = new CsvReaderImpl("src/test/java/jp/co/tis/util/testData/testReadRowLongLine.csv");
+        csvReader.open();
+        CsvRow row = csvReader.readRow();
+        assertThat(row.length(0), is(10000));
+        assertThat(row.get("B"), is("1"));
+        row = csvReader.readRow();
+        assertThat(row.get("A"), is("2"));
+        assertThat(row.get("B"), is(nullValue()));
+        assertThat(csvReader.readRow(), is(nullValue()));
+        csvReader.close();
+    }
+
+    /**
+     * gzip形式のファイルを展開しながら読み込めること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadRowFromGzip() throws Exception {
+        File gzipFile = gzip(Files.readAllBytes(Paths.get("src/test/java/jp/co/tis/util/testData/testReadLineUtf8Crlf.csv")));
+        CsvReader csvReader = new CsvReaderImpl(gzipFile.getPath(), Charset.forName("UTF-8"));
+        csvReader.open();
+        CsvRow row = csvReader.readRow();
+        assertThat(row.get("PLACE"), is("東京"));
+        csvReader.readRow();
+        row = csvReader.readRow();
+        assertThat(row.getLineNumber(), is(4L));
+        assertThat(row.get("PLACE"), is("神奈川"));
+        assertThat(csvReader.readRow(), is(nullValue()));
+        csvReader.close();
+    }
+
+    /**
+     * gzip形式のファイルでも、項目数の誤りが行番号付きで送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadRowFromGzipInCaseOfFileFormatException() throws Exception {
+        File gzipFile = gzip(Files.readAllBytes(Paths.get("src/test/java/jp/co/tis/util/testData/testReadLineInCaseOfFileFormatException.csv")));
+        CsvReader csvReader = new CsvReaderImpl(gzipFile.getPath());
+        csvReader.open();
+        try {
+            csvReader.readRow();
+            fail();
+        } catch (FileFormatException e) {
+            assertThat(e.getMessage(), is("ヘッダー部と項目数が異なっています。"));
+            assertThat(e.getLineNumber(), is(2L));
+        } finally {
+            csvReader.close();
+        }
+    }
+
+    /**
+     * gzip形式でないファイルの場合、オープン時にFileFormatExceptionが送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenGzipInCaseOfNotGzip() throws Exception {
+        File file = temporaryFolder.newFile("notGzip.csv.gz");
+        Files.copy(Paths.get("src/test/java/jp/co/tis/util/testData/normal.csv"), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        CsvReader csvReader = new CsvReaderImpl(file.getPath());
+        exception.expect(FileFormatException.class);
+        exception.expectMessage("gzip形式のファイルではありません。");
+        csvReader.open();
+    }
+
+    /**
+     * 途中までしかないgzip形式のファイルの場合、読み込み時にFileFormatExceptionが送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadRowFromGzipInCaseOfTruncated() throws Exception {
+        StringBuilder csv = new StringBuilder("A,B\n");
+        for (int i = 0; i < 100000; i++) {
+            csv.append(i).append(',').append(i * 7919 % 100003).append('\n');
+        }
+        byte[] compressed = Files.readAllBytes(gzip(csv.toString().getBytes("UTF-8")).toPath());
+        File truncated = temporaryFolder.newFile("truncated.csv.gz");
+        Files.write(truncated.toPath(), Arrays.copyOf(compressed, compressed.length / 2));
+
+        CsvReader csvReader = new CsvReaderImpl(truncated.getPath());
+        csvReader.open();
+        try {
+            while (csvReader.readRow() != null) {
+                // 破損箇所まで読み込む
+            }
+            fail();
+        } catch (FileFormatException e) {
+            assertThat(e.getMessage(), is("gzip形式のファイルが破損しています。"));
+            assertThat(e.getLineNumber() > 2, is(true));
+        } finally {
+            csvReader.close();
+        }
+    }
+
+    /**
+     * データをgzip形式で圧縮したファイルを作成する。
+     *
+     * @param data 圧縮するデータ
+     * @return gzip形式のファイル
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private File gzip(byte[] data) throws IOException {
+        File file = temporaryFolder.newFile();
+        File gzipFile = new File(file.getPath() + ".csv.gz");
+        OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipFile));
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        return gzipFile;
+    }
+
+    /**
+     * 取得した位置から開き直すと、続きの行から正しい行番号で読み込めること（CRLF）。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenAtOffset() throws Exception {
+        String csvPath = "src/test/java/jp/co/tis/util/testData/testReadLineUtf8Crlf.csv";
+        CsvReader csvReader = new CsvReaderImpl(csvPath, Charset.forName("UTF-8"));
+        csvReader.open();
+        csvReader.readRow();
+        long offset = csvReader.getOffset();
+        csvReader.close();
+
+        csvReader.open(offset, 2);
+        CsvRow row = csvReader.readRow();
+        assertThat(row.getLineNumber(), is(3L));
+        assertThat(row.get("PLACE"), is("千葉"));
+        assertThat(csvReader.readRow().get("PLACE"), is("神奈川"));
+        assertThat(csvReader.readRow(), is(nullValue()));
+        assertThat(csvReader.getOffset(), is(new File(csvPath).length()));
+        csvReader.close();
+    }
+
+    /**
+     * CRのみの改行の直後から開き直せること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenAtOffsetAfterCarriageReturn() throws Exception {
+        String csvPath = "src/test/java/jp/co/tis/util/testData/testReadRowLongLine.csv";
+        CsvReader csvReader = new CsvReaderImpl(csvPath);
+        csvReader.open();
+        csvReader.readRow();
+        long offset = csvReader.getOffset();
+        csvReader.close();
+
+        csvReader.open(offset, 2);
+        CsvRow row = csvReader.readRow();
+        assertThat(row.get("A"), is("2"));
+        assertThat(row.getLineNumber(), is(3L));
+        assertThat(csvReader.readRow(), is(nullValue()));
+        csvReader.close();
+    }
+
+    /**
+     * gzip形式のファイルでも、展開後の位置から開き直せること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenAtOffsetFromGzip() throws Exception {
+        File gzipFile = gzip(Files.readAllBytes(Paths.get("src/test/java/jp/co/tis/util/testData/testReadLineUtf8Crlf.csv")));
+        CsvReader csvReader = new CsvReaderImpl(gzipFile.getPath(), Charset.forName("UTF-8"));
+        csvReader.open();
+        csvReader.readRow();
+        csvReader.readRow();
+        long offset = csvReader.getOffset();
+        csvReader.close();
+
+        csvReader.open(offset, 3);
+        CsvRow row = csvReader.readRow();
+        assertThat(row.getLineNumber(), is(4L));
+        assertThat(row.get("PLACE"), is("神奈川"));
+        csvReader.close();
+    }
+
+    /**
+     * ファイルの範囲外の位置を指定した場合、FileFormatExceptionが送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenAtOffsetInCaseOfOutOfRange() throws Exception {
+        CsvReader csvReader = new CsvReaderImpl("src/test/java/jp/co/tis/util/testData/normal.csv");
+        exception.expect(FileFormatException.class);
+        exception.expectMessage("読み込み開始位置がファイルの範囲外です。");
+        csvReader.open(100000, 10);
+    }
+
+    /**
+     * 入力ストリームから読み込めること。ファイル名が「.gz」で終わる場合は展開しながら読み込むこと。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadRowFromInputStream() throws Exception {
+        byte[] data = Files.readAllBytes(Paths.get("src/test/java/jp/co/tis/util/testData/testReadLineUtf8Crlf.csv"));
+        CsvReader csvReader = new CsvReaderImpl(new ByteArrayInputStream(data), "upload.csv", Charset.forName("UTF-8"));
+        csvReader.open();
+        assertThat(csvReader.readRow().get("PLACE"), is("東京"));
+        csvReader.close();
+
+        byte[] compressed = Files.readAllBytes(gzip(data).toPath());
+        csvReader = new CsvReaderImpl(new ByteArrayInputStream(compressed), "upload.csv.gz", Charset.forName("UTF-8"));
+        csvReader.open();
+        csvReader.readRow();
+        csvReader.readRow();
+        assertThat(csvReader.readRow().get("PLACE"), is("神奈川"));
+        assertThat(csvReader.readRow(), is(nullValue()));
+        csvReader.close();
+    }
+
+    /**
+     * 入力ストリームから読み込む場合、開始位置を指定するとIllegalStateExceptionが送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenAtOffsetFromInputStream() throws Exception {
+        CsvReader csvReader = new CsvReaderImpl(new ByteArrayInputStream(new byte[0]), "upload.csv", Charset.forName("UTF-8"));
+        exception.expect(IllegalStateException.class);
+        csvReader.open(10, 1);
+    }
 }
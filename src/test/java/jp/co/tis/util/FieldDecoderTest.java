@@ -0,0 +1,126 @@
+package jp.co.tis.util;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * FieldDecoderをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class FieldDecoderTest {
+
+    /**
+     * ルール設定
+     */
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    /**
+     * 符号付きの整数が変換されること。
+     */
+    @Test
+    public void testParseInt() {
+        assertThat(FieldDecoder.parseInt("0"), is(0));
+        assertThat(FieldDecoder.parseInt("30"), is(30));
+        assertThat(FieldDecoder.parseInt("-12"), is(-12));
+        assertThat(FieldDecoder.parseInt("+5"), is(5));
+        assertThat(FieldDecoder.parseInt("007"), is(7));
+        assertThat(FieldDecoder.parseInt("999999999"), is(999999999));
+
+        char[] chars = "2015/01/01,東京,晴れ,-3,10".toCharArray();
+        assertThat(FieldDecoder.parseInt(chars, 17, 19), is(-3));
+        assertThat(FieldDecoder.parseInt(chars, 20, 22), is(10));
+    }
+
+    /**
+     * 整数に変換できない場合、例外を送出せずに{@link FieldDecoder#INVALID_INT}が返却されること。
+     */
+    @Test
+    public void testParseIntInCaseOfInvalid() {
+        assertThat(FieldDecoder.parseInt((String) null), is(FieldDecoder.INVALID_INT));
+        assertThat(FieldDecoder.parseInt(""), is(FieldDecoder.INVALID_INT));
+        assertThat(FieldDecoder.parseInt("-"), is(FieldDecoder.INVALID_INT));
+        assertThat(FieldDecoder.parseInt("1.5"), is(FieldDecoder.INVALID_INT));
+        assertThat(FieldDecoder.parseInt("abc"), is(FieldDecoder.INVALID_INT));
+        assertThat(FieldDecoder.parseInt("--1"), is(FieldDecoder.INVALID_INT));
+        assertThat(FieldDecoder.parseInt(" 1"), is(FieldDecoder.INVALID_INT));
+        assertThat(FieldDecoder.parseInt("１"), is(FieldDecoder.INVALID_INT));
+        assertThat(FieldDecoder.parseInt("1234567890"), is(FieldDecoder.INVALID_INT));
+
+        char[] chars = "12,ab".toCharArray();
+        assertThat(FieldDecoder.parseInt(chars, 2, 2), is(FieldDecoder.INVALID_INT));
+        assertThat(FieldDecoder.parseInt(chars, 3, 5), is(FieldDecoder.INVALID_INT));
+    }
+
+    /**
+     * 日付が1970/01/01からの経過日数に変換され、java.timeの計算結果と一致すること。
+     */
+    @Test
+    public void testParseEpochDay() {
+        assertThat(FieldDecoder.parseEpochDay("1970/01/01"), is(0L));
+        assertThat(FieldDecoder.parseEpochDay("1969/12/31"), is(-1L));
+        assertThat(FieldDecoder.parseEpochDay("2015/1/2"), is(LocalDate.of(2015, 1, 2).toEpochDay()));
+        assertThat(FieldDecoder.parseEpochDay("0000/01/01"), is(LocalDate.of(0, 1, 1).toEpochDay()));
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+        for (LocalDate date = LocalDate.of(1800, 1, 1); date.getYear() < 2200; date = date.plusDays(1)) {
+            String value = date.format(formatter);
+            assertThat(value, FieldDecoder.parseEpochDay(value), is(date.toEpochDay()));
+            char[] chars = ("," + value + ",").toCharArray();
+            assertThat(value, FieldDecoder.parseEpochDay(chars, 1, chars.length - 1), is(date.toEpochDay()));
+        }
+    }
+
+    /**
+     * 経過日数が「yyyy/MM/dd」形式の文字列に変換され、変換前の日付に戻ること。
+     */
+    @Test
+    public void testFormatEpochDay() {
+        assertThat(FieldDecoder.formatEpochDay(0), is("1970/01/01"));
+        assertThat(FieldDecoder.formatEpochDay(-1), is("1969/12/31"));
+        assertThat(FieldDecoder.formatEpochDay(LocalDate.of(0, 1, 1).toEpochDay()), is("0000/01/01"));
+        assertThat(FieldDecoder.formatEpochDay(LocalDate.of(9999, 12, 31).toEpochDay()), is("9999/12/31"));
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+        for (LocalDate date = LocalDate.of(1800, 1, 1); date.getYear() < 2200; date = date.plusDays(1)) {
+            assertThat(FieldDecoder.formatEpochDay(date.toEpochDay()), is(date.format(formatter)));
+        }
+    }
+
+    /**
+     * 範囲外の日付の場合、例外が送出されること。
+     */
+    @Test
+    public void testFormatEpochDayInCaseOfOutOfRange() {
+        exception.expect(IllegalArgumentException.class);
+        FieldDecoder.formatEpochDay(LocalDate.of(10000, 1, 1).toEpochDay());
+    }
+
+    /**
+     * 日付に変換できない場合、例外を送出せずに{@link FieldDecoder#INVALID_DATE}が返却されること。
+     */
+    @Test
+    public void testParseEpochDayInCaseOfInvalid() {
+        String[] values = {null, "", "20150101", "2015-01-01", "2015/01", "2015/01/", "2015//01", "2015/001/01", "2015/01/001",
+                "15/01/01", "2015/00/01", "2015/13/01", "2015/01/00", "2015/01/32", "2015/02/29", "1900/02/29", "2015/04/31",
+                "2015/01/01abc", "2015/0a/01", "２０１５/01/01"};
+        for (String value : values) {
+            assertThat(value, FieldDecoder.parseEpochDay(value), is(FieldDecoder.INVALID_DATE));
+            if (value != null) {
+                char[] chars = value.toCharArray();
+                assertThat(value, FieldDecoder.parseEpochDay(chars, 0, chars.length), is(FieldDecoder.INVALID_DATE));
+            }
+        }
+        assertThat(FieldDecoder.parseEpochDay("2016/02/29"), is(LocalDate.of(2016, 2, 29).toEpochDay()));
+        assertThat(FieldDecoder.parseEpochDay("2000/02/29"), is(LocalDate.of(2000, 2, 29).toEpochDay()));
+    }
+}
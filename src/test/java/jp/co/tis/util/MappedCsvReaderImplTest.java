@@ -0,0 +1,215 @@
+package jp.co.tis.util;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import jp.co.tis.exception.FileFormatException;
+
+/**
+ * MappedCsvReaderImplをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class MappedCsvReaderImplTest {
+
+    /**
+     * ルール設定
+     */
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    /**
+     * 正常にオープンできること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenNormally() throws Exception {
+        CsvReader csvReader = new MappedCsvReaderImpl("src/test/java/jp/co/tis/util/testData/normal.csv");
+        csvReader.open();
+        csvReader.close();
+    }
+
+    /**
+     * ファイルが存在しない場合、FileNotFoundExceptionが送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenInCaseOfFileNotFoundException() throws Exception {
+        CsvReader csvReader = new MappedCsvReaderImpl("noFile.csv");
+        exception.expect(FileNotFoundException.class);
+        csvReader.open();
+    }
+
+    /**
+     * ヘッダー行が存在しない場合、FileFormatExceptionが送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenInCaseOfFileFormatException() throws Exception {
+        CsvReader csvReader = new MappedCsvReaderImpl("src/test/java/jp/co/tis/util/testData/testOpenInCaseOfFileFormatException1.csv");
+        exception.expect(FileFormatException.class);
+        exception.expectMessage("ヘッダー行が存在しません。");
+        csvReader.open();
+    }
+
+    /**
+     * ヘッダー行の項目が重複している場合、FileFormatExceptionが送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenInCaseOfFileFormatException2() throws Exception {
+        CsvReader csvReader = new MappedCsvReaderImpl("src/test/java/jp/co/tis/util/testData/testOpenInCaseOfFileFormatException2.csv");
+        exception.expect(FileFormatException.class);
+        exception.expectMessage("ヘッダー行の項目が重複しています。");
+        csvReader.open();
+    }
+
+    /**
+     * ヘッダー行に空項目が含まれる場合、FileFormatExceptionが送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenInCaseOfFileFormatException3() throws Exception {
+        CsvReader csvReader = new MappedCsvReaderImpl("src/test/java/jp/co/tis/util/testData/testOpenInCaseOfFileFormatException3.csv");
+        exception.expect(FileFormatException.class);
+        exception.expectMessage("ヘッダー行に空項目が含まれています。");
+        csvReader.open();
+    }
+
+    /**
+     * クローズ後に読み込むとIOExceptionが送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testCloseAfterOpen() throws Exception {
+        CsvReader csvReader = new MappedCsvReaderImpl("src/test/java/jp/co/tis/util/testData/normal.csv");
+        csvReader.open();
+        csvReader.close();
+        exception.expect(IOException.class);
+        exception.expectMessage("ファイルが開かれていません。");
+        csvReader.readLine();
+    }
+
+    /**
+     * 全ての行を読み込んだ後は{@code null}が返却されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadLineAtFileEnd() throws Exception {
+        CsvReader csvReader = new MappedCsvReaderImpl("src/test/java/jp/co/tis/util/testData/normal.csv");
+        csvReader.open();
+        Map<String, String> map = csvReader.readLine();
+        assertThat(map.get("id"), is("1"));
+        assertThat(map.get("name"), is("ikeda"));
+        assertThat(map.get("age"), is("25"));
+        csvReader.readLine();
+        csvReader.readLine();
+        assertThat(csvReader.readLine(), is(nullValue()));
+    }
+
+    /**
+     * ヘッダー部と項目数が異なる場合、FileFormatExceptionが送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadLineInCaseOfFileFormatException() throws Exception {
+        CsvReader csvReader = new MappedCsvReaderImpl("src/test/java/jp/co/tis/util/testData/testReadLineInCaseOfFileFormatException.csv");
+        csvReader.open();
+        exception.expect(FileFormatException.class);
+        exception.expectMessage("ヘッダー部と項目数が異なっています。");
+        csvReader.readLine();
+    }
+
+    /**
+     * 空の項目は{@code null}、空白のみの項目はそのまま返却されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadLineWhenDataHaveBlank() throws Exception {
+        CsvReader csvReader = new MappedCsvReaderImpl("src/test/java/jp/co/tis/util/testData/testReadLineWhenDataHaveBlank.csv");
+        csvReader.open();
+        Map<String, String> map = csvReader.readLine();
+        assertThat(map.get("A"), is(nullValue()));
+        assertThat(map.get("B"), is(" "));
+        assertThat(map.get("C"), is("  "));
+    }
+
+    /**
+     * 文字コードを指定してCRLFのファイルを読み込めること。行がマッピング範囲をまたぐ場合も正しく読み込めること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadLineUtf8CrlfWithSmallWindow() throws Exception {
+        CsvReader csvReader = new MappedCsvReaderImpl("src/test/java/jp/co/tis/util/testData/testReadLineUtf8Crlf.csv",
+                Charset.forName("UTF-8"), 40);
+        csvReader.open();
+        Map<String, String> map = csvReader.readLine();
+        assertThat(map.get("WEATHER_DATE"), is("2015/01/01"));
+        assertThat(map.get("PLACE"), is("東京"));
+        assertThat(map.get("WEATHER"), is("晴れ"));
+        map = csvReader.readLine();
+        assertThat(map.get("PLACE"), is("千葉"));
+        assertThat(map.get("WEATHER"), is(nullValue()));
+        map = csvReader.readLine();
+        assertThat(map.get("PLACE"), is("神奈川"));
+        assertThat(map.get("WEATHER"), is("雪"));
+        assertThat(csvReader.readLine(), is(nullValue()));
+        csvReader.close();
+    }
+
+    /**
+     * 取得した位置から開き直すと、続きの行から正しい行番号で読み込めること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenAtOffset() throws Exception {
+        CsvReader csvReader = new MappedCsvReaderImpl("src/test/java/jp/co/tis/util/testData/testReadLineUtf8Crlf.csv",
+                Charset.forName("UTF-8"));
+        csvReader.open();
+        csvReader.readRow();
+        long offset = csvReader.getOffset();
+        csvReader.close();
+
+        csvReader.open(offset, 2);
+        CsvRow row = csvReader.readRow();
+        assertThat(row.getLineNumber(), is(3L));
+        assertThat(row.get("PLACE"), is("千葉"));
+        assertThat(csvReader.readRow().get("PLACE"), is("神奈川"));
+        assertThat(csvReader.readRow(), is(nullValue()));
+        csvReader.close();
+    }
+
+    /**
+     * ファイルの範囲外の位置を指定した場合、FileFormatExceptionが送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenAtOffsetInCaseOfOutOfRange() throws Exception {
+        CsvReader csvReader = new MappedCsvReaderImpl("src/test/java/jp/co/tis/util/testData/normal.csv");
+        exception.expect(FileFormatException.class);
+        exception.expectMessage("読み込み開始位置がファイルの範囲外です。");
+        csvReader.open(100000, 10);
+    }
+}
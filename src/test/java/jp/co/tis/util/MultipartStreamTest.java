@@ -0,0 +1,228 @@
+package jp.co.tis.util;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import jp.co.tis.exception.FileSizeLimitExceededException;
+
+/**
+ * MultipartStreamをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class MultipartStreamTest {
+
+    /**
+     * ルール設定
+     */
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    /** テストデータの文字コード */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** 区切り文字列 */
+    private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+    /**
+     * Content-Typeから区切り文字列を取り出せること。
+     */
+    @Test
+    public void testGetBoundary() {
+        assertThat(MultipartStream.getBoundary("multipart/form-data; boundary=" + BOUNDARY), is(BOUNDARY));
+        assertThat(MultipartStream.getBoundary("multipart/form-data; boundary=\"a b\"; charset=UTF-8"), is("a b"));
+        assertThat(MultipartStream.getBoundary("application/x-www-form-urlencoded"), is(nullValue()));
+        assertThat(MultipartStream.getBoundary(null), is(nullValue()));
+    }
+
+    /**
+     * 各パートの項目名、ファイル名、本文が読み込まれること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testNextPart() throws Exception {
+        byte[] body = concat(part("comment", null, "コメント".getBytes(UTF_8)),
+                part("file", "weather.csv", "WEATHER_DATE,PLACE\r\n2015/01/01,東京\r\n".getBytes(UTF_8)), end());
+        MultipartStream target = new MultipartStream(new ByteArrayInputStream(body), BOUNDARY);
+
+        assertThat(target.nextPart(), is(true));
+        assertThat(target.getFieldName(), is("comment"));
+        assertThat(target.getFileName(), is(nullValue()));
+        assertThat(new String(readAll(target.openPart()), UTF_8), is("コメント"));
+
+        assertThat(target.nextPart(), is(true));
+        assertThat(target.getFieldName(), is("file"));
+        assertThat(target.getFileName(), is("weather.csv"));
+        assertThat(new String(readAll(target.openPart()), UTF_8), is("WEATHER_DATE,PLACE\r\n2015/01/01,東京\r\n"));
+
+        assertThat(target.nextPart(), is(false));
+        assertThat(target.nextPart(), is(false));
+    }
+
+    /**
+     * 読み込んでいないパートの本文は読み飛ばされること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testNextPartSkipsUnreadBody() throws Exception {
+        byte[] body = concat(part("first", "first.csv", new byte[200000]), part("second", "second.csv", "abc".getBytes(UTF_8)),
+                end());
+        MultipartStream target = new MultipartStream(new ByteArrayInputStream(body), BOUNDARY);
+
+        assertThat(target.nextPart(), is(true));
+        assertThat(target.nextPart(), is(true));
+        assertThat(target.getFileName(), is("second.csv"));
+        assertThat(new String(readAll(target.openPart()), UTF_8), is("abc"));
+        assertThat(target.nextPart(), is(false));
+    }
+
+    /**
+     * 入力バッファより大きい本文が、区切り文字列に似たバイト列を含んでいても、そのまま読み込まれること。<br/>
+     * リクエスト本文は少しずつ届くものとする。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testLargePartWithPartialDelimiters() throws Exception {
+        byte[] data = new byte[300000];
+        new Random(1).nextBytes(data);
+        byte[] partialDelimiter = ("\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1)).getBytes(UTF_8);
+        for (int i = 1000; i + partialDelimiter.length < data.length; i += 65531) {
+            System.arraycopy(partialDelimiter, 0, data, i, partialDelimiter.length);
+        }
+        byte[] body = concat(part("file", "weather.csv", data), end());
+        MultipartStream target = new MultipartStream(new TrickleInputStream(new ByteArrayInputStream(body), 997), BOUNDARY);
+
+        assertThat(target.nextPart(), is(true));
+        assertThat(Arrays.equals(readAll(target.openPart()), data), is(true));
+        assertThat(target.nextPart(), is(false));
+    }
+
+    /**
+     * 区切り文字列の前にリクエスト本文が終わった場合、例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testTruncatedBody() throws Exception {
+        byte[] body = part("file", "weather.csv", "WEATHER_DATE,PLACE\r\n".getBytes(UTF_8));
+        MultipartStream target = new MultipartStream(new ByteArrayInputStream(body), BOUNDARY);
+
+        assertThat(target.nextPart(), is(true));
+        exception.expect(IOException.class);
+        exception.expectMessage("マルチパートの形式が不正です。");
+        readAll(target.openPart());
+    }
+
+    /**
+     * 上限を超えるバイト数を読み込んだ場合、例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testSizeLimitedInputStream() throws Exception {
+        byte[] body = concat(part("file", "weather.csv", new byte[1001]), end());
+        MultipartStream target = new MultipartStream(new ByteArrayInputStream(body), BOUNDARY);
+        target.nextPart();
+
+        SizeLimitedInputStream in = new SizeLimitedInputStream(target.openPart(), 1000);
+        exception.expect(FileSizeLimitExceededException.class);
+        exception.expectMessage("ファイルサイズが上限（1000バイト）を超えています。");
+        readAll(in);
+    }
+
+    /**
+     * パートを作成する。
+     *
+     * @param name 項目名
+     * @param fileName ファイル名
+     * @param data 本文
+     * @return パート
+     */
+    private static byte[] part(String name, String fileName, byte[] data) {
+        String header = "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\""
+                + (fileName == null ? "" : "; filename=\"" + fileName + "\"\r\nContent-Type: text/csv") + "\r\n\r\n";
+        return concat(header.getBytes(UTF_8), data, "\r\n".getBytes(UTF_8));
+    }
+
+    /**
+     * 最後の区切り文字列を作成する。
+     *
+     * @return 最後の区切り文字列
+     */
+    private static byte[] end() {
+        return ("--" + BOUNDARY + "--\r\n").getBytes(UTF_8);
+    }
+
+    /**
+     * バイト配列を連結する。
+     *
+     * @param arrays バイト配列
+     * @return 連結したバイト配列
+     */
+    private static byte[] concat(byte[]... arrays) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] array : arrays) {
+            out.write(array, 0, array.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 入力ストリームを最後まで読み込む。
+     *
+     * @param in 入力ストリーム
+     * @return 読み込んだバイト配列
+     * @throws IOException 入出力エラーが発生した場合
+     */
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 一度に指定のバイト数までしか返さない入力ストリーム。
+     */
+    private static final class TrickleInputStream extends FilterInputStream {
+
+        /** 一度に返すバイト数の上限 */
+        private final int maxRead;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param in 入力ストリーム
+         * @param maxRead 一度に返すバイト数の上限
+         */
+        TrickleInputStream(InputStream in, int maxRead) {
+            super(in);
+            this.maxRead = maxRead;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return in.read(b, off, Math.min(len, maxRead));
+        }
+    }
+}
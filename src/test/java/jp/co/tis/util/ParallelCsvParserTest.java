@@ -0,0 +1,140 @@
+package jp.co.tis.util;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import jp.co.tis.exception.FileFormatException;
+
+/**
+ * ParallelCsvParserをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class ParallelCsvParserTest {
+
+    /**
+     * ルール設定
+     */
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    /** 解析に使用するプール */
+    private ForkJoinPool pool;
+
+    /**
+     * プールを生成する。
+     */
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    /**
+     * プールを終了する。
+     */
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 複数のチャンクに分割しても、全ての行がファイル中の順序どおりに渡されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testParseKeepsOrder() throws Exception {
+        ParallelCsvParser parser = new ParallelCsvParser("src/test/java/jp/co/tis/util/testData/testParallel.csv",
+                Charset.forName("UTF-8"), 100);
+        final List<String> idList = new ArrayList<String>();
+        final List<Long> lineNumberList = new ArrayList<Long>();
+        final int[] chunkCount = new int[1];
+        long rowCount = parser.parse(pool, new CsvChunkHandler<List<String>>() {
+            @Override
+            public List<String> createChunk() {
+                return new ArrayList<String>();
+            }
+
+            @Override
+            public void handleRow(List<String> chunk, CsvRow row) {
+                chunk.add(row.get("id") + ":" + row.getLineNumber());
+            }
+
+            @Override
+            public void chunkCompleted(List<String> chunk) {
+                chunkCount[0]++;
+                for (String value : chunk) {
+                    String[] pair = value.split(":");
+                    idList.add(pair[0]);
+                    lineNumberList.add(Long.valueOf(pair[1]));
+                }
+            }
+        });
+
+        assertThat(rowCount, is(200L));
+        assertThat(chunkCount[0] > 1, is(true));
+        assertThat(idList.size(), is(200));
+        for (int i = 0; i < 200; i++) {
+            assertThat(idList.get(i), is(String.valueOf(i + 1)));
+            assertThat(lineNumberList.get(i), is(i + 2L));
+        }
+    }
+
+    /**
+     * 形式に誤りがある行が複数ある場合、最も前にある行の行番号で例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testParseInCaseOfFileFormatException() throws Exception {
+        ParallelCsvParser parser = new ParallelCsvParser("src/test/java/jp/co/tis/util/testData/testParallelFormatError.csv",
+                Charset.forName("UTF-8"), 100);
+        try {
+            parser.parse(pool, new CsvChunkHandler<Object>() {
+                @Override
+                public Object createChunk() {
+                    return null;
+                }
+
+                @Override
+                public void handleRow(Object chunk, CsvRow row) {
+                }
+
+                @Override
+                public void chunkCompleted(Object chunk) {
+                }
+            });
+            fail();
+        } catch (FileFormatException e) {
+            assertThat(e.getMessage(), is("ヘッダー部と項目数が異なっています。"));
+            assertThat(e.getLineNumber(), is(150L));
+        }
+    }
+
+    /**
+     * ヘッダー行の精査が逐次読み込みと同じであること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testParseInCaseOfHeaderError() throws Exception {
+        ParallelCsvParser parser = new ParallelCsvParser("src/test/java/jp/co/tis/util/testData/testOpenInCaseOfFileFormatException2.csv",
+                Charset.forName("UTF-8"));
+        exception.expect(FileFormatException.class);
+        exception.expectMessage("ヘッダー行の項目が重複しています。");
+        parser.parse(pool, null);
+    }
+}
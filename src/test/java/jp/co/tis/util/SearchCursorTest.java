@@ -0,0 +1,54 @@
+package jp.co.tis.util;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * SearchCursorをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class SearchCursorTest {
+
+    /**
+     * トークンに変換したカーソルが、同じ内容のカーソルに戻ること。
+     */
+    @Test
+    public void testEncodeAndDecode() {
+        SearchCursor cursor = SearchCursor.decode(new SearchCursor(true, "2015/01/01", "神奈川").encode());
+        assertThat(cursor.isForward(), is(true));
+        assertThat(cursor.getWeatherDate(), is("2015/01/01"));
+        assertThat(cursor.getPlace(), is("神奈川"));
+
+        SearchCursor reversed = SearchCursor.decode(cursor.reverse().encode());
+        assertThat(reversed.isForward(), is(false));
+        assertThat(reversed.getWeatherDate(), is("2015/01/01"));
+        assertThat(reversed.getPlace(), is("神奈川"));
+    }
+
+    /**
+     * トークンがURLやHTMLの属性値にそのまま使用できる文字のみからなること。
+     */
+    @Test
+    public void testEncodeCharacters() {
+        String token = new SearchCursor(false, "2015/12/31", "東京?&=").encode();
+        assertThat(token.matches("[A-Za-z0-9_-]+"), is(true));
+    }
+
+    /**
+     * 不正なトークンの場合、nullが返却されること。
+     */
+    @Test
+    public void testDecodeInCaseOfInvalidToken() {
+        assertThat(SearchCursor.decode(null), is(nullValue()));
+        assertThat(SearchCursor.decode(""), is(nullValue()));
+        assertThat(SearchCursor.decode("n"), is(nullValue()));
+        assertThat(SearchCursor.decode("x" + new SearchCursor(true, "2015/01/01", "東京").encode().substring(1)), is(nullValue()));
+        assertThat(SearchCursor.decode("n!!!"), is(nullValue()));
+        // 区切り文字のない値
+        assertThat(SearchCursor.decode("nMjAxNS8wMS8wMQ"), is(nullValue()));
+    }
+}
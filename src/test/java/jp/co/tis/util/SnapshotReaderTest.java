@@ -0,0 +1,230 @@
+package jp.co.tis.util;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import jp.co.tis.exception.FileFormatException;
+import jp.co.tis.model.Weather;
+
+/**
+ * SnapshotReaderとSnapshotWriterをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class SnapshotReaderTest {
+
+    /**
+     * ルール設定
+     */
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    /**
+     * スナップショットの作成先
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * 書き込んだ天気がブロックをまたいで順に読み込まれ、値のない項目はnullとなること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testWriteAndRead() throws Exception {
+        File file = temporaryFolder.newFile();
+        SnapshotWriter writer = new SnapshotWriter(file, 2);
+        writer.open();
+        writer.write(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        writer.write(new Weather("2015/01/01", "千葉", "曇り", "9", "-1"));
+        writer.write(new Weather("2015/01/02", "東京", null, null, "-12"));
+        writer.write(new Weather(null, null, "雨", "0", null));
+        writer.write(new Weather("1969/12/31", "東京", "晴れ", "-999", "999"));
+        writer.close();
+        assertThat(writer.getTotalRows(), is(5L));
+
+        List<Weather> weatherList = readAll(file);
+        assertThat(weatherList.size(), is(5));
+        assertWeather(weatherList.get(0), "2015/01/01", "東京", "晴れ", "10", "2");
+        assertWeather(weatherList.get(1), "2015/01/01", "千葉", "曇り", "9", "-1");
+        assertWeather(weatherList.get(2), "2015/01/02", "東京", null, null, "-12");
+        assertWeather(weatherList.get(3), null, null, "雨", "0", null);
+        assertWeather(weatherList.get(4), "1969/12/31", "東京", "晴れ", "-999", "999");
+    }
+
+    /**
+     * 場所の種類が1バイトの番号に収まらない場合も、正しく読み込まれること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testWriteAndReadInCaseOfLargeDictionary() throws Exception {
+        File file = temporaryFolder.newFile();
+        SnapshotWriter writer = new SnapshotWriter(file, 100);
+        writer.open();
+        for (int i = 0; i < 70000; i++) {
+            writer.write(new Weather("2015/01/01", "地点" + i, "晴れ", "10", "2"));
+        }
+        writer.close();
+
+        List<Weather> weatherList = readAll(file);
+        assertThat(weatherList.size(), is(70000));
+        assertThat(weatherList.get(0).getPlace(), is("地点0"));
+        assertThat(weatherList.get(300).getPlace(), is("地点300"));
+        assertThat(weatherList.get(69999).getPlace(), is("地点69999"));
+    }
+
+    /**
+     * 同じ内容のCSVファイルより小さいこと。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testFileSize() throws Exception {
+        File file = temporaryFolder.newFile();
+        SnapshotWriter writer = new SnapshotWriter(file);
+        writer.open();
+        long csvSize = 0;
+        String[] places = {"東京", "千葉", "神奈川", "埼玉"};
+        String[] weathers = {"晴れ", "曇り", "雨", "雪"};
+        for (int i = 0; i < 100000; i++) {
+            Weather weather = new Weather(FieldDecoder.formatEpochDay(16436 + i / 4), places[i % 4], weathers[i % 3], Integer.toString(i % 40),
+                    Integer.toString(i % 30 - 10));
+            writer.write(weather);
+            csvSize += (weather.getWeatherDate() + "," + weather.getPlace() + "," + weather.getWeather() + "," + weather.getMaxTemperature()
+                    + "," + weather.getMinTemperature() + "\n").getBytes(StandardCharsets.UTF_8).length;
+        }
+        writer.close();
+
+        assertThat(file.length() * 2 < csvSize, is(true));
+    }
+
+    /**
+     * 元の文字列に戻せない日付の場合、例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testWriteInCaseOfNonCanonicalDate() throws Exception {
+        SnapshotWriter writer = new SnapshotWriter(temporaryFolder.newFile());
+        writer.open();
+        exception.expect(FileFormatException.class);
+        exception.expectMessage("日付「2015/1/1」はスナップショットに保存できません。");
+        try {
+            writer.write(new Weather("2015/1/1", "東京", "晴れ", "10", "2"));
+        } finally {
+            writer.abort();
+        }
+    }
+
+    /**
+     * 元の文字列に戻せない気温の場合、例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testWriteInCaseOfNonCanonicalTemperature() throws Exception {
+        SnapshotWriter writer = new SnapshotWriter(temporaryFolder.newFile());
+        writer.open();
+        exception.expect(FileFormatException.class);
+        exception.expectMessage("最高気温「007」はスナップショットに保存できません。");
+        try {
+            writer.write(new Weather("2015/01/01", "東京", "晴れ", "007", "2"));
+        } finally {
+            writer.abort();
+        }
+    }
+
+    /**
+     * 書き込みが中断されたファイルの場合、オープン時に例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenInCaseOfTruncatedFile() throws Exception {
+        File file = temporaryFolder.newFile();
+        SnapshotWriter writer = new SnapshotWriter(file, 2);
+        writer.open();
+        for (int i = 0; i < 5; i++) {
+            writer.write(new Weather("2015/01/01", "東京", "晴れ", "1" + i, "2"));
+        }
+        writer.close();
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(file.length() - 20);
+        randomAccessFile.close();
+
+        exception.expect(IOException.class);
+        exception.expectMessage("スナップショットファイルが途中で終わっています。");
+        new SnapshotReader(file).open();
+    }
+
+    /**
+     * スナップショットでないファイルの場合、オープン時に例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenInCaseOfInvalidFile() throws Exception {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), "WEATHER_DATE,PLACE,WEATHER\n".getBytes(StandardCharsets.UTF_8));
+
+        exception.expect(IOException.class);
+        exception.expectMessage("スナップショットファイルの形式が不正です。");
+        new SnapshotReader(file).open();
+    }
+
+    /**
+     * スナップショットの全ての天気を読み込む。
+     *
+     * @param file スナップショット
+     * @return 天気のリスト
+     * @throws Exception 例外。
+     */
+    private List<Weather> readAll(File file) throws Exception {
+        List<Weather> weatherList = new ArrayList<Weather>();
+        SnapshotReader reader = new SnapshotReader(file);
+        reader.open();
+        try {
+            List<Weather> block;
+            while ((block = reader.readBlock()) != null) {
+                weatherList.addAll(block);
+            }
+        } finally {
+            reader.close();
+        }
+        return weatherList;
+    }
+
+    /**
+     * 天気の内容を検証する。
+     *
+     * @param weather 天気
+     * @param weatherDate 日付
+     * @param place 場所
+     * @param weatherName 天気
+     * @param maxTemperature 最高気温
+     * @param minTemperature 最低気温
+     */
+    private void assertWeather(Weather weather, String weatherDate, String place, String weatherName, String maxTemperature,
+            String minTemperature) {
+        assertThat(weather.getWeatherDate(), is(weatherDate));
+        assertThat(weather.getPlace(), is(place));
+        assertThat(weather.getWeather(), is(weatherName));
+        assertThat(weather.getMaxTemperature(), is(maxTemperature));
+        assertThat(weather.getMinTemperature(), is(minTemperature));
+    }
+}
@@ -0,0 +1,146 @@
+package jp.co.tis.util;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import jp.co.tis.model.Weather;
+
+/**
+ * SpillFileReaderとSpillFileWriterをテストするクラス。
+ *
+ * @author Saito Takuma
+ * @since 2.1
+ */
+public class SpillFileReaderTest {
+
+    /**
+     * ルール設定
+     */
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    /**
+     * 一時ファイルの作成先
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * 書き込んだ天気が順に読み込まれ、値のない項目はnullとなること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testWriteAndRead() throws Exception {
+        File file = temporaryFolder.newFile();
+        SpillFileWriter writer = new SpillFileWriter(file);
+        writer.open();
+        writer.write(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        writer.write(new Weather("2015/01/02", null, "", null, "-1"));
+        writer.close();
+
+        SpillFileReader reader = new SpillFileReader(file);
+        reader.open();
+        Weather first = reader.read();
+        assertThat(first.getWeatherDate(), is("2015/01/01"));
+        assertThat(first.getPlace(), is("東京"));
+        assertThat(first.getWeather(), is("晴れ"));
+        assertThat(first.getMaxTemperature(), is("10"));
+        assertThat(first.getMinTemperature(), is("2"));
+        Weather second = reader.read();
+        assertThat(second.getPlace(), is(nullValue()));
+        assertThat(second.getWeather(), is(""));
+        assertThat(second.getMaxTemperature(), is(nullValue()));
+        assertThat(second.getMinTemperature(), is("-1"));
+        assertThat(reader.read(), is(nullValue()));
+        reader.close();
+    }
+
+    /**
+     * 書き込み時に取得した位置から読み込めること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenWithOffset() throws Exception {
+        File file = temporaryFolder.newFile();
+        SpillFileWriter writer = new SpillFileWriter(file);
+        writer.open();
+        writer.write(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        long offset = writer.getOffset();
+        writer.write(new Weather("2015/01/01", "千葉", "曇り", "9", "1"));
+        writer.close();
+
+        assertThat(offset, is(file.length() - (file.length() - 5) / 2));
+        SpillFileReader reader = new SpillFileReader(file);
+        reader.open(offset);
+        assertThat(reader.read().getPlace(), is("千葉"));
+        assertThat(reader.read(), is(nullValue()));
+        reader.close();
+    }
+
+    /**
+     * 開始位置がファイルの範囲外の場合、例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenWithOffsetOutOfRange() throws Exception {
+        File file = temporaryFolder.newFile();
+        SpillFileWriter writer = new SpillFileWriter(file);
+        writer.open();
+        writer.close();
+
+        exception.expect(IOException.class);
+        exception.expectMessage("読み込み開始位置がファイルの範囲外です。");
+        new SpillFileReader(file).open(file.length() + 1);
+    }
+
+    /**
+     * 一時ファイルの形式でない場合、例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testOpenInCaseOfInvalidFormat() throws Exception {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), "WEATHER_DATE,PLACE\n".getBytes("UTF-8"));
+
+        exception.expect(IOException.class);
+        exception.expectMessage("一時ファイルの形式が不正です。");
+        new SpillFileReader(file).open();
+    }
+
+    /**
+     * ファイルが途中で終わっている場合、例外が送出されること。
+     *
+     * @throws Exception 例外。
+     */
+    @Test
+    public void testReadInCaseOfTruncatedFile() throws Exception {
+        File file = temporaryFolder.newFile();
+        SpillFileWriter writer = new SpillFileWriter(file);
+        writer.open();
+        writer.write(new Weather("2015/01/01", "東京", "晴れ", "10", "2"));
+        writer.close();
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(file.length() - 1);
+        randomAccessFile.close();
+
+        SpillFileReader reader = new SpillFileReader(file);
+        reader.open();
+        exception.expect(IOException.class);
+        exception.expectMessage("一時ファイルが途中で終わっています。");
+        reader.read();
+    }
+}